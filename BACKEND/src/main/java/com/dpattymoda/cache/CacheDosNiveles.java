@@ -0,0 +1,307 @@
+package com.dpattymoda.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Caché de dos niveles: Caffeine local (L1) delante de Redis compartido (L2).
+ * Las lecturas que fallan en L1 se resuelven en L2 y se copian a L1;
+ * las invalidaciones se propagan al resto de nodos mediante el publicador.
+ * Un fallo de Redis degrada a sólo L1 en lugar de romper la petición, y el cortocircuito
+ * evita esperar el timeout de Redis en cada petición mientras siga caído.
+ * Las invalidaciones que no llegan a Redis quedan pendientes: sus claves no se leen de L2
+ * (que puede seguir con el valor viejo) hasta reenviar el borrado y el aviso a los demás
+ * nodos, lo que se hace con el siguiente acceso correcto a Redis
+ */
+@Slf4j
+public class CacheDosNiveles implements Cache {
+
+    // Por encima de este número de claves pendientes se reenvía un vaciado completo
+    private static final int MAXIMO_PENDIENTES = 10_000;
+
+    private final String nombre;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remota;
+    // Borra varias claves de L2 con un solo comando
+    private final Consumer<Collection<String>> borradoRemoto;
+    // Recibe las claves invalidadas, o null si se vació todo
+    private final BiConsumer<String, Collection<String>> publicadorInvalidacion;
+    private final CortocircuitoRedis cortocircuito;
+    // Cachés derivadas de ésta que deben caer con cada invalidación, local o remota
+    private final List<Consumer<String>> dependientes = new CopyOnWriteArrayList<>();
+
+    // Invalidaciones que no llegaron a L2 ni a los demás nodos
+    private final Set<String> pendientes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean vaciadoPendiente = new AtomicBoolean();
+    private final AtomicBoolean reenviando = new AtomicBoolean();
+
+    private final Counter aciertosRemotos;
+    private final Counter fallosRemotos;
+    private final Counter erroresRemotos;
+    private final Counter omitidasRemotas;
+    private final Counter invalidaciones;
+
+    public CacheDosNiveles(String nombre,
+                           com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+                           Cache remota,
+                           Consumer<Collection<String>> borradoRemoto,
+                           BiConsumer<String, Collection<String>> publicadorInvalidacion,
+                           CortocircuitoRedis cortocircuito,
+                           MeterRegistry meterRegistry) {
+        this.nombre = nombre;
+        this.local = local;
+        this.remota = remota;
+        this.borradoRemoto = borradoRemoto;
+        this.publicadorInvalidacion = publicadorInvalidacion;
+        this.cortocircuito = cortocircuito;
+        this.aciertosRemotos = contador(meterRegistry, "cache.l2.solicitudes", "result", "hit");
+        this.fallosRemotos = contador(meterRegistry, "cache.l2.solicitudes", "result", "miss");
+        this.erroresRemotos = contador(meterRegistry, "cache.l2.errores", null, null);
+        this.omitidasRemotas = contador(meterRegistry, "cache.l2.omitidas", null, null);
+        this.invalidaciones = contador(meterRegistry, "cache.invalidaciones", "origen", "local");
+    }
+
+    @Override
+    public String getName() {
+        return nombre;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String clave = clave(key);
+        Object valor = local.getIfPresent(clave);
+        if (valor != null) {
+            return new SimpleValueWrapper(valor);
+        }
+        if (vaciadoPendiente.get() || pendientes.contains(clave) || !cortocircuito.permite()) {
+            omitidasRemotas.increment();
+            return null;
+        }
+
+        try {
+            ValueWrapper remoto = remota.get(clave);
+            registrarExito();
+            if (remoto != null && remoto.get() != null) {
+                aciertosRemotos.increment();
+                local.put(clave, remoto.get());
+                return remoto;
+            }
+            fallosRemotos.increment();
+        } catch (RuntimeException e) {
+            registrarError("leer", e);
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper valor = get(key);
+        if (valor == null) {
+            return null;
+        }
+        if (type != null && !type.isInstance(valor.get())) {
+            throw new IllegalStateException("Valor en caché '" + nombre + "' no es de tipo " + type.getName());
+        }
+        return (T) valor.get();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper valor = get(key);
+        if (valor != null) {
+            return (T) valor.get();
+        }
+
+        T cargado;
+        try {
+            cargado = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, cargado);
+        return cargado;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            return;
+        }
+        String clave = clave(key);
+        local.put(clave, value);
+        if (!cortocircuito.permite()) {
+            omitidasRemotas.increment();
+            return;
+        }
+        try {
+            remota.put(clave, value);
+            registrarExito();
+        } catch (RuntimeException e) {
+            registrarError("escribir", e);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        invalidarVarias(List.of(key));
+    }
+
+    /**
+     * Invalidar varias claves con un solo borrado en L2 y un solo mensaje a los demás nodos
+     */
+    public void invalidarVarias(Collection<?> keys) {
+        if (keys.isEmpty()) return;
+        List<String> claves = keys.stream().map(this::clave).toList();
+        local.invalidateAll(claves);
+        invalidaciones.increment(claves.size());
+
+        if (cortocircuito.permite()) {
+            try {
+                borradoRemoto.accept(claves);
+                publicadorInvalidacion.accept(nombre, claves);
+                registrarExito();
+            } catch (RuntimeException e) {
+                registrarError("invalidar", e);
+                aplazar(claves);
+            }
+        } else {
+            omitidasRemotas.increment();
+            aplazar(claves);
+        }
+        claves.forEach(this::notificarDependientes);
+    }
+
+    @Override
+    public void clear() {
+        local.invalidateAll();
+        invalidaciones.increment();
+        if (cortocircuito.permite()) {
+            try {
+                remota.clear();
+                publicadorInvalidacion.accept(nombre, null);
+                registrarExito();
+            } catch (RuntimeException e) {
+                registrarError("limpiar", e);
+                aplazar(null);
+            }
+        } else {
+            omitidasRemotas.increment();
+            aplazar(null);
+        }
+        notificarDependientes(null);
+    }
+
+    /**
+     * Reenviar a L2 y a los demás nodos las invalidaciones pendientes; si vuelve a fallar
+     * siguen pendientes
+     */
+    public void reenviarPendientes() {
+        if ((!vaciadoPendiente.get() && pendientes.isEmpty()) || !reenviando.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (vaciadoPendiente.getAndSet(false)) {
+                try {
+                    remota.clear();
+                    publicadorInvalidacion.accept(nombre, null);
+                    pendientes.clear();
+                } catch (RuntimeException e) {
+                    vaciadoPendiente.set(true);
+                    throw e;
+                }
+            } else {
+                List<String> claves = List.copyOf(pendientes);
+                borradoRemoto.accept(claves);
+                publicadorInvalidacion.accept(nombre, claves);
+                claves.forEach(pendientes::remove);
+            }
+            // Ya está cerrado: no vuelve a avisar a los que esperan la recuperación
+            cortocircuito.registrarExito();
+            log.info("Caché L2 '{}': invalidaciones pendientes reenviadas", nombre);
+        } catch (RuntimeException e) {
+            registrarError("reenviar invalidaciones", e);
+        } finally {
+            reenviando.set(false);
+        }
+    }
+
+    /**
+     * Aplicar una invalidación recibida de otro nodo: sólo afecta a L1
+     */
+    public void invalidarLocal(String clave) {
+        if (clave == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(clave);
+        }
+        notificarDependientes(clave);
+    }
+
+    /**
+     * Registrar una caché derivada; recibe la clave invalidada, o null si se vació todo
+     */
+    public void registrarDependiente(Consumer<String> dependiente) {
+        dependientes.add(dependiente);
+    }
+
+    private void notificarDependientes(String clave) {
+        for (Consumer<String> dependiente : dependientes) {
+            dependiente.accept(clave);
+        }
+    }
+
+    /**
+     * Guardar una invalidación que no llegó a Redis; null si se vació todo
+     */
+    private void aplazar(Collection<String> claves) {
+        if (claves == null || pendientes.size() + claves.size() > MAXIMO_PENDIENTES) {
+            vaciadoPendiente.set(true);
+            pendientes.clear();
+        } else if (!vaciadoPendiente.get()) {
+            pendientes.addAll(claves);
+        }
+    }
+
+    private void registrarExito() {
+        cortocircuito.registrarExito();
+        reenviarPendientes();
+    }
+
+    private void registrarError(String operacion, RuntimeException e) {
+        erroresRemotos.increment();
+        cortocircuito.registrarFallo();
+        log.warn("Caché L2 '{}' no disponible al {}: {}", nombre, operacion, e.getMessage());
+    }
+
+    private String clave(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter contador(MeterRegistry registry, String metrica, String tag, String valor) {
+        Counter.Builder builder = Counter.builder(metrica).tag("cache", nombre);
+        if (tag != null) {
+            builder.tag(tag, valor);
+        }
+        return builder.register(registry);
+    }
+}
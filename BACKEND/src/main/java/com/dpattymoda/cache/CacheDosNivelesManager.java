@@ -0,0 +1,127 @@
+package com.dpattymoda.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * CacheManager que compone cachés Caffeine (L1) con las de Redis (L2)
+ * y escucha el canal de invalidación para mantener coherente el L1 entre nodos
+ */
+@Slf4j
+public class CacheDosNivelesManager implements CacheManager, MessageListener {
+
+    public static final String CANAL_INVALIDACION = "dpattymoda:cache:invalidacion";
+
+    private static final String SEPARADOR = "|";
+    // Separa las claves de una invalidación por lotes dentro del mismo mensaje
+    private static final String SEPARADOR_CLAVES = "\n";
+    private static final String TODAS_LAS_CLAVES = "*";
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long tamanioMaximoLocal;
+    private final Duration expiracionLocal;
+    private final CortocircuitoRedis cortocircuito;
+
+    // Identifica a este nodo para ignorar sus propios mensajes de invalidación
+    private final String nodoId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, CacheDosNiveles> caches = new ConcurrentHashMap<>();
+
+    public CacheDosNivelesManager(RedisCacheManager redisCacheManager,
+                                  StringRedisTemplate redisTemplate,
+                                  MeterRegistry meterRegistry,
+                                  long tamanioMaximoLocal,
+                                  Duration expiracionLocal,
+                                  CortocircuitoRedis cortocircuito) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.tamanioMaximoLocal = tamanioMaximoLocal;
+        this.expiracionLocal = expiracionLocal;
+        this.cortocircuito = cortocircuito;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::crearCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * Encadenar una caché derivada a las invalidaciones de la caché indicada
+     */
+    public void registrarDependiente(String nombre, Consumer<String> dependiente) {
+        caches.computeIfAbsent(nombre, this::crearCache).registrarDependiente(dependiente);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] partes = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (partes.length < 3 || nodoId.equals(partes[0])) {
+            return;
+        }
+
+        CacheDosNiveles cache = caches.get(partes[1]);
+        if (cache == null) {
+            return;
+        }
+        if (TODAS_LAS_CLAVES.equals(partes[2])) {
+            cache.invalidarLocal(null);
+            meterRegistry.counter("cache.invalidaciones", "cache", partes[1], "origen", "remoto").increment();
+            return;
+        }
+        String[] claves = partes[2].split(SEPARADOR_CLAVES);
+        for (String clave : claves) {
+            cache.invalidarLocal(clave);
+        }
+        meterRegistry.counter("cache.invalidaciones", "cache", partes[1], "origen", "remoto").increment(claves.length);
+    }
+
+    private CacheDosNiveles crearCache(String nombre) {
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+            .maximumSize(tamanioMaximoLocal)
+            .expireAfterWrite(expiracionLocal)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, nombre, Tags.of("nivel", "l1"));
+
+        RedisCache remota = (RedisCache) redisCacheManager.getCache(nombre);
+        String prefijo = remota.getCacheConfiguration().getKeyPrefixFor(nombre);
+        CacheDosNiveles cache = new CacheDosNiveles(nombre, local, remota,
+            claves -> redisTemplate.delete(claves.stream().map(clave -> prefijo + clave).toList()),
+            this::publicarInvalidacion, cortocircuito, meterRegistry);
+        // Las invalidaciones omitidas mientras Redis no respondía se reenvían al recuperarse
+        cortocircuito.alRecuperarse(cache::reenviarPendientes);
+        return cache;
+    }
+
+    private void publicarInvalidacion(String cache, Collection<String> claves) {
+        redisTemplate.convertAndSend(CANAL_INVALIDACION, nodoId + SEPARADOR + cache + SEPARADOR
+            + (claves != null ? String.join(SEPARADOR_CLAVES, claves) : TODAS_LAS_CLAVES));
+    }
+}
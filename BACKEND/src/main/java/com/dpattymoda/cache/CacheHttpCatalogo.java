@@ -0,0 +1,131 @@
+package com.dpattymoda.cache;
+
+import com.dpattymoda.service.VersionCatalogoService;
+import com.dpattymoda.service.VersionCatalogoService.Validador;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Respuestas HTTP condicionales para los endpoints públicos del catálogo.
+ * El ETag y Last-Modified salen de la versión del catálogo: la de los listados se consulta
+ * en memoria; la del detalle de un producto, como mucho con una lectura por clave de su
+ * fecha de modificación. Si el cliente ya tiene la versión vigente se responde 304 y el
+ * cuerpo sólo se arma cuando hace falta
+ */
+@Component
+public class CacheHttpCatalogo {
+
+    // Una codificación con q=0 está explícitamente rechazada por el cliente
+    private static final Pattern CALIDAD_CERO = Pattern.compile("q=0(\\.0*)?");
+
+    private final VersionCatalogoService versionCatalogoService;
+    private final CacheControl cacheControl;
+
+    public CacheHttpCatalogo(VersionCatalogoService versionCatalogoService,
+                             @Value("${app.catalogo.http.max-age-segundos:60}") long maxAgeSegundos,
+                             @Value("${app.catalogo.http.s-max-age-segundos:300}") long sMaxAgeSegundos) {
+        this.versionCatalogoService = versionCatalogoService;
+        // El contenido no depende del usuario: la CDN puede guardarlo aunque la petición esté autenticada
+        this.cacheControl = CacheControl.maxAge(maxAgeSegundos, TimeUnit.SECONDS)
+            .sMaxAge(sMaxAgeSegundos, TimeUnit.SECONDS)
+            .cachePublic();
+    }
+
+    public <T> ResponseEntity<T> responder(WebRequest request, Supplier<T> cuerpo) {
+        return responder(request, (String) null, cuerpo);
+    }
+
+    /**
+     * Igual que {@link #responder(WebRequest, Supplier)}, con un discriminador para datos
+     * derivados que se recalculan aparte (por ejemplo, los rankings)
+     */
+    public <T> ResponseEntity<T> responder(WebRequest request, String discriminador, Supplier<T> cuerpo) {
+        Validador listados = versionCatalogoService.obtenerValidadorListados();
+        Validador validador = discriminador != null
+            ? new Validador(listados.valor() + "-" + discriminador, listados.modificadaEn())
+            : listados;
+        return responder(request, Optional.of(validador), cuerpo);
+    }
+
+    /**
+     * Respuesta sobre un producto buscado por código, validada con la versión de ese producto
+     */
+    public <T> ResponseEntity<T> responderProductoPorCodigo(WebRequest request, String codigo, Supplier<T> cuerpo) {
+        return responder(request, versionCatalogoService.obtenerValidadorProductoPorCodigo(codigo), cuerpo);
+    }
+
+    /**
+     * Respuesta de la lista de marcas, que no cambia con ventas ni stock
+     */
+    public <T> ResponseEntity<T> responderMarcas(WebRequest request, Supplier<T> cuerpo) {
+        return responder(request, Optional.of(versionCatalogoService.obtenerValidadorMarcas()), cuerpo);
+    }
+
+    /**
+     * Detalle de producto ya serializado: los bytes se escriben tal cual, con gzip
+     * si existe la versión comprimida y el cliente la acepta; varía por idioma como su caché
+     */
+    public ResponseEntity<byte[]> responderSerializado(WebRequest request, UUID productoId,
+                                                       Supplier<CacheRespuestasProducto.RespuestaSerializada> cuerpo) {
+        if (noModificado(request, versionCatalogoService.obtenerValidadorProducto(productoId))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT_LANGUAGE).build();
+        }
+
+        CacheRespuestasProducto.RespuestaSerializada respuesta = cuerpo.get();
+        boolean gzip = respuesta.tieneGzip() && aceptaGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        byte[] bytes = gzip ? respuesta.gzip() : respuesta.json();
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+            .cacheControl(cacheControl)
+            .varyBy(HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT_LANGUAGE)
+            .contentType(MediaType.APPLICATION_JSON)
+            .contentLength(bytes.length);
+        if (gzip) {
+            // Con Content-Encoding presente el contenedor no vuelve a comprimir
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(bytes);
+    }
+
+    private <T> ResponseEntity<T> responder(WebRequest request, Optional<Validador> validador, Supplier<T> cuerpo) {
+        if (noModificado(request, validador)) {
+            // ETag y Last-Modified ya quedaron en la respuesta
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).body(cuerpo.get());
+    }
+
+    // Sin validador (recurso inexistente) no hay 304: el cuerpo responde el error
+    private boolean noModificado(WebRequest request, Optional<Validador> validador) {
+        return validador
+            .map(v -> request.checkNotModified("W/\"" + v.valor() + "\"", v.modificadaEn()))
+            .orElse(false);
+    }
+
+    private boolean aceptaGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String codificacion : acceptEncoding.toLowerCase(Locale.ROOT).split(",")) {
+            String[] partes = codificacion.trim().split(";");
+            if (partes[0].trim().equals("gzip")) {
+                return partes.length == 1 || !CALIDAD_CERO.matcher(partes[1].replace(" ", "")).matches();
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,103 @@
+package com.dpattymoda.cache;
+
+import com.dpattymoda.config.CacheConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Respuestas de detalle de producto ya serializadas a JSON UTF-8, y precomprimidas con gzip
+ * cuando vale la pena. Un acierto se copia tal cual al cuerpo de la respuesta, sin armar el
+ * DTO ni pasar por Jackson. Cuelga de la caché de detalle: cualquier invalidación de ésta,
+ * local o llegada de otro nodo, descarta también los bytes de todos los idiomas
+ */
+@Component
+public class CacheRespuestasProducto {
+
+    private static final String NOMBRE = "productoDetalleSerializado";
+
+    private final ObjectMapper objectMapper;
+    private final int umbralGzipBytes;
+    private final Cache<Clave, RespuestaSerializada> respuestas;
+
+    public CacheRespuestasProducto(ObjectMapper objectMapper,
+                                   CacheDosNivelesManager cacheManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.catalogo.respuestas.tamanio-maximo:500}") long tamanioMaximo,
+                                   @Value("${app.catalogo.respuestas.expiracion-segundos:600}") long expiracionSegundos,
+                                   @Value("${app.catalogo.respuestas.umbral-gzip-bytes:1024}") int umbralGzipBytes) {
+        this.objectMapper = objectMapper;
+        this.umbralGzipBytes = umbralGzipBytes;
+        // La política de Caffeine retiene los productos más consultados dentro del tamaño máximo
+        this.respuestas = Caffeine.newBuilder()
+            .maximumSize(tamanioMaximo)
+            .expireAfterWrite(Duration.ofSeconds(expiracionSegundos))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, respuestas, NOMBRE);
+
+        cacheManager.registrarDependiente(CacheConfig.CACHE_PRODUCTO_DETALLE, clave -> {
+            if (clave == null) {
+                respuestas.invalidateAll();
+            } else {
+                respuestas.asMap().keySet().removeIf(c -> c.productoId().equals(clave));
+            }
+        });
+    }
+
+    /**
+     * Bytes del detalle del producto en el idioma de la petición; en un fallo se obtiene el
+     * DTO y se serializa una sola vez
+     */
+    public RespuestaSerializada obtenerDetalle(UUID productoId, Locale locale, Supplier<?> detalle) {
+        return respuestas.get(new Clave(productoId.toString(), locale.getLanguage()),
+            clave -> serializar(detalle.get()));
+    }
+
+    private RespuestaSerializada serializar(Object cuerpo) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(cuerpo);
+            return new RespuestaSerializada(json, json.length >= umbralGzipBytes ? comprimir(json) : null);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta: " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] comprimir(byte[] datos) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(datos.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(datos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return salida.toByteArray();
+    }
+
+    // Sólo el idioma: las variantes regionales no cambian el cuerpo y multiplicarían las entradas
+    private record Clave(String productoId, String idioma) {
+    }
+
+    /**
+     * Cuerpo JSON y, si supera el umbral, su versión gzip
+     */
+    public record RespuestaSerializada(byte[] json, byte[] gzip) {
+
+        public boolean tieneGzip() {
+            return gzip != null;
+        }
+    }
+}
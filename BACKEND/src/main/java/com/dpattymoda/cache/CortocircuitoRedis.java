@@ -0,0 +1,71 @@
+package com.dpattymoda.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cortocircuito compartido por todas las cachés L2, que usan el mismo Redis.
+ * Tras varios fallos seguidos deja de llamar a Redis durante el enfriamiento; al vencer,
+ * una sola petición prueba la conexión y el resto sigue sin L2 hasta que esa prueba resulte.
+ * Así una caída de Redis no hace esperar el timeout del comando a cada fallo de L1
+ */
+@Slf4j
+public class CortocircuitoRedis {
+
+    private final int umbralFallos;
+    private final long enfriamientoMs;
+
+    private final AtomicInteger fallosSeguidos = new AtomicInteger();
+    // 0 = cerrado; si no, instante (epoch ms) hasta el que se omite Redis
+    private final AtomicLong abiertoHasta = new AtomicLong();
+    // Se ejecutan al cerrarse el cortocircuito, en el hilo cuya llamada a Redis lo cerró
+    private final List<Runnable> alRecuperarse = new CopyOnWriteArrayList<>();
+
+    public CortocircuitoRedis(int umbralFallos, long enfriamientoMs) {
+        this.umbralFallos = umbralFallos;
+        this.enfriamientoMs = enfriamientoMs;
+    }
+
+    /**
+     * Indica si se puede llamar a Redis; vencido el enfriamiento deja pasar una sola prueba
+     */
+    public boolean permite() {
+        long hasta = abiertoHasta.get();
+        if (hasta == 0) {
+            return true;
+        }
+        long ahora = System.currentTimeMillis();
+        // Quien gana el CAS hace la prueba; los demás ven el nuevo plazo y siguen sin L2
+        return ahora >= hasta && abiertoHasta.compareAndSet(hasta, ahora + enfriamientoMs);
+    }
+
+    public boolean estaAbierto() {
+        return abiertoHasta.get() != 0;
+    }
+
+    public void registrarExito() {
+        fallosSeguidos.set(0);
+        if (abiertoHasta.getAndSet(0) != 0) {
+            log.info("Caché L2 disponible de nuevo");
+            alRecuperarse.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Registrar una acción para cuando Redis vuelva a responder
+     */
+    public void alRecuperarse(Runnable accion) {
+        alRecuperarse.add(accion);
+    }
+
+    public void registrarFallo() {
+        if (fallosSeguidos.incrementAndGet() >= umbralFallos
+            && abiertoHasta.getAndSet(System.currentTimeMillis() + enfriamientoMs) == 0) {
+            log.warn("Caché L2 omitida durante {} ms tras {} fallos seguidos", enfriamientoMs, umbralFallos);
+        }
+    }
+}
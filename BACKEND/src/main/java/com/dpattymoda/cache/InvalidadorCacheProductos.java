@@ -0,0 +1,68 @@
+package com.dpattymoda.cache;
+
+import com.dpattymoda.config.CacheConfig;
+import com.dpattymoda.event.CatalogoModificadoEvent;
+import com.dpattymoda.event.CategoriasModificadasEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Invalida las cachés de producto cuando se confirma un cambio de catálogo o de stock.
+ * Se ejecuta después del commit para que ninguna lectura vuelva a cachear el estado anterior
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InvalidadorCacheProductos {
+
+    private final CacheManager cacheManager;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent evento) {
+        invalidarProductos(evento.getProductoIds());
+        log.debug("Cachés de producto invalidadas para {} productos ({})",
+            evento.getProductoIds().size(), evento.getTipoCambio());
+    }
+
+    /**
+     * Invalidar las entradas de unos productos sin tocar la versión del catálogo;
+     * para cambios confirmados que no modifican el catálogo, como los totales de ventas
+     */
+    public void invalidarProductos(Collection<UUID> productoIds) {
+        if (productoIds.isEmpty()) return;
+
+        // La caché por código sólo guarda IDs y se valida al leer: no hace falta tocarla
+        invalidar(cacheManager.getCache(CacheConfig.CACHE_PRODUCTO_DETALLE), productoIds);
+        invalidar(cacheManager.getCache(CacheConfig.CACHE_PRODUCTO), productoIds);
+    }
+
+    /**
+     * Las rutas de categoría van dentro de los DTOs de producto: se vacían las cachés de producto
+     */
+    @EventListener
+    public void alModificarCategorias(CategoriasModificadasEvent evento) {
+        cacheManager.getCache(CacheConfig.CACHE_PRODUCTO_DETALLE).clear();
+        cacheManager.getCache(CacheConfig.CACHE_PRODUCTO).clear();
+        log.info("Cachés de producto vaciadas por cambios en categorías");
+    }
+
+    /**
+     * Una sola ida a Redis por caché en lugar de una por producto
+     */
+    private void invalidar(Cache cache, Collection<UUID> productoIds) {
+        if (cache instanceof CacheDosNiveles dosNiveles) {
+            dosNiveles.invalidarVarias(productoIds);
+        } else {
+            productoIds.forEach(cache::evict);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.dpattymoda.config;
+
+import com.dpattymoda.cache.CacheDosNivelesManager;
+import com.dpattymoda.cache.CortocircuitoRedis;
+import com.dpattymoda.dto.response.ProductoDetalleResponse;
+import com.dpattymoda.dto.response.ProductoResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Configuración de caché de dos niveles para DPattyModa
+ * L1 Caffeine por nodo, L2 Redis compartido e invalidación entre nodos por pub/sub
+ */
+@Configuration
+public class CacheConfig {
+
+    public static final String CACHE_PRODUCTO_DETALLE = "productoDetalle";
+    public static final String CACHE_PRODUCTO = "producto";
+    // Código de producto -> ID; el producto en sí sale de la caché por ID
+    public static final String CACHE_PRODUCTO_CODIGO = "productoIdPorCodigo";
+
+    @Bean
+    public CacheDosNivelesManager cacheManager(RedisConnectionFactory connectionFactory,
+                                               StringRedisTemplate redisTemplate,
+                                               ObjectMapper objectMapper,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${spring.cache.redis.time-to-live:3600000}") long ttlRemotoMs,
+                                               @Value("${app.cache.l1.tamanio-maximo:10000}") long tamanioMaximoLocal,
+                                               @Value("${app.cache.l1.expiracion-segundos:300}") long expiracionLocalSegundos,
+                                               @Value("${app.cache.l2.umbral-fallos:3}") int umbralFallos,
+                                               @Value("${app.cache.l2.enfriamiento-ms:30000}") long enfriamientoMs) {
+        RedisCacheConfiguration configuracion = RedisCacheConfiguration.defaultCacheConfig()
+            .entryTtl(Duration.ofMillis(ttlRemotoMs))
+            .disableCachingNullValues()
+            .prefixCacheNameWith("dpattymoda:");
+
+        // Un serializador tipado por caché: el JSON no necesita metadatos de clase
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
+            .cacheDefaults(configuracion)
+            .withCacheConfiguration(CACHE_PRODUCTO_DETALLE,
+                conSerializador(configuracion, objectMapper, ProductoDetalleResponse.class))
+            .withCacheConfiguration(CACHE_PRODUCTO,
+                conSerializador(configuracion, objectMapper, ProductoResponse.class))
+            .withCacheConfiguration(CACHE_PRODUCTO_CODIGO,
+                conSerializador(configuracion, objectMapper, UUID.class))
+            .build();
+        redisCacheManager.initializeCaches();
+
+        CacheDosNivelesManager manager = new CacheDosNivelesManager(redisCacheManager, redisTemplate,
+            meterRegistry, tamanioMaximoLocal, Duration.ofSeconds(expiracionLocalSegundos),
+            new CortocircuitoRedis(umbralFallos, enfriamientoMs));
+        manager.getCache(CACHE_PRODUCTO_DETALLE);
+        manager.getCache(CACHE_PRODUCTO);
+        manager.getCache(CACHE_PRODUCTO_CODIGO);
+        return manager;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer invalidacionCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            CacheDosNivelesManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(CacheDosNivelesManager.CANAL_INVALIDACION));
+        return container;
+    }
+
+    private RedisCacheConfiguration conSerializador(RedisCacheConfiguration base, ObjectMapper objectMapper,
+                                                    Class<?> tipo) {
+        return base.serializeValuesWith(RedisSerializationContext.SerializationPair
+            .fromSerializer(new Jackson2JsonRedisSerializer<>(objectMapper, tipo)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.dpattymoda.controller;
+
+import com.dpattymoda.dto.response.ImagenResponse;
+import com.dpattymoda.exception.BusinessException;
+import com.dpattymoda.exception.ResourceNotFoundException;
+import com.dpattymoda.service.ImagenService;
+import com.dpattymoda.service.ImagenService.ArchivoImagen;
+import com.dpattymoda.util.EnvioArchivos;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+
+/**
+ * Controlador para subida y entrega de imágenes del catálogo
+ */
+@Tag(name = "Imágenes", description = "Subida de imágenes de productos y entrega con variantes por ancho")
+@RestController
+@RequestMapping("/api/imagenes")
+@RequiredArgsConstructor
+public class ImagenController {
+
+    // Los nombres son hashes de contenido: una URL nunca cambia, se puede cachear un año
+    private static final String CACHE_DEFINITIVO = CacheControl.maxAge(Duration.ofDays(365))
+        .cachePublic().immutable().getHeaderValue();
+    // Variante aún no generada servida con la original: revalidar pronto
+    private static final String CACHE_PROVISIONAL = CacheControl.maxAge(Duration.ofSeconds(60))
+        .cachePublic().getHeaderValue();
+
+    private final ImagenService imagenService;
+
+    @Operation(summary = "Subir imagen", description = "Guardar una imagen (JPEG, PNG, GIF o WebP) y generar sus variantes en segundo plano")
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMINISTRADOR') or hasRole('EMPLEADO')")
+    public ResponseEntity<ImagenResponse> subirImagen(
+            @Parameter(description = "Archivo de imagen") @RequestParam("archivo") MultipartFile archivo) {
+        if (archivo.isEmpty()) {
+            throw new BusinessException("El archivo de imagen está vacío");
+        }
+
+        try (InputStream contenido = archivo.getInputStream()) {
+            ImagenResponse response = imagenService.guardarImagen(contenido);
+            return ResponseEntity.status(response.isExistente() ? HttpStatus.OK : HttpStatus.CREATED).body(response);
+        } catch (IOException e) {
+            throw new BusinessException("No se pudo leer el archivo de imagen: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Obtener imagen", description = "Entregar una imagen o una de sus variantes")
+    @GetMapping("/{nombre:.+}")
+    public void obtenerImagen(@PathVariable String nombre,
+                              HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        ArchivoImagen archivo = imagenService.obtenerArchivo(nombre)
+            .orElseThrow(() -> new ResourceNotFoundException("Imagen no encontrada"));
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, archivo.definitivo() ? CACHE_DEFINITIVO : CACHE_PROVISIONAL);
+        if (archivo.definitivo()) {
+            String etag = "\"" + nombre + "\"";
+            response.setHeader(HttpHeaders.ETAG, etag);
+            String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+            if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return;
+            }
+        }
+
+        response.setContentType(archivo.tipoContenido());
+        EnvioArchivos.enviar(archivo.ruta(), archivo.tamanio(), request, response);
+    }
+}
@@ -0,0 +1,83 @@
+package com.dpattymoda.controller;
+
+import com.dpattymoda.dto.request.DisponibilidadRequest;
+import com.dpattymoda.dto.response.AlertaStockResponse;
+import com.dpattymoda.dto.response.DisponibilidadResponse;
+import com.dpattymoda.dto.response.SaldoKardexResponse;
+import com.dpattymoda.dto.response.ValorizacionInventarioResponse;
+import com.dpattymoda.service.AlertasStockService;
+import com.dpattymoda.service.DisponibilidadService;
+import com.dpattymoda.service.KardexService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Controlador para consultas de inventario
+ */
+@Tag(name = "Inventario", description = "Consultas de inventario, alertas de stock bajo y kardex")
+@RestController
+@RequestMapping("/api/inventario")
+@RequiredArgsConstructor
+public class InventarioController {
+
+    private final AlertasStockService alertasStockService;
+    private final DisponibilidadService disponibilidadService;
+    private final KardexService kardexService;
+
+    @Operation(summary = "Stock bajo", description = "Inventarios bajo su cantidad mínima, los más urgentes primero. " +
+        "Los cambios se notifican por /ws-notifications en /topic/stock-bajo y /topic/stock-bajo/{sucursalId}")
+    @GetMapping("/stock-bajo")
+    @PreAuthorize("hasRole('ADMINISTRADOR') or hasRole('EMPLEADO')")
+    public ResponseEntity<List<AlertaStockResponse>> obtenerStockBajo(
+            @Parameter(description = "ID de la sucursal; todas si se omite") @RequestParam(required = false) UUID sucursalId) {
+        return ResponseEntity.ok(alertasStockService.obtenerAlertas(sucursalId));
+    }
+
+    @Operation(summary = "Disponibilidad", description = "Disponibilidad de varias variantes en una sucursal, " +
+        "con las demás sucursales que tienen stock como alternativa")
+    @PostMapping("/disponibilidad")
+    public ResponseEntity<DisponibilidadResponse> consultarDisponibilidad(
+            @Valid @RequestBody DisponibilidadRequest request) {
+        Map<UUID, Integer> lineas = request.getLineas().stream()
+            .collect(Collectors.toMap(DisponibilidadRequest.LineaRequest::getVarianteId,
+                DisponibilidadRequest.LineaRequest::getCantidad, Integer::sum, LinkedHashMap::new));
+        return ResponseEntity.ok(disponibilidadService.consultar(request.getSucursalId(), lineas));
+    }
+
+    @Operation(summary = "Saldo a una fecha", description = "Stock y costo promedio de una variante en una sucursal, " +
+        "reconstruidos desde el kardex")
+    @GetMapping("/kardex/saldo")
+    @PreAuthorize("hasRole('ADMINISTRADOR') or hasRole('EMPLEADO')")
+    public ResponseEntity<SaldoKardexResponse> obtenerSaldo(
+            @Parameter(description = "ID de la variante") @RequestParam UUID varianteId,
+            @Parameter(description = "ID de la sucursal") @RequestParam UUID sucursalId,
+            @Parameter(description = "Fecha y hora; ahora si se omite")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha) {
+        return ResponseEntity.ok(kardexService.obtenerSaldo(varianteId, sucursalId,
+            fecha != null ? fecha : LocalDateTime.now()));
+    }
+
+    @Operation(summary = "Valorización", description = "Existencias valorizadas a costo promedio a una fecha")
+    @GetMapping("/kardex/valorizacion")
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<ValorizacionInventarioResponse> obtenerValorizacion(
+            @Parameter(description = "Fecha y hora; ahora si se omite")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fecha,
+            @Parameter(description = "ID de la sucursal; todas si se omite") @RequestParam(required = false) UUID sucursalId) {
+        return ResponseEntity.ok(kardexService.obtenerValorizacion(fecha != null ? fecha : LocalDateTime.now(), sucursalId));
+    }
+}
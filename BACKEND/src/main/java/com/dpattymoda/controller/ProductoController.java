@@ -1,25 +1,56 @@
 package com.dpattymoda.controller;
 
+import com.dpattymoda.cache.CacheHttpCatalogo;
+import com.dpattymoda.cache.CacheRespuestasProducto;
+import com.dpattymoda.dto.request.ActualizacionPreciosRequest;
+import com.dpattymoda.dto.request.FiltroProductosRequest;
 import com.dpattymoda.dto.request.ProductoCreateRequest;
 import com.dpattymoda.dto.request.ProductoUpdateRequest;
+import com.dpattymoda.dto.response.BusquedaFacetadaResponse;
+import com.dpattymoda.dto.response.CursorPageResponse;
+import com.dpattymoda.dto.response.ProductoAdminResponse;
 import com.dpattymoda.dto.response.ProductoResponse;
 import com.dpattymoda.dto.response.ProductoDetalleResponse;
+import com.dpattymoda.dto.response.ProductoListadoResponse;
+import com.dpattymoda.dto.response.ProgramacionPrecioResponse;
+import com.dpattymoda.dto.response.ResultadoImportacionResponse;
+import com.dpattymoda.dto.response.SugerenciaResponse;
+import com.dpattymoda.exception.BusinessException;
+import com.dpattymoda.service.ImportacionProductosService;
+import com.dpattymoda.service.ImportacionProductosService.FormatoImportacion;
+import com.dpattymoda.service.PreciosMasivosService;
 import com.dpattymoda.service.ProductoService;
+import com.dpattymoda.service.RankingProductosService;
+import com.dpattymoda.service.RankingProductosService.TipoRanking;
+import com.dpattymoda.service.RecomendacionesService;
+import com.dpattymoda.service.SimilitudProductosService;
+import com.dpattymoda.service.SugerenciasService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
 
 /**
@@ -32,57 +63,192 @@ import java.util.UUID;
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final SugerenciasService sugerenciasService;
+    private final RankingProductosService rankingProductosService;
+    private final ImportacionProductosService importacionProductosService;
+    private final PreciosMasivosService preciosMasivosService;
+    private final RecomendacionesService recomendacionesService;
+    private final SimilitudProductosService similitudProductosService;
+    private final CacheHttpCatalogo cacheHttpCatalogo;
+    private final CacheRespuestasProducto cacheRespuestasProducto;
 
     @Operation(summary = "Crear producto", description = "Crear un nuevo producto en el catálogo")
     @PostMapping
     @PreAuthorize("hasRole('ADMINISTRADOR') or hasRole('EMPLEADO')")
-    public ResponseEntity<ProductoResponse> crearProducto(@Valid @RequestBody ProductoCreateRequest request) {
-        ProductoResponse response = productoService.crearProducto(request);
+    public ResponseEntity<ProductoAdminResponse> crearProducto(@Valid @RequestBody ProductoCreateRequest request) {
+        ProductoAdminResponse response = productoService.crearProducto(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @Operation(summary = "Importar productos", description = "Carga masiva de productos, variantes e inventario desde un archivo CSV o JSON de hasta app.archivos.tamaño-maximo-mb")
+    @PostMapping(value = "/importar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMINISTRADOR') or hasRole('EMPLEADO')")
+    public ResponseEntity<ResultadoImportacionResponse> importarProductos(
+            @Parameter(description = "Archivo CSV o JSON") @RequestParam("archivo") MultipartFile archivo,
+            @Parameter(description = "Formato del archivo (CSV o JSON); por defecto según la extensión") @RequestParam(required = false) FormatoImportacion formato) {
+        if (archivo.isEmpty()) {
+            throw new BusinessException("El archivo de importación está vacío");
+        }
+
+        FormatoImportacion formatoArchivo = formato != null ? formato
+            : archivo.getOriginalFilename() != null
+                && archivo.getOriginalFilename().toLowerCase(Locale.ROOT).endsWith(".json")
+                ? FormatoImportacion.JSON : FormatoImportacion.CSV;
+
+        try (InputStream contenido = archivo.getInputStream()) {
+            ResultadoImportacionResponse response = importacionProductosService.importarProductos(contenido, formatoArchivo);
+            return ResponseEntity.ok(response);
+        } catch (IOException e) {
+            throw new BusinessException("No se pudo leer el archivo de importación: " + e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Importar productos desde el cuerpo", description = "Carga masiva de archivos grandes: el CSV o JSON se lee mientras llega, sin pasar por el límite del multipart")
+    @PostMapping(value = "/importar", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ADMINISTRADOR') or hasRole('EMPLEADO')")
+    public ResponseEntity<ResultadoImportacionResponse> importarProductosDesdeCuerpo(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType tipoContenido,
+            InputStream contenido) {
+        FormatoImportacion formato = MediaType.APPLICATION_JSON.isCompatibleWith(tipoContenido)
+            ? FormatoImportacion.JSON : FormatoImportacion.CSV;
+        ResultadoImportacionResponse response = importacionProductosService.importarProductos(contenido, formato);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Actualizar precios masivamente", description = "Aplicar o programar un cambio de precio de oferta por categoría, marca, tag o IDs")
+    @PostMapping("/precios")
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<ProgramacionPrecioResponse> actualizarPreciosMasivamente(
+            @Valid @RequestBody ActualizacionPreciosRequest request) {
+        ProgramacionPrecioResponse response = preciosMasivosService.programarActualizacion(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @Operation(summary = "Listar programaciones de precios", description = "Historial de cambios masivos de precios")
+    @GetMapping("/precios/programaciones")
+    @PreAuthorize("hasRole('ADMINISTRADOR') or hasRole('EMPLEADO')")
+    public ResponseEntity<Page<ProgramacionPrecioResponse>> listarProgramacionesPrecios(
+            @PageableDefault(size = 20) Pageable pageable) {
+        Page<ProgramacionPrecioResponse> response = preciosMasivosService.listarProgramaciones(pageable);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Obtener programación de precios", description = "Estado y productos afectados de un cambio masivo")
+    @GetMapping("/precios/programaciones/{id}")
+    @PreAuthorize("hasRole('ADMINISTRADOR') or hasRole('EMPLEADO')")
+    public ResponseEntity<ProgramacionPrecioResponse> obtenerProgramacionPrecios(@PathVariable UUID id) {
+        ProgramacionPrecioResponse response = preciosMasivosService.obtenerProgramacion(id);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Cancelar programación de precios", description = "Cancelar un cambio pendiente o restaurar los precios de uno activo")
+    @PatchMapping("/precios/programaciones/{id}/cancelar")
+    @PreAuthorize("hasRole('ADMINISTRADOR')")
+    public ResponseEntity<ProgramacionPrecioResponse> cancelarProgramacionPrecios(@PathVariable UUID id) {
+        ProgramacionPrecioResponse response = preciosMasivosService.cancelarProgramacion(id);
+        return ResponseEntity.ok(response);
+    }
+
     @Operation(summary = "Actualizar producto", description = "Actualizar información de un producto existente")
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMINISTRADOR') or hasRole('EMPLEADO')")
-    public ResponseEntity<ProductoResponse> actualizarProducto(
+    public ResponseEntity<ProductoAdminResponse> actualizarProducto(
             @PathVariable UUID id,
             @Valid @RequestBody ProductoUpdateRequest request) {
-        ProductoResponse response = productoService.actualizarProducto(id, request);
+        ProductoAdminResponse response = productoService.actualizarProducto(id, request);
         return ResponseEntity.ok(response);
     }
 
     @Operation(summary = "Obtener producto detallado", description = "Obtener información completa de un producto")
-    @GetMapping("/{id}")
-    public ResponseEntity<ProductoDetalleResponse> obtenerProductoDetalle(@PathVariable UUID id) {
-        ProductoDetalleResponse response = productoService.obtenerProductoDetalle(id);
-        return ResponseEntity.ok(response);
+    @ApiResponse(responseCode = "200",
+        content = @Content(schema = @Schema(implementation = ProductoDetalleResponse.class)))
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> obtenerProductoDetalle(@PathVariable UUID id, WebRequest webRequest,
+            Locale locale) {
+        return cacheHttpCatalogo.responderSerializado(webRequest, id, () -> cacheRespuestasProducto
+            .obtenerDetalle(id, locale, () -> productoService.obtenerProductoDetalle(id)));
     }
 
     @Operation(summary = "Obtener producto por código", description = "Buscar producto por su código único")
     @GetMapping("/codigo/{codigo}")
-    public ResponseEntity<ProductoResponse> obtenerProductoPorCodigo(@PathVariable String codigo) {
-        ProductoResponse response = productoService.obtenerProductoPorCodigo(codigo);
-        return ResponseEntity.ok(response);
+    public ResponseEntity<ProductoResponse> obtenerProductoPorCodigo(@PathVariable String codigo,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responderProductoPorCodigo(webRequest, codigo,
+            () -> productoService.obtenerProductoPorCodigo(codigo));
     }
 
     @Operation(summary = "Listar productos", description = "Obtener lista paginada de productos activos")
     @GetMapping
     public ResponseEntity<Page<ProductoResponse>> listarProductos(
-            @PageableDefault(size = 20) Pageable pageable) {
-        Page<ProductoResponse> response = productoService.listarProductos(pageable);
-        return ResponseEntity.ok(response);
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest, () -> productoService.listarProductos(pageable));
     }
 
-    @Operation(summary = "Buscar productos", description = "Buscar productos por término de búsqueda")
+    @Operation(summary = "Listar productos (campos seleccionados)", description = "Listado liviano con sólo los campos indicados")
+    @GetMapping(params = "campos")
+    public ResponseEntity<Page<ProductoListadoResponse>> listarProductosConCampos(
+            @Parameter(description = "Campos a devolver, separados por coma") @RequestParam String campos,
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            () -> productoService.listarProductosConCampos(campos, pageable));
+    }
+
+    @Operation(summary = "Listar productos por cursor", description = "Scroll infinito sobre productos activos, sin conteo total")
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageResponse<ProductoResponse>> listarProductosPorCursor(
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (máximo 100)") @RequestParam(defaultValue = "20") int tamanio,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            () -> productoService.listarProductosPorCursor(cursor, tamanio));
+    }
+
+    @Operation(summary = "Listar productos por cursor (campos seleccionados)", description = "Scroll infinito liviano con sólo los campos indicados")
+    @GetMapping(value = "/cursor", params = "campos")
+    public ResponseEntity<CursorPageResponse<ProductoListadoResponse>> listarProductosPorCursorConCampos(
+            @Parameter(description = "Campos a devolver, separados por coma") @RequestParam String campos,
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (máximo 100)") @RequestParam(defaultValue = "20") int tamanio,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            () -> productoService.listarProductosPorCursorConCampos(campos, cursor, tamanio));
+    }
+
+    @Operation(summary = "Buscar productos", description = "Buscar productos por término de búsqueda. " +
+        "Los resultados se ordenan siempre por relevancia: el parámetro sort se ignora")
     @GetMapping("/buscar")
     public ResponseEntity<Page<ProductoResponse>> buscarProductos(
             @Parameter(description = "Término de búsqueda") @RequestParam String q,
-            @PageableDefault(size = 20) Pageable pageable) {
-        Page<ProductoResponse> response = productoService.buscarProductos(q, pageable);
-        return ResponseEntity.ok(response);
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest, () -> productoService.buscarProductos(q, pageable));
+    }
+
+    @Operation(summary = "Buscar productos (campos seleccionados)", description = "Búsqueda liviana con sólo los campos " +
+        "indicados, ordenada por relevancia: el parámetro sort se ignora")
+    @GetMapping(value = "/buscar", params = "campos")
+    public ResponseEntity<Page<ProductoListadoResponse>> buscarProductosConCampos(
+            @Parameter(description = "Campos a devolver, separados por coma") @RequestParam String campos,
+            @Parameter(description = "Término de búsqueda") @RequestParam String q,
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            () -> productoService.buscarProductosConCampos(campos, q, pageable));
+    }
+
+    @Operation(summary = "Sugerencias de búsqueda", description = "Autocompletado de productos, marcas y categorías mientras se escribe")
+    @GetMapping("/sugerencias")
+    public ResponseEntity<List<SugerenciaResponse>> obtenerSugerencias(
+            @Parameter(description = "Texto escrito hasta el momento") @RequestParam String q,
+            @Parameter(description = "Cantidad de sugerencias (máximo 10)") @RequestParam(defaultValue = "8") int limite,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest, () -> sugerenciasService.sugerir(q, limite));
     }
 
-    @Operation(summary = "Buscar con filtros", description = "Buscar productos con filtros avanzados")
+    @Operation(summary = "Buscar con filtros", description = "Buscar productos con filtros avanzados. " +
+        "Orden admitido: totalVentas (por defecto, descendente), precioBase, fechaCreacion, nombreProducto")
     @GetMapping("/filtrar")
     public ResponseEntity<Page<ProductoResponse>> buscarConFiltros(
             @Parameter(description = "ID de categoría") @RequestParam(required = false) UUID categoriaId,
@@ -91,57 +257,162 @@ public class ProductoController {
             @Parameter(description = "Precio máximo") @RequestParam(required = false) BigDecimal precioMax,
             @Parameter(description = "Solo destacados") @RequestParam(required = false) Boolean destacado,
             @Parameter(description = "Solo nuevos") @RequestParam(required = false) Boolean nuevo,
-            @PageableDefault(size = 20) Pageable pageable) {
-        
-        Page<ProductoResponse> response = productoService.buscarConFiltros(
-            categoriaId, marca, precioMin, precioMax, destacado, nuevo, pageable);
-        return ResponseEntity.ok(response);
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            () -> productoService.buscarConFiltros(
+                categoriaId, marca, precioMin, precioMax, destacado, nuevo, pageable));
+    }
+
+    @Operation(summary = "Buscar con filtros (campos seleccionados)", description = "Filtrado liviano con sólo los campos " +
+        "indicados; admite el mismo orden que /filtrar")
+    @GetMapping(value = "/filtrar", params = "campos")
+    public ResponseEntity<Page<ProductoListadoResponse>> buscarConFiltrosConCampos(
+            @Parameter(description = "Campos a devolver, separados por coma") @RequestParam String campos,
+            @Parameter(description = "ID de categoría") @RequestParam(required = false) UUID categoriaId,
+            @Parameter(description = "Marca") @RequestParam(required = false) String marca,
+            @Parameter(description = "Precio mínimo") @RequestParam(required = false) BigDecimal precioMin,
+            @Parameter(description = "Precio máximo") @RequestParam(required = false) BigDecimal precioMax,
+            @Parameter(description = "Solo destacados") @RequestParam(required = false) Boolean destacado,
+            @Parameter(description = "Solo nuevos") @RequestParam(required = false) Boolean nuevo,
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            () -> productoService.buscarConFiltrosConCampos(
+                campos, categoriaId, marca, precioMin, precioMax, destacado, nuevo, pageable));
+    }
+
+    @Operation(summary = "Búsqueda facetada", description = "Filtrar productos por facetas y obtener el conteo de cada valor; " +
+        "admite el mismo orden que /filtrar. Mientras el índice se construye los conteos vienen vacíos")
+    @GetMapping("/facetas")
+    public ResponseEntity<BusquedaFacetadaResponse> buscarConFacetas(
+            @ModelAttribute FiltroProductosRequest filtro,
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest, () -> productoService.buscarConFacetas(filtro, pageable));
     }
 
     @Operation(summary = "Productos por categoría", description = "Obtener productos de una categoría específica")
     @GetMapping("/categoria/{categoriaId}")
     public ResponseEntity<Page<ProductoResponse>> obtenerProductosPorCategoria(
             @PathVariable UUID categoriaId,
-            @PageableDefault(size = 20) Pageable pageable) {
-        Page<ProductoResponse> response = productoService.obtenerProductosPorCategoria(categoriaId, pageable);
-        return ResponseEntity.ok(response);
+            @Parameter(description = "Incluir productos de todas las subcategorías") @RequestParam(defaultValue = "false") boolean incluirSubcategorias,
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            () -> productoService.obtenerProductosPorCategoria(categoriaId, incluirSubcategorias, pageable));
+    }
+
+    @Operation(summary = "Productos por categoría (campos seleccionados)", description = "Listado liviano de una categoría con sólo los campos indicados")
+    @GetMapping(value = "/categoria/{categoriaId}", params = "campos")
+    public ResponseEntity<Page<ProductoListadoResponse>> obtenerProductosPorCategoriaConCampos(
+            @PathVariable UUID categoriaId,
+            @Parameter(description = "Campos a devolver, separados por coma") @RequestParam String campos,
+            @Parameter(description = "Incluir productos de todas las subcategorías") @RequestParam(defaultValue = "false") boolean incluirSubcategorias,
+            @PageableDefault(size = 20) Pageable pageable,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            () -> productoService.obtenerProductosPorCategoriaConCampos(
+                campos, categoriaId, incluirSubcategorias, pageable));
+    }
+
+    @Operation(summary = "Productos por categoría por cursor", description = "Scroll infinito sobre una categoría, sin conteo total")
+    @GetMapping("/categoria/{categoriaId}/cursor")
+    public ResponseEntity<CursorPageResponse<ProductoResponse>> obtenerProductosPorCategoriaPorCursor(
+            @PathVariable UUID categoriaId,
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (máximo 100)") @RequestParam(defaultValue = "20") int tamanio,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            () -> productoService.obtenerProductosPorCategoriaPorCursor(categoriaId, cursor, tamanio));
+    }
+
+    @Operation(summary = "Productos por categoría por cursor (campos seleccionados)", description = "Scroll infinito liviano sobre una categoría con sólo los campos indicados")
+    @GetMapping(value = "/categoria/{categoriaId}/cursor", params = "campos")
+    public ResponseEntity<CursorPageResponse<ProductoListadoResponse>> obtenerProductosPorCategoriaPorCursorConCampos(
+            @PathVariable UUID categoriaId,
+            @Parameter(description = "Campos a devolver, separados por coma") @RequestParam String campos,
+            @Parameter(description = "Cursor devuelto por la página anterior") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Tamaño de página (máximo 100)") @RequestParam(defaultValue = "20") int tamanio,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            () -> productoService.obtenerProductosPorCategoriaPorCursorConCampos(campos, categoriaId, cursor, tamanio));
     }
 
     @Operation(summary = "Productos destacados", description = "Obtener lista de productos destacados")
-    @GetMapping("/destacados")
-    public ResponseEntity<List<ProductoResponse>> obtenerProductosDestacados() {
-        List<ProductoResponse> response = productoService.obtenerProductosDestacados();
-        return ResponseEntity.ok(response);
+    @ApiResponse(responseCode = "200",
+        content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductoResponse.class))))
+    @GetMapping(value = "/destacados", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> obtenerProductosDestacados(
+            @Parameter(description = "Límite de resultados") @RequestParam(defaultValue = "20") int limite,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            Long.toString(rankingProductosService.obtenerUltimaActualizacion()),
+            () -> rankingProductosService.obtenerRanking(TipoRanking.DESTACADOS, limite));
     }
 
     @Operation(summary = "Productos nuevos", description = "Obtener lista de productos nuevos")
-    @GetMapping("/nuevos")
-    public ResponseEntity<List<ProductoResponse>> obtenerProductosNuevos() {
-        List<ProductoResponse> response = productoService.obtenerProductosNuevos();
-        return ResponseEntity.ok(response);
+    @ApiResponse(responseCode = "200",
+        content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductoResponse.class))))
+    @GetMapping(value = "/nuevos", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> obtenerProductosNuevos(
+            @Parameter(description = "Límite de resultados") @RequestParam(defaultValue = "20") int limite,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            Long.toString(rankingProductosService.obtenerUltimaActualizacion()),
+            () -> rankingProductosService.obtenerRanking(TipoRanking.NUEVOS, limite));
     }
 
     @Operation(summary = "Más vendidos", description = "Obtener productos más vendidos")
-    @GetMapping("/mas-vendidos")
-    public ResponseEntity<List<ProductoResponse>> obtenerProductosMasVendidos(
-            @Parameter(description = "Límite de resultados") @RequestParam(defaultValue = "10") int limite) {
-        List<ProductoResponse> response = productoService.obtenerProductosMasVendidos(limite);
-        return ResponseEntity.ok(response);
+    @ApiResponse(responseCode = "200",
+        content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductoResponse.class))))
+    @GetMapping(value = "/mas-vendidos", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> obtenerProductosMasVendidos(
+            @Parameter(description = "Límite de resultados") @RequestParam(defaultValue = "10") int limite,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            Long.toString(rankingProductosService.obtenerUltimaActualizacion()),
+            () -> rankingProductosService.obtenerRanking(TipoRanking.MAS_VENDIDOS, limite));
     }
 
     @Operation(summary = "Mejor calificados", description = "Obtener productos mejor calificados")
-    @GetMapping("/mejor-calificados")
-    public ResponseEntity<List<ProductoResponse>> obtenerProductosMejorCalificados(
-            @Parameter(description = "Límite de resultados") @RequestParam(defaultValue = "10") int limite) {
-        List<ProductoResponse> response = productoService.obtenerProductosMejorCalificados(limite);
-        return ResponseEntity.ok(response);
+    @ApiResponse(responseCode = "200",
+        content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductoResponse.class))))
+    @GetMapping(value = "/mejor-calificados", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> obtenerProductosMejorCalificados(
+            @Parameter(description = "Límite de resultados") @RequestParam(defaultValue = "10") int limite,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            Long.toString(rankingProductosService.obtenerUltimaActualizacion()),
+            () -> rankingProductosService.obtenerRanking(TipoRanking.MEJOR_CALIFICADOS, limite));
+    }
+
+    @Operation(summary = "Productos relacionados", description = "Productos que más se compran junto con el indicado")
+    @GetMapping("/{id}/relacionados")
+    public ResponseEntity<List<ProductoResponse>> obtenerProductosRelacionados(
+            @PathVariable UUID id,
+            @Parameter(description = "Límite de resultados (máximo 20)") @RequestParam(defaultValue = "8") int limite,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            Long.toString(recomendacionesService.obtenerUltimaActualizacion()),
+            () -> recomendacionesService.obtenerRelacionados(id, limite));
+    }
+
+    @Operation(summary = "Productos similares", description = "Productos con stock parecidos al indicado por tags, categoría y características")
+    @GetMapping("/{id}/similares")
+    public ResponseEntity<List<ProductoResponse>> obtenerProductosSimilares(
+            @PathVariable UUID id,
+            @Parameter(description = "Límite de resultados (máximo 20)") @RequestParam(defaultValue = "8") int limite,
+            WebRequest webRequest) {
+        return cacheHttpCatalogo.responder(webRequest,
+            Long.toString(similitudProductosService.obtenerUltimaActualizacion()),
+            () -> similitudProductosService.obtenerSimilares(id, limite));
     }
 
     @Operation(summary = "Marcas disponibles", description = "Obtener lista de marcas disponibles")
     @GetMapping("/marcas")
-    public ResponseEntity<List<String>> obtenerMarcasDisponibles() {
-        List<String> response = productoService.obtenerMarcasDisponibles();
-        return ResponseEntity.ok(response);
+    public ResponseEntity<List<String>> obtenerMarcasDisponibles(WebRequest webRequest) {
+        return cacheHttpCatalogo.responderMarcas(webRequest, productoService::obtenerMarcasDisponibles);
     }
 
     @Operation(summary = "Cambiar estado", description = "Activar o desactivar un producto")
@@ -167,8 +438,8 @@ public class ProductoController {
     @Operation(summary = "Productos con stock bajo", description = "Obtener productos con stock bajo")
     @GetMapping("/stock-bajo")
     @PreAuthorize("hasRole('ADMINISTRADOR') or hasRole('EMPLEADO')")
-    public ResponseEntity<List<ProductoResponse>> obtenerProductosConStockBajo() {
-        List<ProductoResponse> response = productoService.obtenerProductosConStockBajo();
+    public ResponseEntity<List<ProductoAdminResponse>> obtenerProductosConStockBajo() {
+        List<ProductoAdminResponse> response = productoService.obtenerProductosConStockBajo();
         return ResponseEntity.ok(response);
     }
 
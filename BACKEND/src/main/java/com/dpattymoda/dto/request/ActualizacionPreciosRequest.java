@@ -0,0 +1,50 @@
+package com.dpattymoda.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO para cambiar el precio de oferta de muchos productos a la vez
+ */
+@Data
+@Schema(description = "Actualización masiva de precios de oferta")
+public class ActualizacionPreciosRequest {
+
+    @Schema(description = "Operación a aplicar", example = "descuento_porcentaje",
+            allowableValues = {"precio_fijo", "descuento_porcentaje", "descuento_monto", "quitar_oferta"})
+    @NotBlank(message = "La operación es requerida")
+    @Pattern(regexp = "^(precio_fijo|descuento_porcentaje|descuento_monto|quitar_oferta)$",
+             message = "Operación no válida")
+    private String operacion;
+
+    @Schema(description = "Precio, porcentaje o monto según la operación", example = "20.00")
+    @Positive(message = "El valor debe ser positivo")
+    private BigDecimal valor;
+
+    @Schema(description = "Categoría raíz: incluye todas sus subcategorías")
+    private UUID categoriaId;
+
+    @Schema(description = "Marca", example = "DPatty")
+    @Size(max = 100, message = "La marca no puede exceder 100 caracteres")
+    private String marca;
+
+    @Schema(description = "Tag", example = "verano")
+    @Size(max = 100, message = "El tag no puede exceder 100 caracteres")
+    private String tag;
+
+    @Schema(description = "IDs explícitos de productos")
+    @Size(max = 10000, message = "No se pueden indicar más de 10000 productos")
+    private List<UUID> productoIds;
+
+    @Schema(description = "Inicio de vigencia; si se omite se aplica de inmediato")
+    private LocalDateTime fechaInicio;
+
+    @Schema(description = "Fin de vigencia; al llegar se restaura el precio de oferta anterior")
+    private LocalDateTime fechaFin;
+}
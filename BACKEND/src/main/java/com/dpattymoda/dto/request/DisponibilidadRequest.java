@@ -0,0 +1,43 @@
+package com.dpattymoda.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO para consultar la disponibilidad de varias variantes a la vez
+ */
+@Data
+@Schema(description = "Líneas a consultar y sucursal opcional")
+public class DisponibilidadRequest {
+
+    @Schema(description = "Sucursal donde se quiere comprar; si se omite se informa el total de todas")
+    private UUID sucursalId;
+
+    @Schema(description = "Líneas a consultar")
+    @NotEmpty(message = "Debe indicar al menos una línea")
+    @Size(max = 200, message = "Máximo 200 líneas por consulta")
+    @Valid
+    private List<LineaRequest> lineas;
+
+    @Data
+    @Schema(description = "Variante y cantidad deseada")
+    public static class LineaRequest {
+
+        @Schema(description = "ID de la variante")
+        @NotNull(message = "La variante es requerida")
+        private UUID varianteId;
+
+        @Schema(description = "Cantidad deseada", example = "2")
+        @NotNull(message = "La cantidad es requerida")
+        @Positive(message = "La cantidad debe ser mayor a cero")
+        private Integer cantidad;
+    }
+}
@@ -0,0 +1,42 @@
+package com.dpattymoda.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * DTO con los filtros de la navegación facetada del catálogo
+ */
+@Data
+@Schema(description = "Filtros para búsqueda facetada de productos")
+public class FiltroProductosRequest {
+
+    @Schema(description = "ID de categoría")
+    private UUID categoriaId;
+
+    @Schema(description = "Marca", example = "DPattyModa")
+    private String marca;
+
+    @Schema(description = "Talla", example = "M")
+    private String talla;
+
+    @Schema(description = "Color", example = "Azul")
+    private String color;
+
+    @Schema(description = "Precio mínimo", example = "50.00")
+    private BigDecimal precioMin;
+
+    @Schema(description = "Precio máximo", example = "150.00")
+    private BigDecimal precioMax;
+
+    @Schema(description = "Solo destacados", example = "true")
+    private Boolean destacado;
+
+    @Schema(description = "Solo nuevos", example = "true")
+    private Boolean nuevo;
+
+    @Schema(description = "Solo productos con stock disponible", example = "true")
+    private Boolean conStock;
+}
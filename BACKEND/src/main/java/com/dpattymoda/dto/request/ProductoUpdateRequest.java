@@ -1,5 +1,6 @@
 package com.dpattymoda.dto.request;
 
+import com.dpattymoda.entity.DimensionesProducto;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -10,6 +11,7 @@ import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -53,11 +55,11 @@ public class ProductoUpdateRequest {
     @Schema(description = "Peso en kilogramos", example = "0.250")
     private BigDecimal peso;
 
-    @Schema(description = "Dimensiones del producto en JSON")
-    private String dimensiones;
+    @Schema(description = "Dimensiones del producto")
+    private DimensionesProducto dimensiones;
 
-    @Schema(description = "Características del producto en JSON")
-    private String caracteristicas;
+    @Schema(description = "Características del producto como pares clave/valor")
+    private Map<String, String> caracteristicas;
 
     @Schema(description = "URLs de imágenes del producto")
     private List<String> imagenes;
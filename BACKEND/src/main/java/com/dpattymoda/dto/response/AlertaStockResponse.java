@@ -0,0 +1,45 @@
+package com.dpattymoda.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO para una alerta de stock bajo de un inventario
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Inventario de una variante en una sucursal que está (o dejó de estar) bajo su cantidad mínima")
+public class AlertaStockResponse {
+
+    @Schema(description = "ID del inventario")
+    private UUID inventarioId;
+
+    @Schema(description = "ID de la variante")
+    private UUID varianteId;
+
+    @Schema(description = "ID del producto")
+    private UUID productoId;
+
+    @Schema(description = "ID de la sucursal")
+    private UUID sucursalId;
+
+    @Schema(description = "Cantidad disponible", example = "3")
+    private Integer cantidadDisponible;
+
+    @Schema(description = "Cantidad mínima", example = "5")
+    private Integer cantidadMinima;
+
+    @Schema(description = "Está bajo el mínimo; false en la notificación de reposición", example = "true")
+    private Boolean bajo;
+
+    @Schema(description = "Momento en que se detectó el estado")
+    private LocalDateTime fechaDeteccion;
+}
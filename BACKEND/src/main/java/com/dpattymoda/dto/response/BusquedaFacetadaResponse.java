@@ -0,0 +1,27 @@
+package com.dpattymoda.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+/**
+ * DTO para respuesta de búsqueda facetada
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Productos filtrados con conteos por faceta")
+public class BusquedaFacetadaResponse {
+
+    @Schema(description = "Página de productos que cumplen los filtros")
+    private Page<ProductoResponse> productos;
+
+    @Schema(description = "Conteos por faceta (categoria, marca, talla, color, rangoPrecio, destacado, nuevo, disponibilidad)")
+    private Map<String, Map<String, Long>> facetas;
+}
@@ -0,0 +1,29 @@
+package com.dpattymoda.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para páginas obtenidas por cursor, sin conteo total
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Página obtenida por cursor")
+public class CursorPageResponse<T> {
+
+    @Schema(description = "Elementos de la página")
+    private List<T> contenido;
+
+    @Schema(description = "Cursor para solicitar la página siguiente; null si no hay más")
+    private String siguienteCursor;
+
+    @Schema(description = "Indica si existen más elementos después de esta página")
+    private boolean tieneMas;
+}
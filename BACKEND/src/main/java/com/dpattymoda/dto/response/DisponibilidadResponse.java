@@ -0,0 +1,73 @@
+package com.dpattymoda.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO de disponibilidad de un conjunto de líneas en una sucursal y en las demás
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Disponibilidad por línea en la sucursal consultada y alternativas en otras sucursales")
+public class DisponibilidadResponse {
+
+    @Schema(description = "Sucursal consultada; null si se consultó el total")
+    private UUID sucursalId;
+
+    @Schema(description = "Todas las líneas se pueden atender", example = "true")
+    private Boolean completo;
+
+    @Schema(description = "Disponibilidad de cada línea")
+    private List<LineaDisponibilidadResponse> lineas;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Disponibilidad de una variante")
+    public static class LineaDisponibilidadResponse {
+
+        @Schema(description = "ID de la variante")
+        private UUID varianteId;
+
+        @Schema(description = "Cantidad solicitada", example = "2")
+        private Integer cantidadSolicitada;
+
+        @Schema(description = "Disponible para vender en la sucursal consultada, o en total", example = "5")
+        private Integer cantidadDisponible;
+
+        @Schema(description = "Alcanza para la cantidad solicitada", example = "true")
+        private Boolean suficiente;
+
+        @Schema(description = "Otras sucursales con stock, de mayor a menor")
+        private List<StockSucursalResponse> alternativas;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Stock disponible de una variante en una sucursal")
+    public static class StockSucursalResponse {
+
+        @Schema(description = "ID de la sucursal")
+        private UUID sucursalId;
+
+        @Schema(description = "Nombre de la sucursal", example = "Sucursal Centro")
+        private String nombreSucursal;
+
+        @Schema(description = "Disponible para vender", example = "3")
+        private Integer cantidadDisponible;
+
+        @Schema(description = "Alcanza para la cantidad solicitada", example = "true")
+        private Boolean suficiente;
+    }
+}
@@ -0,0 +1,48 @@
+package com.dpattymoda.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO para una imagen subida y sus variantes
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Imagen almacenada con sus variantes por ancho")
+public class ImagenResponse {
+
+    @Schema(description = "Nombre del archivo, derivado del SHA-256 del contenido",
+            example = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08.jpg")
+    private String nombre;
+
+    @Schema(description = "URL de la imagen original", example = "/api/imagenes/9f86d0...0a08.jpg")
+    private String url;
+
+    @Schema(description = "Tipo de contenido", example = "image/jpeg")
+    private String tipoContenido;
+
+    @Schema(description = "Tamaño en bytes", example = "482113")
+    private long tamanioBytes;
+
+    @Schema(description = "Ancho en píxeles", example = "2000")
+    private int ancho;
+
+    @Schema(description = "Alto en píxeles", example = "2400")
+    private int alto;
+
+    @Schema(description = "Indica si la imagen ya existía (mismo contenido)", example = "false")
+    private boolean existente;
+
+    @Schema(description = "URLs de las variantes por ancho; se generan en segundo plano")
+    private Map<Integer, String> variantes;
+
+    @Schema(description = "URLs de las variantes WebP por ancho, si el servidor puede generarlas")
+    private Map<Integer, String> variantesWebp;
+}
@@ -0,0 +1,31 @@
+package com.dpattymoda.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO para respuesta de producto en la administración: los datos públicos más el costo
+ * y el margen, que nunca se envían en las respuestas cacheables del catálogo
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Información del producto para administración")
+public class ProductoAdminResponse {
+
+    @JsonUnwrapped
+    private ProductoResponse producto;
+
+    @Schema(description = "Costo del producto", example = "45.00")
+    private BigDecimal costoProducto;
+
+    @Schema(description = "Margen de ganancia en porcentaje", example = "40.00")
+    private BigDecimal margenGanancia;
+}
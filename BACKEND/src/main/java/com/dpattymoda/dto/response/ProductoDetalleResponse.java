@@ -1,5 +1,6 @@
 package com.dpattymoda.dto.response;
 
+import com.dpattymoda.entity.DimensionesProducto;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -10,6 +11,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -62,10 +64,10 @@ public class ProductoDetalleResponse {
     private BigDecimal peso;
 
     @Schema(description = "Dimensiones del producto")
-    private String dimensiones;
+    private DimensionesProducto dimensiones;
 
     @Schema(description = "Características del producto")
-    private String caracteristicas;
+    private Map<String, String> caracteristicas;
 
     @Schema(description = "Imágenes del producto")
     private List<String> imagenes;
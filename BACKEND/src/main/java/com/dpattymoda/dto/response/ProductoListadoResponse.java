@@ -0,0 +1,133 @@
+package com.dpattymoda.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * DTO para listados con selección de campos: sólo se envían los campos pedidos
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Producto en un listado con selección de campos; los campos no pedidos se omiten")
+public class ProductoListadoResponse {
+
+    /**
+     * Campos seleccionables con el parámetro campos; el costo nunca se ofrece
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Campo {
+        ID("id", false),
+        CODIGO_PRODUCTO("codigoProducto", false),
+        NOMBRE_PRODUCTO("nombreProducto", false),
+        DESCRIPCION_CORTA("descripcionCorta", false),
+        CATEGORIA("categoria", false),
+        MARCA("marca", false),
+        PRECIO_BASE("precioBase", false),
+        PRECIO_OFERTA("precioOferta", false),
+        PRECIO_VENTA("precioVenta", false),
+        PORCENTAJE_DESCUENTO("porcentajeDescuento", false),
+        IMAGEN_PRINCIPAL("imagenPrincipal", false),
+        IMAGENES("imagenes", false),
+        CALIFICACION_PROMEDIO("calificacionPromedio", false),
+        TOTAL_RESENAS("totalReseñas", false),
+        TOTAL_VENTAS("totalVentas", false),
+        DESTACADO("destacado", false),
+        NUEVO("nuevo", false),
+        FECHA_CREACION("fechaCreacion", false),
+        STOCK_DISPONIBLE("stockDisponible", true),
+        TIENE_STOCK("tieneStock", true),
+        TALLAS_DISPONIBLES("tallasDisponibles", true),
+        COLORES_DISPONIBLES("coloresDisponibles", true);
+
+        // Campos de una grilla de catálogo cuando no se indica ninguno
+        public static final Set<Campo> POR_DEFECTO = EnumSet.of(ID, NOMBRE_PRODUCTO, MARCA, PRECIO_BASE,
+            PRECIO_VENTA, PORCENTAJE_DESCUENTO, IMAGEN_PRINCIPAL, CALIFICACION_PROMEDIO, TIENE_STOCK);
+
+        private final String nombre;
+        // Requiere leer el resumen de stock del producto
+        private final boolean requiereStock;
+    }
+
+    @Schema(description = "ID del producto")
+    private UUID id;
+
+    @Schema(description = "Código del producto", example = "CAM-001")
+    private String codigoProducto;
+
+    @Schema(description = "Nombre del producto", example = "Camisa Casual Manga Larga")
+    private String nombreProducto;
+
+    @Schema(description = "Descripción corta")
+    private String descripcionCorta;
+
+    @Schema(description = "Información de la categoría")
+    private ProductoResponse.CategoriaBasicaResponse categoria;
+
+    @Schema(description = "Marca", example = "DPattyModa")
+    private String marca;
+
+    @Schema(description = "Precio base", example = "75.00")
+    private BigDecimal precioBase;
+
+    @Schema(description = "Precio de oferta", example = "67.50")
+    private BigDecimal precioOferta;
+
+    @Schema(description = "Precio de venta final", example = "67.50")
+    private BigDecimal precioVenta;
+
+    @Schema(description = "Porcentaje de descuento", example = "10.00")
+    private BigDecimal porcentajeDescuento;
+
+    @Schema(description = "Primera imagen del producto")
+    private String imagenPrincipal;
+
+    @Schema(description = "Imágenes del producto")
+    private List<String> imagenes;
+
+    @Schema(description = "Calificación promedio", example = "4.5")
+    private BigDecimal calificacionPromedio;
+
+    @Schema(description = "Total de reseñas", example = "23")
+    private Integer totalReseñas;
+
+    @Schema(description = "Total de ventas", example = "156")
+    private Integer totalVentas;
+
+    @Schema(description = "Producto destacado", example = "false")
+    private Boolean destacado;
+
+    @Schema(description = "Producto nuevo", example = "true")
+    private Boolean nuevo;
+
+    @Schema(description = "Fecha de creación")
+    private LocalDateTime fechaCreacion;
+
+    @Schema(description = "Stock disponible para venta", example = "42")
+    private Integer stockDisponible;
+
+    @Schema(description = "Tiene stock disponible", example = "true")
+    private Boolean tieneStock;
+
+    @Schema(description = "Tallas disponibles")
+    private List<String> tallasDisponibles;
+
+    @Schema(description = "Colores disponibles")
+    private List<String> coloresDisponibles;
+}
@@ -1,5 +1,6 @@
 package com.dpattymoda.dto.response;
 
+import com.dpattymoda.entity.DimensionesProducto;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -10,6 +11,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -55,17 +57,14 @@ public class ProductoResponse {
     @Schema(description = "Porcentaje de descuento", example = "10.00")
     private BigDecimal porcentajeDescuento;
 
-    @Schema(description = "Costo del producto", example = "45.00")
-    private BigDecimal costoProducto;
-
     @Schema(description = "Peso en kilogramos", example = "0.250")
     private BigDecimal peso;
 
     @Schema(description = "Dimensiones del producto")
-    private String dimensiones;
+    private DimensionesProducto dimensiones;
 
     @Schema(description = "Características del producto")
-    private String caracteristicas;
+    private Map<String, String> caracteristicas;
 
     @Schema(description = "Imágenes del producto")
     private List<String> imagenes;
@@ -0,0 +1,59 @@
+package com.dpattymoda.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO de respuesta para una programación de precios masivos
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Programación de precios masivos")
+public class ProgramacionPrecioResponse {
+
+    @Schema(description = "ID de la programación")
+    private UUID id;
+
+    @Schema(description = "Operación aplicada")
+    private String operacion;
+
+    @Schema(description = "Valor de la operación")
+    private BigDecimal valor;
+
+    @Schema(description = "Categoría raíz seleccionada")
+    private UUID categoriaId;
+
+    @Schema(description = "Marca seleccionada")
+    private String marca;
+
+    @Schema(description = "Tag seleccionado")
+    private String tag;
+
+    @Schema(description = "IDs de productos seleccionados")
+    private List<UUID> productoIds;
+
+    @Schema(description = "Inicio de vigencia")
+    private LocalDateTime fechaInicio;
+
+    @Schema(description = "Fin de vigencia")
+    private LocalDateTime fechaFin;
+
+    @Schema(description = "Estado", example = "activa")
+    private String estado;
+
+    @Schema(description = "Productos cuyo precio cambió")
+    private Integer productosAfectados;
+
+    @Schema(description = "Fecha de creación")
+    private LocalDateTime fechaCreacion;
+}
@@ -0,0 +1,60 @@
+package com.dpattymoda.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO para el resultado de una importación masiva de productos
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de la importación masiva de productos")
+public class ResultadoImportacionResponse {
+
+    @Schema(description = "Productos leídos del archivo")
+    private int productosLeidos;
+
+    @Schema(description = "Productos creados")
+    private int productosCreados;
+
+    @Schema(description = "Variantes creadas")
+    private int variantesCreadas;
+
+    @Schema(description = "Registros de inventario creados")
+    private int inventariosCreados;
+
+    @Schema(description = "Total de errores encontrados")
+    private int totalErrores;
+
+    @Schema(description = "Detalle de errores (se devuelven como máximo los primeros 1000)")
+    private List<ErrorImportacion> errores;
+
+    @Schema(description = "Duración de la importación en milisegundos")
+    private long duracionMs;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErrorImportacion {
+
+        @Schema(description = "Fila del archivo (línea en CSV, posición en JSON)")
+        private int fila;
+
+        @Schema(description = "Código del producto afectado")
+        private String codigoProducto;
+
+        @Schema(description = "SKU afectado, si el error es de una variante")
+        private String sku;
+
+        @Schema(description = "Descripción del error")
+        private String mensaje;
+    }
+}
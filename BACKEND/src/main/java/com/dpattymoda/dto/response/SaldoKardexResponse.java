@@ -0,0 +1,43 @@
+package com.dpattymoda.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO para el saldo de una variante en una sucursal reconstruido desde el kardex
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Saldo de una variante en una sucursal a una fecha")
+public class SaldoKardexResponse {
+
+    @Schema(description = "ID de la variante")
+    private UUID varianteId;
+
+    @Schema(description = "ID de la sucursal")
+    private UUID sucursalId;
+
+    @Schema(description = "Fecha del saldo")
+    private LocalDateTime fecha;
+
+    @Schema(description = "Cantidad disponible", example = "12")
+    private Integer cantidadDisponible;
+
+    @Schema(description = "Cantidad reservada", example = "2")
+    private Integer cantidadReservada;
+
+    @Schema(description = "Costo promedio ponderado", example = "35.50")
+    private BigDecimal costoPromedio;
+
+    @Schema(description = "Cantidad disponible por costo promedio", example = "426.00")
+    private BigDecimal valorTotal;
+}
@@ -0,0 +1,29 @@
+package com.dpattymoda.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * DTO para sugerencias de búsqueda mientras se escribe
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Sugerencia de autocompletado")
+public class SugerenciaResponse {
+
+    @Schema(description = "Texto a mostrar", example = "Camisa Casual Manga Larga")
+    private String texto;
+
+    @Schema(description = "Tipo de sugerencia", example = "producto", allowableValues = {"producto", "marca", "categoria"})
+    private String tipo;
+
+    @Schema(description = "ID del producto o categoría; null para marcas")
+    private UUID id;
+}
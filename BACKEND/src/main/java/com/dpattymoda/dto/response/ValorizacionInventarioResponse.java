@@ -0,0 +1,38 @@
+package com.dpattymoda.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DTO para la valorización del inventario a una fecha
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Valorización del inventario a una fecha, reconstruida desde el kardex")
+public class ValorizacionInventarioResponse {
+
+    @Schema(description = "Fecha de la valorización")
+    private LocalDateTime fecha;
+
+    @Schema(description = "ID de la sucursal; null si abarca todas")
+    private UUID sucursalId;
+
+    @Schema(description = "Unidades disponibles", example = "1520")
+    private Long totalUnidades;
+
+    @Schema(description = "Valor total a costo promedio", example = "48210.75")
+    private BigDecimal valorTotal;
+
+    @Schema(description = "Saldos con existencias por variante y sucursal")
+    private List<SaldoKardexResponse> saldos;
+}
@@ -0,0 +1,39 @@
+package com.dpattymoda.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Valor tipado de la columna JSON productos.dimensiones
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "Dimensiones del producto")
+public class DimensionesProducto implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Schema(description = "Largo", example = "70.0")
+    private BigDecimal largo;
+
+    @Schema(description = "Ancho", example = "50.0")
+    private BigDecimal ancho;
+
+    @Schema(description = "Alto", example = "2.0")
+    private BigDecimal alto;
+
+    @Schema(description = "Unidad de medida", example = "cm")
+    private String unidad;
+}
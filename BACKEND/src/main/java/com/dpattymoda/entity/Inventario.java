@@ -1,15 +1,25 @@
 package com.dpattymoda.entity;
 
+import com.dpattymoda.event.StockBajoEvent;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.domain.AfterDomainEventPublication;
+import org.springframework.data.domain.DomainEvents;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -73,6 +83,14 @@ public class Inventario {
     @Column(name = "fecha_actualizacion")
     private LocalDateTime fechaActualizacion;
 
+    // Estado de stock bajo antes del primer movimiento no publicado; null si no hay movimientos
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Boolean bajoAntesDeMovimiento;
+
     // Métodos de utilidad
     public Integer getCantidadReal() {
         return cantidadDisponible - cantidadReservada;
@@ -105,6 +123,7 @@ public class Inventario {
     }
 
     public void confirmarVenta(Integer cantidad) {
+        marcarMovimiento();
         this.cantidadReservada = Math.max(0, this.cantidadReservada - cantidad);
         this.cantidadDisponible = Math.max(0, this.cantidadDisponible - cantidad);
         this.fechaUltimoEgreso = LocalDateTime.now();
@@ -112,6 +131,7 @@ public class Inventario {
     }
 
     public void ingresarStock(Integer cantidad, BigDecimal costoUnitario) {
+        marcarMovimiento();
         // Calcular nuevo costo promedio ponderado
         if (costoUnitario != null && costoUnitario.compareTo(BigDecimal.ZERO) > 0) {
             BigDecimal valorActual = costoPromedio != null ? 
@@ -126,4 +146,38 @@ public class Inventario {
         this.fechaUltimoIngreso = LocalDateTime.now();
         this.ultimoMovimiento = LocalDateTime.now();
     }
-}
\ No newline at end of file
+
+    // Detección de stock bajo: el evento se publica al guardar con el repositorio
+
+    @PrePersist
+    void alCrear() {
+        // Un inventario nuevo ya bajo el mínimo cuenta como cruce
+        if (bajoAntesDeMovimiento == null) {
+            bajoAntesDeMovimiento = false;
+        }
+    }
+
+    @DomainEvents
+    Collection<StockBajoEvent> eventosStockBajo() {
+        if (bajoAntesDeMovimiento == null) {
+            return List.of();
+        }
+        boolean bajo = necesitaReposicion();
+        if (!bajo && !bajoAntesDeMovimiento) {
+            return List.of();
+        }
+        return List.of(new StockBajoEvent(id, variante.getId(), variante.getProducto().getId(), sucursal.getId(),
+            cantidadDisponible, cantidadMinima, bajo, bajo != bajoAntesDeMovimiento));
+    }
+
+    @AfterDomainEventPublication
+    void limpiarEventosStockBajo() {
+        bajoAntesDeMovimiento = null;
+    }
+
+    private void marcarMovimiento() {
+        if (bajoAntesDeMovimiento == null) {
+            bajoAntesDeMovimiento = necesitaReposicion();
+        }
+    }
+}
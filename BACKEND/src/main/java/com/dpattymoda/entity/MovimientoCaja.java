@@ -37,7 +37,7 @@ public class MovimientoCaja {
     private Pedido pedido;
 
     @Column(name = "tipo_movimiento", nullable = false, length = 30)
-    private String tipoMovimiento; // venta, devolucion, gasto, retiro, ingreso_extra
+    private String tipoMovimiento; // venta, venta_anulada, devolucion, gasto, retiro, ingreso_extra
 
     @Column(name = "concepto", nullable = false, length = 200)
     private String concepto;
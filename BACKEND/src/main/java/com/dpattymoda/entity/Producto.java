@@ -5,15 +5,19 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -28,6 +32,9 @@ import java.util.UUID;
 @EntityListeners(AuditingEntityListener.class)
 public class Producto {
 
+    // Límite de margen_ganancia decimal(5,2) para costos muy por encima del precio
+    private static final BigDecimal MARGEN_MINIMO = new BigDecimal("-999.99");
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -66,14 +73,18 @@ public class Producto {
     @Column(name = "peso", precision = 8, scale = 3)
     private BigDecimal peso;
 
+    // Columnas JSON mapeadas a tipos: se interpretan una vez al cargar la entidad
+    @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "dimensiones", columnDefinition = "jsonb")
-    private String dimensiones;
+    private DimensionesProducto dimensiones;
 
+    @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "caracteristicas", columnDefinition = "jsonb")
-    private String caracteristicas;
+    private Map<String, String> caracteristicas;
 
+    @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "imagenes", columnDefinition = "jsonb")
-    private String imagenes;
+    private List<String> imagenes;
 
     @Column(name = "tags")
     private String[] tags;
@@ -146,6 +157,19 @@ public class Producto {
                        .multiply(BigDecimal.valueOf(100));
     }
 
+    /**
+     * Margen sobre el precio de venta vigente; la actualización masiva de precios usa la misma fórmula
+     */
+    public static BigDecimal calcularMargen(BigDecimal precioVenta, BigDecimal costo) {
+        if (costo == null || costo.signum() <= 0 || precioVenta == null || precioVenta.signum() <= 0) {
+            return null;
+        }
+        return precioVenta.subtract(costo)
+            .multiply(BigDecimal.valueOf(100))
+            .divide(precioVenta, 2, RoundingMode.HALF_UP)
+            .max(MARGEN_MINIMO);
+    }
+
     public boolean estaActivo() {
         return activo != null && activo;
     }
@@ -0,0 +1,46 @@
+package com.dpattymoda.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Resumen denormalizado de stock, tallas y colores por producto.
+ * Lo mantienen triggers de base de datos sobre inventario y variantes; es de sólo lectura
+ */
+@Entity
+@Immutable
+@Synchronize({"inventario", "variantes_producto"})
+@Table(name = "producto_resumen")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductoResumen {
+
+    @Id
+    @Column(name = "producto_id")
+    private UUID productoId;
+
+    @Column(name = "stock_total")
+    private Integer stockTotal;
+
+    @Column(name = "stock_disponible")
+    private Integer stockDisponible;
+
+    @Column(name = "tallas")
+    private String[] tallas;
+
+    @Column(name = "colores")
+    private String[] colores;
+
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+}
@@ -0,0 +1,89 @@
+package com.dpattymoda.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entidad ProgramacionPrecio para cambios masivos del precio de oferta
+ */
+@Entity
+@Table(name = "programacion_precios")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class ProgramacionPrecio {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "operacion", nullable = false, length = 30)
+    private String operacion; // precio_fijo, descuento_porcentaje, descuento_monto, quitar_oferta
+
+    @Column(name = "valor", precision = 10, scale = 2)
+    private BigDecimal valor;
+
+    // Selectores: se combinan con AND
+    @Column(name = "categoria_id")
+    private UUID categoriaId;
+
+    @Column(name = "marca", length = 100)
+    private String marca;
+
+    @Column(name = "tag", length = 100)
+    private String tag;
+
+    @Column(name = "producto_ids")
+    private UUID[] productoIds;
+
+    @Column(name = "fecha_inicio", nullable = false)
+    private LocalDateTime fechaInicio;
+
+    @Column(name = "fecha_fin")
+    private LocalDateTime fechaFin;
+
+    @Builder.Default
+    @Column(name = "estado", nullable = false, length = 20)
+    private String estado = "programada"; // programada, activa, aplicada, finalizada, cancelada
+
+    @Builder.Default
+    @Column(name = "productos_afectados")
+    private Integer productosAfectados = 0;
+
+    // Fin de la pasada que aplica los precios; nula mientras la activación está en curso
+    @Column(name = "fecha_aplicacion")
+    private LocalDateTime fechaAplicacion;
+
+    @CreatedDate
+    @Column(name = "fecha_creacion", nullable = false, updatable = false)
+    private LocalDateTime fechaCreacion;
+
+    @LastModifiedDate
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+
+    // Métodos de utilidad
+    public boolean estaProgramada() {
+        return "programada".equals(estado);
+    }
+
+    public boolean estaActiva() {
+        return "activa".equals(estado);
+    }
+
+    public boolean tieneFin() {
+        return fechaFin != null;
+    }
+}
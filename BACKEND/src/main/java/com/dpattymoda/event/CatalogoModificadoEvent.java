@@ -0,0 +1,36 @@
+package com.dpattymoda.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Evento publicado cuando cambian productos, variantes o stock del catálogo.
+ * Los índices y cachés en memoria lo escuchan después del commit para refrescarse
+ */
+@Getter
+@RequiredArgsConstructor
+public class CatalogoModificadoEvent {
+
+    public enum TipoCambio {
+        PRODUCTO, VARIANTE, STOCK
+    }
+
+    private final Set<UUID> productoIds;
+    private final TipoCambio tipoCambio;
+
+    public static CatalogoModificadoEvent deProducto(UUID productoId) {
+        return new CatalogoModificadoEvent(Set.of(productoId), TipoCambio.PRODUCTO);
+    }
+
+    public static CatalogoModificadoEvent deProductos(Collection<UUID> productoIds) {
+        return new CatalogoModificadoEvent(Set.copyOf(productoIds), TipoCambio.PRODUCTO);
+    }
+
+    public static CatalogoModificadoEvent deStock(Collection<UUID> productoIds) {
+        return new CatalogoModificadoEvent(Set.copyOf(productoIds), TipoCambio.STOCK);
+    }
+}
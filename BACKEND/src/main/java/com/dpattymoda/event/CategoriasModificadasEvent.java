@@ -0,0 +1,9 @@
+package com.dpattymoda.event;
+
+/**
+ * Evento publicado cuando el árbol de categorías en memoria se reconstruye por un cambio
+ * en la tabla. Las rutas de categoría viajan dentro de los DTOs de producto, así que
+ * las cachés de producto y la versión del catálogo deben renovarse
+ */
+public class CategoriasModificadasEvent {
+}
@@ -0,0 +1,17 @@
+package com.dpattymoda.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Evento publicado cuando un pedido queda confirmado (pago procesado).
+ * Los modelos derivados del historial de ventas lo escuchan después del commit
+ */
+@Getter
+@RequiredArgsConstructor
+public class PedidoConfirmadoEvent {
+
+    private final UUID pedidoId;
+}
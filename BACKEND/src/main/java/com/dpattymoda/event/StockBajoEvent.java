@@ -0,0 +1,26 @@
+package com.dpattymoda.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Evento publicado al guardar un inventario que está bajo su cantidad mínima o que
+ * acaba de cruzarla en cualquier sentido. Mantiene el conjunto de stock bajo por sucursal
+ */
+@Getter
+@RequiredArgsConstructor
+public class StockBajoEvent {
+
+    private final UUID inventarioId;
+    private final UUID varianteId;
+    private final UUID productoId;
+    private final UUID sucursalId;
+    private final int cantidadDisponible;
+    private final int cantidadMinima;
+    // Estado después del movimiento
+    private final boolean bajo;
+    // El movimiento cruzó el mínimo: se notifica en tiempo real
+    private final boolean cruce;
+}
@@ -29,4 +29,22 @@ public interface CategoriaRepository extends JpaRepository<Categoria, UUID> {
     Optional<Categoria> findByNombreCategoriaAndActivaTrue(String nombreCategoria);
 
     boolean existsByNombreCategoria(String nombreCategoria);
+
+    @Query("SELECT c.id FROM Categoria c")
+    List<UUID> obtenerIds();
+
+    /**
+     * Datos planos para construir el árbol en memoria: id, nombre, descripción,
+     * imagen, activa e id del padre, sin inicializar proxies
+     */
+    @Query("SELECT c.id, c.nombreCategoria, c.descripcion, c.imagenUrl, c.activa, p.id " +
+           "FROM Categoria c LEFT JOIN c.categoriaPadre p " +
+           "ORDER BY c.ordenVisualizacion, c.nombreCategoria")
+    List<Object[]> obtenerDatosArbol();
+
+    /**
+     * Versión de la tabla: un trigger la incrementa con cada cambio, también los hechos por SQL
+     */
+    @Query(value = "SELECT version FROM categorias_version WHERE id = 1", nativeQuery = true)
+    Optional<Long> obtenerVersionArbol();
 }
\ No newline at end of file
@@ -31,4 +31,20 @@ public interface DetallePedidoRepository extends JpaRepository<DetallePedido, UU
            "AND p.estado NOT IN ('cancelado')")
     Integer contarVentasPorVariante(@Param("varianteId") UUID varianteId,
                                    @Param("fechaInicio") LocalDateTime fechaInicio);
-}
\ No newline at end of file
+
+    @Query("SELECT DISTINCT dp.variante.producto.id FROM DetallePedido dp WHERE dp.pedido.id = :pedidoId")
+    List<UUID> obtenerProductoIdsPorPedido(@Param("pedidoId") UUID pedidoId);
+
+    @Query("SELECT dp.variante.producto.id, SUM(dp.cantidad) FROM DetallePedido dp " +
+           "WHERE dp.pedido.id = :pedidoId GROUP BY dp.variante.producto.id")
+    List<Object[]> obtenerCantidadesPorProducto(@Param("pedidoId") UUID pedidoId);
+
+    /**
+     * Pares (pedido, producto) de pedidos confirmados desde una fecha, agrupados por pedido
+     */
+    @Query("SELECT DISTINCT p.id, dp.variante.producto.id FROM DetallePedido dp JOIN dp.pedido p " +
+           "WHERE p.estadoPago = 'procesado' AND p.estado <> 'cancelado' " +
+           "AND p.fechaCreacion >= :desde " +
+           "ORDER BY p.id")
+    List<Object[]> obtenerProductosDePedidosConfirmados(@Param("desde") LocalDateTime desde);
+}
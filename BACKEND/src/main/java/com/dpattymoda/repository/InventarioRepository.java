@@ -35,4 +35,11 @@ public interface InventarioRepository extends JpaRepository<Inventario, UUID> {
     @Query("SELECT i FROM Inventario i WHERE i.sucursal.id = :sucursalId " +
            "AND i.cantidadDisponible <= i.cantidadMinima")
     List<Inventario> findStockBajoPorSucursal(@Param("sucursalId") UUID sucursalId);
+
+    /**
+     * Datos mínimos de los inventarios bajo el mínimo para reconciliar las alertas en memoria
+     */
+    @Query("SELECT i.id, i.variante.id, i.variante.producto.id, i.sucursal.id, i.cantidadDisponible, i.cantidadMinima " +
+           "FROM Inventario i WHERE i.cantidadDisponible <= i.cantidadMinima")
+    List<Object[]> obtenerAlertasStockBajo();
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.dpattymoda.repository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Proyección liviana de producto para listados: sólo las columnas que muestra una grilla.
+ * Deja fuera descripción, SEO, dimensiones, características y costo
+ */
+public interface ProductoListadoProyeccion {
+
+    UUID getId();
+
+    String getCodigoProducto();
+
+    String getNombreProducto();
+
+    String getDescripcionCorta();
+
+    UUID getCategoriaId();
+
+    String getMarca();
+
+    BigDecimal getPrecioBase();
+
+    BigDecimal getPrecioOferta();
+
+    List<String> getImagenes();
+
+    BigDecimal getCalificacionPromedio();
+
+    Integer getTotalReseñas();
+
+    Integer getTotalVentas();
+
+    Boolean getDestacado();
+
+    Boolean getNuevo();
+
+    LocalDateTime getFechaCreacion();
+
+    // Mismo cálculo que Producto.getPrecioVenta y Producto.getPorcentajeDescuento
+
+    default BigDecimal getPrecioVenta() {
+        return getPrecioOferta() != null && getPrecioOferta().compareTo(BigDecimal.ZERO) > 0
+            ? getPrecioOferta() : getPrecioBase();
+    }
+
+    default BigDecimal getPorcentajeDescuento() {
+        if (getPrecioOferta() == null || getPrecioOferta().compareTo(getPrecioBase()) >= 0) {
+            return BigDecimal.ZERO;
+        }
+        return getPrecioBase().subtract(getPrecioOferta())
+            .divide(getPrecioBase(), 4, RoundingMode.HALF_UP)
+            .multiply(BigDecimal.valueOf(100));
+    }
+}
@@ -3,12 +3,15 @@ package com.dpattymoda.repository;
 import com.dpattymoda.entity.Producto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,11 +28,60 @@ public interface ProductoRepository extends JpaRepository<Producto, UUID> {
 
     Page<Producto> findByCategoria_IdAndActivoTrue(UUID categoriaId, Pageable pageable);
 
+    Page<Producto> findByCategoria_IdInAndActivoTrue(Collection<UUID> categoriaIds, Pageable pageable);
+
+    // Paginación por cursor: orden estable (fechaCreacion, id) sin COUNT(*)
+
+    Slice<Producto> findByActivoTrueOrderByFechaCreacionDescIdDesc(Pageable pageable);
+
     @Query("SELECT p FROM Producto p WHERE p.activo = true " +
-           "AND (LOWER(p.nombreProducto) LIKE LOWER(CONCAT('%', :termino, '%')) " +
-           "OR LOWER(p.descripcion) LIKE LOWER(CONCAT('%', :termino, '%')) " +
-           "OR LOWER(p.marca) LIKE LOWER(CONCAT('%', :termino, '%')))")
-    Page<Producto> buscarProductos(@Param("termino") String termino, Pageable pageable);
+           "AND p.fechaCreacion <= :fecha " +
+           "AND (p.fechaCreacion < :fecha OR p.id < :id) " +
+           "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    Slice<Producto> findActivosDespuesDeCursor(@Param("fecha") LocalDateTime fecha,
+                                               @Param("id") UUID id,
+                                               Pageable pageable);
+
+    Slice<Producto> findByCategoria_IdAndActivoTrueOrderByFechaCreacionDescIdDesc(UUID categoriaId, Pageable pageable);
+
+    @Query("SELECT p FROM Producto p WHERE p.categoria.id = :categoriaId AND p.activo = true " +
+           "AND p.fechaCreacion <= :fecha " +
+           "AND (p.fechaCreacion < :fecha OR p.id < :id) " +
+           "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    Slice<Producto> findPorCategoriaDespuesDeCursor(@Param("categoriaId") UUID categoriaId,
+                                                    @Param("fecha") LocalDateTime fecha,
+                                                    @Param("id") UUID id,
+                                                    Pageable pageable);
+
+    /**
+     * Búsqueda de texto completo sobre productos.vector_busqueda (índice GIN).
+     * La consulta debe venir en sintaxis to_tsquery; el ranking usa ts_rank_cd
+     * normalizado por longitud del documento
+     */
+    @Query(value = "SELECT p.* FROM productos p " +
+                   "WHERE p.activo = true " +
+                   "AND p.vector_busqueda @@ to_tsquery('es_sin_tildes', :consulta) " +
+                   "ORDER BY ts_rank_cd(p.vector_busqueda, to_tsquery('es_sin_tildes', :consulta), 1) DESC, " +
+                   "p.total_ventas DESC, p.id",
+           countQuery = "SELECT COUNT(*) FROM productos p " +
+                        "WHERE p.activo = true " +
+                        "AND p.vector_busqueda @@ to_tsquery('es_sin_tildes', :consulta)",
+           nativeQuery = true)
+    Page<Producto> buscarPorTextoCompleto(@Param("consulta") String consulta, Pageable pageable);
+
+    /**
+     * Búsqueda tolerante a errores de tipeo por similitud de trigramas del nombre
+     */
+    @Query(value = "SELECT p.* FROM productos p " +
+                   "WHERE p.activo = true " +
+                   "AND inmutable_unaccent(lower(:termino)) <% inmutable_unaccent(lower(p.nombre_producto)) " +
+                   "ORDER BY word_similarity(inmutable_unaccent(lower(:termino)), " +
+                   "inmutable_unaccent(lower(p.nombre_producto))) DESC, p.id",
+           countQuery = "SELECT COUNT(*) FROM productos p " +
+                        "WHERE p.activo = true " +
+                        "AND inmutable_unaccent(lower(:termino)) <% inmutable_unaccent(lower(p.nombre_producto))",
+           nativeQuery = true)
+    Page<Producto> buscarPorSimilitud(@Param("termino") String termino, Pageable pageable);
 
     @Query("SELECT p FROM Producto p WHERE p.activo = true " +
            "AND (:categoriaId IS NULL OR p.categoria.id = :categoriaId) " +
@@ -46,9 +98,134 @@ public interface ProductoRepository extends JpaRepository<Producto, UUID> {
                                    @Param("nuevo") Boolean nuevo,
                                    Pageable pageable);
 
-    List<Producto> findByDestacadoTrueAndActivoTrueOrderByTotalVentasDesc();
+    /**
+     * Filtro facetado resuelto en la base de datos mientras el índice en memoria se construye;
+     * talla y color se comparan normalizados igual que en el índice
+     */
+    @Query("SELECT p FROM Producto p WHERE p.activo = true " +
+           "AND (:categoriaId IS NULL OR p.categoria.id = :categoriaId) " +
+           "AND (:marca IS NULL OR LOWER(TRIM(p.marca)) = :marca) " +
+           "AND (:precioMin IS NULL OR p.precioBase >= :precioMin) " +
+           "AND (:precioMax IS NULL OR p.precioBase <= :precioMax) " +
+           "AND (:destacado IS NULL OR p.destacado = :destacado) " +
+           "AND (:nuevo IS NULL OR p.nuevo = :nuevo) " +
+           "AND (:talla IS NULL OR EXISTS (SELECT v FROM VarianteProducto v WHERE v.producto = p " +
+           "AND v.activo = true AND LOWER(TRIM(v.talla)) = :talla)) " +
+           "AND (:color IS NULL OR EXISTS (SELECT v FROM VarianteProducto v WHERE v.producto = p " +
+           "AND v.activo = true AND LOWER(TRIM(v.color)) = :color)) " +
+           "AND (:conStock = false OR EXISTS (SELECT r FROM ProductoResumen r WHERE r.productoId = p.id " +
+           "AND r.stockDisponible > 0))")
+    Page<Producto> buscarPorFacetas(@Param("categoriaId") UUID categoriaId,
+                                    @Param("marca") String marca,
+                                    @Param("talla") String talla,
+                                    @Param("color") String color,
+                                    @Param("precioMin") BigDecimal precioMin,
+                                    @Param("precioMax") BigDecimal precioMax,
+                                    @Param("destacado") Boolean destacado,
+                                    @Param("nuevo") Boolean nuevo,
+                                    @Param("conStock") boolean conStock,
+                                    Pageable pageable);
 
-    List<Producto> findByNuevoTrueAndActivoTrueOrderByFechaCreacionDesc();
+    // Listados livianos: sólo las columnas de ProductoListadoProyeccion
+
+    String SELECT_LISTADO = "SELECT p.id AS id, p.codigoProducto AS codigoProducto, " +
+                            "p.nombreProducto AS nombreProducto, p.descripcionCorta AS descripcionCorta, " +
+                            "p.categoria.id AS categoriaId, p.marca AS marca, p.precioBase AS precioBase, " +
+                            "p.precioOferta AS precioOferta, p.imagenes AS imagenes, " +
+                            "p.calificacionPromedio AS calificacionPromedio, p.totalReseñas AS totalReseñas, " +
+                            "p.totalVentas AS totalVentas, p.destacado AS destacado, p.nuevo AS nuevo, " +
+                            "p.fechaCreacion AS fechaCreacion FROM Producto p ";
+
+    @Query(value = SELECT_LISTADO + "WHERE p.activo = true",
+           countQuery = "SELECT COUNT(p) FROM Producto p WHERE p.activo = true")
+    Page<ProductoListadoProyeccion> listarActivos(Pageable pageable);
+
+    @Query(value = SELECT_LISTADO + "WHERE p.categoria.id IN :categoriaIds AND p.activo = true",
+           countQuery = "SELECT COUNT(p) FROM Producto p WHERE p.categoria.id IN :categoriaIds AND p.activo = true")
+    Page<ProductoListadoProyeccion> listarActivosPorCategorias(@Param("categoriaIds") Collection<UUID> categoriaIds,
+                                                              Pageable pageable);
+
+    @Query(SELECT_LISTADO + "WHERE p.activo = true ORDER BY p.fechaCreacion DESC, p.id DESC")
+    Slice<ProductoListadoProyeccion> listarActivosPorCursor(Pageable pageable);
+
+    @Query(SELECT_LISTADO + "WHERE p.activo = true " +
+           "AND p.fechaCreacion <= :fecha " +
+           "AND (p.fechaCreacion < :fecha OR p.id < :id) " +
+           "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    Slice<ProductoListadoProyeccion> listarActivosDespuesDeCursor(@Param("fecha") LocalDateTime fecha,
+                                                                 @Param("id") UUID id,
+                                                                 Pageable pageable);
+
+    @Query(SELECT_LISTADO + "WHERE p.categoria.id = :categoriaId AND p.activo = true " +
+           "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    Slice<ProductoListadoProyeccion> listarPorCategoriaPorCursor(@Param("categoriaId") UUID categoriaId,
+                                                                Pageable pageable);
+
+    @Query(SELECT_LISTADO + "WHERE p.categoria.id = :categoriaId AND p.activo = true " +
+           "AND p.fechaCreacion <= :fecha " +
+           "AND (p.fechaCreacion < :fecha OR p.id < :id) " +
+           "ORDER BY p.fechaCreacion DESC, p.id DESC")
+    Slice<ProductoListadoProyeccion> listarPorCategoriaDespuesDeCursor(@Param("categoriaId") UUID categoriaId,
+                                                                      @Param("fecha") LocalDateTime fecha,
+                                                                      @Param("id") UUID id,
+                                                                      Pageable pageable);
+
+    @Query(value = SELECT_LISTADO + "WHERE p.activo = true " +
+           "AND (:categoriaId IS NULL OR p.categoria.id = :categoriaId) " +
+           "AND (:marca IS NULL OR LOWER(p.marca) = LOWER(:marca)) " +
+           "AND (:precioMin IS NULL OR p.precioBase >= :precioMin) " +
+           "AND (:precioMax IS NULL OR p.precioBase <= :precioMax) " +
+           "AND (:destacado IS NULL OR p.destacado = :destacado) " +
+           "AND (:nuevo IS NULL OR p.nuevo = :nuevo)",
+           countQuery = "SELECT COUNT(p) FROM Producto p WHERE p.activo = true " +
+           "AND (:categoriaId IS NULL OR p.categoria.id = :categoriaId) " +
+           "AND (:marca IS NULL OR LOWER(p.marca) = LOWER(:marca)) " +
+           "AND (:precioMin IS NULL OR p.precioBase >= :precioMin) " +
+           "AND (:precioMax IS NULL OR p.precioBase <= :precioMax) " +
+           "AND (:destacado IS NULL OR p.destacado = :destacado) " +
+           "AND (:nuevo IS NULL OR p.nuevo = :nuevo)")
+    Page<ProductoListadoProyeccion> listarConFiltros(@Param("categoriaId") UUID categoriaId,
+                                                    @Param("marca") String marca,
+                                                    @Param("precioMin") BigDecimal precioMin,
+                                                    @Param("precioMax") BigDecimal precioMax,
+                                                    @Param("destacado") Boolean destacado,
+                                                    @Param("nuevo") Boolean nuevo,
+                                                    Pageable pageable);
+
+    @Query(SELECT_LISTADO + "WHERE p.id IN :productoIds")
+    List<ProductoListadoProyeccion> listarPorIds(@Param("productoIds") Collection<UUID> productoIds);
+
+    /**
+     * Igual que buscarPorTextoCompleto, devolviendo sólo los IDs en orden de relevancia
+     */
+    @Query(value = "SELECT p.id FROM productos p " +
+                   "WHERE p.activo = true " +
+                   "AND p.vector_busqueda @@ to_tsquery('es_sin_tildes', :consulta) " +
+                   "ORDER BY ts_rank_cd(p.vector_busqueda, to_tsquery('es_sin_tildes', :consulta), 1) DESC, " +
+                   "p.total_ventas DESC, p.id",
+           countQuery = "SELECT COUNT(*) FROM productos p " +
+                        "WHERE p.activo = true " +
+                        "AND p.vector_busqueda @@ to_tsquery('es_sin_tildes', :consulta)",
+           nativeQuery = true)
+    Page<UUID> buscarIdsPorTextoCompleto(@Param("consulta") String consulta, Pageable pageable);
+
+    /**
+     * Igual que buscarPorSimilitud, devolviendo sólo los IDs en orden de similitud
+     */
+    @Query(value = "SELECT p.id FROM productos p " +
+                   "WHERE p.activo = true " +
+                   "AND inmutable_unaccent(lower(:termino)) <% inmutable_unaccent(lower(p.nombre_producto)) " +
+                   "ORDER BY word_similarity(inmutable_unaccent(lower(:termino)), " +
+                   "inmutable_unaccent(lower(p.nombre_producto))) DESC, p.id",
+           countQuery = "SELECT COUNT(*) FROM productos p " +
+                        "WHERE p.activo = true " +
+                        "AND inmutable_unaccent(lower(:termino)) <% inmutable_unaccent(lower(p.nombre_producto))",
+           nativeQuery = true)
+    Page<UUID> buscarIdsPorSimilitud(@Param("termino") String termino, Pageable pageable);
+
+    List<Producto> findByDestacadoTrueAndActivoTrueOrderByTotalVentasDesc(Pageable pageable);
+
+    List<Producto> findByNuevoTrueAndActivoTrueOrderByFechaCreacionDesc(Pageable pageable);
 
     @Query("SELECT p FROM Producto p WHERE p.activo = true " +
            "ORDER BY p.totalVentas DESC")
@@ -61,9 +238,48 @@ public interface ProductoRepository extends JpaRepository<Producto, UUID> {
     @Query("SELECT DISTINCT p.marca FROM Producto p WHERE p.activo = true ORDER BY p.marca")
     List<String> findMarcasDisponibles();
 
-    @Query("SELECT p FROM Producto p JOIN p.variantes v JOIN v.inventarios i " +
-           "WHERE p.activo = true AND i.cantidadDisponible <= i.cantidadMinima")
-    List<Producto> findProductosConStockBajo();
+    // Validadores HTTP por producto: id y última modificación, sin cargar la entidad
+    @Query("SELECT p.id, p.fechaActualizacion FROM Producto p WHERE p.id = :id")
+    List<Object[]> obtenerFechaActualizacion(@Param("id") UUID id);
+
+    @Query("SELECT p.id, p.fechaActualizacion FROM Producto p WHERE p.codigoProducto = :codigo")
+    List<Object[]> obtenerFechaActualizacionPorCodigo(@Param("codigo") String codigo);
+
+    @Query("SELECT p.id, p.categoria.id, p.marca, p.precioBase, p.destacado, p.nuevo, p.totalVentas, " +
+           "p.fechaCreacion, p.nombreProducto " +
+           "FROM Producto p WHERE p.activo = true")
+    List<Object[]> obtenerDatosFacetas();
+
+    @Query("SELECT p.id, p.categoria.id, p.marca, p.precioBase, p.destacado, p.nuevo, p.totalVentas, " +
+           "p.fechaCreacion, p.nombreProducto " +
+           "FROM Producto p WHERE p.activo = true AND p.id IN :productoIds")
+    List<Object[]> obtenerDatosFacetasPorIds(@Param("productoIds") Collection<UUID> productoIds);
+
+    @Query("SELECT p.id, p.nombreProducto, p.marca, p.categoria.id, p.categoria.nombreCategoria, " +
+           "p.totalVentas, p.calificacionPromedio " +
+           "FROM Producto p WHERE p.activo = true")
+    List<Object[]> obtenerDatosSugerencias();
+
+    @Query("SELECT p.id, p.nombreProducto, p.marca, p.categoria.id, p.categoria.nombreCategoria, " +
+           "p.totalVentas, p.calificacionPromedio " +
+           "FROM Producto p WHERE p.activo = true AND p.id IN :productoIds")
+    List<Object[]> obtenerDatosSugerenciasPorIds(@Param("productoIds") Collection<UUID> productoIds);
+
+    // Rasgos para el índice de similitud: stock disponible desde el resumen denormalizado
+
+    @Query("SELECT p.id, p.tags, p.seoPalabrasClave, p.categoria.id, p.marca, p.caracteristicas, " +
+           "COALESCE(r.stockDisponible, 0) " +
+           "FROM Producto p LEFT JOIN ProductoResumen r ON r.productoId = p.id WHERE p.activo = true")
+    List<Object[]> obtenerDatosSimilitud();
+
+    @Query("SELECT p.id, p.tags, p.seoPalabrasClave, p.categoria.id, p.marca, p.caracteristicas, " +
+           "COALESCE(r.stockDisponible, 0) " +
+           "FROM Producto p LEFT JOIN ProductoResumen r ON r.productoId = p.id " +
+           "WHERE p.activo = true AND p.id IN :productoIds")
+    List<Object[]> obtenerDatosSimilitudPorIds(@Param("productoIds") Collection<UUID> productoIds);
+
+    @Query("SELECT p.codigoProducto FROM Producto p")
+    List<String> obtenerTodosLosCodigos();
 
     @Query("SELECT COUNT(p) FROM Producto p WHERE p.activo = true")
     long contarProductosActivos();
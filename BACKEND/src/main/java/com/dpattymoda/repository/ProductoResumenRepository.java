@@ -0,0 +1,14 @@
+package com.dpattymoda.repository;
+
+import com.dpattymoda.entity.ProductoResumen;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+/**
+ * Repositorio de sólo lectura para el resumen denormalizado de productos
+ */
+@Repository
+public interface ProductoResumenRepository extends JpaRepository<ProductoResumen, UUID> {
+}
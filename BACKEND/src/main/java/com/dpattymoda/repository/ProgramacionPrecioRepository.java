@@ -0,0 +1,43 @@
+package com.dpattymoda.repository;
+
+import com.dpattymoda.entity.ProgramacionPrecio;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repositorio para programaciones de precios masivos
+ */
+@Repository
+public interface ProgramacionPrecioRepository extends JpaRepository<ProgramacionPrecio, UUID> {
+
+    Page<ProgramacionPrecio> findAllByOrderByFechaCreacionDesc(Pageable pageable);
+
+    @Query("SELECT p.id FROM ProgramacionPrecio p WHERE p.estado = 'programada' AND p.fechaInicio <= :ahora " +
+           "ORDER BY p.fechaInicio")
+    List<UUID> obtenerPendientesDeActivar(@Param("ahora") LocalDateTime ahora);
+
+    @Query("SELECT p.id FROM ProgramacionPrecio p WHERE p.estado = 'activa' AND p.fechaFin <= :ahora " +
+           "ORDER BY p.fechaFin")
+    List<UUID> obtenerPendientesDeFinalizar(@Param("ahora") LocalDateTime ahora);
+
+    @Query("SELECT p.id FROM ProgramacionPrecio p WHERE p.estado = 'activa' AND p.fechaAplicacion IS NULL " +
+           "AND p.fechaActualizacion < :limite ORDER BY p.fechaActualizacion")
+    List<UUID> obtenerActivacionesInterrumpidas(@Param("limite") LocalDateTime limite);
+
+    /**
+     * Cambio de estado condicional: sólo un nodo gana la transición
+     */
+    @Modifying
+    @Query("UPDATE ProgramacionPrecio p SET p.estado = :nuevo, p.fechaActualizacion = CURRENT_TIMESTAMP " +
+           "WHERE p.id = :id AND p.estado = :esperado")
+    int cambiarEstado(@Param("id") UUID id, @Param("esperado") String esperado, @Param("nuevo") String nuevo);
+}
@@ -27,4 +27,7 @@ public interface SucursalRepository extends JpaRepository<Sucursal, UUID> {
 
     @Query("SELECT COUNT(s) FROM Sucursal s WHERE s.activa = true")
     long contarSucursalesActivas();
+
+    @Query("SELECT s.id FROM Sucursal s")
+    List<UUID> obtenerIds();
 }
\ No newline at end of file
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -36,5 +37,11 @@ public interface VarianteProductoRepository extends JpaRepository<VarianteProduc
            "AND v.activo = true AND v.color IS NOT NULL ORDER BY v.color")
     List<String> obtenerColoresDisponibles(@Param("productoId") UUID productoId);
 
+    @Query("SELECT DISTINCT v.producto.id FROM VarianteProducto v WHERE v.id IN :varianteIds")
+    List<UUID> obtenerProductoIdsPorVariantes(@Param("varianteIds") Collection<UUID> varianteIds);
+
+    @Query("SELECT v.sku FROM VarianteProducto v")
+    List<String> obtenerTodosLosSkus();
+
     boolean existsBySku(String sku);
 }
\ No newline at end of file
@@ -0,0 +1,30 @@
+package com.dpattymoda.service;
+
+import com.dpattymoda.dto.response.AlertaStockResponse;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Servicio de alertas de stock bajo mantenidas de forma incremental.
+ * Los movimientos de inventario que cruzan la cantidad mínima actualizan el conjunto por
+ * sucursal y se notifican por /ws-notifications en /topic/stock-bajo
+ */
+public interface AlertasStockService {
+
+    /**
+     * Inventarios bajo el mínimo de una sucursal, o de todas si sucursalId es null
+     */
+    List<AlertaStockResponse> obtenerAlertas(UUID sucursalId);
+
+    /**
+     * Productos con al menos un inventario bajo el mínimo
+     */
+    Set<UUID> obtenerProductoIdsConStockBajo();
+
+    /**
+     * Reconstruir el conjunto desde la base de datos
+     */
+    void reconstruir();
+}
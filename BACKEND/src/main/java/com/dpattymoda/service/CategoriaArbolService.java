@@ -0,0 +1,41 @@
+package com.dpattymoda.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Servicio del árbol de categorías en memoria: rutas, profundidad y descendientes
+ * precalculados sobre una instantánea inmutable
+ */
+public interface CategoriaArbolService {
+
+    /**
+     * Nodo del árbol con su ruta materializada y los IDs de su subárbol (incluido él mismo)
+     */
+    record NodoCategoria(UUID id, String nombreCategoria, String descripcion, String imagenUrl,
+                         boolean activa, UUID categoriaPadreId, int profundidad, String rutaCompleta,
+                         List<UUID> rutaIds, Set<UUID> idsSubarbol) {
+    }
+
+    /**
+     * Obtener un nodo por ID
+     */
+    Optional<NodoCategoria> obtenerNodo(UUID categoriaId);
+
+    /**
+     * Ruta completa de la categoría, p. ej. "Mujer > Vestidos > Casuales"
+     */
+    String obtenerRutaCompleta(UUID categoriaId);
+
+    /**
+     * IDs de la categoría y de todas sus subcategorías
+     */
+    Set<UUID> obtenerIdsSubarbol(UUID categoriaId);
+
+    /**
+     * Reconstruir la instantánea desde la base de datos y reemplazarla atómicamente
+     */
+    void recargar();
+}
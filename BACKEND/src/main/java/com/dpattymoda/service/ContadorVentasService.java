@@ -0,0 +1,26 @@
+package com.dpattymoda.service;
+
+import java.util.UUID;
+
+/**
+ * Servicio de contadores de ventas por producto con escritura diferida.
+ * Las ventas se acumulan en memoria sin bloquear la fila del producto y se vuelcan
+ * por lotes a la base de datos
+ */
+public interface ContadorVentasService {
+
+    /**
+     * Sumar unidades vendidas de un producto; no toca la base de datos
+     */
+    void registrarVenta(UUID productoId, int cantidad);
+
+    /**
+     * Unidades acumuladas de un producto que aún no se volcaron
+     */
+    long obtenerPendiente(UUID productoId);
+
+    /**
+     * Volcar los acumulados con incrementos atómicos; devuelve los productos actualizados
+     */
+    int volcar();
+}
@@ -0,0 +1,19 @@
+package com.dpattymoda.service;
+
+import com.dpattymoda.dto.response.DisponibilidadResponse;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Servicio de disponibilidad de stock por sucursal para varias variantes a la vez.
+ * Toda la canasta se resuelve con un número fijo de consultas, sin importar las líneas
+ */
+public interface DisponibilidadService {
+
+    /**
+     * Disponibilidad de cada variante → cantidad en la sucursal (o en total si es null),
+     * con las demás sucursales que tienen stock como alternativas
+     */
+    DisponibilidadResponse consultar(UUID sucursalId, Map<UUID, Integer> lineas);
+}
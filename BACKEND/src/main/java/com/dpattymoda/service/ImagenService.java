@@ -0,0 +1,31 @@
+package com.dpattymoda.service;
+
+import com.dpattymoda.dto.response.ImagenResponse;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Servicio de almacenamiento de imágenes de catálogo en el directorio local
+ */
+public interface ImagenService {
+
+    /**
+     * Archivo a servir: ruta, tamaño y tipo. Definitivo indica que el contenido ya no
+     * cambiará para ese nombre y puede cachearse indefinidamente
+     */
+    record ArchivoImagen(Path ruta, long tamanio, String tipoContenido, boolean definitivo) {
+    }
+
+    /**
+     * Guardar una imagen en streaming con nombre por hash de contenido y
+     * encolar la generación de sus variantes
+     */
+    ImagenResponse guardarImagen(InputStream contenido);
+
+    /**
+     * Resolver un nombre de archivo; una variante aún no generada se sirve con la original
+     */
+    Optional<ArchivoImagen> obtenerArchivo(String nombre);
+}
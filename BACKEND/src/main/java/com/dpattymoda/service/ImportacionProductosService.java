@@ -0,0 +1,20 @@
+package com.dpattymoda.service;
+
+import com.dpattymoda.dto.response.ResultadoImportacionResponse;
+
+import java.io.InputStream;
+
+/**
+ * Servicio de importación masiva de productos, variantes y stock inicial
+ */
+public interface ImportacionProductosService {
+
+    enum FormatoImportacion {
+        CSV, JSON
+    }
+
+    /**
+     * Importar un archivo procesándolo en streaming y escribiendo por lotes
+     */
+    ResultadoImportacionResponse importarProductos(InputStream contenido, FormatoImportacion formato);
+}
@@ -0,0 +1,50 @@
+package com.dpattymoda.service;
+
+import com.dpattymoda.dto.request.FiltroProductosRequest;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Servicio de índice facetado en memoria sobre los productos activos
+ */
+public interface IndiceFacetasService {
+
+    /**
+     * Propiedades por las que el índice sabe ordenar; la consulta a la base de datos acepta las mismas
+     */
+    Set<String> ORDENES_SOPORTADOS = Set.of("totalVentas", "precioBase", "fechaCreacion", "nombreProducto", "id");
+
+    /**
+     * Indica si el índice ya fue construido y puede atender consultas
+     */
+    boolean estaListo();
+
+    /**
+     * Filtrar productos y calcular los conteos por faceta en una sola pasada; los IDs salen
+     * en el orden indicado (sólo propiedades de ORDENES_SOPORTADOS)
+     */
+    ResultadoFacetas buscar(FiltroProductosRequest filtro, Sort orden);
+
+    /**
+     * Refrescar en el índice los productos indicados
+     */
+    void actualizarProductos(Iterable<UUID> productoIds);
+
+    /**
+     * Reconstruir el índice completo desde la base de datos
+     */
+    void reconstruir();
+
+    @Getter
+    @AllArgsConstructor
+    class ResultadoFacetas {
+        private final List<UUID> productoIds;
+        private final Map<String, Map<String, Long>> facetas;
+    }
+}
@@ -0,0 +1,83 @@
+package com.dpattymoda.service;
+
+import com.dpattymoda.dto.response.SaldoKardexResponse;
+import com.dpattymoda.dto.response.ValorizacionInventarioResponse;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Servicio del kardex: diario de sólo agregado de los movimientos de inventario.
+ * Los movimientos que acompañan cambios de inventario en base de datos se escriben en la
+ * misma transacción; los del motor en memoria se encolan al confirmarse y se escriben por
+ * lotes. Los saldos a una fecha se reconstruyen desde el snapshot más cercano
+ */
+public interface KardexService {
+
+    /**
+     * Tipo de movimiento con su valor en kardex_movimientos
+     */
+    enum TipoMovimiento {
+        INGRESO("ingreso"),
+        RESERVA("reserva"),
+        VENTA("venta"),
+        LIBERACION("liberacion"),
+        TRANSFERENCIA("transferencia"),
+        AJUSTE("ajuste");
+
+        private final String valor;
+
+        TipoMovimiento(String valor) {
+            this.valor = valor;
+        }
+
+        public String getValor() {
+            return valor;
+        }
+    }
+
+    /**
+     * Movimiento de una variante en una sucursal expresado como deltas
+     */
+    record Movimiento(TipoMovimiento tipo, UUID varianteId, UUID sucursalId, int deltaDisponible,
+                      int deltaReservada, BigDecimal costoUnitario, UUID referenciaId) {
+
+        public static Movimiento de(TipoMovimiento tipo, UUID varianteId, UUID sucursalId,
+                                    int deltaDisponible, int deltaReservada) {
+            return new Movimiento(tipo, varianteId, sucursalId, deltaDisponible, deltaReservada, null, null);
+        }
+    }
+
+    /**
+     * Escribir movimientos en la transacción actual con un solo INSERT; se revierten con ella
+     */
+    void escribir(Collection<Movimiento> movimientos);
+
+    /**
+     * Encolar movimientos; se descartan si la transacción actual se revierte
+     */
+    void registrar(Collection<Movimiento> movimientos);
+
+    /**
+     * Escribir los movimientos encolados; devuelve los insertados
+     */
+    int volcar();
+
+    /**
+     * Guardar un snapshot de los pares con movimientos desde el corte anterior y ajustar los
+     * pares cuyo saldo no coincide con inventario; devuelve los snapshots guardados
+     */
+    int generarSnapshots();
+
+    /**
+     * Saldo de una variante en una sucursal a una fecha
+     */
+    SaldoKardexResponse obtenerSaldo(UUID varianteId, UUID sucursalId, LocalDateTime fecha);
+
+    /**
+     * Valorización a costo promedio a una fecha, de una sucursal o de todas
+     */
+    ValorizacionInventarioResponse obtenerValorizacion(LocalDateTime fecha, UUID sucursalId);
+}
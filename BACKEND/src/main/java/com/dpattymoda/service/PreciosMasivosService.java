@@ -0,0 +1,39 @@
+package com.dpattymoda.service;
+
+import com.dpattymoda.dto.request.ActualizacionPreciosRequest;
+import com.dpattymoda.dto.response.ProgramacionPrecioResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.UUID;
+
+/**
+ * Servicio de actualización masiva y programada de precios de oferta
+ */
+public interface PreciosMasivosService {
+
+    /**
+     * Registrar un cambio masivo; sin fecha de inicio futura se aplica de inmediato
+     */
+    ProgramacionPrecioResponse programarActualizacion(ActualizacionPreciosRequest request);
+
+    /**
+     * Cancelar una programación, restaurando precios si ya estaba activa
+     */
+    ProgramacionPrecioResponse cancelarProgramacion(UUID programacionId);
+
+    /**
+     * Obtener una programación
+     */
+    ProgramacionPrecioResponse obtenerProgramacion(UUID programacionId);
+
+    /**
+     * Listar programaciones, las más recientes primero
+     */
+    Page<ProgramacionPrecioResponse> listarProgramaciones(Pageable pageable);
+
+    /**
+     * Activar y finalizar las programaciones cuyo momento ya llegó
+     */
+    void procesarProgramaciones();
+}
@@ -1,9 +1,14 @@
 package com.dpattymoda.service;
 
+import com.dpattymoda.dto.request.FiltroProductosRequest;
 import com.dpattymoda.dto.request.ProductoCreateRequest;
 import com.dpattymoda.dto.request.ProductoUpdateRequest;
+import com.dpattymoda.dto.response.BusquedaFacetadaResponse;
+import com.dpattymoda.dto.response.CursorPageResponse;
+import com.dpattymoda.dto.response.ProductoAdminResponse;
 import com.dpattymoda.dto.response.ProductoResponse;
 import com.dpattymoda.dto.response.ProductoDetalleResponse;
+import com.dpattymoda.dto.response.ProductoListadoResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -19,12 +24,12 @@ public interface ProductoService {
     /**
      * Crear un nuevo producto
      */
-    ProductoResponse crearProducto(ProductoCreateRequest request);
+    ProductoAdminResponse crearProducto(ProductoCreateRequest request);
 
     /**
      * Actualizar un producto existente
      */
-    ProductoResponse actualizarProducto(UUID id, ProductoUpdateRequest request);
+    ProductoAdminResponse actualizarProducto(UUID id, ProductoUpdateRequest request);
 
     /**
      * Obtener producto por ID con detalles completos
@@ -47,7 +52,13 @@ public interface ProductoService {
     Page<ProductoResponse> listarProductos(Pageable pageable);
 
     /**
-     * Buscar productos por término
+     * Listar productos activos por cursor, sin conteo total
+     */
+    CursorPageResponse<ProductoResponse> listarProductosPorCursor(String cursor, int tamanio);
+
+    /**
+     * Buscar productos por término, ordenados por relevancia; el Sort del Pageable se ignora
+     * y la página devuelta no lo informa
      */
     Page<ProductoResponse> buscarProductos(String termino, Pageable pageable);
 
@@ -60,19 +71,56 @@ public interface ProductoService {
                                           Pageable pageable);
 
     /**
-     * Obtener productos por categoría
+     * Buscar productos filtrando por facetas y devolver el conteo por cada valor
+     */
+    BusquedaFacetadaResponse buscarConFacetas(FiltroProductosRequest filtro, Pageable pageable);
+
+    /**
+     * Obtener productos por categoría, opcionalmente incluyendo todas sus subcategorías
      */
-    Page<ProductoResponse> obtenerProductosPorCategoria(UUID categoriaId, Pageable pageable);
+    Page<ProductoResponse> obtenerProductosPorCategoria(UUID categoriaId, boolean incluirSubcategorias, Pageable pageable);
+
+    /**
+     * Obtener productos por categoría por cursor, sin conteo total
+     */
+    CursorPageResponse<ProductoResponse> obtenerProductosPorCategoriaPorCursor(UUID categoriaId, String cursor, int tamanio);
+
+    /**
+     * Variantes livianas de los listados: sólo los campos indicados (separados por coma)
+     * y sin leer stock salvo que se pida
+     */
+    Page<ProductoListadoResponse> listarProductosConCampos(String campos, Pageable pageable);
+
+    CursorPageResponse<ProductoListadoResponse> listarProductosPorCursorConCampos(String campos, String cursor,
+                                                                                 int tamanio);
+
+    /**
+     * Igual que buscarProductos: el orden es siempre por relevancia
+     */
+    Page<ProductoListadoResponse> buscarProductosConCampos(String campos, String termino, Pageable pageable);
+
+    Page<ProductoListadoResponse> buscarConFiltrosConCampos(String campos, UUID categoriaId, String marca,
+                                                            BigDecimal precioMin, BigDecimal precioMax,
+                                                            Boolean destacado, Boolean nuevo, Pageable pageable);
+
+    Page<ProductoListadoResponse> obtenerProductosPorCategoriaConCampos(String campos, UUID categoriaId,
+                                                                        boolean incluirSubcategorias,
+                                                                        Pageable pageable);
+
+    CursorPageResponse<ProductoListadoResponse> obtenerProductosPorCategoriaPorCursorConCampos(String campos,
+                                                                                              UUID categoriaId,
+                                                                                              String cursor,
+                                                                                              int tamanio);
 
     /**
      * Obtener productos destacados
      */
-    List<ProductoResponse> obtenerProductosDestacados();
+    List<ProductoResponse> obtenerProductosDestacados(int limite);
 
     /**
      * Obtener productos nuevos
      */
-    List<ProductoResponse> obtenerProductosNuevos();
+    List<ProductoResponse> obtenerProductosNuevos(int limite);
 
     /**
      * Obtener productos más vendidos
@@ -112,7 +160,7 @@ public interface ProductoService {
     /**
      * Obtener productos con stock bajo
      */
-    List<ProductoResponse> obtenerProductosConStockBajo();
+    List<ProductoAdminResponse> obtenerProductosConStockBajo();
 
     /**
      * Obtener estadísticas de productos
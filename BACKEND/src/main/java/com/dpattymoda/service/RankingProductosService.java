@@ -0,0 +1,27 @@
+package com.dpattymoda.service;
+
+/**
+ * Servicio de rankings precalculados para la página de inicio
+ */
+public interface RankingProductosService {
+
+    enum TipoRanking {
+        DESTACADOS, NUEVOS, MAS_VENDIDOS, MEJOR_CALIFICADOS
+    }
+
+    /**
+     * Primeros productos de un ranking como arreglo JSON, armado en memoria con los
+     * productos ya serializados
+     */
+    byte[] obtenerRanking(TipoRanking tipo, int limite);
+
+    /**
+     * Recalcular todos los rankings desde la base de datos
+     */
+    void refrescar();
+
+    /**
+     * Momento (epoch en milisegundos) del último recálculo; distingue ETags entre recálculos
+     */
+    long obtenerUltimaActualizacion();
+}
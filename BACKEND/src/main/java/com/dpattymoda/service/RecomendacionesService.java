@@ -0,0 +1,34 @@
+package com.dpattymoda.service;
+
+import com.dpattymoda.dto.response.ProductoResponse;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Servicio de recomendaciones "comprados juntos" a partir de la co-ocurrencia en pedidos confirmados
+ */
+public interface RecomendacionesService {
+
+    /**
+     * Productos que más se compran junto con el indicado, desde memoria
+     */
+    List<ProductoResponse> obtenerRelacionados(UUID productoId, int limite);
+
+    /**
+     * Sumar los productos de un pedido confirmado a la matriz de co-ocurrencia;
+     * un pedido ya registrado se ignora
+     */
+    void registrarPedido(UUID pedidoId, Collection<UUID> productoIds);
+
+    /**
+     * Reconstruir la matriz desde el historial de pedidos confirmados
+     */
+    void reconstruir();
+
+    /**
+     * Momento (epoch en milisegundos) del último cambio en la matriz; distingue ETags
+     */
+    long obtenerUltimaActualizacion();
+}
@@ -0,0 +1,39 @@
+package com.dpattymoda.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Servicio de movimientos atómicos de stock por sucursal.
+ * Cada operación recibe las líneas como variante → cantidad y se aplica completa o no se
+ * aplica: si una línea falla se lanza BusinessException y la transacción se revierte
+ */
+public interface ReservaStockService {
+
+    /**
+     * Stock disponible para vender (disponible menos reservado) de una variante en una sucursal
+     */
+    int obtenerDisponible(UUID varianteId, UUID sucursalId);
+
+    /**
+     * Stock disponible para vender de varias variantes en todas sus sucursales, en una sola
+     * consulta: variante → sucursal → cantidad
+     */
+    Map<UUID, Map<UUID, Integer>> obtenerDisponibles(Collection<UUID> varianteIds);
+
+    /**
+     * Reservar stock sólo si queda disponible suficiente en cada variante
+     */
+    void reservar(UUID sucursalId, Map<UUID, Integer> lineas);
+
+    /**
+     * Liberar reservas de una venta cancelada
+     */
+    void liberar(UUID sucursalId, Map<UUID, Integer> lineas);
+
+    /**
+     * Descontar del stock disponible lo reservado por una venta confirmada
+     */
+    void confirmar(UUID sucursalId, Map<UUID, Integer> lineas);
+}
@@ -0,0 +1,56 @@
+package com.dpattymoda.service;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Servicio de reservas de stock con vencimiento asociadas a un pedido.
+ * Cada reserva queda registrada en reservas_stock; si el pedido no se paga ni se cancela
+ * antes de su expiración, el stock vuelve a estar disponible y el pedido se cancela
+ */
+public interface ReservasPedidoService {
+
+    /**
+     * Resultado de confirmar o liberar las reservas de un pedido
+     */
+    enum ResultadoReserva {
+        // Las reservas activas del pedido se confirmaron o liberaron
+        APLICADA,
+        // El pedido no tiene reservas registradas (anterior a las reservas con vencimiento)
+        SIN_RESERVAS,
+        // Las reservas ya vencieron o se resolvieron antes
+        YA_RESUELTA
+    }
+
+    /**
+     * Reservar las líneas del pedido con el vencimiento por defecto
+     */
+    void reservar(UUID pedidoId, UUID sucursalId, Map<UUID, Integer> lineas);
+
+    /**
+     * Extender el vencimiento de las reservas activas, por ejemplo hasta el del pago iniciado
+     */
+    void extender(UUID pedidoId, LocalDateTime expiracion);
+
+    /**
+     * Descontar del stock las reservas activas del pedido
+     */
+    ResultadoReserva confirmar(UUID pedidoId);
+
+    /**
+     * Devolver al stock las reservas activas del pedido
+     */
+    ResultadoReserva liberar(UUID pedidoId);
+
+    /**
+     * Liberar las reservas vencidas programadas en este nodo; devuelve los pedidos afectados
+     */
+    int procesarVencimientos();
+
+    /**
+     * Liberar las reservas vencidas según la base de datos, aunque ningún nodo las tenga
+     * programadas; devuelve los pedidos afectados
+     */
+    int barrerVencidas();
+}
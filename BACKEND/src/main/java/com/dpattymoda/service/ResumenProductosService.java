@@ -0,0 +1,14 @@
+package com.dpattymoda.service;
+
+/**
+ * Servicio que recalcula el resumen denormalizado de productos (producto_resumen).
+ * Los triggers de inventario y variantes sólo marcan los productos afectados; el recálculo
+ * corre aquí, en su propia transacción, sin retener bloqueos dentro de las ventas
+ */
+public interface ResumenProductosService {
+
+    /**
+     * Recalcular los productos marcados; devuelve cuántos se recalcularon
+     */
+    int procesarPendientes();
+}
@@ -0,0 +1,34 @@
+package com.dpattymoda.service;
+
+import com.dpattymoda.dto.response.ProductoResponse;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Servicio de productos similares por contenido: tags, palabras clave SEO, ruta de
+ * categoría, marca y características. Cubre productos sin historial de ventas
+ */
+public interface SimilitudProductosService {
+
+    /**
+     * Productos activos y con stock más parecidos al indicado, sin recorrer el catálogo
+     */
+    List<ProductoResponse> obtenerSimilares(UUID productoId, int limite);
+
+    /**
+     * Volver a indexar productos concretos (altas, cambios, bajas o stock)
+     */
+    void actualizarProductos(Collection<UUID> productoIds);
+
+    /**
+     * Reconstruir el índice completo desde la base de datos
+     */
+    void reconstruir();
+
+    /**
+     * Momento (epoch en milisegundos) del último cambio en el índice; distingue ETags
+     */
+    long obtenerUltimaActualizacion();
+}
@@ -0,0 +1,28 @@
+package com.dpattymoda.service;
+
+import com.dpattymoda.dto.response.SugerenciaResponse;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Servicio de autocompletado sobre nombres de productos, marcas y categorías
+ */
+public interface SugerenciasService {
+
+    /**
+     * Obtener las mejores sugerencias para un prefijo
+     */
+    List<SugerenciaResponse> sugerir(String prefijo, int limite);
+
+    /**
+     * Refrescar las entradas de los productos indicados
+     */
+    void actualizarProductos(Collection<UUID> productoIds);
+
+    /**
+     * Reconstruir el índice completo desde la base de datos
+     */
+    void reconstruir();
+}
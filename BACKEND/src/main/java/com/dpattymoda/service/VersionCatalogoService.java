@@ -0,0 +1,39 @@
+package com.dpattymoda.service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Servicio de versiones del catálogo para peticiones HTTP condicionales.
+ * Los listados usan una versión global que cambia con cada modificación confirmada de
+ * productos, stock o categorías; el detalle de un producto y las marcas tienen validadores
+ * propios que no cambian con ventas ni movimientos de stock
+ */
+public interface VersionCatalogoService {
+
+    /**
+     * Valor del ETag y momento (epoch en milisegundos) de la última modificación vista
+     */
+    record Validador(String valor, long modificadaEn) {
+    }
+
+    /**
+     * Validador de los listados, compartido por todos los nodos mientras Redis esté disponible
+     */
+    Validador obtenerValidadorListados();
+
+    /**
+     * Validador de la lista de marcas: sólo cambia con modificaciones de productos
+     */
+    Validador obtenerValidadorMarcas();
+
+    /**
+     * Validador del detalle de un producto; vacío si el producto no existe
+     */
+    Optional<Validador> obtenerValidadorProducto(UUID productoId);
+
+    /**
+     * Validador del detalle de un producto buscado por código; vacío si no existe
+     */
+    Optional<Validador> obtenerValidadorProductoPorCodigo(String codigo);
+}
@@ -0,0 +1,167 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.dto.response.AlertaStockResponse;
+import com.dpattymoda.event.StockBajoEvent;
+import com.dpattymoda.repository.InventarioRepository;
+import com.dpattymoda.service.AlertasStockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Implementación de alertas de stock bajo.
+ * El conjunto vive en memoria agrupado por sucursal y se actualiza con los eventos que
+ * publica Inventario al guardarse, así que leerlo cuesta lo mismo que el resultado.
+ * Los cambios hechos con SQL directo (importaciones) se recogen en la reconciliación periódica
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AlertasStockServiceImpl implements AlertasStockService {
+
+    private static final String TOPICO = "/topic/stock-bajo";
+
+    private static final Comparator<AlertaStockResponse> POR_URGENCIA =
+        Comparator.comparingInt((AlertaStockResponse alerta) -> alerta.getCantidadDisponible() - alerta.getCantidadMinima())
+            .thenComparing(AlertaStockResponse::getInventarioId);
+
+    private final InventarioRepository inventarioRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    // Un cruce que llegue durante la reconciliación esperaría a que se publique el mapa nuevo;
+    // sin el monitor quedaría en el mapa descartado y la alerta se perdería hasta la siguiente
+    private final Object escritura = new Object();
+    private volatile Map<UUID, Map<UUID, AlertaStockResponse>> porSucursal = new ConcurrentHashMap<>();
+
+    @Override
+    public List<AlertaStockResponse> obtenerAlertas(UUID sucursalId) {
+        Map<UUID, Map<UUID, AlertaStockResponse>> actual = porSucursal;
+        if (sucursalId != null) {
+            Map<UUID, AlertaStockResponse> alertas = actual.get(sucursalId);
+            return alertas == null ? List.of() : alertas.values().stream().sorted(POR_URGENCIA).toList();
+        }
+        return actual.values().stream()
+            .flatMap(alertas -> alertas.values().stream())
+            .sorted(POR_URGENCIA)
+            .toList();
+    }
+
+    @Override
+    public Set<UUID> obtenerProductoIdsConStockBajo() {
+        Set<UUID> productoIds = new HashSet<>();
+        porSucursal.values().forEach(alertas ->
+            alertas.values().forEach(alerta -> productoIds.add(alerta.getProductoId())));
+        return productoIds;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.inventario.stock-bajo.intervalo-reconciliacion-ms:600000}",
+               initialDelayString = "${app.inventario.stock-bajo.intervalo-reconciliacion-ms:600000}")
+    public void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        LocalDateTime ahora = LocalDateTime.now();
+
+        synchronized (escritura) {
+            Map<UUID, Map<UUID, AlertaStockResponse>> anterior = porSucursal;
+            Map<UUID, Map<UUID, AlertaStockResponse>> nuevo = new ConcurrentHashMap<>();
+            for (Object[] fila : inventarioRepository.obtenerAlertasStockBajo()) {
+                AlertaStockResponse alerta = AlertaStockResponse.builder()
+                    .inventarioId((UUID) fila[0])
+                    .varianteId((UUID) fila[1])
+                    .productoId((UUID) fila[2])
+                    .sucursalId((UUID) fila[3])
+                    .cantidadDisponible(((Number) fila[4]).intValue())
+                    .cantidadMinima(((Number) fila[5]).intValue())
+                    .bajo(true)
+                    .fechaDeteccion(fechaDeteccion(anterior, (UUID) fila[3], (UUID) fila[0], ahora))
+                    .build();
+                nuevo.computeIfAbsent(alerta.getSucursalId(), id -> new ConcurrentHashMap<>())
+                    .put(alerta.getInventarioId(), alerta);
+            }
+            porSucursal = nuevo;
+        }
+
+        log.debug("Alertas de stock bajo reconciliadas en {} ms", System.currentTimeMillis() - inicio);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        try {
+            reconstruir();
+        } catch (Exception e) {
+            log.error("No se pudo cargar el stock bajo: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sin @Async: aplicar los eventos en el orden de commit evita que una reposición
+     * llegue antes que la alerta que la precede
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alCambiarStock(StockBajoEvent evento) {
+        AlertaStockResponse alerta;
+        synchronized (escritura) {
+            Map<UUID, AlertaStockResponse> alertas = porSucursal.computeIfAbsent(evento.getSucursalId(),
+                id -> new ConcurrentHashMap<>());
+            AlertaStockResponse previa = alertas.get(evento.getInventarioId());
+            alerta = AlertaStockResponse.builder()
+                .inventarioId(evento.getInventarioId())
+                .varianteId(evento.getVarianteId())
+                .productoId(evento.getProductoId())
+                .sucursalId(evento.getSucursalId())
+                .cantidadDisponible(evento.getCantidadDisponible())
+                .cantidadMinima(evento.getCantidadMinima())
+                .bajo(evento.isBajo())
+                .fechaDeteccion(previa != null ? previa.getFechaDeteccion() : LocalDateTime.now())
+                .build();
+            if (evento.isBajo()) {
+                alertas.put(evento.getInventarioId(), alerta);
+            } else {
+                alertas.remove(evento.getInventarioId());
+            }
+        }
+
+        if (evento.isCruce()) {
+            notificar(alerta);
+        }
+    }
+
+    // Métodos privados de utilidad
+
+    private void notificar(AlertaStockResponse alerta) {
+        try {
+            messagingTemplate.convertAndSend(TOPICO, alerta);
+            messagingTemplate.convertAndSend(TOPICO + "/" + alerta.getSucursalId(), alerta);
+        } catch (Exception e) {
+            log.warn("No se pudo notificar el stock bajo del inventario {}: {}",
+                alerta.getInventarioId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Conservar la fecha de detección de las alertas que siguen vigentes
+     */
+    private LocalDateTime fechaDeteccion(Map<UUID, Map<UUID, AlertaStockResponse>> anterior,
+                                         UUID sucursalId, UUID inventarioId, LocalDateTime porDefecto) {
+        Map<UUID, AlertaStockResponse> alertas = anterior.get(sucursalId);
+        AlertaStockResponse previa = alertas != null ? alertas.get(inventarioId) : null;
+        return previa != null ? previa.getFechaDeteccion() : porDefecto;
+    }
+}
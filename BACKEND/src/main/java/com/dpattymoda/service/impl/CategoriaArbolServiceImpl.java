@@ -0,0 +1,152 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.event.CategoriasModificadasEvent;
+import com.dpattymoda.repository.CategoriaRepository;
+import com.dpattymoda.service.CategoriaArbolService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Implementación del árbol de categorías en memoria.
+ * La tabla se carga con una sola consulta plana y se arma una instantánea inmutable
+ * con rutas, profundidad y subárboles ya resueltos; los cambios se detectan con una
+ * consulta de versión (total de filas y última modificación) y la instantánea nueva
+ * reemplaza a la anterior de forma atómica
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategoriaArbolServiceImpl implements CategoriaArbolService {
+
+    private static final String SEPARADOR_RUTA = " > ";
+
+    private final CategoriaRepository categoriaRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile Arbol arbol;
+
+    @Override
+    public Optional<NodoCategoria> obtenerNodo(UUID categoriaId) {
+        if (categoriaId == null) {
+            return Optional.empty();
+        }
+
+        NodoCategoria nodo = arbolActual().nodos().get(categoriaId);
+        if (nodo == null && recargarSiCambio()) {
+            // Categoría creada después de la última instantánea
+            nodo = arbol.nodos().get(categoriaId);
+        }
+        return Optional.ofNullable(nodo);
+    }
+
+    @Override
+    public String obtenerRutaCompleta(UUID categoriaId) {
+        return obtenerNodo(categoriaId).map(NodoCategoria::rutaCompleta).orElse(null);
+    }
+
+    @Override
+    public Set<UUID> obtenerIdsSubarbol(UUID categoriaId) {
+        return obtenerNodo(categoriaId).map(NodoCategoria::idsSubarbol).orElse(Set.of(categoriaId));
+    }
+
+    @Override
+    public synchronized void recargar() {
+        long inicio = System.currentTimeMillis();
+        long version = leerVersion();
+        arbol = construir(categoriaRepository.obtenerDatosArbol(), version);
+
+        log.info("Árbol de categorías cargado: {} categorías en {} ms",
+            arbol.nodos().size(), System.currentTimeMillis() - inicio);
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalogo.categorias.intervalo-revision-ms:60000}")
+    public void revisarCambios() {
+        try {
+            recargarSiCambio();
+        } catch (Exception e) {
+            log.warn("No se pudo revisar el árbol de categorías: {}", e.getMessage());
+        }
+    }
+
+    // Métodos privados de utilidad
+
+    private Arbol arbolActual() {
+        Arbol actual = arbol;
+        if (actual == null) {
+            synchronized (this) {
+                if (arbol == null) {
+                    recargar();
+                }
+                actual = arbol;
+            }
+        }
+        return actual;
+    }
+
+    private synchronized boolean recargarSiCambio() {
+        if (arbol == null) {
+            recargar();
+            return true;
+        }
+        if (arbol.version() == leerVersion()) {
+            return false;
+        }
+        recargar();
+        eventPublisher.publishEvent(new CategoriasModificadasEvent());
+        return true;
+    }
+
+    private long leerVersion() {
+        return categoriaRepository.obtenerVersionArbol().orElse(0L);
+    }
+
+    private Arbol construir(List<Object[]> filas, long version) {
+        Map<UUID, Object[]> porId = new LinkedHashMap<>();
+        for (Object[] fila : filas) {
+            porId.put((UUID) fila[0], fila);
+        }
+
+        Map<UUID, Set<UUID>> subarboles = new HashMap<>();
+        Map<UUID, List<UUID>> rutas = new HashMap<>();
+
+        for (UUID id : porId.keySet()) {
+            subarboles.computeIfAbsent(id, clave -> new HashSet<>()).add(id);
+
+            // Se sube por los padres; el conjunto de visitados corta ciclos mal cargados
+            LinkedList<UUID> ruta = new LinkedList<>();
+            ruta.add(id);
+            Set<UUID> visitados = new HashSet<>(ruta);
+            UUID padre = (UUID) porId.get(id)[5];
+            while (padre != null && porId.containsKey(padre) && visitados.add(padre)) {
+                ruta.addFirst(padre);
+                subarboles.computeIfAbsent(padre, clave -> new HashSet<>()).add(id);
+                padre = (UUID) porId.get(padre)[5];
+            }
+            rutas.put(id, ruta);
+        }
+
+        Map<UUID, NodoCategoria> nodos = new HashMap<>();
+        for (Map.Entry<UUID, Object[]> entrada : porId.entrySet()) {
+            UUID id = entrada.getKey();
+            Object[] fila = entrada.getValue();
+            List<UUID> ruta = rutas.get(id);
+
+            StringJoiner rutaCompleta = new StringJoiner(SEPARADOR_RUTA);
+            ruta.forEach(ancestro -> rutaCompleta.add((String) porId.get(ancestro)[1]));
+
+            nodos.put(id, new NodoCategoria(id, (String) fila[1], (String) fila[2], (String) fila[3],
+                Boolean.TRUE.equals(fila[4]), (UUID) fila[5], ruta.size(), rutaCompleta.toString(),
+                List.copyOf(ruta), Set.copyOf(subarboles.get(id))));
+        }
+
+        return new Arbol(Map.copyOf(nodos), version);
+    }
+
+    private record Arbol(Map<UUID, NodoCategoria> nodos, long version) {
+    }
+}
@@ -0,0 +1,161 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.cache.InvalidadorCacheProductos;
+import com.dpattymoda.event.PedidoConfirmadoEvent;
+import com.dpattymoda.repository.DetallePedidoRepository;
+import com.dpattymoda.service.ContadorVentasService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementación de contadores de ventas con LongAdder por producto.
+ * Cada venta suma sobre celdas repartidas entre hilos, sin candados ni filas bloqueadas;
+ * el volcado periódico aplica total_ventas = total_ventas + n en lotes ordenados por id
+ * dentro de una transacción, de modo que varias instancias nunca se pisan ni se bloquean
+ * en orden cruzado. Cada pedido se cuenta una sola vez aunque su confirmación se reciba
+ * de nuevo, y el volcado sólo invalida las cachés de los productos afectados: el total de
+ * ventas no cambia la versión del catálogo
+ */
+@Slf4j
+@Service
+public class ContadorVentasServiceImpl implements ContadorVentasService {
+
+    private static final String SQL_INCREMENTAR =
+        "UPDATE productos SET total_ventas = COALESCE(total_ventas, 0) + ? WHERE id = ?";
+
+    private final DetallePedidoRepository detallePedidoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final InvalidadorCacheProductos invalidadorCacheProductos;
+    private final int tamanioLote;
+
+    // Las entradas se conservan tras volcar: el catálogo acota su número
+    private final Map<UUID, LongAdder> acumulados = new ConcurrentHashMap<>();
+    private final Object volcado = new Object();
+    // Pedidos ya contados: una confirmación reenviada (webhook repetido) no vuelve a sumar
+    private final Cache<UUID, Boolean> pedidosContados;
+
+    public ContadorVentasServiceImpl(DetallePedidoRepository detallePedidoRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     InvalidadorCacheProductos invalidadorCacheProductos,
+                                     @Value("${app.catalogo.contador-ventas.tamanio-lote:500}") int tamanioLote,
+                                     @Value("${app.catalogo.contador-ventas.retencion-pedidos-ms:86400000}") long retencionPedidosMs) {
+        this.detallePedidoRepository = detallePedidoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.invalidadorCacheProductos = invalidadorCacheProductos;
+        this.tamanioLote = tamanioLote;
+        this.pedidosContados = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofMillis(retencionPedidosMs))
+            .build();
+    }
+
+    @Override
+    public void registrarVenta(UUID productoId, int cantidad) {
+        if (cantidad == 0) return;
+        acumulados.computeIfAbsent(productoId, id -> new LongAdder()).add(cantidad);
+    }
+
+    @Override
+    public long obtenerPendiente(UUID productoId) {
+        LongAdder acumulado = acumulados.get(productoId);
+        return acumulado != null ? acumulado.sum() : 0;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.catalogo.contador-ventas.intervalo-volcado-ms:30000}",
+               initialDelayString = "${app.catalogo.contador-ventas.intervalo-volcado-ms:30000}")
+    public int volcar() {
+        synchronized (volcado) {
+            // Se resta exactamente lo leído: lo que llegue mientras tanto queda para el próximo volcado
+            List<Incremento> incrementos = new ArrayList<>();
+            acumulados.forEach((productoId, acumulado) -> {
+                long cantidad = acumulado.sum();
+                if (cantidad != 0) {
+                    acumulado.add(-cantidad);
+                    incrementos.add(new Incremento(productoId, cantidad));
+                }
+            });
+            if (incrementos.isEmpty()) {
+                return 0;
+            }
+            incrementos.sort(Comparator.comparing(Incremento::productoId));
+
+            List<UUID> volcados = new ArrayList<>();
+            for (int desde = 0; desde < incrementos.size(); desde += tamanioLote) {
+                List<Incremento> lote = incrementos.subList(desde, Math.min(desde + tamanioLote, incrementos.size()));
+                try {
+                    volcarLote(lote);
+                    lote.forEach(incremento -> volcados.add(incremento.productoId()));
+                } catch (Exception e) {
+                    // Se devuelven al acumulador para reintentar en el próximo ciclo
+                    lote.forEach(incremento -> registrarVenta(incremento.productoId(), (int) incremento.cantidad()));
+                    log.warn("No se pudo volcar un lote de {} contadores de ventas: {}", lote.size(), e.getMessage());
+                }
+            }
+
+            // Fuera de los lotes: un fallo de caché no debe devolver al acumulador lo ya confirmado
+            invalidadorCacheProductos.invalidarProductos(volcados);
+            log.debug("Contadores de ventas volcados: {} productos", volcados.size());
+            return volcados.size();
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        int volcados = volcar();
+        log.info("Contadores de ventas volcados al detener: {} productos", volcados);
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alConfirmarPedido(PedidoConfirmadoEvent evento) {
+        if (pedidosContados.asMap().putIfAbsent(evento.getPedidoId(), Boolean.TRUE) != null) {
+            log.debug("Pedido {} ya contado, se ignora la confirmación repetida", evento.getPedidoId());
+            return;
+        }
+        try {
+            for (Object[] fila : detallePedidoRepository.obtenerCantidadesPorProducto(evento.getPedidoId())) {
+                registrarVenta((UUID) fila[0], ((Number) fila[1]).intValue());
+            }
+        } catch (Exception e) {
+            // Sin sumar nada: una nueva confirmación puede volver a intentarlo
+            pedidosContados.invalidate(evento.getPedidoId());
+            log.warn("No se pudieron contar las ventas del pedido {}: {}", evento.getPedidoId(), e.getMessage());
+        }
+    }
+
+    // Métodos privados de utilidad
+
+    private void volcarLote(List<Incremento> lote) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(SQL_INCREMENTAR, lote, lote.size(), (ps, incremento) -> {
+                ps.setInt(1, Math.toIntExact(incremento.cantidad()));
+                ps.setObject(2, incremento.productoId());
+            });
+        });
+    }
+
+    private record Incremento(UUID productoId, long cantidad) {
+    }
+}
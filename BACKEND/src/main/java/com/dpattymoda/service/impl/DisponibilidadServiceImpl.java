@@ -0,0 +1,90 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.dto.response.DisponibilidadResponse;
+import com.dpattymoda.dto.response.DisponibilidadResponse.LineaDisponibilidadResponse;
+import com.dpattymoda.dto.response.DisponibilidadResponse.StockSucursalResponse;
+import com.dpattymoda.entity.Sucursal;
+import com.dpattymoda.repository.SucursalRepository;
+import com.dpattymoda.service.DisponibilidadService;
+import com.dpattymoda.service.ReservaStockService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de la disponibilidad por canasta.
+ * Las cantidades salen del motor de stock activo (una consulta agrupada o la memoria) y los
+ * nombres de sucursal de una segunda consulta: dos viajes a la base de datos por canasta
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class DisponibilidadServiceImpl implements DisponibilidadService {
+
+    private final ReservaStockService reservaStockService;
+    private final SucursalRepository sucursalRepository;
+
+    @Override
+    public DisponibilidadResponse consultar(UUID sucursalId, Map<UUID, Integer> lineas) {
+        Map<UUID, Map<UUID, Integer>> disponibles = reservaStockService.obtenerDisponibles(lineas.keySet());
+
+        Set<UUID> sucursalIds = new HashSet<>();
+        disponibles.values().forEach(porSucursal -> sucursalIds.addAll(porSucursal.keySet()));
+        // Sólo sucursales activas cuentan como alternativa
+        Map<UUID, Sucursal> sucursales = sucursalRepository.findAllById(sucursalIds).stream()
+            .filter(sucursal -> Boolean.TRUE.equals(sucursal.getActiva()))
+            .collect(Collectors.toMap(Sucursal::getId, Function.identity()));
+
+        List<LineaDisponibilidadResponse> respuesta = new ArrayList<>(lineas.size());
+        boolean completo = true;
+        for (Map.Entry<UUID, Integer> linea : lineas.entrySet()) {
+            Map<UUID, Integer> porSucursal = disponibles.getOrDefault(linea.getKey(), Map.of());
+            int cantidad = linea.getValue();
+
+            int disponible = sucursalId != null
+                ? porSucursal.getOrDefault(sucursalId, 0)
+                : porSucursal.entrySet().stream()
+                    .filter(entrada -> sucursales.containsKey(entrada.getKey()))
+                    .mapToInt(Map.Entry::getValue)
+                    .sum();
+            boolean suficiente = disponible >= cantidad;
+            completo &= suficiente;
+
+            List<StockSucursalResponse> alternativas = porSucursal.entrySet().stream()
+                .filter(entrada -> !entrada.getKey().equals(sucursalId))
+                .filter(entrada -> entrada.getValue() > 0 && sucursales.containsKey(entrada.getKey()))
+                .sorted(Map.Entry.<UUID, Integer>comparingByValue(Comparator.reverseOrder()))
+                .map(entrada -> StockSucursalResponse.builder()
+                    .sucursalId(entrada.getKey())
+                    .nombreSucursal(sucursales.get(entrada.getKey()).getNombreSucursal())
+                    .cantidadDisponible(entrada.getValue())
+                    .suficiente(entrada.getValue() >= cantidad)
+                    .build())
+                .toList();
+
+            respuesta.add(LineaDisponibilidadResponse.builder()
+                .varianteId(linea.getKey())
+                .cantidadSolicitada(cantidad)
+                .cantidadDisponible(disponible)
+                .suficiente(suficiente)
+                .alternativas(alternativas)
+                .build());
+        }
+
+        return DisponibilidadResponse.builder()
+            .sucursalId(sucursalId)
+            .completo(completo)
+            .lineas(respuesta)
+            .build();
+    }
+}
@@ -0,0 +1,433 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.dto.response.ImagenResponse;
+import com.dpattymoda.exception.BusinessException;
+import com.dpattymoda.service.ImagenService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Implementación del almacenamiento de imágenes en disco.
+ * El nombre de cada archivo es el SHA-256 de su contenido: una URL nunca cambia de contenido,
+ * lo que permite cachearla indefinidamente y deduplica subidas repetidas.
+ * Las variantes por ancho se generan en un pool acotado propio, fuera de la petición
+ */
+@Slf4j
+@Service
+public class ImagenServiceImpl implements ImagenService {
+
+    public static final String RUTA_PUBLICA = "/api/imagenes/";
+
+    // hash[-ancho].extension; cualquier otro nombre se rechaza (evita recorrer directorios)
+    private static final Pattern NOMBRE_ARCHIVO = Pattern.compile("([0-9a-f]{64})(?:-(\\d{2,4}))?\\.(jpg|png|gif|webp)");
+    private static final String DIRECTORIO_VARIANTES = "variantes";
+    private static final int TAMANIO_BUFFER = 64 * 1024;
+
+    private static final Map<String, String> TIPOS_CONTENIDO = Map.of(
+        "jpg", "image/jpeg",
+        "png", "image/png",
+        "gif", "image/gif",
+        "webp", "image/webp");
+
+    private final Path directorio;
+    private final Path directorioVariantes;
+    private final long tamanioMaximoBytes;
+    private final long maximoPixeles;
+    private final float calidadJpeg;
+    private final List<Integer> anchosVariantes;
+    private final boolean webpDisponible;
+
+    private final ThreadPoolExecutor procesador;
+    // Hashes con variantes encoladas o en proceso, para no duplicar trabajo
+    private final Set<String> enProceso = ConcurrentHashMap.newKeySet();
+
+    public ImagenServiceImpl(@Value("${app.archivos.directorio-imagenes}") String directorio,
+                             @Value("${app.archivos.tamaño-maximo-mb:10}") long tamanioMaximoMb,
+                             @Value("${app.archivos.variantes.anchos:160,480,960}") List<Integer> anchosVariantes,
+                             @Value("${app.archivos.variantes.calidad-jpeg:0.85}") float calidadJpeg,
+                             @Value("${app.archivos.variantes.maximo-megapixeles:40}") long maximoMegapixeles,
+                             @Value("${app.archivos.variantes.hilos:2}") int hilos,
+                             @Value("${app.archivos.variantes.capacidad-cola:200}") int capacidadCola) throws IOException {
+        this.directorio = Paths.get(directorio).toAbsolutePath().normalize();
+        this.directorioVariantes = this.directorio.resolve(DIRECTORIO_VARIANTES);
+        Files.createDirectories(this.directorioVariantes);
+
+        this.tamanioMaximoBytes = tamanioMaximoMb * 1024 * 1024;
+        this.maximoPixeles = maximoMegapixeles * 1_000_000;
+        this.calidadJpeg = calidadJpeg;
+        this.anchosVariantes = anchosVariantes.stream().sorted().distinct().toList();
+        // El JDK no trae codificador WebP: sólo se generan si hay un plugin de ImageIO en el classpath
+        this.webpDisponible = ImageIO.getImageWritersByFormatName("webp").hasNext();
+
+        // Pool propio y acotado: una ráfaga de subidas no compite con el resto de tareas asíncronas
+        AtomicInteger contador = new AtomicInteger();
+        this.procesador = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(capacidadCola),
+            tarea -> {
+                Thread hilo = new Thread(tarea, "imagenes-" + contador.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.procesador.allowCoreThreadTimeOut(true);
+
+        log.info("Imágenes en {} (variantes {}, WebP {})", this.directorio, this.anchosVariantes,
+            webpDisponible ? "disponible" : "no disponible");
+    }
+
+    @Override
+    public ImagenResponse guardarImagen(InputStream contenido) {
+        Path temporal = null;
+        try {
+            temporal = Files.createTempFile(directorio, "subida-", ".tmp");
+            String hash = copiarConHash(contenido, temporal);
+
+            String extension = detectarExtension(temporal);
+            int[] dimensiones = leerDimensiones(temporal);
+            Path destino = directorio.resolve(hash + "." + extension);
+
+            boolean existente = Files.exists(destino);
+            if (existente) {
+                Files.delete(temporal);
+            } else {
+                Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+            }
+            temporal = null;
+
+            encolarVariantes(hash, extension);
+
+            return construirRespuesta(hash, extension, Files.size(destino), dimensiones, existente);
+        } catch (IOException e) {
+            throw new BusinessException("No se pudo guardar la imagen: " + e.getMessage());
+        } finally {
+            if (temporal != null) {
+                try {
+                    Files.deleteIfExists(temporal);
+                } catch (IOException e) {
+                    log.warn("No se pudo eliminar el temporal {}: {}", temporal, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public Optional<ArchivoImagen> obtenerArchivo(String nombre) {
+        Matcher partes = NOMBRE_ARCHIVO.matcher(nombre);
+        if (!partes.matches()) {
+            return Optional.empty();
+        }
+        String hash = partes.group(1);
+        String extension = partes.group(3);
+
+        if (partes.group(2) == null) {
+            return archivo(directorio.resolve(nombre), extension, true);
+        }
+
+        Optional<ArchivoImagen> variante = archivo(directorioVariantes.resolve(nombre), extension, true);
+        if (variante.isPresent()) {
+            return variante;
+        }
+
+        // Variante pendiente (o perdida): servir la original sin cache larga y volver a encolarla.
+        // Sólo para variantes que este servidor genera; el resto no existe
+        Optional<ArchivoImagen> original = buscarOriginal(hash);
+        if (original.isEmpty() || !anchosVariantes.contains(Integer.valueOf(partes.group(2)))) {
+            return Optional.empty();
+        }
+        String extensionOriginal = extensionDe(original.get().ruta());
+        boolean formatoValido = extension.equals(formatoVariante(extensionOriginal))
+            || (webpDisponible && extension.equals("webp"));
+        if (!formatoValido) {
+            return Optional.empty();
+        }
+
+        encolarVariantes(hash, extensionOriginal);
+        return original.map(archivo -> new ArchivoImagen(archivo.ruta(), archivo.tamanio(),
+            archivo.tipoContenido(), false));
+    }
+
+    @PreDestroy
+    public void detener() {
+        procesador.shutdownNow();
+    }
+
+    // Métodos privados de utilidad
+
+    /**
+     * Copiar el flujo al temporal calculando el SHA-256 y cortando al superar el tamaño máximo
+     */
+    private String copiarConHash(InputStream contenido, Path destino) throws IOException {
+        MessageDigest digest = nuevoDigest();
+        byte[] buffer = new byte[TAMANIO_BUFFER];
+        long total = 0;
+
+        try (OutputStream salida = Files.newOutputStream(destino)) {
+            int leidos;
+            while ((leidos = contenido.read(buffer)) != -1) {
+                total += leidos;
+                if (total > tamanioMaximoBytes) {
+                    throw new BusinessException("La imagen supera el tamaño máximo de "
+                        + tamanioMaximoBytes / (1024 * 1024) + " MB");
+                }
+                digest.update(buffer, 0, leidos);
+                salida.write(buffer, 0, leidos);
+            }
+        }
+        if (total == 0) {
+            throw new BusinessException("El archivo de imagen está vacío");
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Formato real según el contenido, no según el nombre o el Content-Type declarados
+     */
+    private String detectarExtension(Path archivo) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(archivo.toFile())) {
+            Iterator<ImageReader> lectores = entrada != null ? ImageIO.getImageReaders(entrada) : null;
+            if (lectores == null || !lectores.hasNext()) {
+                throw new BusinessException("El archivo no es una imagen reconocida");
+            }
+            String formato = lectores.next().getFormatName().toLowerCase(Locale.ROOT);
+            return switch (formato) {
+                case "jpeg", "jpg" -> "jpg";
+                case "png" -> "png";
+                case "gif" -> "gif";
+                case "webp" -> "webp";
+                default -> throw new BusinessException("Formato de imagen no soportado: " + formato);
+            };
+        }
+    }
+
+    /**
+     * Ancho y alto leídos de la cabecera, sin decodificar los píxeles
+     */
+    private int[] leerDimensiones(Path archivo) throws IOException {
+        try (ImageInputStream entrada = ImageIO.createImageInputStream(archivo.toFile())) {
+            ImageReader lector = ImageIO.getImageReaders(entrada).next();
+            try {
+                lector.setInput(entrada, true, true);
+                int ancho = lector.getWidth(0);
+                int alto = lector.getHeight(0);
+                if ((long) ancho * alto > maximoPixeles) {
+                    throw new BusinessException("La imagen supera el máximo de "
+                        + maximoPixeles / 1_000_000 + " megapíxeles");
+                }
+                return new int[]{ancho, alto};
+            } finally {
+                lector.dispose();
+            }
+        }
+    }
+
+    private void encolarVariantes(String hash, String extension) {
+        if (anchosVariantes.isEmpty() || !enProceso.add(hash)) {
+            return;
+        }
+        try {
+            procesador.execute(() -> {
+                try {
+                    generarVariantes(hash, extension);
+                } finally {
+                    enProceso.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Cola llena: la subida no espera; la variante se encolará de nuevo cuando se pida
+            enProceso.remove(hash);
+            log.warn("Cola de variantes llena, se pospone la imagen {}", hash);
+        }
+    }
+
+    private void generarVariantes(String hash, String extension) {
+        long inicio = System.currentTimeMillis();
+        try {
+            BufferedImage original = ImageIO.read(directorio.resolve(hash + "." + extension).toFile());
+            if (original == null) {
+                log.warn("No se pudo decodificar la imagen {} para generar variantes", hash);
+                return;
+            }
+            String formatoVariante = formatoVariante(extension);
+            boolean transparente = formatoVariante.equals("png") && original.getColorModel().hasAlpha();
+
+            for (int ancho : anchosVariantes) {
+                // Nunca se amplía: las variantes mayores que el original lo reutilizan reescalado a su ancho
+                int anchoFinal = Math.min(ancho, original.getWidth());
+                BufferedImage escalada = null;
+
+                Path destino = directorioVariantes.resolve(hash + "-" + ancho + "." + formatoVariante);
+                if (!Files.exists(destino)) {
+                    escalada = escalar(original, anchoFinal, transparente);
+                    escribir(escalada, formatoVariante, destino);
+                }
+                if (webpDisponible) {
+                    Path destinoWebp = directorioVariantes.resolve(hash + "-" + ancho + ".webp");
+                    if (!Files.exists(destinoWebp)) {
+                        escribir(escalada != null ? escalada : escalar(original, anchoFinal, transparente),
+                            "webp", destinoWebp);
+                    }
+                }
+            }
+            log.debug("Variantes de {} generadas en {} ms", hash, System.currentTimeMillis() - inicio);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error generando variantes de {}: {}", hash, e.getMessage());
+        }
+    }
+
+    /**
+     * Reducir a la mitad en pasos sucesivos y terminar con un paso bilineal: evita el
+     * aliasing de un único escalado grande sin el costo de un filtro de área
+     */
+    private BufferedImage escalar(BufferedImage origen, int ancho, boolean transparente) {
+        int alto = Math.max(1, Math.round((float) origen.getHeight() * ancho / origen.getWidth()));
+        int tipo = transparente ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage actual = origen;
+        int anchoActual = origen.getWidth();
+        int altoActual = origen.getHeight();
+        do {
+            anchoActual = Math.max(ancho, anchoActual / 2);
+            altoActual = Math.max(alto, altoActual / 2);
+
+            BufferedImage siguiente = new BufferedImage(anchoActual, altoActual, tipo);
+            Graphics2D graficos = siguiente.createGraphics();
+            try {
+                graficos.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graficos.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graficos.drawImage(actual, 0, 0, anchoActual, altoActual, null);
+            } finally {
+                graficos.dispose();
+            }
+            actual = siguiente;
+        } while (anchoActual != ancho || altoActual != alto);
+
+        return actual;
+    }
+
+    /**
+     * Escribir en un temporal y mover: un lector nunca ve una variante a medio escribir
+     */
+    private void escribir(BufferedImage imagen, String formato, Path destino) throws IOException {
+        Iterator<ImageWriter> escritores = ImageIO.getImageWritersByFormatName(formato.equals("jpg") ? "jpeg" : formato);
+        if (!escritores.hasNext()) {
+            return;
+        }
+        ImageWriter escritor = escritores.next();
+        Path temporal = Files.createTempFile(directorioVariantes, "variante-", ".tmp");
+        try (ImageOutputStream salida = ImageIO.createImageOutputStream(temporal.toFile())) {
+            escritor.setOutput(salida);
+            ImageWriteParam parametros = escritor.getDefaultWriteParam();
+            if (formato.equals("jpg")) {
+                parametros.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                parametros.setCompressionQuality(calidadJpeg);
+                parametros.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            escritor.write(null, new IIOImage(imagen, null, null), parametros);
+        } finally {
+            escritor.dispose();
+        }
+        Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Optional<ArchivoImagen> buscarOriginal(String hash) {
+        for (String extension : TIPOS_CONTENIDO.keySet()) {
+            Optional<ArchivoImagen> original = archivo(directorio.resolve(hash + "." + extension), extension, true);
+            if (original.isPresent()) {
+                return original;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<ArchivoImagen> archivo(Path ruta, String extension, boolean definitivo) {
+        try {
+            return Optional.of(new ArchivoImagen(ruta, Files.size(ruta), TIPOS_CONTENIDO.get(extension), definitivo));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private ImagenResponse construirRespuesta(String hash, String extension, long tamanio, int[] dimensiones,
+                                              boolean existente) {
+        Map<Integer, String> variantes = new LinkedHashMap<>();
+        Map<Integer, String> variantesWebp = new LinkedHashMap<>();
+        String formatoVariante = formatoVariante(extension);
+        for (int ancho : anchosVariantes) {
+            variantes.put(ancho, RUTA_PUBLICA + hash + "-" + ancho + "." + formatoVariante);
+            if (webpDisponible) {
+                variantesWebp.put(ancho, RUTA_PUBLICA + hash + "-" + ancho + ".webp");
+            }
+        }
+
+        return ImagenResponse.builder()
+            .nombre(hash + "." + extension)
+            .url(RUTA_PUBLICA + hash + "." + extension)
+            .tipoContenido(TIPOS_CONTENIDO.get(extension))
+            .tamanioBytes(tamanio)
+            .ancho(dimensiones[0])
+            .alto(dimensiones[1])
+            .existente(existente)
+            .variantes(variantes)
+            .variantesWebp(webpDisponible ? variantesWebp : Map.of())
+            .build();
+    }
+
+    /**
+     * JPEG se mantiene en JPEG; PNG, GIF y WebP pueden tener transparencia y pasan a PNG
+     */
+    private String formatoVariante(String extension) {
+        return extension.equals("jpg") ? "jpg" : "png";
+    }
+
+    private String extensionDe(Path ruta) {
+        String nombre = ruta.getFileName().toString();
+        return nombre.substring(nombre.lastIndexOf('.') + 1);
+    }
+
+    private MessageDigest nuevoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
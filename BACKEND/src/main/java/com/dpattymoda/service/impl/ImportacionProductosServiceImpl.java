@@ -0,0 +1,649 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.dto.request.ProductoCreateRequest;
+import com.dpattymoda.dto.response.ResultadoImportacionResponse;
+import com.dpattymoda.dto.response.ResultadoImportacionResponse.ErrorImportacion;
+import com.dpattymoda.entity.Producto;
+import com.dpattymoda.event.CatalogoModificadoEvent;
+import com.dpattymoda.exception.BusinessException;
+import com.dpattymoda.repository.CategoriaRepository;
+import com.dpattymoda.repository.ProductoRepository;
+import com.dpattymoda.repository.SucursalRepository;
+import com.dpattymoda.repository.VarianteProductoRepository;
+import com.dpattymoda.service.AuditoriaService;
+import com.dpattymoda.service.ImportacionProductosService;
+import com.dpattymoda.service.KardexService;
+import com.dpattymoda.util.LectorCsv;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Implementación de la importación masiva de productos.
+ * El archivo se lee en streaming; códigos, SKUs, categorías y sucursales se validan
+ * contra conjuntos en memoria cargados una sola vez, y los productos válidos se
+ * insertan con lotes JDBC, una transacción por lote. Si un lote falla se reintenta
+ * producto por producto para aislar la fila problemática
+ */
+@Slf4j
+@Service
+public class ImportacionProductosServiceImpl implements ImportacionProductosService {
+
+    private static final int MAX_ERRORES_DETALLADOS = 1000;
+    private static final String SEPARADOR_LISTA = "\\|";
+
+    private static final String SQL_PRODUCTO = "INSERT INTO productos (id, codigo_producto, nombre_producto, " +
+        "descripcion, descripcion_corta, categoria_id, marca, precio_base, precio_oferta, costo_producto, " +
+        "margen_ganancia, peso, dimensiones, caracteristicas, imagenes, tags, activo, destacado, nuevo, " +
+        "fecha_lanzamiento, seo_titulo, seo_descripcion, seo_palabras_clave) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?::jsonb, ?::jsonb, ?, true, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_VARIANTE = "INSERT INTO variantes_producto (id, producto_id, sku, talla, " +
+        "color, material, precio_variante, peso_variante, imagen_variante, codigo_barras, activo) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, true)";
+
+    private static final String SQL_INVENTARIO = "INSERT INTO inventario (id, variante_id, sucursal_id, " +
+        "cantidad_disponible, cantidad_minima, ubicacion_fisica) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final List<String> COLUMNAS_REQUERIDAS =
+        List.of("codigo_producto", "nombre_producto", "categoria_id", "precio_base");
+
+    private final ProductoRepository productoRepository;
+    private final VarianteProductoRepository varianteProductoRepository;
+    private final CategoriaRepository categoriaRepository;
+    private final SucursalRepository sucursalRepository;
+    private final AuditoriaService auditoriaService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final KardexService kardexService;
+    private final int tamanioLote;
+
+    public ImportacionProductosServiceImpl(ProductoRepository productoRepository,
+                                           VarianteProductoRepository varianteProductoRepository,
+                                           CategoriaRepository categoriaRepository,
+                                           SucursalRepository sucursalRepository,
+                                           AuditoriaService auditoriaService,
+                                           JdbcTemplate jdbcTemplate,
+                                           TransactionTemplate transactionTemplate,
+                                           ObjectMapper objectMapper,
+                                           Validator validator,
+                                           ApplicationEventPublisher eventPublisher,
+                                           KardexService kardexService,
+                                           @Value("${app.catalogo.importacion.tamanio-lote:500}") int tamanioLote) {
+        this.productoRepository = productoRepository;
+        this.varianteProductoRepository = varianteProductoRepository;
+        this.categoriaRepository = categoriaRepository;
+        this.sucursalRepository = sucursalRepository;
+        this.auditoriaService = auditoriaService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.kardexService = kardexService;
+        this.tamanioLote = tamanioLote;
+    }
+
+    @Override
+    public ResultadoImportacionResponse importarProductos(InputStream contenido, FormatoImportacion formato) {
+        long inicio = System.currentTimeMillis();
+        log.info("Iniciando importación masiva de productos ({})", formato);
+
+        Importacion importacion = new Importacion(
+            new HashSet<>(productoRepository.obtenerTodosLosCodigos()),
+            new HashSet<>(varianteProductoRepository.obtenerTodosLosSkus()),
+            new HashSet<>(categoriaRepository.obtenerIds()),
+            new HashSet<>(sucursalRepository.obtenerIds()));
+
+        try {
+            if (formato == FormatoImportacion.JSON) {
+                leerJson(contenido, importacion);
+            } else {
+                leerCsv(contenido, importacion);
+            }
+        } catch (IOException e) {
+            throw new BusinessException("No se pudo leer el archivo de importación: " + e.getMessage());
+        } finally {
+            // Lo ya validado se escribe aunque la lectura se haya interrumpido
+            escribirLote(importacion);
+        }
+
+        long duracion = System.currentTimeMillis() - inicio;
+        auditoriaService.registrarAccion("IMPORTAR_PRODUCTOS", "productos", null, null, null,
+            "Importación masiva: " + importacion.productosCreados + " productos creados, "
+                + importacion.totalErrores + " errores");
+
+        log.info("Importación finalizada: {} productos, {} variantes, {} inventarios, {} errores en {} ms",
+            importacion.productosCreados, importacion.variantesCreadas, importacion.inventariosCreados,
+            importacion.totalErrores, duracion);
+
+        return ResultadoImportacionResponse.builder()
+            .productosLeidos(importacion.productosLeidos)
+            .productosCreados(importacion.productosCreados)
+            .variantesCreadas(importacion.variantesCreadas)
+            .inventariosCreados(importacion.inventariosCreados)
+            .totalErrores(importacion.totalErrores)
+            .errores(importacion.errores)
+            .duracionMs(duracion)
+            .build();
+    }
+
+    // Lectura
+
+    /**
+     * JSON: arreglo de ProductoCreateRequest, leído objeto por objeto
+     */
+    private void leerJson(InputStream contenido, Importacion importacion) throws IOException {
+        int posicion = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(contenido)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BusinessException("El archivo JSON debe contener un arreglo de productos");
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                posicion++;
+                JsonNode nodo = objectMapper.readTree(parser);
+                try {
+                    procesar(importacion, posicion,
+                        objectMapper.treeToValue(nodo, ProductoCreateRequest.class), List.of());
+                } catch (JsonProcessingException e) {
+                    String codigo = nodo.path("codigoProducto").asText(null);
+                    procesar(importacion, posicion, null,
+                        List.of(error(posicion, codigo, null, "Formato inválido: " + e.getOriginalMessage())));
+                }
+            }
+        } catch (JsonProcessingException e) {
+            importacion.registrarError(error(posicion + 1, null, null,
+                "JSON mal formado, se detuvo la lectura: " + e.getOriginalMessage()));
+        }
+    }
+
+    /**
+     * CSV: una fila por variante y sucursal; las filas consecutivas con el mismo
+     * codigo_producto forman un producto y las de igual SKU, una variante
+     */
+    private void leerCsv(InputStream contenido, Importacion importacion) throws IOException {
+        try (LectorCsv lector = new LectorCsv(new InputStreamReader(contenido, StandardCharsets.UTF_8))) {
+            List<String> cabecera = lector.leerRegistro();
+            if (cabecera == null) {
+                return;
+            }
+
+            Map<String, Integer> columnas = new HashMap<>();
+            for (int i = 0; i < cabecera.size(); i++) {
+                columnas.put(cabecera.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+            }
+            List<String> faltantes = COLUMNAS_REQUERIDAS.stream().filter(c -> !columnas.containsKey(c)).toList();
+            if (!faltantes.isEmpty()) {
+                throw new BusinessException("Faltan columnas requeridas en el CSV: " + String.join(", ", faltantes));
+            }
+
+            GrupoCsv grupo = null;
+            List<String> registro;
+            while ((registro = lector.leerRegistro()) != null) {
+                FilaCsv fila = new FilaCsv(registro, columnas, lector.getLineaRegistro());
+                String codigo = fila.texto("codigo_producto");
+
+                if (grupo == null || !Objects.equals(grupo.codigo, codigo)) {
+                    if (grupo != null) {
+                        procesar(importacion, grupo.fila, grupo.construir(), grupo.errores);
+                    }
+                    grupo = new GrupoCsv(fila.linea, codigo);
+                    try {
+                        grupo.producto = productoDesdeCsv(fila);
+                    } catch (IllegalArgumentException e) {
+                        grupo.errores.add(error(fila.linea, codigo, null, e.getMessage()));
+                    }
+                }
+
+                try {
+                    agregarVarianteDesdeCsv(grupo, fila);
+                } catch (IllegalArgumentException e) {
+                    grupo.errores.add(error(fila.linea, codigo, fila.texto("sku"), e.getMessage()));
+                }
+            }
+
+            if (grupo != null) {
+                procesar(importacion, grupo.fila, grupo.construir(), grupo.errores);
+            }
+        }
+    }
+
+    private ProductoCreateRequest productoDesdeCsv(FilaCsv fila) {
+        ProductoCreateRequest producto = new ProductoCreateRequest();
+        producto.setCodigoProducto(fila.texto("codigo_producto"));
+        producto.setNombreProducto(fila.texto("nombre_producto"));
+        producto.setDescripcion(fila.texto("descripcion"));
+        producto.setDescripcionCorta(fila.texto("descripcion_corta"));
+        producto.setCategoriaId(fila.valor("categoria_id", UUID::fromString));
+        producto.setMarca(fila.texto("marca"));
+        producto.setPrecioBase(fila.valor("precio_base", BigDecimal::new));
+        producto.setPrecioOferta(fila.valor("precio_oferta", BigDecimal::new));
+        producto.setCostoProducto(fila.valor("costo_producto", BigDecimal::new));
+        producto.setPeso(fila.valor("peso", BigDecimal::new));
+        producto.setTags(fila.lista("tags"));
+        producto.setImagenes(fila.lista("imagenes"));
+        producto.setDestacado(Boolean.TRUE.equals(fila.valor("destacado", this::aBooleano)));
+        producto.setNuevo(Boolean.TRUE.equals(fila.valor("nuevo", this::aBooleano)));
+        return producto;
+    }
+
+    private void agregarVarianteDesdeCsv(GrupoCsv grupo, FilaCsv fila) {
+        String sku = fila.texto("sku");
+        if (sku == null) {
+            return;
+        }
+
+        ProductoCreateRequest.VarianteCreateRequest variante = grupo.variantes.computeIfAbsent(sku, s -> {
+            ProductoCreateRequest.VarianteCreateRequest nueva = new ProductoCreateRequest.VarianteCreateRequest();
+            nueva.setSku(s);
+            nueva.setTalla(fila.texto("talla"));
+            nueva.setColor(fila.texto("color"));
+            nueva.setMaterial(fila.texto("material"));
+            nueva.setPrecioVariante(fila.valor("precio_variante", BigDecimal::new));
+            nueva.setCodigoBarras(fila.texto("codigo_barras"));
+            nueva.setStockInicial(new ArrayList<>());
+            return nueva;
+        });
+
+        UUID sucursalId = fila.valor("sucursal_id", UUID::fromString);
+        if (sucursalId != null) {
+            ProductoCreateRequest.StockInicialRequest stock = new ProductoCreateRequest.StockInicialRequest();
+            stock.setSucursalId(sucursalId);
+            stock.setCantidad(fila.valor("cantidad", Integer::valueOf));
+            Integer cantidadMinima = fila.valor("cantidad_minima", Integer::valueOf);
+            if (cantidadMinima != null) {
+                stock.setCantidadMinima(cantidadMinima);
+            }
+            stock.setUbicacionFisica(fila.texto("ubicacion_fisica"));
+            variante.getStockInicial().add(stock);
+        }
+    }
+
+    private Boolean aBooleano(String valor) {
+        return switch (valor.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "si", "sí", "s" -> true;
+            case "false", "0", "no", "n" -> false;
+            default -> throw new IllegalArgumentException("no es un valor booleano");
+        };
+    }
+
+    // Validación
+
+    private void procesar(Importacion importacion, int fila, ProductoCreateRequest request,
+                          List<ErrorImportacion> erroresLectura) {
+        importacion.productosLeidos++;
+        if (!erroresLectura.isEmpty()) {
+            erroresLectura.forEach(importacion::registrarError);
+            return;
+        }
+
+        List<ErrorImportacion> errores = validar(importacion, fila, request);
+        if (!errores.isEmpty()) {
+            errores.forEach(importacion::registrarError);
+            return;
+        }
+
+        // Reservar código y SKUs para detectar duplicados dentro del mismo archivo
+        importacion.codigos.add(request.getCodigoProducto());
+        List<VarianteImportada> variantes = new ArrayList<>();
+        UUID productoId = UUID.randomUUID();
+        if (request.getVariantes() != null) {
+            for (ProductoCreateRequest.VarianteCreateRequest variante : request.getVariantes()) {
+                importacion.skus.add(variante.getSku());
+                UUID varianteId = UUID.randomUUID();
+                List<InventarioImportado> inventarios = variante.getStockInicial() == null ? List.of()
+                    : variante.getStockInicial().stream()
+                        .map(stock -> new InventarioImportado(UUID.randomUUID(), varianteId, stock))
+                        .toList();
+                variantes.add(new VarianteImportada(varianteId, productoId, variante, inventarios));
+            }
+        }
+
+        importacion.lote.add(new ProductoImportado(fila, productoId, request, calcularMargen(request), variantes));
+        if (importacion.lote.size() >= tamanioLote) {
+            escribirLote(importacion);
+        }
+    }
+
+    private List<ErrorImportacion> validar(Importacion importacion, int fila, ProductoCreateRequest request) {
+        String codigo = request.getCodigoProducto();
+        List<ErrorImportacion> errores = new ArrayList<>();
+
+        for (ConstraintViolation<ProductoCreateRequest> violacion : validator.validate(request)) {
+            errores.add(error(fila, codigo, null, violacion.getPropertyPath() + ": " + violacion.getMessage()));
+        }
+        if (codigo != null && importacion.codigos.contains(codigo)) {
+            errores.add(error(fila, codigo, null, "Ya existe un producto con el código: " + codigo));
+        }
+        if (request.getCategoriaId() != null && !importacion.categorias.contains(request.getCategoriaId())) {
+            errores.add(error(fila, codigo, null, "Categoría no encontrada"));
+        }
+
+        if (request.getVariantes() != null) {
+            Set<String> skusProducto = new HashSet<>();
+            for (ProductoCreateRequest.VarianteCreateRequest variante : request.getVariantes()) {
+                String sku = variante.getSku();
+                if (sku == null || sku.isBlank()) {
+                    errores.add(error(fila, codigo, null, "El SKU es requerido"));
+                    continue;
+                }
+                if (importacion.skus.contains(sku) || !skusProducto.add(sku)) {
+                    errores.add(error(fila, codigo, sku, "Ya existe una variante con el SKU: " + sku));
+                }
+                if (variante.getStockInicial() == null) {
+                    continue;
+                }
+                for (ProductoCreateRequest.StockInicialRequest stock : variante.getStockInicial()) {
+                    if (stock.getSucursalId() == null || !importacion.sucursales.contains(stock.getSucursalId())) {
+                        errores.add(error(fila, codigo, sku, "Sucursal no encontrada"));
+                    }
+                    if (stock.getCantidad() == null || stock.getCantidad() < 0) {
+                        errores.add(error(fila, codigo, sku, "La cantidad debe ser mayor o igual a cero"));
+                    }
+                }
+            }
+        }
+        return errores;
+    }
+
+    private BigDecimal calcularMargen(ProductoCreateRequest request) {
+        // Mismo precio de venta que Producto.getPrecioVenta
+        BigDecimal precioVenta = request.getPrecioOferta() != null && request.getPrecioOferta().signum() > 0
+            ? request.getPrecioOferta() : request.getPrecioBase();
+        return Producto.calcularMargen(precioVenta, request.getCostoProducto());
+    }
+
+    // Escritura
+
+    private void escribirLote(Importacion importacion) {
+        List<ProductoImportado> lote = importacion.lote;
+        importacion.lote = new ArrayList<>();
+        escribir(importacion, lote);
+    }
+
+    private void escribir(Importacion importacion, List<ProductoImportado> lote) {
+        if (lote.isEmpty()) {
+            return;
+        }
+
+        try {
+            insertar(lote);
+        } catch (DataAccessException | TransactionException e) {
+            if (lote.size() > 1) {
+                log.warn("Falló un lote de {} productos, se reintenta de uno en uno: {}", lote.size(), e.getMessage());
+                lote.forEach(producto -> escribir(importacion, List.of(producto)));
+            } else {
+                ProductoImportado producto = lote.get(0);
+                importacion.liberar(producto);
+                importacion.registrarError(error(producto.fila(), producto.request().getCodigoProducto(), null,
+                    "Error al guardar: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+            }
+            return;
+        }
+
+        importacion.registrarCreados(lote);
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProductos(
+            lote.stream().map(ProductoImportado::id).toList()));
+    }
+
+    private void insertar(List<ProductoImportado> lote) {
+        List<VarianteImportada> variantes = lote.stream()
+            .flatMap(producto -> producto.variantes().stream())
+            .toList();
+        List<InventarioImportado> inventarios = variantes.stream()
+            .flatMap(variante -> variante.inventarios().stream())
+            .toList();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(SQL_PRODUCTO, lote, lote.size(), this::asignarProducto);
+            if (!variantes.isEmpty()) {
+                jdbcTemplate.batchUpdate(SQL_VARIANTE, variantes, variantes.size(), this::asignarVariante);
+            }
+            if (!inventarios.isEmpty()) {
+                jdbcTemplate.batchUpdate(SQL_INVENTARIO, inventarios, inventarios.size(), this::asignarInventario);
+                kardexService.escribir(ingresosIniciales(lote));
+            }
+        });
+    }
+
+    /**
+     * Stock inicial de cada inventario importado como ingreso al costo del producto
+     */
+    private List<KardexService.Movimiento> ingresosIniciales(List<ProductoImportado> lote) {
+        List<KardexService.Movimiento> ingresos = new ArrayList<>();
+        for (ProductoImportado producto : lote) {
+            for (VarianteImportada variante : producto.variantes()) {
+                for (InventarioImportado inventario : variante.inventarios()) {
+                    ingresos.add(new KardexService.Movimiento(KardexService.TipoMovimiento.INGRESO, variante.id(),
+                        inventario.request().getSucursalId(), inventario.request().getCantidad(), 0,
+                        producto.request().getCostoProducto(), null));
+                }
+            }
+        }
+        return ingresos;
+    }
+
+    private void asignarProducto(PreparedStatement ps, ProductoImportado producto) throws SQLException {
+        ProductoCreateRequest request = producto.request();
+        ps.setObject(1, producto.id());
+        ps.setString(2, request.getCodigoProducto());
+        ps.setString(3, request.getNombreProducto());
+        ps.setString(4, request.getDescripcion());
+        ps.setString(5, request.getDescripcionCorta());
+        ps.setObject(6, request.getCategoriaId());
+        ps.setString(7, request.getMarca());
+        ps.setBigDecimal(8, request.getPrecioBase());
+        ps.setBigDecimal(9, request.getPrecioOferta());
+        ps.setBigDecimal(10, request.getCostoProducto());
+        ps.setBigDecimal(11, producto.margen());
+        ps.setBigDecimal(12, request.getPeso());
+        ps.setString(13, convertirAJson(request.getDimensiones()));
+        ps.setString(14, convertirAJson(request.getCaracteristicas()));
+        ps.setString(15, convertirAJson(request.getImagenes()));
+        ps.setArray(16, arregloTexto(ps, request.getTags()));
+        ps.setBoolean(17, Boolean.TRUE.equals(request.getDestacado()));
+        ps.setBoolean(18, Boolean.TRUE.equals(request.getNuevo()));
+        ps.setObject(19, request.getFechaLanzamiento());
+        ps.setString(20, request.getSeoTitulo());
+        ps.setString(21, request.getSeoDescripcion());
+        ps.setArray(22, arregloTexto(ps, request.getSeoPalabrasClave()));
+    }
+
+    private void asignarVariante(PreparedStatement ps, VarianteImportada variante) throws SQLException {
+        ProductoCreateRequest.VarianteCreateRequest request = variante.request();
+        ps.setObject(1, variante.id());
+        ps.setObject(2, variante.productoId());
+        ps.setString(3, request.getSku());
+        ps.setString(4, request.getTalla());
+        ps.setString(5, request.getColor());
+        ps.setString(6, request.getMaterial());
+        ps.setBigDecimal(7, request.getPrecioVariante());
+        ps.setBigDecimal(8, request.getPesoVariante());
+        ps.setString(9, request.getImagenVariante());
+        ps.setString(10, request.getCodigoBarras());
+    }
+
+    private void asignarInventario(PreparedStatement ps, InventarioImportado inventario) throws SQLException {
+        ProductoCreateRequest.StockInicialRequest request = inventario.request();
+        ps.setObject(1, inventario.id());
+        ps.setObject(2, inventario.varianteId());
+        ps.setObject(3, request.getSucursalId());
+        ps.setInt(4, request.getCantidad());
+        ps.setObject(5, request.getCantidadMinima(), Types.INTEGER);
+        ps.setString(6, request.getUbicacionFisica());
+    }
+
+    private Array arregloTexto(PreparedStatement ps, List<String> valores) throws SQLException {
+        return valores != null ? ps.getConnection().createArrayOf("text", valores.toArray()) : null;
+    }
+
+    private String convertirAJson(Object objeto) {
+        if (objeto == null) return null;
+        try {
+            return objectMapper.writeValueAsString(objeto);
+        } catch (JsonProcessingException e) {
+            log.warn("Error al convertir objeto a JSON: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private ErrorImportacion error(int fila, String codigo, String sku, String mensaje) {
+        return ErrorImportacion.builder()
+            .fila(fila)
+            .codigoProducto(codigo)
+            .sku(sku)
+            .mensaje(mensaje)
+            .build();
+    }
+
+    // Estado de una importación en curso
+
+    private record ProductoImportado(int fila, UUID id, ProductoCreateRequest request, BigDecimal margen,
+                                     List<VarianteImportada> variantes) {
+    }
+
+    private record VarianteImportada(UUID id, UUID productoId, ProductoCreateRequest.VarianteCreateRequest request,
+                                     List<InventarioImportado> inventarios) {
+    }
+
+    private record InventarioImportado(UUID id, UUID varianteId, ProductoCreateRequest.StockInicialRequest request) {
+    }
+
+    private static class Importacion {
+        private final Set<String> codigos;
+        private final Set<String> skus;
+        private final Set<UUID> categorias;
+        private final Set<UUID> sucursales;
+        private final List<ErrorImportacion> errores = new ArrayList<>();
+        private List<ProductoImportado> lote = new ArrayList<>();
+        private int productosLeidos;
+        private int productosCreados;
+        private int variantesCreadas;
+        private int inventariosCreados;
+        private int totalErrores;
+
+        private Importacion(Set<String> codigos, Set<String> skus, Set<UUID> categorias, Set<UUID> sucursales) {
+            this.codigos = codigos;
+            this.skus = skus;
+            this.categorias = categorias;
+            this.sucursales = sucursales;
+        }
+
+        private void registrarError(ErrorImportacion error) {
+            totalErrores++;
+            if (errores.size() < MAX_ERRORES_DETALLADOS) {
+                errores.add(error);
+            }
+        }
+
+        private void registrarCreados(List<ProductoImportado> productos) {
+            for (ProductoImportado producto : productos) {
+                productosCreados++;
+                variantesCreadas += producto.variantes().size();
+                for (VarianteImportada variante : producto.variantes()) {
+                    inventariosCreados += variante.inventarios().size();
+                }
+            }
+        }
+
+        // Un producto que no se pudo guardar deja libres su código y sus SKUs
+        private void liberar(ProductoImportado producto) {
+            codigos.remove(producto.request().getCodigoProducto());
+            producto.variantes().forEach(variante -> skus.remove(variante.request().getSku()));
+        }
+    }
+
+    private static class GrupoCsv {
+        private final int fila;
+        private final String codigo;
+        private final Map<String, ProductoCreateRequest.VarianteCreateRequest> variantes = new LinkedHashMap<>();
+        private final List<ErrorImportacion> errores = new ArrayList<>();
+        private ProductoCreateRequest producto;
+
+        private GrupoCsv(int fila, String codigo) {
+            this.fila = fila;
+            this.codigo = codigo;
+        }
+
+        private ProductoCreateRequest construir() {
+            if (producto != null) {
+                producto.setVariantes(new ArrayList<>(variantes.values()));
+            }
+            return producto;
+        }
+    }
+
+    private static class FilaCsv {
+        private final List<String> valores;
+        private final Map<String, Integer> columnas;
+        private final int linea;
+
+        private FilaCsv(List<String> valores, Map<String, Integer> columnas, int linea) {
+            this.valores = valores;
+            this.columnas = columnas;
+            this.linea = linea;
+        }
+
+        private String texto(String columna) {
+            Integer indice = columnas.get(columna);
+            if (indice == null || indice >= valores.size()) {
+                return null;
+            }
+            String valor = valores.get(indice).trim();
+            return valor.isEmpty() ? null : valor;
+        }
+
+        private <T> T valor(String columna, Function<String, T> conversor) {
+            String texto = texto(columna);
+            if (texto == null) {
+                return null;
+            }
+            try {
+                return conversor.apply(texto);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Columna " + columna + ": valor '" + texto + "' inválido");
+            }
+        }
+
+        private List<String> lista(String columna) {
+            String texto = texto(columna);
+            if (texto == null) {
+                return null;
+            }
+            return Arrays.stream(texto.split(SEPARADOR_LISTA))
+                .map(String::trim)
+                .filter(valor -> !valor.isEmpty())
+                .toList();
+        }
+    }
+}
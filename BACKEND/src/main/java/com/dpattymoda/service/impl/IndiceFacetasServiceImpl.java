@@ -0,0 +1,421 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.dto.request.FiltroProductosRequest;
+import com.dpattymoda.entity.ProductoResumen;
+import com.dpattymoda.event.CatalogoModificadoEvent;
+import com.dpattymoda.repository.ProductoRepository;
+import com.dpattymoda.repository.ProductoResumenRepository;
+import com.dpattymoda.service.IndiceFacetasService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Implementación del índice facetado en memoria.
+ * Cada producto activo recibe un ordinal y cada valor de faceta un BitSet,
+ * de modo que filtrar y contar se reduce a intersecciones de bits; el precio se guarda
+ * además ordenado para resolver rangos sin recorrer todo el catálogo.
+ * Cada carga desde la base de datos toma un número de secuencia antes de leer: bajo el
+ * candado sólo se aplica si es más nueva que la versión ya indexada del producto, así
+ * dos actualizaciones concurrentes no se pisan en orden inverso
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IndiceFacetasServiceImpl implements IndiceFacetasService {
+
+    public static final String FACETA_CATEGORIA = "categoria";
+    public static final String FACETA_MARCA = "marca";
+    public static final String FACETA_TALLA = "talla";
+    public static final String FACETA_COLOR = "color";
+    public static final String FACETA_RANGO_PRECIO = "rangoPrecio";
+    public static final String FACETA_DESTACADO = "destacado";
+    public static final String FACETA_NUEVO = "nuevo";
+    public static final String FACETA_DISPONIBILIDAD = "disponibilidad";
+
+    private static final List<String> FACETAS = List.of(FACETA_CATEGORIA, FACETA_MARCA, FACETA_TALLA,
+        FACETA_COLOR, FACETA_RANGO_PRECIO, FACETA_DESTACADO, FACETA_NUEVO, FACETA_DISPONIBILIDAD);
+
+    private static final int[] LIMITES_RANGO_PRECIO = {50, 100, 200, 500};
+    private static final int LOTE_CONSULTA = 500;
+
+    private final ProductoRepository productoRepository;
+    private final ProductoResumenRepository productoResumenRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong secuencia = new AtomicLong();
+    private final Set<UUID> pendientesDuranteReconstruccion = ConcurrentHashMap.newKeySet();
+    private volatile Estado estado = new Estado();
+    private volatile boolean listo = false;
+    private volatile boolean reconstruyendo = false;
+
+    @Override
+    public boolean estaListo() {
+        return listo;
+    }
+
+    @Override
+    public ResultadoFacetas buscar(FiltroProductosRequest filtro, Sort orden) {
+        Comparator<ProductoIndexado> comparador = comparador(orden);
+        lock.readLock().lock();
+        try {
+            Estado actual = estado;
+
+            // Un BitSet por faceta filtrada; la ausencia de clave significa "sin filtro"
+            Map<String, BitSet> restricciones = new HashMap<>();
+            agregarRestriccion(restricciones, actual, FACETA_CATEGORIA,
+                filtro.getCategoriaId() != null ? filtro.getCategoriaId().toString() : null);
+            agregarRestriccion(restricciones, actual, FACETA_MARCA, normalizar(filtro.getMarca()));
+            agregarRestriccion(restricciones, actual, FACETA_TALLA, normalizar(filtro.getTalla()));
+            agregarRestriccion(restricciones, actual, FACETA_COLOR, normalizar(filtro.getColor()));
+            agregarRestriccion(restricciones, actual, FACETA_DESTACADO,
+                filtro.getDestacado() != null ? filtro.getDestacado().toString() : null);
+            agregarRestriccion(restricciones, actual, FACETA_NUEVO,
+                filtro.getNuevo() != null ? filtro.getNuevo().toString() : null);
+            agregarRestriccion(restricciones, actual, FACETA_DISPONIBILIDAD,
+                Boolean.TRUE.equals(filtro.getConStock()) ? "con_stock" : null);
+            if (filtro.getPrecioMin() != null || filtro.getPrecioMax() != null) {
+                restricciones.put(FACETA_RANGO_PRECIO,
+                    filtrarPorPrecio(actual, filtro.getPrecioMin(), filtro.getPrecioMax()));
+            }
+
+            BitSet resultado = intersectar(actual.activos, restricciones, null);
+
+            Map<String, Map<String, Long>> conteos = new LinkedHashMap<>();
+            for (String faceta : FACETAS) {
+                // Cada faceta se cuenta sin su propio filtro para permitir cambiar de valor
+                BitSet base = restricciones.containsKey(faceta)
+                    ? intersectar(actual.activos, restricciones, faceta) : resultado;
+                Map<String, Long> conteoFaceta = new TreeMap<>();
+                actual.facetas.getOrDefault(faceta, Map.of()).forEach((valor, bits) -> {
+                    BitSet interseccion = (BitSet) bits.clone();
+                    interseccion.and(base);
+                    int total = interseccion.cardinality();
+                    if (total > 0) {
+                        conteoFaceta.put(valor, (long) total);
+                    }
+                });
+                conteos.put(faceta, conteoFaceta);
+            }
+
+            List<UUID> productoIds = resultado.stream()
+                .mapToObj(actual.datos::get)
+                .sorted(comparador)
+                .map(producto -> producto.id)
+                .toList();
+
+            return new ResultadoFacetas(productoIds, conteos);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void actualizarProductos(Iterable<UUID> productoIds) {
+        Set<UUID> ids = new HashSet<>();
+        productoIds.forEach(ids::add);
+        if (ids.isEmpty()) return;
+
+        if (reconstruyendo) {
+            pendientesDuranteReconstruccion.addAll(ids);
+        }
+
+        // La secuencia se toma antes de leer: una carga posterior ve datos iguales o más nuevos
+        long version = secuencia.incrementAndGet();
+        Map<UUID, ProductoIndexado> datos = cargarProductos(ids);
+
+        lock.writeLock().lock();
+        try {
+            Estado actual = estado;
+            for (UUID id : ids) {
+                if (actual.versiones.getOrDefault(id, actual.versionBase) > version) {
+                    // Otra actualización leyó después que ésta y ya se aplicó
+                    continue;
+                }
+                indexar(actual, id, datos.get(id));
+                actual.versiones.put(id, version);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.catalogo.facetas.intervalo-reconstruccion-ms:3600000}",
+               initialDelayString = "${app.catalogo.facetas.intervalo-reconstruccion-ms:3600000}")
+    public void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        reconstruyendo = true;
+        pendientesDuranteReconstruccion.clear();
+        try {
+            Estado nuevo = new Estado();
+            nuevo.versionBase = secuencia.incrementAndGet();
+            cargarProductos(null).forEach((id, datos) -> indexar(nuevo, id, datos));
+
+            lock.writeLock().lock();
+            try {
+                estado = nuevo;
+                listo = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            reconstruyendo = false;
+        }
+
+        // Reaplicar cambios que llegaron mientras se construía el nuevo estado
+        if (!pendientesDuranteReconstruccion.isEmpty()) {
+            Set<UUID> pendientes = new HashSet<>(pendientesDuranteReconstruccion);
+            pendientesDuranteReconstruccion.removeAll(pendientes);
+            actualizarProductos(pendientes);
+        }
+
+        log.info("Índice facetado reconstruido: {} productos en {} ms",
+            estado.activos.cardinality(), System.currentTimeMillis() - inicio);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        try {
+            reconstruir();
+        } catch (Exception e) {
+            log.error("No se pudo construir el índice facetado: {}", e.getMessage(), e);
+        }
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent evento) {
+        if (!listo && !reconstruyendo) return;
+        try {
+            actualizarProductos(evento.getProductoIds());
+        } catch (Exception e) {
+            log.warn("No se pudo refrescar el índice facetado para {}: {}",
+                evento.getProductoIds(), e.getMessage());
+        }
+    }
+
+    // Métodos privados de utilidad
+
+    /**
+     * Cargar los datos indexables de los productos indicados (o de todos si ids es null);
+     * tallas, colores y stock salen del resumen denormalizado, por lotes
+     */
+    private Map<UUID, ProductoIndexado> cargarProductos(Collection<UUID> ids) {
+        List<Object[]> filas = ids == null
+            ? productoRepository.obtenerDatosFacetas()
+            : productoRepository.obtenerDatosFacetasPorIds(ids);
+
+        Map<UUID, ProductoIndexado> productos = new HashMap<>();
+        for (Object[] fila : filas) {
+            ProductoIndexado producto = new ProductoIndexado();
+            producto.id = (UUID) fila[0];
+            producto.clave = producto.id.toString();
+            producto.precio = (BigDecimal) fila[3];
+            producto.totalVentas = fila[6] != null ? ((Number) fila[6]).intValue() : 0;
+            producto.fechaCreacion = (LocalDateTime) fila[7];
+            producto.nombre = (String) fila[8];
+            agregarValor(producto, FACETA_CATEGORIA, fila[1] != null ? fila[1].toString() : null);
+            agregarValor(producto, FACETA_MARCA, normalizar((String) fila[2]));
+            agregarValor(producto, FACETA_RANGO_PRECIO, calcularRangoPrecio(producto.precio));
+            agregarValor(producto, FACETA_DESTACADO, String.valueOf(Boolean.TRUE.equals(fila[4])));
+            agregarValor(producto, FACETA_NUEVO, String.valueOf(Boolean.TRUE.equals(fila[5])));
+            agregarValor(producto, FACETA_DISPONIBILIDAD, "sin_stock");
+            productos.put(producto.id, producto);
+        }
+
+        List<UUID> productoIds = new ArrayList<>(productos.keySet());
+        for (int i = 0; i < productoIds.size(); i += LOTE_CONSULTA) {
+            List<UUID> lote = productoIds.subList(i, Math.min(i + LOTE_CONSULTA, productoIds.size()));
+
+            for (ProductoResumen resumen : productoResumenRepository.findAllById(lote)) {
+                ProductoIndexado producto = productos.get(resumen.getProductoId());
+                for (String talla : resumen.getTallas()) {
+                    agregarValor(producto, FACETA_TALLA, normalizar(talla));
+                }
+                for (String color : resumen.getColores()) {
+                    agregarValor(producto, FACETA_COLOR, normalizar(color));
+                }
+                if (resumen.getStockDisponible() != null && resumen.getStockDisponible() > 0) {
+                    producto.valores.put(FACETA_DISPONIBILIDAD, new HashSet<>(Set.of("con_stock")));
+                }
+            }
+        }
+        return productos;
+    }
+
+    /**
+     * Insertar, actualizar o retirar (datos == null) un producto del índice
+     */
+    private void indexar(Estado destino, UUID id, ProductoIndexado datos) {
+        Integer ordinal = destino.ordinales.get(id);
+        if (ordinal == null) {
+            if (datos == null) return;
+            ordinal = destino.datos.size();
+            destino.ordinales.put(id, ordinal);
+            destino.datos.add(null);
+        }
+
+        ProductoIndexado anterior = destino.datos.get(ordinal);
+        if (anterior != null) {
+            quitarPrecio(destino, anterior.precio, ordinal);
+            for (Map.Entry<String, Set<String>> entrada : anterior.valores.entrySet()) {
+                Map<String, BitSet> valores = destino.facetas.get(entrada.getKey());
+                for (String valor : entrada.getValue()) {
+                    BitSet bits = valores.get(valor);
+                    bits.clear(ordinal);
+                    if (bits.isEmpty()) {
+                        valores.remove(valor);
+                    }
+                }
+            }
+        }
+
+        destino.datos.set(ordinal, datos);
+        if (datos == null) {
+            destino.activos.clear(ordinal);
+            return;
+        }
+
+        destino.activos.set(ordinal);
+        if (datos.precio != null) {
+            destino.porPrecio.computeIfAbsent(datos.precio, precio -> new HashSet<>()).add(ordinal);
+        }
+        for (Map.Entry<String, Set<String>> entrada : datos.valores.entrySet()) {
+            Map<String, BitSet> valores = destino.facetas.computeIfAbsent(entrada.getKey(), k -> new HashMap<>());
+            for (String valor : entrada.getValue()) {
+                valores.computeIfAbsent(valor, v -> new BitSet()).set(ordinal);
+            }
+        }
+    }
+
+    private void agregarRestriccion(Map<String, BitSet> restricciones, Estado actual, String faceta, String valor) {
+        if (valor == null) return;
+        BitSet bits = actual.facetas.getOrDefault(faceta, Map.of()).get(valor);
+        restricciones.put(faceta, bits != null ? bits : new BitSet());
+    }
+
+    /**
+     * Rango sobre los precios ordenados: sólo se recorren los productos que caen dentro
+     */
+    private BitSet filtrarPorPrecio(Estado actual, BigDecimal precioMin, BigDecimal precioMax) {
+        NavigableMap<BigDecimal, Set<Integer>> rango = actual.porPrecio;
+        if (precioMin != null && precioMax != null) {
+            if (precioMin.compareTo(precioMax) > 0) {
+                return new BitSet();
+            }
+            rango = rango.subMap(precioMin, true, precioMax, true);
+        } else if (precioMin != null) {
+            rango = rango.tailMap(precioMin, true);
+        } else if (precioMax != null) {
+            rango = rango.headMap(precioMax, true);
+        }
+
+        BitSet bits = new BitSet();
+        rango.values().forEach(ordinales -> ordinales.forEach(bits::set));
+        return bits;
+    }
+
+    private void quitarPrecio(Estado destino, BigDecimal precio, int ordinal) {
+        if (precio == null) return;
+        Set<Integer> ordinales = destino.porPrecio.get(precio);
+        if (ordinales != null && ordinales.remove(ordinal) && ordinales.isEmpty()) {
+            destino.porPrecio.remove(precio);
+        }
+    }
+
+    /**
+     * Comparador equivalente al ORDER BY de la consulta a la base de datos: nulos al final
+     * en orden ascendente y al principio en descendente, desempate por ID
+     */
+    private Comparator<ProductoIndexado> comparador(Sort orden) {
+        Comparator<ProductoIndexado> comparador = null;
+        for (Sort.Order criterio : orden) {
+            Comparator<ProductoIndexado> actual = switch (criterio.getProperty()) {
+                case "totalVentas" -> Comparator.comparingInt(producto -> producto.totalVentas);
+                case "precioBase" -> Comparator.comparing(producto -> producto.precio,
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+                case "fechaCreacion" -> Comparator.comparing(producto -> producto.fechaCreacion,
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+                case "nombreProducto" -> Comparator.comparing(producto -> producto.nombre,
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+                case "id" -> Comparator.comparing(producto -> producto.clave);
+                default -> throw new IllegalArgumentException("Orden no soportado por el índice: " + criterio.getProperty());
+            };
+            if (criterio.isDescending()) {
+                actual = actual.reversed();
+            }
+            comparador = comparador == null ? actual : comparador.thenComparing(actual);
+        }
+        // El texto del UUID ordena igual que Postgres
+        Comparator<ProductoIndexado> porId = Comparator.comparing(producto -> producto.clave);
+        return comparador == null ? porId : comparador.thenComparing(porId);
+    }
+
+    private BitSet intersectar(BitSet base, Map<String, BitSet> restricciones, String excluir) {
+        BitSet resultado = (BitSet) base.clone();
+        restricciones.forEach((faceta, bits) -> {
+            if (!faceta.equals(excluir)) {
+                resultado.and(bits);
+            }
+        });
+        return resultado;
+    }
+
+    private String calcularRangoPrecio(BigDecimal precio) {
+        if (precio == null) return null;
+        int inferior = 0;
+        for (int limite : LIMITES_RANGO_PRECIO) {
+            if (precio.compareTo(BigDecimal.valueOf(limite)) < 0) {
+                return inferior + "-" + limite;
+            }
+            inferior = limite;
+        }
+        return inferior + "+";
+    }
+
+    private void agregarValor(ProductoIndexado producto, String faceta, String valor) {
+        if (producto == null || valor == null || valor.isEmpty()) return;
+        producto.valores.computeIfAbsent(faceta, f -> new HashSet<>()).add(valor);
+    }
+
+    private String normalizar(String valor) {
+        return valor != null ? valor.trim().toLowerCase() : null;
+    }
+
+    private static class Estado {
+        private final Map<UUID, Integer> ordinales = new HashMap<>();
+        private final List<ProductoIndexado> datos = new ArrayList<>();
+        private final BitSet activos = new BitSet();
+        private final Map<String, Map<String, BitSet>> facetas = new HashMap<>();
+        private final TreeMap<BigDecimal, Set<Integer>> porPrecio = new TreeMap<>();
+        // Secuencia de la última carga aplicada por producto; versionBase es la de la reconstrucción
+        private final Map<UUID, Long> versiones = new HashMap<>();
+        private long versionBase;
+    }
+
+    private static class ProductoIndexado {
+        private UUID id;
+        private String clave;
+        private BigDecimal precio;
+        private int totalVentas;
+        private LocalDateTime fechaCreacion;
+        private String nombre;
+        private final Map<String, Set<String>> valores = new HashMap<>();
+    }
+}
@@ -0,0 +1,438 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.dto.response.SaldoKardexResponse;
+import com.dpattymoda.dto.response.ValorizacionInventarioResponse;
+import com.dpattymoda.service.KardexService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Implementación del kardex con escritura por lotes y snapshots incrementales.
+ * Cada corte guarda el saldo sólo de los pares (variante, sucursal) que se movieron desde
+ * el corte anterior y actualiza kardex_saldos con el último saldo de cada par, así que el
+ * saldo de cualquier par a una fecha es su snapshot más cercano más los movimientos
+ * posteriores al último corte: nunca se recorre el histórico.
+ * El corte se delimita por id de movimiento, no por fecha: se toma el mayor id escrito
+ * bloqueando la tabla en modo SHARE, que espera a las transacciones que están escribiendo
+ * y frena las nuevas, así que todo id menor ya está confirmado y lo que siga encolado en
+ * cualquier instancia recibirá un id mayor y quedará después del corte.
+ * Tras cada corte se concilia con inventario: un par quieto cuyo saldo no coincide perdió
+ * movimientos encolados (caída del proceso) o se editó por fuera, y recibe un ajuste
+ */
+@Slf4j
+@Service
+public class KardexServiceImpl implements KardexService {
+
+    private static final String SQL_INSERTAR = "INSERT INTO kardex_movimientos (variante_id, sucursal_id, tipo, " +
+        "delta_disponible, delta_reservada, costo_unitario, referencia_id, fecha_movimiento) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Un solo INSERT para todos los movimientos de la transacción
+    private static final String SQL_ESCRIBIR = "INSERT INTO kardex_movimientos (variante_id, sucursal_id, tipo, " +
+        "delta_disponible, delta_reservada, costo_unitario, referencia_id) " +
+        "SELECT * FROM unnest(?::uuid[], ?::uuid[], ?::varchar[], ?::integer[], ?::integer[], ?::numeric[], ?::uuid[])";
+
+    private static final String SQL_ULTIMO_CORTE = "SELECT fecha_corte, ultimo_movimiento_id FROM kardex_cortes " +
+        "WHERE fecha_corte <= ? ORDER BY fecha_corte DESC LIMIT 1";
+
+    // Saldo vigente si es anterior al corte; si no, una búsqueda por índice del snapshot previo del par
+    private static final String SQL_SNAPSHOTS = "SELECT s.variante_id, s.sucursal_id, k.cantidad_disponible, " +
+        "k.cantidad_reservada, k.costo_promedio FROM kardex_saldos s CROSS JOIN LATERAL (" +
+        "SELECT s.cantidad_disponible, s.cantidad_reservada, s.costo_promedio WHERE s.fecha_corte <= ? " +
+        "UNION ALL (SELECT h.cantidad_disponible, h.cantidad_reservada, h.costo_promedio FROM kardex_snapshots h " +
+        "WHERE h.variante_id = s.variante_id AND h.sucursal_id = s.sucursal_id AND h.fecha_corte <= ? " +
+        "ORDER BY h.fecha_corte DESC LIMIT 1) LIMIT 1) k WHERE TRUE";
+
+    private static final String SQL_MOVIMIENTOS = "SELECT variante_id, sucursal_id, delta_disponible, delta_reservada, " +
+        "costo_unitario FROM kardex_movimientos WHERE id > ?";
+
+    // SHARE espera a los INSERT en curso y bloquea los nuevos mientras se lee el máximo
+    private static final String SQL_BLOQUEAR_MOVIMIENTOS = "LOCK TABLE kardex_movimientos IN SHARE MODE";
+
+    private static final String SQL_MARCA_CORTE = "SELECT now(), COALESCE(MAX(id), 0) FROM kardex_movimientos";
+
+    private static final String SQL_GUARDAR_CORTE = "INSERT INTO kardex_cortes (fecha_corte, ultimo_movimiento_id) " +
+        "VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    private static final String SQL_GUARDAR_SNAPSHOT = "INSERT INTO kardex_snapshots (variante_id, sucursal_id, " +
+        "fecha_corte, cantidad_disponible, cantidad_reservada, costo_promedio) VALUES (?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT DO NOTHING";
+
+    private static final String SQL_GUARDAR_SALDO = "INSERT INTO kardex_saldos (variante_id, sucursal_id, " +
+        "fecha_corte, cantidad_disponible, cantidad_reservada, costo_promedio) VALUES (?, ?, ?, ?, ?, ?) " +
+        "ON CONFLICT (variante_id, sucursal_id) DO UPDATE SET fecha_corte = EXCLUDED.fecha_corte, " +
+        "cantidad_disponible = EXCLUDED.cantidad_disponible, cantidad_reservada = EXCLUDED.cantidad_reservada, " +
+        "costo_promedio = EXCLUDED.costo_promedio WHERE kardex_saldos.fecha_corte < EXCLUDED.fecha_corte";
+
+    // Pares sin cambios de inventario desde antes del margen ni movimientos tras el corte
+    private static final String SQL_CONCILIAR = "INSERT INTO kardex_movimientos (variante_id, sucursal_id, tipo, " +
+        "delta_disponible, delta_reservada) " +
+        "SELECT i.variante_id, i.sucursal_id, 'ajuste', " +
+        "COALESCE(i.cantidad_disponible, 0) - COALESCE(s.cantidad_disponible, 0), " +
+        "COALESCE(i.cantidad_reservada, 0) - COALESCE(s.cantidad_reservada, 0) " +
+        "FROM inventario i LEFT JOIN kardex_saldos s " +
+        "ON s.variante_id = i.variante_id AND s.sucursal_id = i.sucursal_id " +
+        "WHERE i.variante_id IS NOT NULL AND i.sucursal_id IS NOT NULL AND i.ultimo_movimiento < ? " +
+        "AND (COALESCE(i.cantidad_disponible, 0) <> COALESCE(s.cantidad_disponible, 0) " +
+        "OR COALESCE(i.cantidad_reservada, 0) <> COALESCE(s.cantidad_reservada, 0)) " +
+        "AND NOT EXISTS (SELECT 1 FROM kardex_movimientos m WHERE m.variante_id = i.variante_id " +
+        "AND m.sucursal_id = i.sucursal_id AND m.id > ?)";
+
+    private static final String SQL_CREAR_PARTICION = "SELECT crear_particion_kardex(?)";
+
+    // Cota inferior cuando aún no hay cortes
+    private static final Corte SIN_CORTE = new Corte(Timestamp.valueOf("1970-01-01 00:00:00"), 0L);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanioLote;
+    private final long margenConciliacionMs;
+
+    // Movimientos confirmados pendientes de escribir, con la fecha del commit
+    private final Queue<Pendiente> pendientes = new ConcurrentLinkedQueue<>();
+    private final Object volcado = new Object();
+
+    public KardexServiceImpl(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${app.inventario.kardex.tamanio-lote:1000}") int tamanioLote,
+                             @Value("${app.inventario.kardex.margen-conciliacion-ms:600000}") long margenConciliacionMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.tamanioLote = tamanioLote;
+        this.margenConciliacionMs = margenConciliacionMs;
+    }
+
+    /**
+     * Particiones del mes actual y el siguiente antes de que lleguen los primeros movimientos
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepararParticiones() {
+        crearParticiones();
+    }
+
+    @Override
+    public void escribir(Collection<Movimiento> movimientos) {
+        List<Movimiento> validos = movimientos.stream()
+            .filter(movimiento -> movimiento.deltaDisponible() != 0 || movimiento.deltaReservada() != 0)
+            .toList();
+        if (validos.isEmpty()) return;
+
+        jdbcTemplate.update(conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(SQL_ESCRIBIR);
+            ps.setArray(1, conexion.createArrayOf("uuid", validos.stream().map(Movimiento::varianteId).toArray()));
+            ps.setArray(2, conexion.createArrayOf("uuid", validos.stream().map(Movimiento::sucursalId).toArray()));
+            ps.setArray(3, conexion.createArrayOf("varchar", validos.stream().map(m -> m.tipo().getValor()).toArray()));
+            ps.setArray(4, conexion.createArrayOf("integer", validos.stream().map(Movimiento::deltaDisponible).toArray()));
+            ps.setArray(5, conexion.createArrayOf("integer", validos.stream().map(Movimiento::deltaReservada).toArray()));
+            ps.setArray(6, conexion.createArrayOf("numeric", validos.stream().map(Movimiento::costoUnitario).toArray()));
+            ps.setArray(7, conexion.createArrayOf("uuid", validos.stream().map(Movimiento::referenciaId).toArray()));
+            return ps;
+        });
+    }
+
+    @Override
+    public void registrar(Collection<Movimiento> movimientos) {
+        List<Movimiento> validos = movimientos.stream()
+            .filter(movimiento -> movimiento.deltaDisponible() != 0 || movimiento.deltaReservada() != 0)
+            .toList();
+        if (validos.isEmpty()) return;
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            encolar(validos);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                encolar(validos);
+            }
+        });
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.inventario.kardex.intervalo-volcado-ms:2000}",
+               initialDelayString = "${app.inventario.kardex.intervalo-volcado-ms:2000}")
+    public int volcar() {
+        synchronized (volcado) {
+            List<Pendiente> lista = new ArrayList<>();
+            Pendiente pendiente;
+            while ((pendiente = pendientes.poll()) != null) {
+                lista.add(pendiente);
+            }
+
+            int volcados = 0;
+            for (int desde = 0; desde < lista.size(); desde += tamanioLote) {
+                List<Pendiente> lote = lista.subList(desde, Math.min(desde + tamanioLote, lista.size()));
+                try {
+                    // Todo el lote o nada: un reintento no duplica las filas ya escritas
+                    transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(SQL_INSERTAR, lote, lote.size(), (ps, p) -> {
+                            Movimiento movimiento = p.movimiento();
+                            ps.setObject(1, movimiento.varianteId());
+                            ps.setObject(2, movimiento.sucursalId());
+                            ps.setString(3, movimiento.tipo().getValor());
+                            ps.setInt(4, movimiento.deltaDisponible());
+                            ps.setInt(5, movimiento.deltaReservada());
+                            ps.setBigDecimal(6, movimiento.costoUnitario());
+                            ps.setObject(7, movimiento.referenciaId());
+                            ps.setTimestamp(8, Timestamp.valueOf(p.fecha()));
+                        }));
+                    volcados += lote.size();
+                } catch (Exception e) {
+                    // Conservan su fecha original; se reintentan en el próximo ciclo
+                    pendientes.addAll(lote);
+                    log.warn("No se pudo escribir un lote de {} movimientos de kardex: {}", lote.size(), e.getMessage());
+                }
+            }
+            return volcados;
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.inventario.kardex.intervalo-snapshot-ms:3600000}",
+               initialDelayString = "${app.inventario.kardex.intervalo-snapshot-ms:3600000}")
+    public int generarSnapshots() {
+        crearParticiones();
+        volcar();
+
+        // Transacción corta: el bloqueo sólo dura lo que tarda leer el máximo
+        Corte corte = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute(SQL_BLOQUEAR_MOVIMIENTOS);
+            return jdbcTemplate.queryForObject(SQL_MARCA_CORTE, (rs, fila) ->
+                new Corte(rs.getTimestamp(1), rs.getLong(2)));
+        });
+        if (corte == null || corte.ultimoMovimientoId() == 0) {
+            return 0;
+        }
+
+        Corte anterior = ultimoCorte(corte.fecha());
+        if (anterior.ultimoMovimientoId() >= corte.ultimoMovimientoId()) {
+            return 0;
+        }
+        List<Map.Entry<Clave, Saldo>> movidos = reconstruir(anterior, corte.ultimoMovimientoId(), null, null, null)
+            .entrySet().stream()
+            .filter(entrada -> entrada.getValue().movido)
+            .toList();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (String sql : List.of(SQL_GUARDAR_SNAPSHOT, SQL_GUARDAR_SALDO)) {
+                jdbcTemplate.batchUpdate(sql, movidos, tamanioLote, (ps, entrada) -> {
+                    ps.setObject(1, entrada.getKey().varianteId());
+                    ps.setObject(2, entrada.getKey().sucursalId());
+                    ps.setTimestamp(3, corte.fecha());
+                    ps.setInt(4, entrada.getValue().disponible);
+                    ps.setInt(5, entrada.getValue().reservada);
+                    ps.setBigDecimal(6, entrada.getValue().costo);
+                });
+            }
+            // El corte se registra con sus saldos: sin él los snapshots no se usan
+            jdbcTemplate.update(SQL_GUARDAR_CORTE, corte.fecha(), corte.ultimoMovimientoId());
+        });
+
+        log.info("Snapshot de kardex hasta el movimiento {}: {} saldos", corte.ultimoMovimientoId(), movidos.size());
+        conciliar(corte);
+        return movidos.size();
+    }
+
+    @Override
+    public SaldoKardexResponse obtenerSaldo(UUID varianteId, UUID sucursalId, LocalDateTime fecha) {
+        Saldo saldo = reconstruir(fecha, varianteId, sucursalId)
+            .getOrDefault(new Clave(varianteId, sucursalId), new Saldo());
+        return convertirAResponse(new Clave(varianteId, sucursalId), saldo, fecha);
+    }
+
+    @Override
+    public ValorizacionInventarioResponse obtenerValorizacion(LocalDateTime fecha, UUID sucursalId) {
+        List<SaldoKardexResponse> saldos = reconstruir(fecha, null, sucursalId).entrySet().stream()
+            .filter(entrada -> entrada.getValue().disponible > 0 || entrada.getValue().reservada > 0)
+            .map(entrada -> convertirAResponse(entrada.getKey(), entrada.getValue(), fecha))
+            .sorted(Comparator.comparing(SaldoKardexResponse::getSucursalId)
+                .thenComparing(SaldoKardexResponse::getVarianteId))
+            .toList();
+
+        return ValorizacionInventarioResponse.builder()
+            .fecha(fecha)
+            .sucursalId(sucursalId)
+            .totalUnidades(saldos.stream().mapToLong(SaldoKardexResponse::getCantidadDisponible).sum())
+            .valorTotal(saldos.stream().map(SaldoKardexResponse::getValorTotal).reduce(BigDecimal.ZERO, BigDecimal::add))
+            .saldos(saldos)
+            .build();
+    }
+
+    @PreDestroy
+    public void detener() {
+        int volcados = volcar();
+        log.info("Movimientos de kardex escritos al detener: {}", volcados);
+    }
+
+    // Métodos privados de utilidad
+
+    /**
+     * Ajustar los pares quietos cuyo saldo al corte no coincide con inventario. El margen deja
+     * fuera lo que aún pueda estar encolado en alguna instancia; el ajuste recibe un id mayor
+     * que el corte y entra en el siguiente
+     */
+    private void conciliar(Corte corte) {
+        Timestamp quietoDesde = new Timestamp(corte.fecha().getTime() - margenConciliacionMs);
+        int ajustes = jdbcTemplate.update(SQL_CONCILIAR, quietoDesde, corte.ultimoMovimientoId());
+        if (ajustes > 0) {
+            log.warn("Kardex conciliado con inventario: {} ajustes hasta el movimiento {}", ajustes,
+                corte.ultimoMovimientoId());
+        }
+    }
+
+    private void encolar(List<Movimiento> movimientos) {
+        LocalDateTime fecha = LocalDateTime.now();
+        movimientos.forEach(movimiento -> pendientes.add(new Pendiente(movimiento, fecha)));
+    }
+
+    /**
+     * Saldos a una fecha: desde el último corte anterior, con los movimientos hasta esa fecha
+     */
+    private Map<Clave, Saldo> reconstruir(LocalDateTime fecha, UUID varianteId, UUID sucursalId) {
+        Timestamp hasta = Timestamp.valueOf(fecha);
+        return reconstruir(ultimoCorte(hasta), null, hasta, varianteId, sucursalId);
+    }
+
+    private Corte ultimoCorte(Timestamp hasta) {
+        List<Corte> cortes = jdbcTemplate.query(SQL_ULTIMO_CORTE, (rs, fila) ->
+            new Corte(rs.getTimestamp(1), rs.getLong(2)), hasta);
+        return cortes.isEmpty() ? SIN_CORTE : cortes.get(0);
+    }
+
+    /**
+     * Partir del snapshot más cercano de cada par al corte y aplicar en orden los movimientos
+     * de id posterior, hasta un id (al generar un corte) o hasta una fecha (al consultar)
+     */
+    private Map<Clave, Saldo> reconstruir(Corte corte, Long hastaId, Timestamp hastaFecha,
+                                          UUID varianteId, UUID sucursalId) {
+        List<Object> filtros = new ArrayList<>();
+        StringBuilder condicion = new StringBuilder();
+        if (varianteId != null) {
+            condicion.append(" AND variante_id = ?");
+            filtros.add(varianteId);
+        }
+        if (sucursalId != null) {
+            condicion.append(" AND sucursal_id = ?");
+            filtros.add(sucursalId);
+        }
+
+        Map<Clave, Saldo> saldos = new HashMap<>();
+        if (corte != SIN_CORTE) {
+            List<Object> hasta = new ArrayList<>(List.of(corte.fecha()));
+            hasta.addAll(List.of(parametros(corte.fecha(), filtros)));
+            jdbcTemplate.query(SQL_SNAPSHOTS + condicion, rs -> {
+                Saldo saldo = new Saldo();
+                saldo.disponible = rs.getInt(3);
+                saldo.reservada = rs.getInt(4);
+                saldo.costo = rs.getBigDecimal(5);
+                saldos.put(new Clave(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)), saldo);
+            }, hasta.toArray());
+        }
+
+        String limite = hastaId != null ? " AND id <= ?" : " AND fecha_movimiento <= ?";
+        List<Object> rango = new ArrayList<>(List.of(corte.ultimoMovimientoId()));
+        rango.addAll(List.of(parametros(hastaId != null ? hastaId : hastaFecha, filtros)));
+        jdbcTemplate.query(SQL_MOVIMIENTOS + limite + condicion + " ORDER BY fecha_movimiento, id", rs -> {
+            saldos.computeIfAbsent(new Clave(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)), clave -> new Saldo())
+                .aplicar(rs.getInt(3), rs.getInt(4), rs.getBigDecimal(5));
+        }, rango.toArray());
+
+        return saldos;
+    }
+
+    private Object[] parametros(Object primero, List<Object> filtros) {
+        List<Object> parametros = new ArrayList<>(filtros.size() + 1);
+        parametros.add(primero);
+        parametros.addAll(filtros);
+        return parametros.toArray();
+    }
+
+    private void crearParticiones() {
+        LocalDate hoy = LocalDate.now();
+        try {
+            jdbcTemplate.queryForList(SQL_CREAR_PARTICION, hoy);
+            jdbcTemplate.queryForList(SQL_CREAR_PARTICION, hoy.plusMonths(1));
+        } catch (Exception e) {
+            // La partición por defecto recibe los movimientos mientras tanto
+            log.warn("No se pudieron crear las particiones del kardex: {}", e.getMessage());
+        }
+    }
+
+    private SaldoKardexResponse convertirAResponse(Clave clave, Saldo saldo, LocalDateTime fecha) {
+        BigDecimal valor = saldo.costo != null
+            ? saldo.costo.multiply(BigDecimal.valueOf(saldo.disponible))
+            : BigDecimal.ZERO;
+        return SaldoKardexResponse.builder()
+            .varianteId(clave.varianteId())
+            .sucursalId(clave.sucursalId())
+            .fecha(fecha)
+            .cantidadDisponible(saldo.disponible)
+            .cantidadReservada(saldo.reservada)
+            .costoPromedio(saldo.costo)
+            .valorTotal(valor)
+            .build();
+    }
+
+    private record Clave(UUID varianteId, UUID sucursalId) {
+    }
+
+    private record Pendiente(Movimiento movimiento, LocalDateTime fecha) {
+    }
+
+    /**
+     * Corte de snapshots: incluye todos los movimientos con id hasta ultimoMovimientoId
+     */
+    private record Corte(Timestamp fecha, long ultimoMovimientoId) {
+    }
+
+    /**
+     * Saldo en reconstrucción; recorta en cero por si el histórico trae ajustes manuales
+     */
+    private static final class Saldo {
+        private int disponible;
+        private int reservada;
+        private BigDecimal costo;
+        private boolean movido;
+
+        void aplicar(int deltaDisponible, int deltaReservada, BigDecimal costoUnitario) {
+            // Costo promedio ponderado, igual que Inventario.ingresarStock
+            if (deltaDisponible > 0 && costoUnitario != null && costoUnitario.signum() > 0) {
+                BigDecimal valorActual = costo != null
+                    ? costo.multiply(BigDecimal.valueOf(disponible))
+                    : BigDecimal.ZERO;
+                BigDecimal valorNuevo = costoUnitario.multiply(BigDecimal.valueOf(deltaDisponible));
+                costo = valorActual.add(valorNuevo)
+                    .divide(BigDecimal.valueOf((long) disponible + deltaDisponible), 2, RoundingMode.HALF_UP);
+            }
+            disponible = Math.max(disponible + deltaDisponible, 0);
+            reservada = Math.max(reservada + deltaReservada, 0);
+            movido = true;
+        }
+    }
+}
@@ -4,17 +4,21 @@ import com.dpattymoda.dto.request.PagoDigitalRequest;
 import com.dpattymoda.dto.response.PagoDigitalResponse;
 import com.dpattymoda.entity.Pago;
 import com.dpattymoda.entity.Pedido;
+import com.dpattymoda.event.PedidoConfirmadoEvent;
 import com.dpattymoda.exception.BusinessException;
 import com.dpattymoda.exception.ResourceNotFoundException;
 import com.dpattymoda.repository.PagoRepository;
 import com.dpattymoda.repository.PedidoRepository;
 import com.dpattymoda.service.AuditoriaService;
 import com.dpattymoda.service.PagoDigitalService;
+import com.dpattymoda.service.ReservasPedidoService;
+import com.dpattymoda.service.ReservasPedidoService.ResultadoReserva;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
@@ -35,6 +39,8 @@ public class PagoDigitalServiceImpl implements PagoDigitalService {
     private final PagoRepository pagoRepository;
     private final AuditoriaService auditoriaService;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ReservasPedidoService reservasPedidoService;
     private final RestTemplate restTemplate = new RestTemplate();
 
     @Value("${app.pagos.yape.enabled:true}")
@@ -80,6 +86,9 @@ public class PagoDigitalServiceImpl implements PagoDigitalService {
             pago.setFechaVencimiento(LocalDateTime.now().plusMinutes(15));
             pagoRepository.save(pago);
 
+            // La reserva de stock del pedido dura al menos lo que el pago
+            reservasPedidoService.extender(pedidoId, pago.getFechaVencimiento());
+
             // Auditar transacción
             auditoriaService.registrarAccion("PAGO_YAPE_INICIADO", "pagos", pago.getId(),
                 null, convertirAJson(pago), "Pago Yape iniciado: " + referenciaExterna);
@@ -127,6 +136,9 @@ public class PagoDigitalServiceImpl implements PagoDigitalService {
             pago.setFechaVencimiento(LocalDateTime.now().plusMinutes(10));
             pagoRepository.save(pago);
 
+            // La reserva de stock del pedido dura al menos lo que el pago
+            reservasPedidoService.extender(pedidoId, pago.getFechaVencimiento());
+
             // Auditar transacción
             auditoriaService.registrarAccion("PAGO_PLIN_INICIADO", "pagos", pago.getId(),
                 null, convertirAJson(pago), "Pago Plin iniciado: " + referenciaExterna);
@@ -174,6 +186,9 @@ public class PagoDigitalServiceImpl implements PagoDigitalService {
             pago.setFechaVencimiento(LocalDateTime.now().plusMinutes(20));
             pagoRepository.save(pago);
 
+            // La reserva de stock del pedido dura al menos lo que el pago
+            reservasPedidoService.extender(pedidoId, pago.getFechaVencimiento());
+
             // Auditar transacción
             auditoriaService.registrarAccion("PAGO_LUKITA_INICIADO", "pagos", pago.getId(),
                 null, convertirAJson(pago), "Pago Lukita iniciado: " + referenciaExterna);
@@ -229,6 +244,12 @@ public class PagoDigitalServiceImpl implements PagoDigitalService {
         Pago pago = pagoRepository.findByReferenciaExterna(referenciaExterna)
             .orElseThrow(() -> new ResourceNotFoundException("Pago no encontrado: " + referenciaExterna));
 
+        // La billetera reenvía la notificación si no recibe respuesta: confirmar una sola vez
+        if (pago.estaProcesado()) {
+            log.info("Pago digital {} ya confirmado, se ignora la notificación repetida", referenciaExterna);
+            return;
+        }
+
         if ("procesado".equals(estadoPago)) {
             pago.procesarPago(referenciaExterna, "Pago confirmado por billetera digital");
             
@@ -238,6 +259,14 @@ public class PagoDigitalServiceImpl implements PagoDigitalService {
             pedido.setEstado("confirmado");
             pedidoRepository.save(pedido);
 
+            if (reservasPedidoService.confirmar(pedido.getId()) == ResultadoReserva.YA_RESUELTA) {
+                // El pago llegó después del vencimiento: se registra igual y se revisa el stock a mano
+                log.warn("Pago {} confirmado con la reserva de stock del pedido {} ya vencida",
+                    referenciaExterna, pedido.getNumeroPedido());
+            }
+
+            eventPublisher.publishEvent(new PedidoConfirmadoEvent(pedido.getId()));
+
             // Auditar confirmación
             auditoriaService.registrarAccion("PAGO_DIGITAL_CONFIRMADO", "pagos", pago.getId(),
                 null, null, "Pago digital confirmado: " + referenciaExterna);
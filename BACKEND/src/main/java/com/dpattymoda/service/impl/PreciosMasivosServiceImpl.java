@@ -0,0 +1,523 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.dto.request.ActualizacionPreciosRequest;
+import com.dpattymoda.dto.response.ProgramacionPrecioResponse;
+import com.dpattymoda.entity.ProgramacionPrecio;
+import com.dpattymoda.event.CatalogoModificadoEvent;
+import com.dpattymoda.exception.BusinessException;
+import com.dpattymoda.exception.ResourceNotFoundException;
+import com.dpattymoda.repository.ProgramacionPrecioRepository;
+import com.dpattymoda.service.AuditoriaService;
+import com.dpattymoda.service.CategoriaArbolService;
+import com.dpattymoda.service.PreciosMasivosService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Implementación de la actualización masiva de precios de oferta.
+ * Los productos se seleccionan por lotes con paginación por clave y cada lote se
+ * actualiza con una sola sentencia que recalcula el margen y guarda el precio
+ * anterior para poder restaurarlo; cada lote es una transacción y publica un único
+ * evento de catálogo.
+ * Cada lote comprueba y bloquea la fila de la programación, así que una cancelación
+ * espera al lote en curso y detiene los siguientes; una activación interrumpida se
+ * retoma desde el último producto de su detalle. Un producto pertenece como mucho a
+ * una programación con fin activa: las ventanas no se solapan y al restaurar nunca
+ * se devuelve una oferta de otra programación ya terminada
+ */
+@Slf4j
+@Service
+public class PreciosMasivosServiceImpl implements PreciosMasivosService {
+
+    private static final String PROGRAMADA = "programada";
+    private static final String ACTIVA = "activa";
+    private static final String FINALIZADA = "finalizada";
+    private static final String CANCELADA = "cancelada";
+
+    private static final String PRECIO_FIJO = "precio_fijo";
+    private static final String DESCUENTO_PORCENTAJE = "descuento_porcentaje";
+    private static final String DESCUENTO_MONTO = "descuento_monto";
+    private static final String QUITAR_OFERTA = "quitar_oferta";
+
+    // Productos que ya tiene otra programación con fin activa
+    private static final String SIN_OTRA_VENTANA = "AND NOT EXISTS (SELECT 1 FROM programacion_precios_detalle od " +
+        "JOIN programacion_precios op ON op.id = od.programacion_id WHERE od.producto_id = p.id " +
+        "AND od.programacion_id <> ? AND op.estado = 'activa' AND op.fecha_fin IS NOT NULL) ";
+
+    // Los UUID se comparan byte a byte: ninguno es menor que éste
+    private static final UUID UUID_MINIMO = new UUID(0L, 0L);
+
+    private static final String SQL_DETALLE_LOTE = "SELECT producto_id FROM programacion_precios_detalle " +
+        "WHERE programacion_id = ? AND producto_id > ? ORDER BY producto_id LIMIT ?";
+
+    // Comprueba que siga activa, renueva el latido y bloquea la fila hasta el fin del lote
+    private static final String SQL_LATIDO = "UPDATE programacion_precios SET fecha_actualizacion = now() " +
+        "WHERE id = ? AND estado = 'activa'";
+
+    // Toma una activación interrumpida: sólo un nodo gana
+    private static final String SQL_RETOMAR = "UPDATE programacion_precios SET fecha_actualizacion = now() " +
+        "WHERE id = ? AND estado = 'activa' AND fecha_aplicacion IS NULL AND fecha_actualizacion < ?";
+
+    private static final String SQL_ULTIMO_APLICADO = "SELECT producto_id FROM programacion_precios_detalle " +
+        "WHERE programacion_id = ? ORDER BY producto_id DESC LIMIT 1";
+
+    private static final String SQL_COMPLETAR = "UPDATE programacion_precios SET " +
+        "productos_afectados = (SELECT count(*) FROM programacion_precios_detalle WHERE programacion_id = ?), " +
+        // Sin fecha de fin el cambio es permanente
+        "estado = CASE WHEN fecha_fin IS NULL THEN 'aplicada' ELSE estado END, " +
+        "fecha_aplicacion = now(), fecha_actualizacion = now() " +
+        "WHERE id = ? AND estado = 'activa'";
+
+    // Ordena los lotes de distintas programaciones para que vean el detalle ya confirmado de las otras
+    private static final String SQL_SERIALIZAR_LOTES = "SELECT pg_advisory_xact_lock(hashtext('programacion_precios'))";
+
+    // Programaciones con fin y lista de productos cuya vigencia se cruza con la nueva
+    private static final String SQL_SOLAPADAS = "SELECT count(*) FROM programacion_precios " +
+        "WHERE estado IN ('programada', 'activa') AND fecha_fin IS NOT NULL AND producto_ids && ? " +
+        "AND fecha_inicio < ? AND fecha_fin > ?";
+
+    private static final String SQL_RESTAURAR = "UPDATE productos p SET " +
+        "precio_oferta = d.precio_oferta_anterior, " +
+        "margen_ganancia = " + margen("d.precio_oferta_anterior") + ", " +
+        "fecha_actualizacion = now() " +
+        "FROM programacion_precios_detalle d " +
+        "WHERE d.programacion_id = ? AND d.producto_id = p.id AND d.producto_id = ANY(?) " +
+        // Si alguien cambió el precio después, se respeta su cambio
+        "AND p.precio_oferta IS NOT DISTINCT FROM d.precio_oferta_aplicado " +
+        "RETURNING p.id";
+
+    private final ProgramacionPrecioRepository programacionPrecioRepository;
+    private final CategoriaArbolService categoriaArbolService;
+    private final AuditoriaService auditoriaService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int tamanioLote;
+    private final long plazoRetomarMs;
+
+    public PreciosMasivosServiceImpl(ProgramacionPrecioRepository programacionPrecioRepository,
+                                     CategoriaArbolService categoriaArbolService,
+                                     AuditoriaService auditoriaService,
+                                     JdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     ApplicationEventPublisher eventPublisher,
+                                     @Value("${app.catalogo.precios.tamanio-lote:500}") int tamanioLote,
+                                     @Value("${app.catalogo.precios.plazo-retomar-ms:300000}") long plazoRetomarMs) {
+        this.programacionPrecioRepository = programacionPrecioRepository;
+        this.categoriaArbolService = categoriaArbolService;
+        this.auditoriaService = auditoriaService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.tamanioLote = tamanioLote;
+        this.plazoRetomarMs = plazoRetomarMs;
+    }
+
+    @Override
+    public ProgramacionPrecioResponse programarActualizacion(ActualizacionPreciosRequest request) {
+        validarSolicitud(request);
+
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime inicio = request.getFechaInicio() != null ? request.getFechaInicio() : ahora;
+
+        ProgramacionPrecio programacion = ProgramacionPrecio.builder()
+            .operacion(request.getOperacion())
+            .valor(QUITAR_OFERTA.equals(request.getOperacion()) ? null
+                : request.getValor().setScale(2, RoundingMode.HALF_UP))
+            .categoriaId(request.getCategoriaId())
+            .marca(textoOpcional(request.getMarca()))
+            .tag(textoOpcional(request.getTag()))
+            .productoIds(request.getProductoIds() != null && !request.getProductoIds().isEmpty()
+                ? request.getProductoIds().stream().distinct().toArray(UUID[]::new) : null)
+            .fechaInicio(inicio)
+            .fechaFin(request.getFechaFin())
+            .build();
+
+        programacion = programacionPrecioRepository.save(programacion);
+
+        auditoriaService.registrarAccion("PROGRAMAR_PRECIOS", "programacion_precios", programacion.getId(),
+            null, null, "Actualización masiva de precios: " + programacion.getOperacion());
+
+        if (!inicio.isAfter(ahora)) {
+            activar(programacion.getId());
+        }
+
+        return obtenerProgramacion(programacion.getId());
+    }
+
+    @Override
+    public ProgramacionPrecioResponse cancelarProgramacion(UUID programacionId) {
+        ProgramacionPrecio programacion = buscarProgramacion(programacionId);
+
+        if (programacion.estaProgramada()) {
+            if (cambiarEstado(programacionId, PROGRAMADA, CANCELADA)) {
+                log.info("Programación de precios {} cancelada antes de iniciar", programacionId);
+            }
+        } else if (programacion.estaActiva()) {
+            restaurar(programacionId, CANCELADA);
+        } else {
+            throw new BusinessException("Solo se pueden cancelar programaciones pendientes o activas");
+        }
+
+        auditoriaService.registrarAccion("CANCELAR_PROGRAMACION_PRECIOS", "programacion_precios",
+            programacionId, null, null, "Programación de precios cancelada");
+
+        return obtenerProgramacion(programacionId);
+    }
+
+    @Override
+    public ProgramacionPrecioResponse obtenerProgramacion(UUID programacionId) {
+        return convertirAResponse(buscarProgramacion(programacionId));
+    }
+
+    @Override
+    public Page<ProgramacionPrecioResponse> listarProgramaciones(Pageable pageable) {
+        return programacionPrecioRepository.findAllByOrderByFechaCreacionDesc(pageable)
+            .map(this::convertirAResponse);
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.catalogo.precios.intervalo-revision-ms:60000}")
+    public void procesarProgramaciones() {
+        LocalDateTime ahora = LocalDateTime.now();
+
+        for (UUID id : programacionPrecioRepository.obtenerPendientesDeActivar(ahora)) {
+            try {
+                activar(id);
+            } catch (Exception e) {
+                log.error("No se pudo activar la programación de precios {}: {}", id, e.getMessage(), e);
+            }
+        }
+
+        // Sin latido dentro del plazo: el nodo que la aplicaba se detuvo a medias
+        for (UUID id : programacionPrecioRepository.obtenerActivacionesInterrumpidas(
+                ahora.minusNanos(plazoRetomarMs * 1_000_000))) {
+            try {
+                retomar(id);
+            } catch (Exception e) {
+                log.error("No se pudo retomar la programación de precios {}: {}", id, e.getMessage(), e);
+            }
+        }
+
+        for (UUID id : programacionPrecioRepository.obtenerPendientesDeFinalizar(ahora)) {
+            try {
+                restaurar(id, FINALIZADA);
+            } catch (Exception e) {
+                log.error("No se pudo finalizar la programación de precios {}: {}", id, e.getMessage(), e);
+            }
+        }
+    }
+
+    // Métodos privados de utilidad
+
+    private void validarSolicitud(ActualizacionPreciosRequest request) {
+        boolean sinSelector = request.getCategoriaId() == null
+            && textoOpcional(request.getMarca()) == null
+            && textoOpcional(request.getTag()) == null
+            && (request.getProductoIds() == null || request.getProductoIds().isEmpty());
+        if (sinSelector) {
+            throw new BusinessException("Debe indicar al menos una categoría, marca, tag o lista de productos");
+        }
+
+        if (!QUITAR_OFERTA.equals(request.getOperacion()) && request.getValor() == null) {
+            throw new BusinessException("El valor es requerido para la operación " + request.getOperacion());
+        }
+        if (DESCUENTO_PORCENTAJE.equals(request.getOperacion())
+                && request.getValor().compareTo(BigDecimal.valueOf(100)) >= 0) {
+            throw new BusinessException("El porcentaje de descuento debe ser menor que 100");
+        }
+
+        if (request.getCategoriaId() != null
+                && categoriaArbolService.obtenerNodo(request.getCategoriaId()).isEmpty()) {
+            throw new ResourceNotFoundException("Categoría no encontrada");
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDateTime inicio = request.getFechaInicio() != null ? request.getFechaInicio() : ahora;
+        if (request.getFechaFin() != null
+                && (!request.getFechaFin().isAfter(inicio) || !request.getFechaFin().isAfter(ahora))) {
+            throw new BusinessException("La fecha de fin debe ser futura y posterior a la fecha de inicio");
+        }
+
+        // Las selecciones por categoría, marca o tag se resuelven al activar, que omite los productos ocupados
+        if (request.getFechaFin() != null && request.getProductoIds() != null && !request.getProductoIds().isEmpty()) {
+            Long solapadas = jdbcTemplate.query(sentencia(SQL_SOLAPADAS,
+                    request.getProductoIds().toArray(UUID[]::new), request.getFechaFin(), inicio),
+                rs -> rs.next() ? rs.getLong(1) : 0L);
+            if (solapadas != null && solapadas > 0) {
+                throw new BusinessException("Hay otra programación con fecha de fin vigente en esas fechas " +
+                    "para alguno de los productos");
+            }
+        }
+    }
+
+    /**
+     * Aplicar la programación por lotes; sólo el nodo que gana la transición la ejecuta
+     */
+    private void activar(UUID programacionId) {
+        if (!cambiarEstado(programacionId, PROGRAMADA, ACTIVA)) {
+            return;
+        }
+        aplicar(buscarProgramacion(programacionId), UUID_MINIMO);
+    }
+
+    /**
+     * Continuar una activación interrumpida tras el último producto aplicado; los lotes son
+     * atómicos y repetir uno no cambia nada, así que basta con seguir desde ahí
+     */
+    private void retomar(UUID programacionId) {
+        LocalDateTime limite = LocalDateTime.now().minusNanos(plazoRetomarMs * 1_000_000);
+        Integer tomadas = transactionTemplate.execute(status ->
+            jdbcTemplate.update(SQL_RETOMAR, programacionId, limite));
+        if (tomadas == null || tomadas == 0) {
+            return;
+        }
+
+        UUID ultimo = jdbcTemplate.queryForList(SQL_ULTIMO_APLICADO, UUID.class, programacionId).stream()
+            .findFirst()
+            .orElse(UUID_MINIMO);
+        log.warn("Retomando la programación de precios {} después del producto {}", programacionId, ultimo);
+        aplicar(buscarProgramacion(programacionId), ultimo);
+    }
+
+    private void aplicar(ProgramacionPrecio programacion, UUID desde) {
+        long inicio = System.currentTimeMillis();
+        int afectados = 0;
+        UUID ultimo = desde;
+
+        while (true) {
+            List<UUID> lote = seleccionarProductos(programacion, ultimo);
+            if (lote.isEmpty()) {
+                break;
+            }
+            Integer aplicados = aplicarLote(programacion, lote);
+            if (aplicados == null) {
+                // Cancelada o finalizada mientras se aplicaba: quien cambió el estado restaura
+                log.info("Programación de precios {} dejó de estar activa tras {} productos",
+                    programacion.getId(), afectados);
+                return;
+            }
+            afectados += aplicados;
+            ultimo = lote.get(lote.size() - 1);
+            if (lote.size() < tamanioLote) {
+                break;
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.update(SQL_COMPLETAR, programacion.getId(), programacion.getId()));
+
+        log.info("Programación de precios {} aplicada a {} productos en {} ms",
+            programacion.getId(), afectados, System.currentTimeMillis() - inicio);
+    }
+
+    /**
+     * Devolver el precio de oferta anterior a los productos que la programación cambió
+     */
+    private void restaurar(UUID programacionId, String estadoFinal) {
+        if (!cambiarEstado(programacionId, ACTIVA, estadoFinal)) {
+            return;
+        }
+
+        long inicio = System.currentTimeMillis();
+        int restaurados = 0;
+        UUID ultimo = UUID_MINIMO;
+
+        while (true) {
+            List<UUID> lote = jdbcTemplate.queryForList(SQL_DETALLE_LOTE, UUID.class,
+                programacionId, ultimo, tamanioLote);
+            if (lote.isEmpty()) {
+                break;
+            }
+            restaurados += ejecutarLote(SQL_RESTAURAR, programacionId, lote.toArray(UUID[]::new));
+            ultimo = lote.get(lote.size() - 1);
+            if (lote.size() < tamanioLote) {
+                break;
+            }
+        }
+
+        log.info("Programación de precios {} {}: {} productos restaurados en {} ms",
+            programacionId, estadoFinal, restaurados, System.currentTimeMillis() - inicio);
+    }
+
+    private List<UUID> seleccionarProductos(ProgramacionPrecio programacion, UUID despuesDe) {
+        StringBuilder sql = new StringBuilder("SELECT p.id FROM productos p WHERE p.activo = true");
+        List<Object> parametros = new ArrayList<>();
+
+        if (programacion.getCategoriaId() != null) {
+            // El subárbol sale del árbol de categorías en memoria
+            sql.append(" AND p.categoria_id = ANY(?)");
+            parametros.add(categoriaArbolService.obtenerIdsSubarbol(programacion.getCategoriaId())
+                .toArray(UUID[]::new));
+        }
+        if (programacion.getMarca() != null) {
+            sql.append(" AND lower(p.marca) = lower(?)");
+            parametros.add(programacion.getMarca());
+        }
+        if (programacion.getTag() != null) {
+            sql.append(" AND p.tags @> ARRAY[?]::text[]");
+            parametros.add(programacion.getTag());
+        }
+        if (programacion.getProductoIds() != null) {
+            sql.append(" AND p.id = ANY(?)");
+            parametros.add(programacion.getProductoIds());
+        }
+        sql.append(" AND p.id > ? ORDER BY p.id LIMIT ?");
+        parametros.add(despuesDe);
+        parametros.add(tamanioLote);
+
+        return jdbcTemplate.query(sentencia(sql.toString(), parametros.toArray()),
+            (rs, fila) -> rs.getObject(1, UUID.class));
+    }
+
+    /**
+     * Aplicar un lote si la programación sigue activa; null si dejó de estarlo
+     */
+    private Integer aplicarLote(ProgramacionPrecio programacion, List<UUID> productoIds) {
+        UUID[] ids = productoIds.toArray(UUID[]::new);
+        List<Object> parametros = new ArrayList<>();
+        parametros.add(ids);
+        if (!QUITAR_OFERTA.equals(programacion.getOperacion())) {
+            parametros.add(programacion.getValor());
+        }
+        parametros.add(ids);
+
+        String sql = "WITH anterior AS (SELECT id, precio_oferta FROM productos WHERE id = ANY(?)), " +
+            "nuevo AS (SELECT id, " + expresionPrecio(programacion.getOperacion()) + " AS precio " +
+            "FROM productos WHERE id = ANY(?)), " +
+            "actualizados AS (UPDATE productos p SET " +
+            "precio_oferta = n.precio, " +
+            "margen_ganancia = " + margen("n.precio") + ", " +
+            "fecha_actualizacion = now() " +
+            "FROM nuevo n WHERE p.id = n.id " +
+            "AND p.precio_oferta IS DISTINCT FROM n.precio " +
+            // Una oferta sólo tiene sentido por debajo del precio base
+            "AND (n.precio IS NULL OR (n.precio > 0 AND n.precio < p.precio_base)) " +
+            (programacion.tieneFin() ? SIN_OTRA_VENTANA : "") +
+            "RETURNING p.id, p.precio_oferta) " +
+            "INSERT INTO programacion_precios_detalle " +
+            "(programacion_id, producto_id, precio_oferta_anterior, precio_oferta_aplicado) " +
+            "SELECT ?, a.id, an.precio_oferta, a.precio_oferta " +
+            "FROM actualizados a JOIN anterior an ON an.id = a.id " +
+            "ON CONFLICT (programacion_id, producto_id) DO NOTHING " +
+            "RETURNING producto_id";
+
+        if (programacion.tieneFin()) {
+            parametros.add(programacion.getId());
+        }
+        parametros.add(programacion.getId());
+
+        return transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update(SQL_LATIDO, programacion.getId()) == 0) {
+                return null;
+            }
+            jdbcTemplate.query(SQL_SERIALIZAR_LOTES, rs -> { });
+            return ejecutarSentencia(sql, parametros.toArray());
+        });
+    }
+
+    /**
+     * Ejecutar una sentencia de lote en su propia transacción y avisar una vez los productos cambiados
+     */
+    private int ejecutarLote(String sql, Object... parametros) {
+        Integer cambiados = transactionTemplate.execute(status -> ejecutarSentencia(sql, parametros));
+        return cambiados != null ? cambiados : 0;
+    }
+
+    private int ejecutarSentencia(String sql, Object... parametros) {
+        List<UUID> ids = jdbcTemplate.query(sentencia(sql, parametros),
+            (rs, fila) -> rs.getObject(1, UUID.class));
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(CatalogoModificadoEvent.deProductos(ids));
+        }
+        return ids.size();
+    }
+
+    private PreparedStatementCreator sentencia(String sql, Object... parametros) {
+        return conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(sql);
+            for (int i = 0; i < parametros.length; i++) {
+                if (parametros[i] instanceof UUID[] ids) {
+                    ps.setArray(i + 1, conexion.createArrayOf("uuid", ids));
+                } else {
+                    ps.setObject(i + 1, parametros[i]);
+                }
+            }
+            return ps;
+        };
+    }
+
+    private boolean cambiarEstado(UUID programacionId, String esperado, String nuevo) {
+        Integer cambiadas = transactionTemplate.execute(status ->
+            programacionPrecioRepository.cambiarEstado(programacionId, esperado, nuevo));
+        return cambiadas != null && cambiadas > 0;
+    }
+
+    private ProgramacionPrecio buscarProgramacion(UUID programacionId) {
+        return programacionPrecioRepository.findById(programacionId)
+            .orElseThrow(() -> new ResourceNotFoundException("Programación de precios no encontrada"));
+    }
+
+    /**
+     * Nuevo precio de oferta calculado sobre el precio base
+     */
+    private static String expresionPrecio(String operacion) {
+        return switch (operacion) {
+            case PRECIO_FIJO -> "?::numeric";
+            case DESCUENTO_PORCENTAJE -> "round(precio_base * (100 - ?::numeric) / 100, 2)";
+            case DESCUENTO_MONTO -> "round(precio_base - ?::numeric, 2)";
+            case QUITAR_OFERTA -> "NULL::numeric";
+            default -> throw new BusinessException("Operación no válida: " + operacion);
+        };
+    }
+
+    /**
+     * Margen sobre el precio de venta vigente (oferta o, sin ella, precio base), la misma
+     * fórmula que Producto.calcularMargen
+     */
+    private static String margen(String precioOferta) {
+        String precioVenta = "COALESCE(" + precioOferta + ", p.precio_base)";
+        return "CASE WHEN p.costo_producto > 0 AND " + precioVenta + " > 0 " +
+            "THEN GREATEST(-999.99, round((" + precioVenta + " - p.costo_producto) / " + precioVenta + " * 100, 2)) " +
+            "ELSE p.margen_ganancia END";
+    }
+
+    private String textoOpcional(String texto) {
+        return texto != null && !texto.isBlank() ? texto.trim() : null;
+    }
+
+    private ProgramacionPrecioResponse convertirAResponse(ProgramacionPrecio programacion) {
+        return ProgramacionPrecioResponse.builder()
+            .id(programacion.getId())
+            .operacion(programacion.getOperacion())
+            .valor(programacion.getValor())
+            .categoriaId(programacion.getCategoriaId())
+            .marca(programacion.getMarca())
+            .tag(programacion.getTag())
+            .productoIds(programacion.getProductoIds() != null
+                ? Arrays.asList(programacion.getProductoIds()) : null)
+            .fechaInicio(programacion.getFechaInicio())
+            .fechaFin(programacion.getFechaFin())
+            .estado(programacion.getEstado())
+            .productosAfectados(programacion.getProductosAfectados())
+            .fechaCreacion(programacion.getFechaCreacion())
+            .build();
+    }
+}
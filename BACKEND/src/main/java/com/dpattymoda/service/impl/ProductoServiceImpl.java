@@ -1,28 +1,58 @@
 package com.dpattymoda.service.impl;
 
+import com.dpattymoda.config.CacheConfig;
+import com.dpattymoda.dto.request.FiltroProductosRequest;
 import com.dpattymoda.dto.request.ProductoCreateRequest;
 import com.dpattymoda.dto.request.ProductoUpdateRequest;
+import com.dpattymoda.dto.response.BusquedaFacetadaResponse;
+import com.dpattymoda.dto.response.CursorPageResponse;
+import com.dpattymoda.dto.response.ProductoAdminResponse;
 import com.dpattymoda.dto.response.ProductoResponse;
 import com.dpattymoda.dto.response.ProductoDetalleResponse;
+import com.dpattymoda.dto.response.ProductoListadoResponse;
+import com.dpattymoda.dto.response.ProductoListadoResponse.Campo;
 import com.dpattymoda.entity.*;
+import com.dpattymoda.event.CatalogoModificadoEvent;
 import com.dpattymoda.exception.BusinessException;
 import com.dpattymoda.exception.ResourceNotFoundException;
 import com.dpattymoda.repository.*;
+import com.dpattymoda.service.AlertasStockService;
 import com.dpattymoda.service.AuditoriaService;
+import com.dpattymoda.service.CategoriaArbolService;
+import com.dpattymoda.service.CategoriaArbolService.NodoCategoria;
+import com.dpattymoda.service.ContadorVentasService;
+import com.dpattymoda.service.IndiceFacetasService;
+import com.dpattymoda.service.KardexService;
 import com.dpattymoda.service.ProductoService;
+import com.dpattymoda.util.CursorPaginacion;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -38,12 +68,23 @@ public class ProductoServiceImpl implements ProductoService {
     private final CategoriaRepository categoriaRepository;
     private final VarianteProductoRepository varianteProductoRepository;
     private final InventarioRepository inventarioRepository;
+    private final ProductoResumenRepository productoResumenRepository;
     private final SucursalRepository sucursalRepository;
     private final AuditoriaService auditoriaService;
     private final ObjectMapper objectMapper;
+    private final IndiceFacetasService indiceFacetasService;
+    private final CategoriaArbolService categoriaArbolService;
+    private final ContadorVentasService contadorVentasService;
+    private final AlertasStockService alertasStockService;
+    private final KardexService kardexService;
+    private final CacheManager cacheManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final Pattern SEPARADOR_TERMINOS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int MAX_TERMINOS_BUSQUEDA = 8;
 
     @Override
-    public ProductoResponse crearProducto(ProductoCreateRequest request) {
+    public ProductoAdminResponse crearProducto(ProductoCreateRequest request) {
         log.info("Creando nuevo producto: {}", request.getCodigoProducto());
 
         // Validar código único
@@ -67,9 +108,9 @@ public class ProductoServiceImpl implements ProductoService {
             .precioOferta(request.getPrecioOferta())
             .costoProducto(request.getCostoProducto())
             .peso(request.getPeso())
-            .dimensiones(convertirAJson(request.getDimensiones()))
-            .caracteristicas(convertirAJson(request.getCaracteristicas()))
-            .imagenes(convertirAJson(request.getImagenes()))
+            .dimensiones(request.getDimensiones())
+            .caracteristicas(request.getCaracteristicas())
+            .imagenes(request.getImagenes())
             .tags(request.getTags() != null ? request.getTags().toArray(new String[0]) : null)
             .destacado(request.getDestacado())
             .nuevo(request.getNuevo())
@@ -82,12 +123,7 @@ public class ProductoServiceImpl implements ProductoService {
             .build();
 
         // Calcular margen de ganancia si hay costo
-        if (request.getCostoProducto() != null && request.getCostoProducto().compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal margen = request.getPrecioBase().subtract(request.getCostoProducto())
-                .divide(request.getPrecioBase(), 4, BigDecimal.ROUND_HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
-            producto.setMargenGanancia(margen);
-        }
+        producto.setMargenGanancia(Producto.calcularMargen(producto.getPrecioVenta(), request.getCostoProducto()));
 
         producto = productoRepository.save(producto);
 
@@ -100,12 +136,14 @@ public class ProductoServiceImpl implements ProductoService {
         auditoriaService.registrarAccion("CREAR_PRODUCTO", "productos", producto.getId(),
             null, convertirAJson(producto), "Producto creado: " + producto.getNombreProducto());
 
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(producto.getId()));
+
         log.info("Producto creado exitosamente: {}", producto.getCodigoProducto());
-        return convertirAProductoResponse(producto);
+        return convertirAProductoAdminResponse(producto);
     }
 
     @Override
-    public ProductoResponse actualizarProducto(UUID id, ProductoUpdateRequest request) {
+    public ProductoAdminResponse actualizarProducto(UUID id, ProductoUpdateRequest request) {
         log.info("Actualizando producto ID: {}", id);
 
         Producto producto = productoRepository.findById(id)
@@ -129,9 +167,9 @@ public class ProductoServiceImpl implements ProductoService {
         producto.setPrecioOferta(request.getPrecioOferta());
         producto.setCostoProducto(request.getCostoProducto());
         producto.setPeso(request.getPeso());
-        producto.setDimensiones(convertirAJson(request.getDimensiones()));
-        producto.setCaracteristicas(convertirAJson(request.getCaracteristicas()));
-        producto.setImagenes(convertirAJson(request.getImagenes()));
+        producto.setDimensiones(request.getDimensiones());
+        producto.setCaracteristicas(request.getCaracteristicas());
+        producto.setImagenes(request.getImagenes());
         producto.setTags(request.getTags() != null ? request.getTags().toArray(new String[0]) : null);
         
         if (request.getDestacado() != null) producto.setDestacado(request.getDestacado());
@@ -144,10 +182,8 @@ public class ProductoServiceImpl implements ProductoService {
             request.getSeoPalabrasClave().toArray(new String[0]) : null);
 
         // Recalcular margen de ganancia
-        if (request.getCostoProducto() != null && request.getCostoProducto().compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal margen = request.getPrecioBase().subtract(request.getCostoProducto())
-                .divide(request.getPrecioBase(), 4, BigDecimal.ROUND_HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
+        BigDecimal margen = Producto.calcularMargen(producto.getPrecioVenta(), request.getCostoProducto());
+        if (margen != null) {
             producto.setMargenGanancia(margen);
         }
 
@@ -158,12 +194,15 @@ public class ProductoServiceImpl implements ProductoService {
             convertirAJson(productoAnterior), convertirAJson(producto), 
             "Producto actualizado: " + producto.getNombreProducto());
 
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(producto.getId()));
+
         log.info("Producto actualizado exitosamente: {}", producto.getCodigoProducto());
-        return convertirAProductoResponse(producto);
+        return convertirAProductoAdminResponse(producto);
     }
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CACHE_PRODUCTO_DETALLE, key = "#id")
     public ProductoDetalleResponse obtenerProductoDetalle(UUID id) {
         Producto producto = productoRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
@@ -173,6 +212,7 @@ public class ProductoServiceImpl implements ProductoService {
 
     @Override
     @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.CACHE_PRODUCTO, key = "#id")
     public ProductoResponse obtenerProducto(UUID id) {
         Producto producto = productoRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
@@ -180,35 +220,81 @@ public class ProductoServiceImpl implements ProductoService {
         return convertirAProductoResponse(producto);
     }
 
+    /**
+     * La caché por código guarda sólo el ID y el producto sale de la caché por ID, que se
+     * invalida con cada cambio. Si el código del producto ya no coincide, la entrada quedó
+     * de un código anterior: se descarta y se vuelve a resolver contra la base de datos
+     */
     @Override
     @Transactional(readOnly = true)
     public ProductoResponse obtenerProductoPorCodigo(String codigo) {
+        Cache porCodigo = cacheManager.getCache(CacheConfig.CACHE_PRODUCTO_CODIGO);
+        Cache porId = cacheManager.getCache(CacheConfig.CACHE_PRODUCTO);
+
+        UUID productoId = porCodigo.get(codigo, UUID.class);
+        if (productoId != null) {
+            ProductoResponse cacheado = porId.get(productoId, () -> productoRepository.findById(productoId)
+                .map(this::convertirAProductoResponse)
+                .orElse(null));
+            if (cacheado != null && codigo.equals(cacheado.getCodigoProducto())
+                && Boolean.TRUE.equals(cacheado.getActivo())) {
+                return cacheado;
+            }
+            porCodigo.evict(codigo);
+        }
+
         Producto producto = productoRepository.findByCodigoProductoAndActivoTrue(codigo)
             .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con código: " + codigo));
 
-        return convertirAProductoResponse(producto);
+        ProductoResponse response = convertirAProductoResponse(producto);
+        porCodigo.put(codigo, producto.getId());
+        porId.put(producto.getId(), response);
+        return response;
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ProductoResponse> listarProductos(Pageable pageable) {
         Page<Producto> productos = productoRepository.findByActivoTrue(pageable);
-        List<ProductoResponse> productosResponse = productos.getContent().stream()
-            .map(this::convertirAProductoResponse)
-            .collect(Collectors.toList());
+        List<ProductoResponse> productosResponse = convertirAProductosResponse(productos.getContent());
 
         return new PageImpl<>(productosResponse, pageable, productos.getTotalElements());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ProductoResponse> listarProductosPorCursor(String cursor, int tamanio) {
+        CursorPaginacion.Posicion posicion = CursorPaginacion.decodificar(cursor);
+        Pageable limite = Pageable.ofSize(CursorPaginacion.normalizarTamanio(tamanio));
+
+        Slice<Producto> productos = posicion == null
+            ? productoRepository.findByActivoTrueOrderByFechaCreacionDescIdDesc(limite)
+            : productoRepository.findActivosDespuesDeCursor(posicion.fechaCreacion(), posicion.id(), limite);
+
+        return CursorPaginacion.construirRespuesta(productos, this::convertirAProductosResponse,
+            Producto::getFechaCreacion, Producto::getId);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Page<ProductoResponse> buscarProductos(String termino, Pageable pageable) {
-        Page<Producto> productos = productoRepository.buscarProductos(termino, pageable);
-        List<ProductoResponse> productosResponse = productos.getContent().stream()
-            .map(this::convertirAProductoResponse)
-            .collect(Collectors.toList());
+        String consulta = construirConsultaTextoCompleto(termino);
+        if (consulta.isEmpty()) {
+            return Page.empty(pageable);
+        }
 
-        return new PageImpl<>(productosResponse, pageable, productos.getTotalElements());
+        // El orden lo define la relevancia, no el Sort del cliente; la respuesta informa la página sin orden
+        Pageable paginaPorRelevancia = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Page<Producto> productos = productoRepository.buscarPorTextoCompleto(consulta, paginaPorRelevancia);
+
+        // Sin coincidencias léxicas: intentar por similitud para tolerar errores de tipeo
+        if (productos.getTotalElements() == 0) {
+            productos = productoRepository.buscarPorSimilitud(termino.trim(), paginaPorRelevancia);
+        }
+
+        List<ProductoResponse> productosResponse = convertirAProductosResponse(productos.getContent());
+
+        return new PageImpl<>(productosResponse, paginaPorRelevancia, productos.getTotalElements());
     }
 
     @Override
@@ -217,61 +303,213 @@ public class ProductoServiceImpl implements ProductoService {
                                                   BigDecimal precioMin, BigDecimal precioMax,
                                                   Boolean destacado, Boolean nuevo, 
                                                   Pageable pageable) {
+        pageable = ordenarFiltrado(pageable);
+        if (indiceFacetasService.estaListo()) {
+            FiltroProductosRequest filtro = new FiltroProductosRequest();
+            filtro.setCategoriaId(categoriaId);
+            filtro.setMarca(marca);
+            filtro.setPrecioMin(precioMin);
+            filtro.setPrecioMax(precioMax);
+            filtro.setDestacado(destacado);
+            filtro.setNuevo(nuevo);
+            return paginarResultado(indiceFacetasService.buscar(filtro, pageable.getSort()).getProductoIds(), pageable);
+        }
+
+        // Índice aún en construcción: resolver contra la base de datos
         Page<Producto> productos = productoRepository.buscarConFiltros(
             categoriaId, marca, precioMin, precioMax, destacado, nuevo, pageable);
-        
-        List<ProductoResponse> productosResponse = productos.getContent().stream()
-            .map(this::convertirAProductoResponse)
-            .collect(Collectors.toList());
+
+        List<ProductoResponse> productosResponse = convertirAProductosResponse(productos.getContent());
 
         return new PageImpl<>(productosResponse, pageable, productos.getTotalElements());
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Page<ProductoResponse> obtenerProductosPorCategoria(UUID categoriaId, Pageable pageable) {
-        Page<Producto> productos = productoRepository.findByCategoria_IdAndActivoTrue(categoriaId, pageable);
-        List<ProductoResponse> productosResponse = productos.getContent().stream()
-            .map(this::convertirAProductoResponse)
-            .collect(Collectors.toList());
+    public BusquedaFacetadaResponse buscarConFacetas(FiltroProductosRequest filtro, Pageable pageable) {
+        Pageable ordenada = ordenarFiltrado(pageable);
+        if (!indiceFacetasService.estaListo()) {
+            // Índice aún en construcción: productos desde la base de datos, sin conteos por faceta
+            Page<Producto> productos = productoRepository.buscarPorFacetas(filtro.getCategoriaId(),
+                normalizarFaceta(filtro.getMarca()), normalizarFaceta(filtro.getTalla()),
+                normalizarFaceta(filtro.getColor()), filtro.getPrecioMin(), filtro.getPrecioMax(),
+                filtro.getDestacado(), filtro.getNuevo(), Boolean.TRUE.equals(filtro.getConStock()), ordenada);
+            return BusquedaFacetadaResponse.builder()
+                .productos(new PageImpl<>(convertirAProductosResponse(productos.getContent()), ordenada,
+                    productos.getTotalElements()))
+                .facetas(Map.of())
+                .build();
+        }
+
+        IndiceFacetasService.ResultadoFacetas resultado = indiceFacetasService.buscar(filtro, ordenada.getSort());
+
+        return BusquedaFacetadaResponse.builder()
+            .productos(paginarResultado(resultado.getProductoIds(), ordenada))
+            .facetas(resultado.getFacetas())
+            .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductoResponse> obtenerProductosPorCategoria(UUID categoriaId, boolean incluirSubcategorias,
+                                                               Pageable pageable) {
+        // El subárbol sale del árbol en memoria, sin consultas recursivas
+        Page<Producto> productos = incluirSubcategorias
+            ? productoRepository.findByCategoria_IdInAndActivoTrue(
+                categoriaArbolService.obtenerIdsSubarbol(categoriaId), pageable)
+            : productoRepository.findByCategoria_IdAndActivoTrue(categoriaId, pageable);
+        List<ProductoResponse> productosResponse = convertirAProductosResponse(productos.getContent());
 
         return new PageImpl<>(productosResponse, pageable, productos.getTotalElements());
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ProductoResponse> obtenerProductosDestacados() {
-        return productoRepository.findByDestacadoTrueAndActivoTrueOrderByTotalVentasDesc()
-            .stream()
-            .map(this::convertirAProductoResponse)
-            .collect(Collectors.toList());
+    public CursorPageResponse<ProductoResponse> obtenerProductosPorCategoriaPorCursor(UUID categoriaId,
+                                                                                    String cursor, int tamanio) {
+        CursorPaginacion.Posicion posicion = CursorPaginacion.decodificar(cursor);
+        Pageable limite = Pageable.ofSize(CursorPaginacion.normalizarTamanio(tamanio));
+
+        Slice<Producto> productos = posicion == null
+            ? productoRepository.findByCategoria_IdAndActivoTrueOrderByFechaCreacionDescIdDesc(categoriaId, limite)
+            : productoRepository.findPorCategoriaDespuesDeCursor(
+                categoriaId, posicion.fechaCreacion(), posicion.id(), limite);
+
+        return CursorPaginacion.construirRespuesta(productos, this::convertirAProductosResponse,
+            Producto::getFechaCreacion, Producto::getId);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ProductoResponse> obtenerProductosNuevos() {
-        return productoRepository.findByNuevoTrueAndActivoTrueOrderByFechaCreacionDesc()
-            .stream()
-            .map(this::convertirAProductoResponse)
-            .collect(Collectors.toList());
+    public Page<ProductoListadoResponse> listarProductosConCampos(String campos, Pageable pageable) {
+        Set<Campo> seleccion = interpretarCampos(campos);
+        Page<ProductoListadoProyeccion> filas = productoRepository.listarActivos(pageable);
+
+        return new PageImpl<>(convertirAListado(filas.getContent(), seleccion), pageable, filas.getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ProductoListadoResponse> listarProductosPorCursorConCampos(String campos,
+                                                                                        String cursor,
+                                                                                        int tamanio) {
+        Set<Campo> seleccion = interpretarCampos(campos);
+        CursorPaginacion.Posicion posicion = CursorPaginacion.decodificar(cursor);
+        Pageable limite = Pageable.ofSize(CursorPaginacion.normalizarTamanio(tamanio));
+
+        Slice<ProductoListadoProyeccion> filas = posicion == null
+            ? productoRepository.listarActivosPorCursor(limite)
+            : productoRepository.listarActivosDespuesDeCursor(posicion.fechaCreacion(), posicion.id(), limite);
+
+        return CursorPaginacion.construirRespuesta(filas, lista -> convertirAListado(lista, seleccion),
+            ProductoListadoProyeccion::getFechaCreacion, ProductoListadoProyeccion::getId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductoListadoResponse> buscarProductosConCampos(String campos, String termino,
+                                                                  Pageable pageable) {
+        Set<Campo> seleccion = interpretarCampos(campos);
+        String consulta = construirConsultaTextoCompleto(termino);
+        if (consulta.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        Pageable paginaPorRelevancia = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Page<UUID> ids = productoRepository.buscarIdsPorTextoCompleto(consulta, paginaPorRelevancia);
+        if (ids.getTotalElements() == 0) {
+            ids = productoRepository.buscarIdsPorSimilitud(termino.trim(), paginaPorRelevancia);
+        }
+
+        return new PageImpl<>(convertirAListado(listarEnOrden(ids.getContent()), seleccion),
+            paginaPorRelevancia, ids.getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductoListadoResponse> buscarConFiltrosConCampos(String campos, UUID categoriaId, String marca,
+                                                                   BigDecimal precioMin, BigDecimal precioMax,
+                                                                   Boolean destacado, Boolean nuevo,
+                                                                   Pageable pageable) {
+        Set<Campo> seleccion = interpretarCampos(campos);
+        pageable = ordenarFiltrado(pageable);
+
+        if (indiceFacetasService.estaListo()) {
+            FiltroProductosRequest filtro = new FiltroProductosRequest();
+            filtro.setCategoriaId(categoriaId);
+            filtro.setMarca(marca);
+            filtro.setPrecioMin(precioMin);
+            filtro.setPrecioMax(precioMax);
+            filtro.setDestacado(destacado);
+            filtro.setNuevo(nuevo);
+            List<UUID> productoIds = indiceFacetasService.buscar(filtro, pageable.getSort()).getProductoIds();
+
+            int desde = (int) Math.min(pageable.getOffset(), productoIds.size());
+            int hasta = Math.min(desde + pageable.getPageSize(), productoIds.size());
+            return new PageImpl<>(convertirAListado(listarEnOrden(productoIds.subList(desde, hasta)), seleccion),
+                pageable, productoIds.size());
+        }
+
+        Page<ProductoListadoProyeccion> filas = productoRepository.listarConFiltros(
+            categoriaId, marca, precioMin, precioMax, destacado, nuevo, pageable);
+
+        return new PageImpl<>(convertirAListado(filas.getContent(), seleccion), pageable, filas.getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductoListadoResponse> obtenerProductosPorCategoriaConCampos(String campos, UUID categoriaId,
+                                                                               boolean incluirSubcategorias,
+                                                                               Pageable pageable) {
+        Set<Campo> seleccion = interpretarCampos(campos);
+        Page<ProductoListadoProyeccion> filas = productoRepository.listarActivosPorCategorias(
+            incluirSubcategorias ? categoriaArbolService.obtenerIdsSubarbol(categoriaId) : Set.of(categoriaId),
+            pageable);
+
+        return new PageImpl<>(convertirAListado(filas.getContent(), seleccion), pageable, filas.getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ProductoListadoResponse> obtenerProductosPorCategoriaPorCursorConCampos(
+            String campos, UUID categoriaId, String cursor, int tamanio) {
+        Set<Campo> seleccion = interpretarCampos(campos);
+        CursorPaginacion.Posicion posicion = CursorPaginacion.decodificar(cursor);
+        Pageable limite = Pageable.ofSize(CursorPaginacion.normalizarTamanio(tamanio));
+
+        Slice<ProductoListadoProyeccion> filas = posicion == null
+            ? productoRepository.listarPorCategoriaPorCursor(categoriaId, limite)
+            : productoRepository.listarPorCategoriaDespuesDeCursor(
+                categoriaId, posicion.fechaCreacion(), posicion.id(), limite);
+
+        return CursorPaginacion.construirRespuesta(filas, lista -> convertirAListado(lista, seleccion),
+            ProductoListadoProyeccion::getFechaCreacion, ProductoListadoProyeccion::getId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductoResponse> obtenerProductosDestacados(int limite) {
+        return convertirAProductosResponse(
+            productoRepository.findByDestacadoTrueAndActivoTrueOrderByTotalVentasDesc(Pageable.ofSize(limite)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductoResponse> obtenerProductosNuevos(int limite) {
+        return convertirAProductosResponse(
+            productoRepository.findByNuevoTrueAndActivoTrueOrderByFechaCreacionDesc(Pageable.ofSize(limite)));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductoResponse> obtenerProductosMasVendidos(int limite) {
-        return productoRepository.findMasVendidos(Pageable.ofSize(limite))
-            .stream()
-            .map(this::convertirAProductoResponse)
-            .collect(Collectors.toList());
+        return convertirAProductosResponse(productoRepository.findMasVendidos(Pageable.ofSize(limite)));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductoResponse> obtenerProductosMejorCalificados(int limite) {
-        return productoRepository.findMejorCalificados(Pageable.ofSize(limite))
-            .stream()
-            .map(this::convertirAProductoResponse)
-            .collect(Collectors.toList());
+        return convertirAProductosResponse(productoRepository.findMejorCalificados(Pageable.ofSize(limite)));
     }
 
     @Override
@@ -300,6 +538,8 @@ public class ProductoServiceImpl implements ProductoService {
             "Estado de producto cambiado: " + producto.getNombreProducto()
         );
 
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(producto.getId()));
+
         log.info("Estado del producto {} cambiado a: {}", producto.getNombreProducto(), activo);
     }
 
@@ -317,6 +557,8 @@ public class ProductoServiceImpl implements ProductoService {
         auditoriaService.registrarAccion("MARCAR_DESTACADO", "productos", producto.getId(),
             null, null, "Producto marcado como destacado: " + destacado);
 
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deProducto(producto.getId()));
+
         log.info("Producto {} marcado como destacado: {}", producto.getNombreProducto(), destacado);
     }
 
@@ -328,22 +570,19 @@ public class ProductoServiceImpl implements ProductoService {
 
     @Override
     public void incrementarContadorVentas(UUID id, int cantidad) {
-        log.info("Incrementando contador de ventas para producto ID: {} en {}", id, cantidad);
-
-        Producto producto = productoRepository.findById(id)
-            .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
-
-        producto.setTotalVentas(producto.getTotalVentas() + cantidad);
-        productoRepository.save(producto);
+        // Sin leer ni bloquear la fila: el total se vuelca en lote con un incremento atómico
+        contadorVentasService.registrarVenta(id, cantidad);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<ProductoResponse> obtenerProductosConStockBajo() {
-        return productoRepository.findProductosConStockBajo()
+    public List<ProductoAdminResponse> obtenerProductosConStockBajo() {
+        // Conjunto mantenido por las alertas de stock: sin recorrer el inventario ni duplicar productos
+        List<Producto> productos = productoRepository.findAllById(alertasStockService.obtenerProductoIdsConStockBajo())
             .stream()
-            .map(this::convertirAProductoResponse)
-            .collect(Collectors.toList());
+            .filter(producto -> Boolean.TRUE.equals(producto.getActivo()))
+            .toList();
+        return convertirAProductosAdminResponse(productos);
     }
 
     @Override
@@ -391,6 +630,7 @@ public class ProductoServiceImpl implements ProductoService {
 
     private void crearInventarioInicial(VarianteProducto variante, 
                                       List<ProductoCreateRequest.StockInicialRequest> stockInicial) {
+        List<KardexService.Movimiento> ingresos = new ArrayList<>();
         for (ProductoCreateRequest.StockInicialRequest stock : stockInicial) {
             Sucursal sucursal = sucursalRepository.findById(stock.getSucursalId())
                 .orElseThrow(() -> new ResourceNotFoundException("Sucursal no encontrada"));
@@ -404,38 +644,213 @@ public class ProductoServiceImpl implements ProductoService {
                 .build();
 
             inventarioRepository.save(inventario);
+            ingresos.add(new KardexService.Movimiento(KardexService.TipoMovimiento.INGRESO, variante.getId(),
+                sucursal.getId(), stock.getCantidad(), 0, variante.getProducto().getCostoProducto(), null));
+        }
+        kardexService.escribir(ingresos);
+    }
+
+    /**
+     * Orden de los listados filtrados, el mismo se resuelva con el índice o con la base de datos:
+     * sólo propiedades que el índice sabe ordenar, más ventas por defecto y el ID para desempatar
+     */
+    private Pageable ordenarFiltrado(Pageable pageable) {
+        for (Sort.Order criterio : pageable.getSort()) {
+            if (!IndiceFacetasService.ORDENES_SOPORTADOS.contains(criterio.getProperty())) {
+                throw new BusinessException("Orden no soportado: " + criterio.getProperty() +
+                    ". Use uno de " + IndiceFacetasService.ORDENES_SOPORTADOS);
+            }
+        }
+        Sort orden = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by(Sort.Direction.DESC, "totalVentas");
+        if (orden.getOrderFor("id") == null) {
+            orden = orden.and(Sort.by("id"));
+        }
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), orden);
+    }
+
+    private String normalizarFaceta(String valor) {
+        return valor != null && !valor.isBlank() ? valor.trim().toLowerCase() : null;
+    }
+
+    /**
+     * Cargar sólo la página solicitada de una lista de IDs ya ordenada
+     */
+    private Page<ProductoResponse> paginarResultado(List<UUID> productoIds, Pageable pageable) {
+        int desde = (int) Math.min(pageable.getOffset(), productoIds.size());
+        int hasta = Math.min(desde + pageable.getPageSize(), productoIds.size());
+        List<UUID> idsPagina = productoIds.subList(desde, hasta);
+
+        Map<UUID, Producto> productosPorId = productoRepository.findAllById(idsPagina).stream()
+            .collect(Collectors.toMap(Producto::getId, Function.identity()));
+        List<Producto> productos = idsPagina.stream()
+            .map(productosPorId::get)
+            .filter(Objects::nonNull)
+            .toList();
+
+        return new PageImpl<>(convertirAProductosResponse(productos), pageable, productoIds.size());
+    }
+
+    /**
+     * Interpretar la lista de campos pedida; vacía equivale a los campos por defecto de una grilla
+     */
+    private Set<Campo> interpretarCampos(String campos) {
+        if (campos == null || campos.isBlank()) {
+            return Campo.POR_DEFECTO;
+        }
+
+        Set<Campo> seleccion = EnumSet.of(Campo.ID);
+        for (String nombre : campos.split(",")) {
+            String buscado = nombre.trim();
+            if (buscado.isEmpty()) continue;
+            seleccion.add(Arrays.stream(Campo.values())
+                .filter(campo -> campo.getNombre().equals(buscado))
+                .findFirst()
+                .orElseThrow(() -> new BusinessException("Campo no disponible para listados: " + buscado)));
+        }
+        return seleccion;
+    }
+
+    /**
+     * Cargar la proyección liviana de los IDs dados respetando su orden
+     */
+    private List<ProductoListadoProyeccion> listarEnOrden(List<UUID> productoIds) {
+        if (productoIds.isEmpty()) {
+            return List.of();
         }
+        Map<UUID, ProductoListadoProyeccion> filasPorId = productoRepository.listarPorIds(productoIds).stream()
+            .collect(Collectors.toMap(ProductoListadoProyeccion::getId, Function.identity()));
+        return productoIds.stream()
+            .map(filasPorId::get)
+            .filter(Objects::nonNull)
+            .toList();
+    }
+
+    /**
+     * Armar el listado con los campos pedidos; el resumen de stock sólo se consulta si alguno lo necesita
+     */
+    private List<ProductoListadoResponse> convertirAListado(List<ProductoListadoProyeccion> filas,
+                                                            Set<Campo> campos) {
+        if (filas.isEmpty()) {
+            return List.of();
+        }
+
+        Map<UUID, ProductoResumen> resumenes = campos.stream().anyMatch(Campo::isRequiereStock)
+            ? productoResumenRepository.findAllById(filas.stream().map(ProductoListadoProyeccion::getId).toList())
+                .stream().collect(Collectors.toMap(ProductoResumen::getProductoId, Function.identity()))
+            : Map.of();
+
+        return filas.stream()
+            .map(fila -> {
+                ProductoResumen resumen = resumenes.get(fila.getId());
+                int stockDisponible = resumen != null ? resumen.getStockDisponible() : 0;
+                List<String> imagenes = fila.getImagenes();
+
+                return ProductoListadoResponse.builder()
+                    .id(fila.getId())
+                    .codigoProducto(campos.contains(Campo.CODIGO_PRODUCTO) ? fila.getCodigoProducto() : null)
+                    .nombreProducto(campos.contains(Campo.NOMBRE_PRODUCTO) ? fila.getNombreProducto() : null)
+                    .descripcionCorta(campos.contains(Campo.DESCRIPCION_CORTA) ? fila.getDescripcionCorta() : null)
+                    .categoria(campos.contains(Campo.CATEGORIA) && fila.getCategoriaId() != null
+                        ? construirCategoriaBasica(fila.getCategoriaId()) : null)
+                    .marca(campos.contains(Campo.MARCA) ? fila.getMarca() : null)
+                    .precioBase(campos.contains(Campo.PRECIO_BASE) ? fila.getPrecioBase() : null)
+                    .precioOferta(campos.contains(Campo.PRECIO_OFERTA) ? fila.getPrecioOferta() : null)
+                    .precioVenta(campos.contains(Campo.PRECIO_VENTA) ? fila.getPrecioVenta() : null)
+                    .porcentajeDescuento(campos.contains(Campo.PORCENTAJE_DESCUENTO)
+                        ? fila.getPorcentajeDescuento() : null)
+                    .imagenPrincipal(campos.contains(Campo.IMAGEN_PRINCIPAL) && imagenes != null && !imagenes.isEmpty()
+                        ? imagenes.get(0) : null)
+                    .imagenes(campos.contains(Campo.IMAGENES) ? imagenes : null)
+                    .calificacionPromedio(campos.contains(Campo.CALIFICACION_PROMEDIO)
+                        ? fila.getCalificacionPromedio() : null)
+                    .totalReseñas(campos.contains(Campo.TOTAL_RESENAS) ? fila.getTotalReseñas() : null)
+                    .totalVentas(campos.contains(Campo.TOTAL_VENTAS) ? fila.getTotalVentas() : null)
+                    .destacado(campos.contains(Campo.DESTACADO) ? fila.getDestacado() : null)
+                    .nuevo(campos.contains(Campo.NUEVO) ? fila.getNuevo() : null)
+                    .fechaCreacion(campos.contains(Campo.FECHA_CREACION) ? fila.getFechaCreacion() : null)
+                    .stockDisponible(campos.contains(Campo.STOCK_DISPONIBLE) ? stockDisponible : null)
+                    .tieneStock(campos.contains(Campo.TIENE_STOCK) ? stockDisponible > 0 : null)
+                    .tallasDisponibles(campos.contains(Campo.TALLAS_DISPONIBLES)
+                        ? (resumen != null ? List.of(resumen.getTallas()) : List.of()) : null)
+                    .coloresDisponibles(campos.contains(Campo.COLORES_DISPONIBLES)
+                        ? (resumen != null ? List.of(resumen.getColores()) : List.of()) : null)
+                    .build();
+            })
+            .toList();
     }
 
     private ProductoResponse convertirAProductoResponse(Producto producto) {
-        // Obtener stock total
-        Integer stockTotal = inventarioRepository.obtenerStockTotalPorVariante(producto.getId());
-        Integer stockDisponible = inventarioRepository.obtenerStockDisponiblePorVariante(producto.getId());
+        return convertirAProductosResponse(List.of(producto)).get(0);
+    }
 
-        // Obtener variantes
-        List<VarianteProducto> variantes = varianteProductoRepository.findByProducto_IdAndActivoTrue(producto.getId());
-        
+    private ProductoAdminResponse convertirAProductoAdminResponse(Producto producto) {
+        return convertirAProductosAdminResponse(List.of(producto)).get(0);
+    }
+
+    /**
+     * Respuestas de administración: agregan costo y margen, que no van en las respuestas públicas
+     */
+    private List<ProductoAdminResponse> convertirAProductosAdminResponse(List<Producto> productos) {
+        List<ProductoResponse> respuestas = convertirAProductosResponse(productos);
+        List<ProductoAdminResponse> resultado = new ArrayList<>(respuestas.size());
+        for (int i = 0; i < productos.size(); i++) {
+            resultado.add(ProductoAdminResponse.builder()
+                .producto(respuestas.get(i))
+                .costoProducto(productos.get(i).getCostoProducto())
+                .margenGanancia(productos.get(i).getMargenGanancia())
+                .build());
+        }
+        return resultado;
+    }
+
+    /**
+     * Convertir una lista de productos leyendo stock, tallas y colores del resumen
+     * denormalizado (una fila por producto) y las categorías del árbol en memoria
+     */
+    private List<ProductoResponse> convertirAProductosResponse(List<Producto> productos) {
+        if (productos.isEmpty()) {
+            return List.of();
+        }
+
+        List<UUID> productoIds = productos.stream()
+            .map(Producto::getId)
+            .collect(Collectors.toList());
+
+        Map<UUID, ProductoResumen> resumenes = productoResumenRepository.findAllById(productoIds).stream()
+            .collect(Collectors.toMap(ProductoResumen::getProductoId, Function.identity()));
+
+        return productos.stream()
+            .map(producto -> {
+                // Sin fila de resumen: producto aún sin variantes ni inventario
+                ProductoResumen resumen = resumenes.get(producto.getId());
+
+                return construirProductoResponse(producto,
+                    resumen != null ? resumen.getStockTotal() : 0,
+                    resumen != null ? resumen.getStockDisponible() : 0,
+                    resumen != null ? List.of(resumen.getTallas()) : List.of(),
+                    resumen != null ? List.of(resumen.getColores()) : List.of());
+            })
+            .collect(Collectors.toList());
+    }
+
+    private ProductoResponse construirProductoResponse(Producto producto, int stockTotal, int stockDisponible,
+                                                       List<String> tallas, List<String> colores) {
         return ProductoResponse.builder()
             .id(producto.getId())
             .codigoProducto(producto.getCodigoProducto())
             .nombreProducto(producto.getNombreProducto())
             .descripcion(producto.getDescripcion())
             .descripcionCorta(producto.getDescripcionCorta())
-            .categoria(ProductoResponse.CategoriaBasicaResponse.builder()
-                .id(producto.getCategoria().getId())
-                .nombreCategoria(producto.getCategoria().getNombreCategoria())
-                .rutaCompleta(producto.getCategoria().getRutaCompleta())
-                .build())
+            .categoria(construirCategoriaBasica(producto.getCategoria().getId()))
             .marca(producto.getMarca())
             .precioBase(producto.getPrecioBase())
             .precioOferta(producto.getPrecioOferta())
             .precioVenta(producto.getPrecioVenta())
             .porcentajeDescuento(producto.getPorcentajeDescuento())
-            .costoProducto(producto.getCostoProducto())
             .peso(producto.getPeso())
             .dimensiones(producto.getDimensiones())
             .caracteristicas(producto.getCaracteristicas())
-            .imagenes(convertirDeJson(producto.getImagenes(), List.class))
+            .imagenes(producto.getImagenes())
             .tags(producto.getTags() != null ? List.of(producto.getTags()) : null)
             .activo(producto.getActivo())
             .destacado(producto.getDestacado())
@@ -444,11 +859,11 @@ public class ProductoServiceImpl implements ProductoService {
             .calificacionPromedio(producto.getCalificacionPromedio())
             .totalReseñas(producto.getTotalReseñas())
             .totalVentas(producto.getTotalVentas())
-            .stockTotal(stockTotal != null ? stockTotal : 0)
-            .stockDisponible(stockDisponible != null ? stockDisponible : 0)
-            .tieneStock(stockDisponible != null && stockDisponible > 0)
-            .tallasDisponibles(varianteProductoRepository.obtenerTallasDisponibles(producto.getId()))
-            .coloresDisponibles(varianteProductoRepository.obtenerColoresDisponibles(producto.getId()))
+            .stockTotal(stockTotal)
+            .stockDisponible(stockDisponible)
+            .tieneStock(stockDisponible > 0)
+            .tallasDisponibles(tallas)
+            .coloresDisponibles(colores)
             .seoTitulo(producto.getSeoTitulo())
             .seoDescripcion(producto.getSeoDescripcion())
             .seoPalabrasClave(producto.getSeoPalabrasClave() != null ? 
@@ -458,10 +873,22 @@ public class ProductoServiceImpl implements ProductoService {
             .build();
     }
 
+    private ProductoResponse.CategoriaBasicaResponse construirCategoriaBasica(UUID categoriaId) {
+        // El id del proxy no lo inicializa; nombre y ruta salen del árbol en memoria
+        NodoCategoria nodo = categoriaArbolService.obtenerNodo(categoriaId).orElse(null);
+        return ProductoResponse.CategoriaBasicaResponse.builder()
+            .id(categoriaId)
+            .nombreCategoria(nodo != null ? nodo.nombreCategoria() : null)
+            .rutaCompleta(nodo != null ? nodo.rutaCompleta() : null)
+            .build();
+    }
+
     private ProductoDetalleResponse convertirAProductoDetalleResponse(Producto producto) {
         // Obtener variantes con stock
         List<VarianteProducto> variantes = varianteProductoRepository.findByProducto_IdAndActivoTrue(producto.getId());
-        
+        ProductoResumen resumen = productoResumenRepository.findById(producto.getId()).orElse(null);
+        NodoCategoria categoria = categoriaArbolService.obtenerNodo(producto.getCategoria().getId()).orElse(null);
+
         return ProductoDetalleResponse.builder()
             .id(producto.getId())
             .codigoProducto(producto.getCodigoProducto())
@@ -470,10 +897,10 @@ public class ProductoServiceImpl implements ProductoService {
             .descripcionCorta(producto.getDescripcionCorta())
             .categoria(ProductoDetalleResponse.CategoriaDetalleResponse.builder()
                 .id(producto.getCategoria().getId())
-                .nombreCategoria(producto.getCategoria().getNombreCategoria())
-                .descripcion(producto.getCategoria().getDescripcion())
-                .rutaCompleta(producto.getCategoria().getRutaCompleta())
-                .imagenUrl(producto.getCategoria().getImagenUrl())
+                .nombreCategoria(categoria != null ? categoria.nombreCategoria() : null)
+                .descripcion(categoria != null ? categoria.descripcion() : null)
+                .rutaCompleta(categoria != null ? categoria.rutaCompleta() : null)
+                .imagenUrl(categoria != null ? categoria.imagenUrl() : null)
                 .build())
             .marca(producto.getMarca())
             .precioBase(producto.getPrecioBase())
@@ -484,7 +911,7 @@ public class ProductoServiceImpl implements ProductoService {
             .peso(producto.getPeso())
             .dimensiones(producto.getDimensiones())
             .caracteristicas(producto.getCaracteristicas())
-            .imagenes(convertirDeJson(producto.getImagenes(), List.class))
+            .imagenes(producto.getImagenes())
             .tags(producto.getTags() != null ? List.of(producto.getTags()) : null)
             .activo(producto.getActivo())
             .destacado(producto.getDestacado())
@@ -493,8 +920,8 @@ public class ProductoServiceImpl implements ProductoService {
             .calificacionPromedio(producto.getCalificacionPromedio())
             .totalReseñas(producto.getTotalReseñas())
             .totalVentas(producto.getTotalVentas())
-            .tallasDisponibles(varianteProductoRepository.obtenerTallasDisponibles(producto.getId()))
-            .coloresDisponibles(varianteProductoRepository.obtenerColoresDisponibles(producto.getId()))
+            .tallasDisponibles(resumen != null ? List.of(resumen.getTallas()) : List.of())
+            .coloresDisponibles(resumen != null ? List.of(resumen.getColores()) : List.of())
             .seoTitulo(producto.getSeoTitulo())
             .seoDescripcion(producto.getSeoDescripcion())
             .seoPalabrasClave(producto.getSeoPalabrasClave() != null ? 
@@ -515,6 +942,19 @@ public class ProductoServiceImpl implements ProductoService {
             .build();
     }
 
+    /**
+     * Construir una consulta to_tsquery segura a partir del término del usuario:
+     * cada palabra se busca por prefijo y todas deben coincidir
+     */
+    private String construirConsultaTextoCompleto(String termino) {
+        if (termino == null) return "";
+        return SEPARADOR_TERMINOS.splitAsStream(termino.toLowerCase())
+            .filter(palabra -> !palabra.isBlank())
+            .limit(MAX_TERMINOS_BUSQUEDA)
+            .map(palabra -> palabra + ":*")
+            .collect(Collectors.joining(" & "));
+    }
+
     private String convertirAJson(Object objeto) {
         if (objeto == null) return null;
         try {
@@ -524,15 +964,4 @@ public class ProductoServiceImpl implements ProductoService {
             return null;
         }
     }
-
-    @SuppressWarnings("unchecked")
-    private <T> T convertirDeJson(String json, Class<T> clazz) {
-        if (json == null || json.isEmpty()) return null;
-        try {
-            return objectMapper.readValue(json, clazz);
-        } catch (JsonProcessingException e) {
-            log.warn("Error al convertir JSON a objeto: {}", e.getMessage());
-            return null;
-        }
-    }
 }
\ No newline at end of file
@@ -3,19 +3,27 @@ package com.dpattymoda.service.impl;
 import com.dpattymoda.dto.request.VentaPresencialRequest;
 import com.dpattymoda.dto.request.AperturaCajaRequest;
 import com.dpattymoda.dto.request.CierreCajaRequest;
+import com.dpattymoda.dto.response.DisponibilidadResponse;
 import com.dpattymoda.dto.response.VentaPresencialResponse;
 import com.dpattymoda.dto.response.TurnoCajaResponse;
 import com.dpattymoda.dto.response.ReporteCajaResponse;
 import com.dpattymoda.entity.*;
+import com.dpattymoda.event.CatalogoModificadoEvent;
+import com.dpattymoda.event.PedidoConfirmadoEvent;
 import com.dpattymoda.exception.BusinessException;
 import com.dpattymoda.exception.ResourceNotFoundException;
 import com.dpattymoda.repository.*;
 import com.dpattymoda.service.AuditoriaService;
+import com.dpattymoda.service.DisponibilidadService;
 import com.dpattymoda.service.PuntoVentaService;
+import com.dpattymoda.service.ReservaStockService;
+import com.dpattymoda.service.ReservasPedidoService;
+import com.dpattymoda.service.ReservasPedidoService.ResultadoReserva;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +32,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -42,10 +51,13 @@ public class PuntoVentaServiceImpl implements PuntoVentaService {
     private final PedidoRepository pedidoRepository;
     private final DetallePedidoRepository detallePedidoRepository;
     private final VarianteProductoRepository varianteProductoRepository;
-    private final InventarioRepository inventarioRepository;
+    private final ReservaStockService reservaStockService;
+    private final ReservasPedidoService reservasPedidoService;
+    private final DisponibilidadService disponibilidadService;
     private final UsuarioRepository usuarioRepository;
     private final AuditoriaService auditoriaService;
     private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public TurnoCajaResponse abrirTurnoCaja(UUID cajaId, AperturaCajaRequest request) {
@@ -168,24 +180,29 @@ public class PuntoVentaServiceImpl implements PuntoVentaService {
             throw new BusinessException("El turno de caja no está abierto");
         }
 
-        // Validar stock disponible
-        for (VentaPresencialRequest.ItemVentaRequest item : request.getItems()) {
-            if (!validarStockParaVenta(item.getVarianteId(), item.getCantidad(), 
-                                     turno.getCaja().getSucursal().getId())) {
-                VarianteProducto variante = varianteProductoRepository.findById(item.getVarianteId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Variante no encontrada"));
-                throw new BusinessException("Stock insuficiente para: " + variante.getNombreCompleto());
-            }
+        // Validar stock disponible de toda la canasta en la sucursal de la caja
+        Map<UUID, Integer> lineas = request.getItems().stream()
+            .collect(Collectors.toMap(VentaPresencialRequest.ItemVentaRequest::getVarianteId,
+                VentaPresencialRequest.ItemVentaRequest::getCantidad, Integer::sum));
+        DisponibilidadResponse disponibilidad = disponibilidadService.consultar(
+            turno.getCaja().getSucursal().getId(), lineas);
+        if (!disponibilidad.getCompleto()) {
+            List<UUID> faltantes = disponibilidad.getLineas().stream()
+                .filter(linea -> !linea.getSuficiente())
+                .map(DisponibilidadResponse.LineaDisponibilidadResponse::getVarianteId)
+                .toList();
+            String nombres = varianteProductoRepository.findAllById(faltantes).stream()
+                .map(VarianteProducto::getNombreCompleto)
+                .collect(Collectors.joining(", "));
+            throw new BusinessException("Stock insuficiente para: " + nombres);
         }
 
         // Crear pedido
         Pedido pedido = crearPedidoPresencial(turno, request);
 
-        // Reservar stock
-        for (VentaPresencialRequest.ItemVentaRequest item : request.getItems()) {
-            reservarStockVenta(item.getVarianteId(), item.getCantidad(), 
-                             turno.getCaja().getSucursal().getId());
-        }
+        // Reservar stock de todas las líneas en una sola operación atómica
+        // La reserva vence si la venta no se paga ni se cancela a tiempo
+        reservasPedidoService.reservar(pedido.getId(), turno.getCaja().getSucursal().getId(), lineas);
 
         // Registrar movimiento de caja
         MovimientoCaja movimiento = MovimientoCaja.builder()
@@ -298,17 +315,15 @@ public class PuntoVentaServiceImpl implements PuntoVentaService {
     @Override
     @Transactional(readOnly = true)
     public boolean validarStockParaVenta(UUID varianteId, Integer cantidad, UUID sucursalId) {
-        Integer stockDisponible = inventarioRepository.obtenerStockDisponiblePorVariante(varianteId);
-        return stockDisponible != null && stockDisponible >= cantidad;
+        // Stock de la sucursal que vende, no la suma de todas
+        return reservaStockService.obtenerDisponible(varianteId, sucursalId) >= cantidad;
     }
 
     @Override
     public void reservarStockVenta(UUID varianteId, Integer cantidad, UUID sucursalId) {
-        Inventario inventario = inventarioRepository.findByVariante_IdAndSucursal_Id(varianteId, sucursalId)
-            .orElseThrow(() -> new ResourceNotFoundException("Inventario no encontrado"));
+        reservaStockService.reservar(sucursalId, Map.of(varianteId, cantidad));
 
-        inventario.reservarStock(cantidad);
-        inventarioRepository.save(inventario);
+        publicarCambioStock(List.of(varianteId));
     }
 
     @Override
@@ -316,14 +331,18 @@ public class PuntoVentaServiceImpl implements PuntoVentaService {
         Pedido pedido = pedidoRepository.findById(pedidoId)
             .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado"));
 
-        for (DetallePedido detalle : pedido.getDetalles()) {
-            Inventario inventario = inventarioRepository
-                .findByVariante_IdAndSucursal_Id(detalle.getVariante().getId(), pedido.getSucursal().getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Inventario no encontrado"));
-
-            inventario.confirmarVenta(detalle.getCantidad());
-            inventarioRepository.save(inventario);
+        ResultadoReserva resultado = reservasPedidoService.confirmar(pedidoId);
+        if (resultado == ResultadoReserva.YA_RESUELTA) {
+            throw new BusinessException("La reserva de stock del pedido venció o fue liberada; registre la venta nuevamente");
+        }
+        if (resultado == ResultadoReserva.SIN_RESERVAS) {
+            // Pedido reservado antes de las reservas con vencimiento
+            Map<UUID, Integer> lineas = lineasDePedido(pedido);
+            reservaStockService.confirmar(pedido.getSucursal().getId(), lineas);
+            publicarCambioStock(List.copyOf(lineas.keySet()));
         }
+
+        eventPublisher.publishEvent(new PedidoConfirmadoEvent(pedidoId));
     }
 
     @Override
@@ -331,18 +350,33 @@ public class PuntoVentaServiceImpl implements PuntoVentaService {
         Pedido pedido = pedidoRepository.findById(pedidoId)
             .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado"));
 
-        for (DetallePedido detalle : pedido.getDetalles()) {
-            Inventario inventario = inventarioRepository
-                .findByVariante_IdAndSucursal_Id(detalle.getVariante().getId(), pedido.getSucursal().getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Inventario no encontrado"));
-
-            inventario.liberarStock(detalle.getCantidad());
-            inventarioRepository.save(inventario);
+        // Si la reserva ya venció, el stock se liberó entonces
+        if (reservasPedidoService.liberar(pedidoId) == ResultadoReserva.SIN_RESERVAS) {
+            Map<UUID, Integer> lineas = lineasDePedido(pedido);
+            reservaStockService.liberar(pedido.getSucursal().getId(), lineas);
+            publicarCambioStock(List.copyOf(lineas.keySet()));
         }
     }
 
     // Métodos privados de utilidad
 
+    /**
+     * Cantidades del pedido por variante, sumando líneas repetidas
+     */
+    private Map<UUID, Integer> lineasDePedido(Pedido pedido) {
+        return pedido.getDetalles().stream()
+            .collect(Collectors.toMap(detalle -> detalle.getVariante().getId(), DetallePedido::getCantidad, Integer::sum));
+    }
+
+    /**
+     * Notificar a los índices del catálogo que cambió el stock de estas variantes
+     */
+    private void publicarCambioStock(List<UUID> varianteIds) {
+        if (varianteIds.isEmpty()) return;
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deStock(
+            varianteProductoRepository.obtenerProductoIdsPorVariantes(varianteIds)));
+    }
+
     private Pedido crearPedidoPresencial(TurnoCaja turno, VentaPresencialRequest request) {
         // Crear pedido
         Pedido pedido = Pedido.builder()
@@ -0,0 +1,152 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.dto.response.ProductoResponse;
+import com.dpattymoda.event.CatalogoModificadoEvent;
+import com.dpattymoda.service.ProductoService;
+import com.dpattymoda.service.RankingProductosService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implementación de rankings en memoria.
+ * Cada ranking se guarda como lista inmutable y acotada de productos ya serializados a JSON,
+ * así que una respuesta sólo concatena bytes, sea cual sea el límite pedido; se recalcula
+ * cuando hubo cambios en el catálogo o al cumplirse el intervalo máximo
+ */
+@Slf4j
+@Service
+public class RankingProductosServiceImpl implements RankingProductosService {
+
+    private final ProductoService productoService;
+    private final ObjectMapper objectMapper;
+    private final int tamanio;
+    private final long intervaloMaximoMs;
+
+    private final AtomicBoolean cambiosPendientes = new AtomicBoolean(false);
+    private volatile Map<TipoRanking, List<byte[]>> rankings = null;
+    private volatile long ultimaActualizacion = 0;
+
+    public RankingProductosServiceImpl(ProductoService productoService,
+                                       ObjectMapper objectMapper,
+                                       @Value("${app.catalogo.rankings.tamanio:50}") int tamanio,
+                                       @Value("${app.catalogo.rankings.intervalo-maximo-ms:600000}") long intervaloMaximoMs) {
+        this.productoService = productoService;
+        this.objectMapper = objectMapper;
+        this.tamanio = tamanio;
+        this.intervaloMaximoMs = intervaloMaximoMs;
+    }
+
+    @Override
+    public byte[] obtenerRanking(TipoRanking tipo, int limite) {
+        int acotado = Math.max(1, Math.min(limite, tamanio));
+        Map<TipoRanking, List<byte[]>> actuales = rankings;
+
+        // Antes del primer cálculo se responde desde la base de datos
+        List<byte[]> ranking = actuales != null ? actuales.get(tipo) : serializar(calcular(tipo, acotado));
+        return arreglo(ranking.size() <= acotado ? ranking : ranking.subList(0, acotado));
+    }
+
+    @Override
+    public synchronized void refrescar() {
+        long inicio = System.currentTimeMillis();
+        cambiosPendientes.set(false);
+
+        Map<TipoRanking, List<byte[]>> nuevos = new EnumMap<>(TipoRanking.class);
+        for (TipoRanking tipo : TipoRanking.values()) {
+            nuevos.put(tipo, serializar(calcular(tipo, tamanio)));
+        }
+
+        rankings = Collections.unmodifiableMap(nuevos);
+        ultimaActualizacion = System.currentTimeMillis();
+        log.debug("Rankings de productos recalculados en {} ms", ultimaActualizacion - inicio);
+    }
+
+    @Override
+    public long obtenerUltimaActualizacion() {
+        return ultimaActualizacion;
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalogo.rankings.intervalo-revision-ms:30000}")
+    public void revisar() {
+        boolean vencido = System.currentTimeMillis() - ultimaActualizacion >= intervaloMaximoMs;
+        // Sin rankings el cálculo inicial falló: se reintenta en cada revisión
+        if (rankings == null || cambiosPendientes.get() || vencido) {
+            try {
+                refrescar();
+            } catch (Exception e) {
+                log.warn("No se pudieron recalcular los rankings de productos: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        try {
+            refrescar();
+        } catch (Exception e) {
+            log.error("No se pudieron calcular los rankings de productos: {}", e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent evento) {
+        // Sólo se marca; el recálculo agrupa todos los cambios del intervalo de revisión
+        cambiosPendientes.set(true);
+    }
+
+    private List<byte[]> serializar(List<ProductoResponse> productos) {
+        try {
+            List<byte[]> serializados = new ArrayList<>(productos.size());
+            for (ProductoResponse producto : productos) {
+                serializados.add(objectMapper.writeValueAsBytes(producto));
+            }
+            return List.copyOf(serializados);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el ranking: " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] arreglo(List<byte[]> productos) {
+        int longitud = 2 + Math.max(0, productos.size() - 1);
+        for (byte[] producto : productos) {
+            longitud += producto.length;
+        }
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(longitud);
+        salida.write('[');
+        for (int i = 0; i < productos.size(); i++) {
+            if (i > 0) {
+                salida.write(',');
+            }
+            salida.writeBytes(productos.get(i));
+        }
+        salida.write(']');
+        return salida.toByteArray();
+    }
+
+    private List<ProductoResponse> calcular(TipoRanking tipo, int limite) {
+        return switch (tipo) {
+            case DESTACADOS -> productoService.obtenerProductosDestacados(limite);
+            case NUEVOS -> productoService.obtenerProductosNuevos(limite);
+            case MAS_VENDIDOS -> productoService.obtenerProductosMasVendidos(limite);
+            case MEJOR_CALIFICADOS -> productoService.obtenerProductosMejorCalificados(limite);
+        };
+    }
+}
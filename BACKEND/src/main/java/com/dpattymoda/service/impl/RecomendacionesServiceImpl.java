@@ -0,0 +1,400 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.dto.response.ProductoResponse;
+import com.dpattymoda.event.PedidoConfirmadoEvent;
+import com.dpattymoda.exception.ResourceNotFoundException;
+import com.dpattymoda.repository.DetallePedidoRepository;
+import com.dpattymoda.service.ProductoService;
+import com.dpattymoda.service.RecomendacionesService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Implementación de "comprados juntos" con una matriz de co-ocurrencia en memoria.
+ * Los productos se numeran con índices enteros; los conteos por par viven en una tabla
+ * de direccionamiento abierto long → int y cada producto mantiene su top-k de vecinos,
+ * actualizado en cada pedido confirmado. Las lecturas no bloquean: leen la lista publicada
+ */
+@Slf4j
+@Service
+public class RecomendacionesServiceImpl implements RecomendacionesService {
+
+    private static final int LIMITE_MAXIMO = 20;
+    // Un pedido enorme aporta pares cuadráticos y poca señal: se acota
+    private static final int MAXIMO_PRODUCTOS_POR_PEDIDO = 50;
+
+    private final DetallePedidoRepository detallePedidoRepository;
+    private final ProductoService productoService;
+    private final int tamanioTop;
+    private final int diasHistorial;
+
+    // Las escrituras se serializan con este monitor; las reconstrucciones, con el propio método
+    private final Object escritura = new Object();
+    private volatile Matriz matriz;
+    private volatile long ultimaActualizacion = 0;
+    // Pedidos recibidos mientras se reconstruye, para aplicarlos sobre la matriz nueva
+    private List<PedidoPendiente> pendientes = null;
+
+    public RecomendacionesServiceImpl(DetallePedidoRepository detallePedidoRepository,
+                                      ProductoService productoService,
+                                      @Value("${app.catalogo.recomendaciones.tamanio-top:20}") int tamanioTop,
+                                      @Value("${app.catalogo.recomendaciones.dias-historial:365}") int diasHistorial) {
+        this.detallePedidoRepository = detallePedidoRepository;
+        this.productoService = productoService;
+        this.tamanioTop = Math.max(tamanioTop, LIMITE_MAXIMO);
+        this.diasHistorial = diasHistorial;
+        this.matriz = new Matriz(this.tamanioTop);
+    }
+
+    @Override
+    public List<ProductoResponse> obtenerRelacionados(UUID productoId, int limite) {
+        UUID[] vecinos = matriz.vecinos(productoId);
+        int acotado = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+
+        List<ProductoResponse> relacionados = new ArrayList<>(acotado);
+        for (UUID vecino : vecinos) {
+            if (relacionados.size() == acotado) break;
+            try {
+                // Producto básico desde la caché de dos niveles
+                ProductoResponse producto = productoService.obtenerProducto(vecino);
+                if (Boolean.TRUE.equals(producto.getActivo())) {
+                    relacionados.add(producto);
+                }
+            } catch (ResourceNotFoundException e) {
+                // Producto eliminado desde la última reconstrucción
+            }
+        }
+        return relacionados;
+    }
+
+    @Override
+    public void registrarPedido(UUID pedidoId, Collection<UUID> productoIds) {
+        synchronized (escritura) {
+            if (matriz.registrar(pedidoId, productoIds, true)) {
+                ultimaActualizacion = System.currentTimeMillis();
+            }
+            if (pendientes != null) {
+                pendientes.add(new PedidoPendiente(pedidoId, List.copyOf(productoIds)));
+            }
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.catalogo.recomendaciones.intervalo-reconstruccion-ms:86400000}",
+               initialDelayString = "${app.catalogo.recomendaciones.intervalo-reconstruccion-ms:86400000}")
+    public synchronized void reconstruir() {
+        long inicio = System.currentTimeMillis();
+        synchronized (escritura) {
+            pendientes = new ArrayList<>();
+        }
+
+        Matriz nueva = new Matriz(tamanioTop);
+        try {
+            List<Object[]> filas = detallePedidoRepository.obtenerProductosDePedidosConfirmados(
+                LocalDateTime.now().minusDays(diasHistorial));
+
+            // Filas ordenadas por pedido: se acumulan los productos de cada uno
+            UUID pedidoActual = null;
+            List<UUID> productos = new ArrayList<>();
+            for (Object[] fila : filas) {
+                UUID pedidoId = (UUID) fila[0];
+                if (!pedidoId.equals(pedidoActual)) {
+                    if (pedidoActual != null) {
+                        nueva.registrar(pedidoActual, productos, false);
+                    }
+                    pedidoActual = pedidoId;
+                    productos = new ArrayList<>();
+                }
+                productos.add((UUID) fila[1]);
+            }
+            if (pedidoActual != null) {
+                nueva.registrar(pedidoActual, productos, false);
+            }
+            nueva.publicarTodos();
+        } finally {
+            synchronized (escritura) {
+                // Lo confirmado durante la consulta que no alcanzó a leerse; los repetidos se ignoran
+                if (nueva.estaCompleta()) {
+                    for (PedidoPendiente pendiente : pendientes) {
+                        nueva.registrar(pendiente.pedidoId(), pendiente.productoIds(), true);
+                    }
+                    matriz = nueva;
+                    ultimaActualizacion = System.currentTimeMillis();
+                }
+                pendientes = null;
+            }
+        }
+
+        log.info("Matriz de co-ocurrencia reconstruida: {} productos, {} pares en {} ms",
+            nueva.totalProductos(), nueva.totalPares(), System.currentTimeMillis() - inicio);
+    }
+
+    @Override
+    public long obtenerUltimaActualizacion() {
+        return ultimaActualizacion;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        try {
+            reconstruir();
+        } catch (Exception e) {
+            log.error("No se pudo construir la matriz de co-ocurrencia: {}", e.getMessage(), e);
+        }
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alConfirmarPedido(PedidoConfirmadoEvent evento) {
+        try {
+            registrarPedido(evento.getPedidoId(),
+                detallePedidoRepository.obtenerProductoIdsPorPedido(evento.getPedidoId()));
+        } catch (Exception e) {
+            log.warn("No se pudo registrar el pedido {} en las recomendaciones: {}",
+                evento.getPedidoId(), e.getMessage());
+        }
+    }
+
+    private record PedidoPendiente(UUID pedidoId, List<UUID> productoIds) {
+    }
+
+    /**
+     * Matriz de co-ocurrencia con top-k por producto. Sólo la modifica un escritor a la vez;
+     * los lectores consultan el índice del producto y su lista publicada
+     */
+    private static final class Matriz {
+
+        private static final UUID[] SIN_VECINOS = new UUID[0];
+
+        private final int tamanioTop;
+        private final Map<UUID, Integer> indices = new ConcurrentHashMap<>();
+        private final List<UUID> productos = new ArrayList<>();
+        private final ContadorPares conteos = new ContadorPares();
+        private final Set<UUID> pedidos = new HashSet<>();
+
+        // Top-k de cada producto, ordenado por conteo descendente (sólo el escritor)
+        private int[][] topIndices = new int[256][];
+        private int[][] topConteos = new int[256][];
+        // Copia inmutable del top-k para los lectores
+        private volatile AtomicReferenceArray<UUID[]> publicados = new AtomicReferenceArray<>(256);
+        private boolean completa = false;
+
+        Matriz(int tamanioTop) {
+            this.tamanioTop = tamanioTop;
+        }
+
+        UUID[] vecinos(UUID productoId) {
+            Integer indice = indices.get(productoId);
+            AtomicReferenceArray<UUID[]> actuales = publicados;
+            if (indice == null || indice >= actuales.length()) {
+                return SIN_VECINOS;
+            }
+            UUID[] vecinos = actuales.get(indice);
+            return vecinos != null ? vecinos : SIN_VECINOS;
+        }
+
+        /**
+         * Sumar un pedido; devuelve false si ya estaba registrado o no aporta pares
+         */
+        boolean registrar(UUID pedidoId, Collection<UUID> productoIds, boolean publicar) {
+            if (!pedidos.add(pedidoId)) {
+                return false;
+            }
+            int[] participantes = productoIds.stream()
+                .distinct()
+                .limit(MAXIMO_PRODUCTOS_POR_PEDIDO)
+                .mapToInt(this::indice)
+                .sorted()
+                .toArray();
+            if (participantes.length < 2) {
+                return false;
+            }
+
+            Set<Integer> modificados = new HashSet<>();
+            for (int i = 0; i < participantes.length; i++) {
+                for (int j = i + 1; j < participantes.length; j++) {
+                    int a = participantes[i];
+                    int b = participantes[j];
+                    int conteo = conteos.incrementar(a, b);
+                    if (actualizarTop(a, b, conteo)) modificados.add(a);
+                    if (actualizarTop(b, a, conteo)) modificados.add(b);
+                }
+            }
+            if (publicar) {
+                modificados.forEach(this::publicar);
+            }
+            return true;
+        }
+
+        void publicarTodos() {
+            for (int indice = 0; indice < productos.size(); indice++) {
+                publicar(indice);
+            }
+            completa = true;
+        }
+
+        boolean estaCompleta() {
+            return completa;
+        }
+
+        int totalProductos() {
+            return productos.size();
+        }
+
+        int totalPares() {
+            return conteos.tamanio();
+        }
+
+        private int indice(UUID productoId) {
+            Integer existente = indices.get(productoId);
+            if (existente != null) {
+                return existente;
+            }
+            int nuevo = productos.size();
+            if (nuevo == topIndices.length) {
+                crecer();
+            }
+            productos.add(productoId);
+            topIndices[nuevo] = new int[0];
+            topConteos[nuevo] = new int[0];
+            // El índice se expone a los lectores cuando los arreglos ya lo admiten
+            indices.put(productoId, nuevo);
+            return nuevo;
+        }
+
+        private void crecer() {
+            int capacidad = topIndices.length * 2;
+            topIndices = Arrays.copyOf(topIndices, capacidad);
+            topConteos = Arrays.copyOf(topConteos, capacidad);
+
+            AtomicReferenceArray<UUID[]> anteriores = publicados;
+            AtomicReferenceArray<UUID[]> nuevos = new AtomicReferenceArray<>(capacidad);
+            for (int i = 0; i < anteriores.length(); i++) {
+                nuevos.set(i, anteriores.get(i));
+            }
+            publicados = nuevos;
+        }
+
+        /**
+         * Los conteos sólo crecen: basta subir al vecino en la lista o desplazar al último
+         */
+        private boolean actualizarTop(int producto, int vecino, int conteo) {
+            int[] vecinos = topIndices[producto];
+            int[] conteosVecinos = topConteos[producto];
+
+            int posicion = -1;
+            for (int k = 0; k < vecinos.length; k++) {
+                if (vecinos[k] == vecino) {
+                    posicion = k;
+                    break;
+                }
+            }
+
+            if (posicion == -1) {
+                if (vecinos.length < tamanioTop) {
+                    vecinos = Arrays.copyOf(vecinos, vecinos.length + 1);
+                    conteosVecinos = Arrays.copyOf(conteosVecinos, conteosVecinos.length + 1);
+                    topIndices[producto] = vecinos;
+                    topConteos[producto] = conteosVecinos;
+                } else if (conteo <= conteosVecinos[vecinos.length - 1]) {
+                    return false;
+                }
+                posicion = vecinos.length - 1;
+                vecinos[posicion] = vecino;
+            }
+            conteosVecinos[posicion] = conteo;
+
+            while (posicion > 0 && conteosVecinos[posicion - 1] < conteosVecinos[posicion]) {
+                int vecinoAnterior = vecinos[posicion - 1];
+                int conteoAnterior = conteosVecinos[posicion - 1];
+                vecinos[posicion - 1] = vecinos[posicion];
+                conteosVecinos[posicion - 1] = conteosVecinos[posicion];
+                vecinos[posicion] = vecinoAnterior;
+                conteosVecinos[posicion] = conteoAnterior;
+                posicion--;
+            }
+            return true;
+        }
+
+        private void publicar(int producto) {
+            int[] vecinos = topIndices[producto];
+            UUID[] ids = new UUID[vecinos.length];
+            for (int k = 0; k < vecinos.length; k++) {
+                ids[k] = productos.get(vecinos[k]);
+            }
+            publicados.set(producto, ids);
+        }
+    }
+
+    /**
+     * Conteo por par de índices (a &lt; b) en una tabla de direccionamiento abierto:
+     * claves long y valores int, sin objetos por entrada
+     */
+    private static final class ContadorPares {
+
+        private long[] claves = new long[1024];
+        private int[] valores = new int[1024];
+        private int tamanio = 0;
+
+        int incrementar(int a, int b) {
+            // a < b garantiza que la clave nunca es 0, que marca una celda libre
+            long clave = ((long) a << 32) | b;
+            if ((tamanio + 1) * 2 > claves.length) {
+                redimensionar();
+            }
+            int posicion = ubicar(claves, clave);
+            if (claves[posicion] == 0) {
+                claves[posicion] = clave;
+                tamanio++;
+            }
+            return ++valores[posicion];
+        }
+
+        int tamanio() {
+            return tamanio;
+        }
+
+        private void redimensionar() {
+            long[] clavesAnteriores = claves;
+            int[] valoresAnteriores = valores;
+            claves = new long[clavesAnteriores.length * 2];
+            valores = new int[valoresAnteriores.length * 2];
+            for (int i = 0; i < clavesAnteriores.length; i++) {
+                if (clavesAnteriores[i] != 0) {
+                    int posicion = ubicar(claves, clavesAnteriores[i]);
+                    claves[posicion] = clavesAnteriores[i];
+                    valores[posicion] = valoresAnteriores[i];
+                }
+            }
+        }
+
+        private static int ubicar(long[] tabla, long clave) {
+            int mascara = tabla.length - 1;
+            int posicion = Long.hashCode(clave * 0x9E3779B97F4A7C15L) & mascara;
+            while (tabla[posicion] != 0 && tabla[posicion] != clave) {
+                posicion = (posicion + 1) & mascara;
+            }
+            return posicion;
+        }
+    }
+}
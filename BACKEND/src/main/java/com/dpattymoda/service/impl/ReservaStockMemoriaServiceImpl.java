@@ -0,0 +1,424 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.entity.VarianteProducto;
+import com.dpattymoda.event.StockBajoEvent;
+import com.dpattymoda.exception.BusinessException;
+import com.dpattymoda.repository.VarianteProductoRepository;
+import com.dpattymoda.service.KardexService;
+import com.dpattymoda.service.ReservaStockService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Motor de inventario en memoria con persistencia diferida.
+ * Cada par (variante, sucursal) guarda disponible y reservado empaquetados en un AtomicLong,
+ * así que reservar, confirmar y liberar son ciclos CAS sin candados ni acceso a la base de
+ * datos. Los movimientos se aplican en memoria al momento (otras ventas ya los ven), se
+ * deshacen si la transacción del llamador se revierte y, al confirmarse, pasan a un diario
+ * de sólo agregado que se vuelca a inventario en lotes de incrementos relativos, y al
+ * kardex con los deltas reales.
+ * Sólo es correcto con una única instancia atendiendo el inventario: se habilita con
+ * app.inventario.motor-memoria.habilitado
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "app.inventario.motor-memoria.habilitado", havingValue = "true")
+public class ReservaStockMemoriaServiceImpl implements ReservaStockService {
+
+    private static final String SQL_CARGAR = "SELECT i.id, i.variante_id, i.sucursal_id, v.producto_id, " +
+        "i.cantidad_disponible, i.cantidad_reservada, i.cantidad_minima " +
+        "FROM inventario i JOIN variantes_producto v ON v.id = i.variante_id";
+
+    private static final String SQL_CARGAR_UNO = SQL_CARGAR + " WHERE i.variante_id = ? AND i.sucursal_id = ?";
+
+    // Los pares de las variantes en una sola consulta: las filas de celdas ya en memoria se descartan
+    private static final String SQL_CARGAR_VARIANTES = SQL_CARGAR + " WHERE i.variante_id = ANY(?)";
+
+    private static final String SQL_VOLCAR = "UPDATE inventario SET " +
+        "cantidad_disponible = GREATEST(cantidad_disponible + ?, 0), " +
+        "cantidad_reservada = GREATEST(cantidad_reservada + ?, 0), " +
+        "fecha_ultimo_egreso = CASE WHEN ? < 0 THEN now() ELSE fecha_ultimo_egreso END, " +
+        "ultimo_movimiento = now(), fecha_actualizacion = now() WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VarianteProductoRepository varianteProductoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final KardexService kardexService;
+    private final int tamanioLote;
+
+    private final Map<Clave, Celda> celdas = new ConcurrentHashMap<>();
+    // Movimientos confirmados pendientes de volcar, en orden de commit
+    private final Queue<Movimiento> diario = new ConcurrentLinkedQueue<>();
+    private final Object volcado = new Object();
+
+    public ReservaStockMemoriaServiceImpl(JdbcTemplate jdbcTemplate,
+                                          TransactionTemplate transactionTemplate,
+                                          VarianteProductoRepository varianteProductoRepository,
+                                          ApplicationEventPublisher eventPublisher,
+                                          KardexService kardexService,
+                                          @Value("${app.inventario.motor-memoria.tamanio-lote:500}") int tamanioLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.varianteProductoRepository = varianteProductoRepository;
+        this.eventPublisher = eventPublisher;
+        this.kardexService = kardexService;
+        this.tamanioLote = tamanioLote;
+    }
+
+    @Override
+    public int obtenerDisponible(UUID varianteId, UUID sucursalId) {
+        Celda celda = obtenerCelda(varianteId, sucursalId);
+        if (celda == null) {
+            return 0;
+        }
+        long valor = celda.estado.get();
+        return disponible(valor) - reservada(valor);
+    }
+
+    @Override
+    public Map<UUID, Map<UUID, Integer>> obtenerDisponibles(Collection<UUID> varianteIds) {
+        Map<UUID, Map<UUID, Integer>> disponibles = new HashMap<>();
+        if (varianteIds.isEmpty()) {
+            return disponibles;
+        }
+
+        UUID[] ids = varianteIds.toArray(UUID[]::new);
+        List<Celda> cargadas = jdbcTemplate.query(conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(SQL_CARGAR_VARIANTES);
+            ps.setArray(1, conexion.createArrayOf("uuid", ids));
+            return ps;
+        }, this::mapearCelda);
+
+        for (Celda cargada : cargadas) {
+            // La celda en memoria manda: la fila sólo cuenta si el par aún no estaba cargado
+            Celda celda = celdas.computeIfAbsent(cargada.clave, k -> cargada);
+            long valor = celda.estado.get();
+            disponibles.computeIfAbsent(celda.clave.varianteId(), id -> new HashMap<>())
+                .put(celda.clave.sucursalId(), Math.max(0, disponible(valor) - reservada(valor)));
+        }
+        return disponibles;
+    }
+
+    @Override
+    public void reservar(UUID sucursalId, Map<UUID, Integer> lineas) {
+        List<Movimiento> aplicados = new ArrayList<>();
+
+        for (Map.Entry<UUID, Integer> linea : new TreeMap<>(lineas).entrySet()) {
+            Celda celda = obtenerCelda(linea.getKey(), sucursalId);
+            Movimiento movimiento = celda != null ? celda.reservar(linea.getValue()) : null;
+            if (movimiento == null) {
+                // Todo o nada: se devuelven las líneas ya reservadas
+                aplicados.forEach(Movimiento::revertir);
+                throw new BusinessException("Stock insuficiente para: " + nombreVariante(linea.getKey()));
+            }
+            aplicados.add(movimiento);
+        }
+
+        registrarAlCompletar(aplicados);
+        registrarEnKardex(KardexService.TipoMovimiento.RESERVA, aplicados);
+    }
+
+    @Override
+    public void liberar(UUID sucursalId, Map<UUID, Integer> lineas) {
+        List<Movimiento> aplicados = new ArrayList<>();
+
+        for (Map.Entry<UUID, Integer> linea : new TreeMap<>(lineas).entrySet()) {
+            Celda celda = obtenerCelda(linea.getKey(), sucursalId);
+            Movimiento movimiento = celda != null ? celda.liberar(linea.getValue()) : null;
+            if (movimiento == null) {
+                // Igual que el motor SQL: liberar más de lo reservado no se recorta en silencio
+                aplicados.forEach(Movimiento::revertir);
+                throw new BusinessException("Reserva insuficiente o inventario no encontrado para: " +
+                    nombreVariante(linea.getKey()));
+            }
+            aplicados.add(movimiento);
+        }
+
+        registrarAlCompletar(aplicados);
+        registrarEnKardex(KardexService.TipoMovimiento.LIBERACION, aplicados);
+    }
+
+    @Override
+    public void confirmar(UUID sucursalId, Map<UUID, Integer> lineas) {
+        List<Movimiento> aplicados = new ArrayList<>();
+        List<StockBajoEvent> eventos = new ArrayList<>();
+
+        for (Map.Entry<UUID, Integer> linea : new TreeMap<>(lineas).entrySet()) {
+            Celda celda = obtenerCelda(linea.getKey(), sucursalId);
+            Movimiento movimiento = celda != null ? celda.confirmar(linea.getValue()) : null;
+            if (movimiento == null) {
+                aplicados.forEach(Movimiento::revertir);
+                throw new BusinessException("Reserva insuficiente o inventario no encontrado para: " +
+                    nombreVariante(linea.getKey()));
+            }
+            aplicados.add(movimiento);
+
+            int despues = disponible(movimiento.resultado());
+            boolean bajoAntes = despues - movimiento.deltaDisponible() <= celda.cantidadMinima;
+            boolean bajo = despues <= celda.cantidadMinima;
+            if (bajo || bajoAntes) {
+                eventos.add(new StockBajoEvent(celda.inventarioId, celda.clave.varianteId(), celda.productoId,
+                    sucursalId, despues, celda.cantidadMinima, bajo, bajo != bajoAntes));
+            }
+        }
+
+        registrarAlCompletar(aplicados);
+        registrarEnKardex(KardexService.TipoMovimiento.VENTA, aplicados);
+        // Las alertas escuchan después del commit, igual que con el motor SQL
+        eventos.forEach(eventPublisher::publishEvent);
+    }
+
+    /**
+     * Volcar el diario sumando los movimientos de cada inventario; devuelve las filas actualizadas
+     */
+    @Scheduled(fixedDelayString = "${app.inventario.motor-memoria.intervalo-volcado-ms:1000}",
+               initialDelayString = "${app.inventario.motor-memoria.intervalo-volcado-ms:1000}")
+    public int volcar() {
+        synchronized (volcado) {
+            // Ordenados por id: mismas filas en el mismo orden que cualquier otro escritor
+            Map<UUID, Movimiento> porInventario = new TreeMap<>();
+            Movimiento movimiento;
+            while ((movimiento = diario.poll()) != null) {
+                porInventario.merge(movimiento.celda().inventarioId, movimiento, Movimiento::sumar);
+            }
+            List<Movimiento> pendientes = porInventario.values().stream()
+                .filter(pendiente -> pendiente.deltaDisponible() != 0 || pendiente.deltaReservada() != 0)
+                .toList();
+            if (pendientes.isEmpty()) {
+                return 0;
+            }
+
+            int volcados = 0;
+            for (int desde = 0; desde < pendientes.size(); desde += tamanioLote) {
+                List<Movimiento> lote = pendientes.subList(desde, Math.min(desde + tamanioLote, pendientes.size()));
+                try {
+                    transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.batchUpdate(SQL_VOLCAR, lote, lote.size(), (ps, pendiente) -> {
+                            ps.setInt(1, pendiente.deltaDisponible());
+                            ps.setInt(2, pendiente.deltaReservada());
+                            ps.setInt(3, pendiente.deltaDisponible());
+                            ps.setObject(4, pendiente.celda().inventarioId);
+                        }));
+                    volcados += lote.size();
+                } catch (Exception e) {
+                    // Vuelven al diario ya agregados para el próximo ciclo
+                    diario.addAll(lote);
+                    log.warn("No se pudo volcar un lote de {} inventarios: {}", lote.size(), e.getMessage());
+                }
+            }
+            return volcados;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        long inicio = System.currentTimeMillis();
+        List<Celda> cargadas = jdbcTemplate.query(SQL_CARGAR, this::mapearCelda);
+        // Una celda creada por una venta durante el arranque ya tiene movimientos propios
+        cargadas.forEach(celda -> celdas.putIfAbsent(celda.clave, celda));
+        log.info("Motor de inventario en memoria cargado: {} inventarios en {} ms",
+            cargadas.size(), System.currentTimeMillis() - inicio);
+    }
+
+    @PreDestroy
+    public void detener() {
+        int volcados = volcar();
+        log.info("Motor de inventario en memoria detenido: {} inventarios volcados", volcados);
+    }
+
+    // Métodos privados de utilidad
+
+    /**
+     * Celda del par; si no está (inventario creado después del arranque) se carga de la base de datos
+     */
+    private Celda obtenerCelda(UUID varianteId, UUID sucursalId) {
+        Clave clave = new Clave(varianteId, sucursalId);
+        Celda celda = celdas.get(clave);
+        if (celda != null) {
+            return celda;
+        }
+        List<Celda> cargada = jdbcTemplate.query(SQL_CARGAR_UNO, this::mapearCelda, varianteId, sucursalId);
+        return cargada.isEmpty() ? null : celdas.computeIfAbsent(clave, k -> cargada.get(0));
+    }
+
+    private Celda mapearCelda(ResultSet rs, int fila) throws SQLException {
+        return new Celda(rs.getObject(1, UUID.class),
+            new Clave(rs.getObject(2, UUID.class), rs.getObject(3, UUID.class)),
+            rs.getObject(4, UUID.class), rs.getInt(5), rs.getInt(6), rs.getInt(7));
+    }
+
+    /**
+     * Pasar los movimientos al diario si la transacción se confirma o deshacerlos si se revierte
+     */
+    private void registrarAlCompletar(Collection<Movimiento> movimientos) {
+        if (movimientos.isEmpty()) return;
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            diario.addAll(movimientos);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    diario.addAll(movimientos);
+                } else {
+                    movimientos.forEach(Movimiento::revertir);
+                }
+            }
+
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        });
+    }
+
+    private void registrarEnKardex(KardexService.TipoMovimiento tipo, List<Movimiento> movimientos) {
+        kardexService.registrar(movimientos.stream()
+            .map(movimiento -> KardexService.Movimiento.de(tipo, movimiento.celda().clave.varianteId(),
+                movimiento.celda().clave.sucursalId(), movimiento.deltaDisponible(), movimiento.deltaReservada()))
+            .toList());
+    }
+
+    private String nombreVariante(UUID varianteId) {
+        return varianteProductoRepository.findById(varianteId)
+            .map(VarianteProducto::getNombreCompleto)
+            .orElse(varianteId.toString());
+    }
+
+    // Disponible en los 32 bits altos y reservado en los bajos; ambos no negativos
+
+    private static long empaquetar(int disponible, int reservada) {
+        return ((long) disponible << 32) | (reservada & 0xFFFFFFFFL);
+    }
+
+    private static int disponible(long valor) {
+        return (int) (valor >>> 32);
+    }
+
+    private static int reservada(long valor) {
+        return (int) valor;
+    }
+
+    private record Clave(UUID varianteId, UUID sucursalId) {
+    }
+
+    /**
+     * Movimiento ya aplicado en memoria con los deltas reales (tras recortar en cero)
+     */
+    private record Movimiento(Celda celda, int deltaDisponible, int deltaReservada, long resultado) {
+
+        void revertir() {
+            celda.ajustar(-deltaDisponible, -deltaReservada);
+        }
+
+        Movimiento sumar(Movimiento otro) {
+            return new Movimiento(celda, deltaDisponible + otro.deltaDisponible, deltaReservada + otro.deltaReservada,
+                otro.resultado);
+        }
+    }
+
+    private static final class Celda {
+        private final UUID inventarioId;
+        private final Clave clave;
+        private final UUID productoId;
+        private final int cantidadMinima;
+        private final AtomicLong estado;
+
+        Celda(UUID inventarioId, Clave clave, UUID productoId, int disponible, int reservada, int cantidadMinima) {
+            this.inventarioId = inventarioId;
+            this.clave = clave;
+            this.productoId = productoId;
+            this.cantidadMinima = cantidadMinima;
+            this.estado = new AtomicLong(empaquetar(Math.max(disponible, 0), Math.max(reservada, 0)));
+        }
+
+        /**
+         * Reservar sólo si alcanza; null si no hay stock suficiente
+         */
+        Movimiento reservar(int cantidad) {
+            while (true) {
+                long actual = estado.get();
+                int disponible = disponible(actual);
+                int reservada = reservada(actual);
+                if (disponible - reservada < cantidad) {
+                    return null;
+                }
+                long nuevo = empaquetar(disponible, reservada + cantidad);
+                if (estado.compareAndSet(actual, nuevo)) {
+                    return new Movimiento(this, 0, cantidad, nuevo);
+                }
+            }
+        }
+
+        /**
+         * Liberar sólo si hay tanto reservado; null si no
+         */
+        Movimiento liberar(int cantidad) {
+            while (true) {
+                long actual = estado.get();
+                int reservada = reservada(actual);
+                if (reservada < cantidad) {
+                    return null;
+                }
+                long nuevo = empaquetar(disponible(actual), reservada - cantidad);
+                if (estado.compareAndSet(actual, nuevo)) {
+                    return new Movimiento(this, 0, -cantidad, nuevo);
+                }
+            }
+        }
+
+        /**
+         * Confirmar sólo si hay tanto reservado y disponible; null si no
+         */
+        Movimiento confirmar(int cantidad) {
+            while (true) {
+                long actual = estado.get();
+                int disponible = disponible(actual);
+                int reservada = reservada(actual);
+                if (reservada < cantidad || disponible < cantidad) {
+                    return null;
+                }
+                long nuevo = empaquetar(disponible - cantidad, reservada - cantidad);
+                if (estado.compareAndSet(actual, nuevo)) {
+                    return new Movimiento(this, -cantidad, -cantidad, nuevo);
+                }
+            }
+        }
+
+        void ajustar(int deltaDisponible, int deltaReservada) {
+            estado.getAndUpdate(actual -> empaquetar(
+                Math.max(0, disponible(actual) + deltaDisponible),
+                Math.max(0, reservada(actual) + deltaReservada)));
+        }
+    }
+}
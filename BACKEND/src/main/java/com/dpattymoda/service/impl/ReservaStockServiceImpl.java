@@ -0,0 +1,222 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.entity.VarianteProducto;
+import com.dpattymoda.event.StockBajoEvent;
+import com.dpattymoda.exception.BusinessException;
+import com.dpattymoda.repository.VarianteProductoRepository;
+import com.dpattymoda.service.KardexService;
+import com.dpattymoda.service.ReservaStockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Implementación de movimientos de stock con UPDATE condicionales.
+ * La condición de stock (o de reserva) suficiente va en el WHERE, así que Postgres la vuelve
+ * a evaluar sobre la versión vigente de la fila tras esperar a otra transacción: dos cajas no
+ * pueden vender la misma última unidad, ni liberar o confirmar más de lo reservado. No hay
+ * lectura previa, pero cada UPDATE retiene el bloqueo de su fila hasta el commit: las ventas
+ * de una misma variante y sucursal se serializan en esa fila. Las líneas se ordenan por
+ * variante para que dos cestas de este servicio tomen las filas en el mismo orden; frente a
+ * otros escritores de inventario que bloqueen en otro orden Postgres detecta el interbloqueo
+ * y revierte una de las transacciones. Cada movimiento se anota en el kardex al confirmarse.
+ * Es el motor por defecto; ver ReservaStockMemoriaServiceImpl
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional
+@ConditionalOnProperty(name = "app.inventario.motor-memoria.habilitado", havingValue = "false", matchIfMissing = true)
+public class ReservaStockServiceImpl implements ReservaStockService {
+
+    private static final String SQL_DISPONIBLE = "SELECT cantidad_disponible - cantidad_reservada FROM inventario " +
+        "WHERE variante_id = ? AND sucursal_id = ?";
+
+    private static final String SQL_DISPONIBLES = "SELECT variante_id, sucursal_id, " +
+        "cantidad_disponible - cantidad_reservada FROM inventario WHERE variante_id = ANY(?)";
+
+    private static final String SQL_RESERVAR = "UPDATE inventario SET " +
+        "cantidad_reservada = cantidad_reservada + ?, ultimo_movimiento = now(), fecha_actualizacion = now() " +
+        "WHERE variante_id = ? AND sucursal_id = ? AND cantidad_disponible - cantidad_reservada >= ?";
+
+    private static final String SQL_LIBERAR = "UPDATE inventario SET " +
+        "cantidad_reservada = cantidad_reservada - ?, ultimo_movimiento = now(), fecha_actualizacion = now() " +
+        "WHERE variante_id = ? AND sucursal_id = ? AND cantidad_reservada >= ?";
+
+    // Devuelve el estado final para detectar el cruce del mínimo sin leer la fila antes
+    private static final String SQL_CONFIRMAR = "UPDATE inventario i SET " +
+        "cantidad_reservada = i.cantidad_reservada - ?, " +
+        "cantidad_disponible = i.cantidad_disponible - ?, " +
+        "fecha_ultimo_egreso = now(), ultimo_movimiento = now(), fecha_actualizacion = now() " +
+        "FROM variantes_producto v " +
+        "WHERE v.id = i.variante_id AND i.variante_id = ? AND i.sucursal_id = ? " +
+        "AND i.cantidad_reservada >= ? AND i.cantidad_disponible >= ? " +
+        "RETURNING i.id, v.producto_id, i.cantidad_disponible, i.cantidad_minima";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final VarianteProductoRepository varianteProductoRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final KardexService kardexService;
+
+    @Override
+    @Transactional(readOnly = true)
+    public int obtenerDisponible(UUID varianteId, UUID sucursalId) {
+        List<Integer> disponible = jdbcTemplate.queryForList(SQL_DISPONIBLE, Integer.class, varianteId, sucursalId);
+        return disponible.isEmpty() || disponible.get(0) == null ? 0 : disponible.get(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<UUID, Map<UUID, Integer>> obtenerDisponibles(Collection<UUID> varianteIds) {
+        Map<UUID, Map<UUID, Integer>> disponibles = new HashMap<>();
+        if (varianteIds.isEmpty()) {
+            return disponibles;
+        }
+
+        UUID[] ids = varianteIds.toArray(UUID[]::new);
+        jdbcTemplate.query(conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(SQL_DISPONIBLES);
+            ps.setArray(1, conexion.createArrayOf("uuid", ids));
+            return ps;
+        }, rs -> {
+            disponibles.computeIfAbsent(rs.getObject(1, UUID.class), id -> new HashMap<>())
+                .put(rs.getObject(2, UUID.class), Math.max(0, rs.getInt(3)));
+        });
+        return disponibles;
+    }
+
+    @Override
+    public void reservar(UUID sucursalId, Map<UUID, Integer> lineas) {
+        List<Map.Entry<UUID, Integer>> ordenadas = ordenar(lineas);
+        if (ordenadas.isEmpty()) return;
+
+        // Un solo viaje a la base de datos; cada sentencia informa si pudo reservar
+        int[] afectadas = jdbcTemplate.batchUpdate(SQL_RESERVAR, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<UUID, Integer> linea = ordenadas.get(i);
+                ps.setInt(1, linea.getValue());
+                ps.setObject(2, linea.getKey());
+                ps.setObject(3, sucursalId);
+                ps.setInt(4, linea.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ordenadas.size();
+            }
+        });
+
+        for (int i = 0; i < afectadas.length; i++) {
+            if (afectadas[i] == 0) {
+                // La excepción revierte las líneas ya reservadas
+                throw new BusinessException("Stock insuficiente para: " + nombreVariante(ordenadas.get(i).getKey()));
+            }
+        }
+
+        registrarEnKardex(KardexService.TipoMovimiento.RESERVA, sucursalId, ordenadas, 0, 1);
+    }
+
+    @Override
+    public void liberar(UUID sucursalId, Map<UUID, Integer> lineas) {
+        List<Map.Entry<UUID, Integer>> ordenadas = ordenar(lineas);
+        if (ordenadas.isEmpty()) return;
+
+        int[] afectadas = jdbcTemplate.batchUpdate(SQL_LIBERAR, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Map.Entry<UUID, Integer> linea = ordenadas.get(i);
+                ps.setInt(1, linea.getValue());
+                ps.setObject(2, linea.getKey());
+                ps.setObject(3, sucursalId);
+                ps.setInt(4, linea.getValue());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ordenadas.size();
+            }
+        });
+
+        for (int i = 0; i < afectadas.length; i++) {
+            if (afectadas[i] == 0) {
+                // Liberar más de lo reservado indica una liberación repetida: se revierte todo
+                throw new BusinessException("Reserva insuficiente o inventario no encontrado para: " +
+                    nombreVariante(ordenadas.get(i).getKey()));
+            }
+        }
+
+        registrarEnKardex(KardexService.TipoMovimiento.LIBERACION, sucursalId, ordenadas, 0, -1);
+    }
+
+    @Override
+    public void confirmar(UUID sucursalId, Map<UUID, Integer> lineas) {
+        List<Map.Entry<UUID, Integer>> ordenadas = ordenar(lineas);
+        List<StockBajoEvent> eventos = new ArrayList<>();
+
+        for (Map.Entry<UUID, Integer> linea : ordenadas) {
+            int cantidad = linea.getValue();
+            List<StockBajoEvent> resultado = jdbcTemplate.query(SQL_CONFIRMAR, (rs, fila) -> {
+                // Sin recortes: el disponible previo es exactamente el actual más lo vendido
+                int disponible = rs.getInt(3);
+                int minima = rs.getInt(4);
+                boolean bajoAntes = disponible + cantidad <= minima;
+                boolean bajo = disponible <= minima;
+                return bajo || bajoAntes
+                    ? new StockBajoEvent(rs.getObject(1, UUID.class), linea.getKey(), rs.getObject(2, UUID.class),
+                        sucursalId, disponible, minima, bajo, bajo != bajoAntes)
+                    : null;
+            }, cantidad, cantidad, linea.getKey(), sucursalId, cantidad, cantidad);
+
+            if (resultado.isEmpty()) {
+                throw new BusinessException("Reserva insuficiente o inventario no encontrado para: " +
+                    nombreVariante(linea.getKey()));
+            }
+            if (resultado.get(0) != null) {
+                eventos.add(resultado.get(0));
+            }
+        }
+
+        registrarEnKardex(KardexService.TipoMovimiento.VENTA, sucursalId, ordenadas, -1, -1);
+        eventos.forEach(eventPublisher::publishEvent);
+    }
+
+    // Métodos privados de utilidad
+
+    /**
+     * Anotar las líneas en el kardex con el signo de cada delta, en la misma transacción que
+     * los UPDATE: no recortan, así que los deltas son los aplicados
+     */
+    private void registrarEnKardex(KardexService.TipoMovimiento tipo, UUID sucursalId,
+                                   List<Map.Entry<UUID, Integer>> lineas, int signoDisponible, int signoReservada) {
+        kardexService.escribir(lineas.stream()
+            .map(linea -> KardexService.Movimiento.de(tipo, linea.getKey(), sucursalId,
+                signoDisponible * linea.getValue(), signoReservada * linea.getValue()))
+            .toList());
+    }
+
+    private List<Map.Entry<UUID, Integer>> ordenar(Map<UUID, Integer> lineas) {
+        return new ArrayList<>(new TreeMap<>(lineas).entrySet());
+    }
+
+    private String nombreVariante(UUID varianteId) {
+        return varianteProductoRepository.findById(varianteId)
+            .map(VarianteProducto::getNombreCompleto)
+            .orElse(varianteId.toString());
+    }
+}
@@ -0,0 +1,333 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.event.CatalogoModificadoEvent;
+import com.dpattymoda.repository.VarianteProductoRepository;
+import com.dpattymoda.service.ReservaStockService;
+import com.dpattymoda.service.ReservasPedidoService;
+import com.dpattymoda.util.RuedaTemporizadora;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Implementación de reservas con vencimiento sobre una rueda temporizadora.
+ * Los vencimientos viven en memoria (un elemento por pedido) y se recargan al arrancar
+ * desde el índice parcial de reservas activas; cada tick libera en lote los pedidos
+ * vencidos. La rueda es sólo la vía rápida: un barrido periódico sobre la base de datos
+ * expira lo que ningún nodo tenga programado (caídas, reinicios, otra instancia), tomando
+ * las filas con SKIP LOCKED para que varios nodos no se esperen entre sí.
+ * Confirmar, liberar y expirar son UPDATE condicionales sobre estado = 'activa', así que
+ * cada reserva se resuelve una sola vez aunque compitan el pago y el vencimiento. Al
+ * cancelar un pedido vencido se anula su venta en caja, que nunca se cobró
+ */
+@Slf4j
+@Service
+public class ReservasPedidoServiceImpl implements ReservasPedidoService {
+
+    private static final String SQL_INSERTAR = "INSERT INTO reservas_stock " +
+        "(pedido_id, variante_id, sucursal_id, cantidad, fecha_expiracion) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SQL_EXTENDER = "UPDATE reservas_stock " +
+        "SET fecha_expiracion = GREATEST(fecha_expiracion, ?) WHERE pedido_id = ? AND estado = 'activa'";
+
+    private static final String SQL_RESOLVER = "UPDATE reservas_stock SET estado = ?, fecha_resolucion = now() " +
+        "WHERE pedido_id = ? AND estado = 'activa' RETURNING sucursal_id, variante_id, cantidad";
+
+    private static final String SQL_EXISTE = "SELECT EXISTS (SELECT 1 FROM reservas_stock WHERE pedido_id = ?)";
+
+    private static final String SQL_EXPIRAR = "UPDATE reservas_stock SET estado = 'expirada', fecha_resolucion = now() " +
+        "WHERE pedido_id = ANY(?) AND estado = 'activa' AND fecha_expiracion <= ? " +
+        "RETURNING pedido_id, sucursal_id, variante_id, cantidad";
+
+    // Sólo las filas bloqueadas por el barrido: las que otro nodo está expirando se saltan
+    private static final String SQL_VENCIDAS = "SELECT id FROM reservas_stock " +
+        "WHERE estado = 'activa' AND fecha_expiracion <= ? ORDER BY fecha_expiracion LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String SQL_EXPIRAR_FILAS = "UPDATE reservas_stock SET estado = 'expirada', fecha_resolucion = now() " +
+        "WHERE id = ANY(?) AND estado = 'activa' " +
+        "RETURNING pedido_id, sucursal_id, variante_id, cantidad";
+
+    private static final String SQL_CANCELAR_PEDIDOS = "UPDATE pedidos SET estado = 'cancelado', fecha_actualizacion = now() " +
+        "WHERE id = ANY(?) AND estado = 'pendiente' AND estado_pago = 'pendiente' RETURNING id";
+
+    // Anula la venta registrada en caja al crear el pedido; el trigger recalcula los totales del turno
+    private static final String SQL_ANULAR_VENTAS_CAJA = "UPDATE movimientos_caja SET tipo_movimiento = 'venta_anulada', " +
+        "observaciones = concat_ws(' | ', observaciones, ?) " +
+        "WHERE pedido_id = ANY(?) AND tipo_movimiento = 'venta'";
+
+    private static final String MOTIVO_ANULACION = "Anulada: la reserva de stock venció sin pago";
+
+    private static final String SQL_ACTIVAS = "SELECT pedido_id, MAX(fecha_expiracion) FROM reservas_stock " +
+        "WHERE estado = 'activa' GROUP BY pedido_id";
+
+    private final ReservaStockService reservaStockService;
+    private final VarianteProductoRepository varianteProductoRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int minutosVencimiento;
+    private final int tamanioLote;
+    private final RuedaTemporizadora<UUID> rueda;
+
+    public ReservasPedidoServiceImpl(ReservaStockService reservaStockService,
+                                     VarianteProductoRepository varianteProductoRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     TransactionTemplate transactionTemplate,
+                                     ApplicationEventPublisher eventPublisher,
+                                     @Value("${app.inventario.reservas.minutos-vencimiento:30}") int minutosVencimiento,
+                                     @Value("${app.inventario.reservas.tamanio-lote:500}") int tamanioLote,
+                                     @Value("${app.inventario.reservas.ranuras:4096}") int ranuras,
+                                     @Value("${app.inventario.reservas.tick-ms:1000}") long tickMs) {
+        this.reservaStockService = reservaStockService;
+        this.varianteProductoRepository = varianteProductoRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.minutosVencimiento = minutosVencimiento;
+        this.tamanioLote = tamanioLote;
+        this.rueda = new RuedaTemporizadora<>(ranuras, tickMs, System.currentTimeMillis());
+    }
+
+    @Override
+    @Transactional
+    public void reservar(UUID pedidoId, UUID sucursalId, Map<UUID, Integer> lineas) {
+        if (lineas.isEmpty()) return;
+
+        // Lanza BusinessException si alguna línea no alcanza
+        reservaStockService.reservar(sucursalId, lineas);
+
+        LocalDateTime expiracion = LocalDateTime.now().plusMinutes(minutosVencimiento);
+        List<Map.Entry<UUID, Integer>> filas = new ArrayList<>(lineas.entrySet());
+        jdbcTemplate.batchUpdate(SQL_INSERTAR, filas, filas.size(), (ps, linea) -> {
+            ps.setObject(1, pedidoId);
+            ps.setObject(2, linea.getKey());
+            ps.setObject(3, sucursalId);
+            ps.setInt(4, linea.getValue());
+            ps.setObject(5, expiracion);
+        });
+
+        programarAlConfirmar(pedidoId, expiracion);
+        publicarCambioStock(lineas.keySet());
+    }
+
+    @Override
+    @Transactional
+    public void extender(UUID pedidoId, LocalDateTime expiracion) {
+        if (jdbcTemplate.update(SQL_EXTENDER, expiracion, pedidoId) > 0) {
+            // El vencimiento anterior sigue en la rueda; al dispararse no encontrará nada vencido
+            programarAlConfirmar(pedidoId, expiracion);
+        }
+    }
+
+    @Override
+    @Transactional
+    public ResultadoReserva confirmar(UUID pedidoId) {
+        return resolver(pedidoId, "confirmada");
+    }
+
+    @Override
+    @Transactional
+    public ResultadoReserva liberar(UUID pedidoId) {
+        return resolver(pedidoId, "liberada");
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.inventario.reservas.tick-ms:1000}")
+    public int procesarVencimientos() {
+        long ahora = System.currentTimeMillis();
+        List<UUID> vencidos = List.copyOf(new HashSet<>(rueda.avanzar(ahora)));
+        if (vencidos.isEmpty()) {
+            return 0;
+        }
+
+        LocalDateTime limite = LocalDateTime.ofInstant(Instant.ofEpochMilli(ahora), ZoneId.systemDefault());
+        int expirados = 0;
+        for (int desde = 0; desde < vencidos.size(); desde += tamanioLote) {
+            List<UUID> lote = vencidos.subList(desde, Math.min(desde + tamanioLote, vencidos.size()));
+            try {
+                Integer cantidad = transactionTemplate.execute(status -> expirarLote(lote, limite));
+                expirados += cantidad != null ? cantidad : 0;
+            } catch (Exception e) {
+                // Se reintenta en el próximo tick
+                lote.forEach(pedidoId -> rueda.programar(pedidoId, ahora));
+                log.warn("No se pudo expirar un lote de {} reservas: {}", lote.size(), e.getMessage());
+            }
+        }
+
+        if (expirados > 0) {
+            log.info("Reservas de stock vencidas: {} pedidos liberados", expirados);
+        }
+        return expirados;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.inventario.reservas.intervalo-barrido-ms:60000}",
+               initialDelayString = "${app.inventario.reservas.intervalo-barrido-ms:60000}")
+    public int barrerVencidas() {
+        int expirados = 0;
+        try {
+            Barrido barrido;
+            do {
+                LocalDateTime limite = LocalDateTime.now();
+                barrido = transactionTemplate.execute(status -> {
+                    List<UUID> filas = jdbcTemplate.queryForList(SQL_VENCIDAS, UUID.class, limite, tamanioLote);
+                    return new Barrido(filas.size(), filas.isEmpty()
+                        ? 0
+                        : expirar(conArreglo(SQL_EXPIRAR_FILAS, filas.toArray(UUID[]::new))));
+                });
+                expirados += barrido != null ? barrido.pedidos() : 0;
+            } while (barrido != null && barrido.filas() >= tamanioLote);
+        } catch (Exception e) {
+            // Las filas siguen activas: se reintentan en el próximo barrido
+            log.warn("No se pudo completar el barrido de reservas vencidas: {}", e.getMessage());
+        }
+
+        if (expirados > 0) {
+            log.info("Barrido de reservas de stock: {} pedidos vencidos liberados", expirados);
+        }
+        return expirados;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        // Recorre sólo las reservas activas mediante el índice parcial
+        List<Object[]> activas = jdbcTemplate.query(SQL_ACTIVAS, (rs, fila) ->
+            new Object[]{rs.getObject(1, UUID.class), rs.getTimestamp(2)});
+        activas.forEach(activa -> rueda.programar((UUID) activa[0], ((Timestamp) activa[1]).getTime()));
+        log.info("Reservas de stock activas cargadas: {} pedidos", activas.size());
+    }
+
+    // Métodos privados de utilidad
+
+    private ResultadoReserva resolver(UUID pedidoId, String estado) {
+        List<Object[]> filas = jdbcTemplate.query(SQL_RESOLVER, (rs, fila) ->
+            new Object[]{rs.getObject(1, UUID.class), rs.getObject(2, UUID.class), rs.getInt(3)}, estado, pedidoId);
+
+        if (filas.isEmpty()) {
+            Boolean existe = jdbcTemplate.queryForObject(SQL_EXISTE, Boolean.class, pedidoId);
+            return Boolean.TRUE.equals(existe) ? ResultadoReserva.YA_RESUELTA : ResultadoReserva.SIN_RESERVAS;
+        }
+
+        Map<UUID, Map<UUID, Integer>> porSucursal = agruparPorSucursal(filas);
+        porSucursal.forEach((sucursalId, lineas) -> {
+            if ("confirmada".equals(estado)) {
+                reservaStockService.confirmar(sucursalId, lineas);
+            } else {
+                reservaStockService.liberar(sucursalId, lineas);
+            }
+        });
+        publicarCambioStock(porSucursal.values().stream().flatMap(lineas -> lineas.keySet().stream()).toList());
+        return ResultadoReserva.APLICADA;
+    }
+
+    /**
+     * Expirar las reservas activas y vencidas de un lote de pedidos y cancelar esos pedidos
+     */
+    private int expirarLote(List<UUID> pedidoIds, LocalDateTime limite) {
+        return expirar(conArreglo(SQL_EXPIRAR, pedidoIds.toArray(UUID[]::new), limite));
+    }
+
+    /**
+     * Expirar las reservas que marca la sentencia, devolver su stock, cancelar los pedidos
+     * pendientes de pago y anular sus ventas en caja; devuelve los pedidos afectados
+     */
+    private int expirar(PreparedStatementCreator sentencia) {
+        List<Object[]> filas = jdbcTemplate.query(sentencia, (rs, fila) ->
+            new Object[]{rs.getObject(2, UUID.class), rs.getObject(3, UUID.class), rs.getInt(4), rs.getObject(1, UUID.class)});
+        if (filas.isEmpty()) {
+            return 0;
+        }
+
+        Map<UUID, Map<UUID, Integer>> porSucursal = agruparPorSucursal(filas);
+        porSucursal.forEach(reservaStockService::liberar);
+
+        Set<UUID> expirados = new HashSet<>();
+        filas.forEach(fila -> expirados.add((UUID) fila[3]));
+        List<UUID> cancelados = jdbcTemplate.query(conArreglo(SQL_CANCELAR_PEDIDOS, expirados.toArray(UUID[]::new)),
+            (rs, fila) -> rs.getObject(1, UUID.class));
+        if (!cancelados.isEmpty()) {
+            jdbcTemplate.update(conexion -> {
+                PreparedStatement ps = conexion.prepareStatement(SQL_ANULAR_VENTAS_CAJA);
+                ps.setString(1, MOTIVO_ANULACION);
+                ps.setArray(2, conexion.createArrayOf("uuid", cancelados.toArray()));
+                return ps;
+            });
+        }
+
+        publicarCambioStock(porSucursal.values().stream().flatMap(lineas -> lineas.keySet().stream()).toList());
+        return expirados.size();
+    }
+
+    /**
+     * Filas (sucursal, variante, cantidad, ...) agrupadas como sucursal → variante → cantidad
+     */
+    private Map<UUID, Map<UUID, Integer>> agruparPorSucursal(List<Object[]> filas) {
+        Map<UUID, Map<UUID, Integer>> porSucursal = new HashMap<>();
+        for (Object[] fila : filas) {
+            porSucursal.computeIfAbsent((UUID) fila[0], id -> new HashMap<>())
+                .merge((UUID) fila[1], (Integer) fila[2], Integer::sum);
+        }
+        return porSucursal;
+    }
+
+    /**
+     * Programar el vencimiento en la rueda sólo si la transacción se confirma
+     */
+    private void programarAlConfirmar(UUID pedidoId, LocalDateTime expiracion) {
+        long vencimiento = expiracion.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rueda.programar(pedidoId, vencimiento);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rueda.programar(pedidoId, vencimiento);
+            }
+        });
+    }
+
+    private void publicarCambioStock(Collection<UUID> varianteIds) {
+        if (varianteIds.isEmpty()) return;
+        eventPublisher.publishEvent(CatalogoModificadoEvent.deStock(
+            varianteProductoRepository.obtenerProductoIdsPorVariantes(varianteIds)));
+    }
+
+    private record Barrido(int filas, int pedidos) {
+    }
+
+    private PreparedStatementCreator conArreglo(String sql, UUID[] ids, Object... parametros) {
+        return conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(sql);
+            ps.setArray(1, conexion.createArrayOf("uuid", ids));
+            for (int i = 0; i < parametros.length; i++) {
+                ps.setObject(i + 2, parametros[i]);
+            }
+            return ps;
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.event.CatalogoModificadoEvent;
+import com.dpattymoda.service.ResumenProductosService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Implementación del recálculo diferido del resumen de productos.
+ * Cada lote se toma con SKIP LOCKED, así que varias instancias procesan lotes distintos;
+ * al terminar se publica un cambio de stock para que índice y cachés lean el resumen nuevo
+ */
+@Slf4j
+@Service
+public class ResumenProductosServiceImpl implements ResumenProductosService {
+
+    private static final String SQL_PROCESAR = "SELECT procesar_producto_resumen_pendientes(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int tamanioLote;
+
+    public ResumenProductosServiceImpl(JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       ApplicationEventPublisher eventPublisher,
+                                       @Value("${app.catalogo.resumen.tamanio-lote:500}") int tamanioLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.tamanioLote = tamanioLote;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.catalogo.resumen.intervalo-ms:1000}",
+               initialDelayString = "${app.catalogo.resumen.intervalo-ms:1000}")
+    public int procesarPendientes() {
+        int procesados = 0;
+        try {
+            List<UUID> lote;
+            do {
+                // El evento sale dentro de la transacción: los oyentes esperan al commit
+                lote = transactionTemplate.execute(status -> {
+                    List<UUID> productoIds = jdbcTemplate.queryForObject(SQL_PROCESAR,
+                        (rs, fila) -> aLista(rs.getArray(1)), tamanioLote);
+                    if (productoIds != null && !productoIds.isEmpty()) {
+                        eventPublisher.publishEvent(CatalogoModificadoEvent.deStock(productoIds));
+                    }
+                    return productoIds;
+                });
+                procesados += lote != null ? lote.size() : 0;
+            } while (lote != null && lote.size() >= tamanioLote);
+        } catch (Exception e) {
+            // Las marcas siguen en la tabla: se reintentan en el próximo ciclo
+            log.warn("No se pudo recalcular el resumen de productos: {}", e.getMessage());
+        }
+        return procesados;
+    }
+
+    private List<UUID> aLista(Array arreglo) throws SQLException {
+        return arreglo != null ? Arrays.asList((UUID[]) arreglo.getArray()) : List.of();
+    }
+}
@@ -0,0 +1,379 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.dto.response.ProductoResponse;
+import com.dpattymoda.event.CatalogoModificadoEvent;
+import com.dpattymoda.event.CategoriasModificadasEvent;
+import com.dpattymoda.exception.ResourceNotFoundException;
+import com.dpattymoda.repository.ProductoRepository;
+import com.dpattymoda.service.CategoriaArbolService;
+import com.dpattymoda.service.CategoriaArbolService.NodoCategoria;
+import com.dpattymoda.service.ProductoService;
+import com.dpattymoda.service.SimilitudProductosService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+
+/**
+ * Implementación de productos similares con MinHash y LSH por bandas.
+ * Cada producto se reduce a un conjunto de rasgos (tags, palabras clave, cada categoría de
+ * su ruta, marca y pares característica=valor) y a una firma MinHash. Las bandas de la firma
+ * son claves de cubetas: los candidatos son los productos que comparten alguna cubeta y se
+ * ordenan por Jaccard exacto sobre sus rasgos. La construcción inicial corre en paralelo
+ */
+@Slf4j
+@Service
+public class SimilitudProductosServiceImpl implements SimilitudProductosService {
+
+    private static final int LIMITE_MAXIMO = 20;
+    // 32 bandas de 2 filas: umbral de Jaccard aproximado (1/32)^(1/2) ≈ 0,18, adecuado para rasgos escasos
+    private static final int BANDAS = 32;
+    private static final int FILAS_POR_BANDA = 2;
+    private static final int TAMANIO_FIRMA = BANDAS * FILAS_POR_BANDA;
+    // Cubetas muy pobladas (misma categoría y marca) no deben convertir la consulta en un recorrido:
+    // sólo se puntúan los candidatos que comparten más bandas, el mejor estimador de Jaccard
+    private static final int MAXIMO_CANDIDATOS = 500;
+
+    private static final long[] SEMILLAS = new SplittableRandom(0x5EED_CA7A_1060L)
+        .longs(TAMANIO_FIRMA).toArray();
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private final ProductoRepository productoRepository;
+    private final ProductoService productoService;
+    private final CategoriaArbolService categoriaArbolService;
+    private final int paralelismo;
+
+    // Las cubetas se mutan en sitio en los refrescos por producto: uno que corriera durante la
+    // reconstrucción se perdería al publicar el índice nuevo. obtenerSimilares() no lo toma
+    private final Object escritura = new Object();
+    private volatile Indice indice = new Indice();
+    private volatile long ultimaActualizacion = 0;
+
+    public SimilitudProductosServiceImpl(ProductoRepository productoRepository,
+                                         ProductoService productoService,
+                                         CategoriaArbolService categoriaArbolService,
+                                         @Value("${app.catalogo.similitud.paralelismo:0}") int paralelismo) {
+        this.productoRepository = productoRepository;
+        this.productoService = productoService;
+        this.categoriaArbolService = categoriaArbolService;
+        this.paralelismo = paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public List<ProductoResponse> obtenerSimilares(UUID productoId, int limite) {
+        Indice actual = indice;
+        Entrada entrada = actual.entradas.get(productoId);
+        if (entrada == null) {
+            return List.of();
+        }
+
+        Map<UUID, Integer> bandasCompartidas = new HashMap<>();
+        for (long clave : entrada.claves()) {
+            Set<UUID> cubeta = actual.cubetas.get(clave);
+            if (cubeta == null) continue;
+            for (UUID candidato : cubeta) {
+                bandasCompartidas.merge(candidato, 1, Integer::sum);
+            }
+        }
+        bandasCompartidas.remove(productoId);
+
+        int acotado = Math.max(1, Math.min(limite, LIMITE_MAXIMO));
+        List<UUID> mejores = bandasCompartidas.entrySet().stream()
+            .sorted(Map.Entry.<UUID, Integer>comparingByValue().reversed())
+            .map(coincidencia -> actual.entradas.get(coincidencia.getKey()))
+            .filter(Objects::nonNull)
+            .filter(Entrada::conStock)
+            .limit(MAXIMO_CANDIDATOS)
+            .map(candidato -> new Puntaje(candidato.id(), jaccard(entrada.rasgos(), candidato.rasgos())))
+            .sorted(Comparator.comparingDouble(Puntaje::similitud).reversed())
+            .limit(acotado)
+            .map(Puntaje::productoId)
+            .toList();
+
+        List<ProductoResponse> similares = new ArrayList<>(mejores.size());
+        for (UUID id : mejores) {
+            try {
+                // Producto básico desde la caché de dos niveles
+                similares.add(productoService.obtenerProducto(id));
+            } catch (ResourceNotFoundException e) {
+                // Eliminado después de indexarse
+            }
+        }
+        return similares;
+    }
+
+    @Override
+    public void actualizarProductos(Collection<UUID> productoIds) {
+        if (productoIds.isEmpty()) return;
+
+        List<Object[]> filas = productoRepository.obtenerDatosSimilitudPorIds(productoIds);
+
+        synchronized (escritura) {
+            Indice actual = indice;
+            // Los productos desactivados no vuelven en la consulta: quedan fuera del índice
+            productoIds.forEach(actual::quitar);
+            for (Object[] fila : filas) {
+                Entrada entrada = crearEntrada(fila);
+                if (entrada != null) {
+                    actual.agregar(entrada);
+                }
+            }
+            ultimaActualizacion = System.currentTimeMillis();
+        }
+    }
+
+    @Override
+    public void reconstruir() {
+        long inicio = System.currentTimeMillis();
+
+        synchronized (escritura) {
+            List<Object[]> filas = productoRepository.obtenerDatosSimilitud();
+            Indice nuevo = new Indice();
+
+            ForkJoinPool pool = new ForkJoinPool(paralelismo);
+            try {
+                pool.submit(() -> filas.parallelStream()
+                    .map(this::crearEntrada)
+                    .filter(Objects::nonNull)
+                    .forEach(nuevo::agregar)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Construcción del índice de similitud interrumpida", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Error construyendo el índice de similitud", e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+
+            indice = nuevo;
+            ultimaActualizacion = System.currentTimeMillis();
+        }
+
+        log.info("Índice de similitud reconstruido: {} productos, {} cubetas en {} ms",
+            indice.entradas.size(), indice.cubetas.size(), System.currentTimeMillis() - inicio);
+    }
+
+    @Override
+    public long obtenerUltimaActualizacion() {
+        return ultimaActualizacion;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        try {
+            reconstruir();
+        } catch (Exception e) {
+            log.error("No se pudo construir el índice de similitud: {}", e.getMessage(), e);
+        }
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent evento) {
+        try {
+            // También el stock: un producto agotado deja de ofrecerse como similar
+            actualizarProductos(evento.getProductoIds());
+        } catch (Exception e) {
+            log.warn("No se pudo refrescar el índice de similitud para {}: {}",
+                evento.getProductoIds(), e.getMessage());
+        }
+    }
+
+    /**
+     * Las rutas de categoría forman parte de los rasgos: se reconstruye todo
+     */
+    @Async
+    @EventListener
+    public void alModificarCategorias(CategoriasModificadasEvent evento) {
+        try {
+            reconstruir();
+        } catch (Exception e) {
+            log.warn("No se pudo reconstruir el índice de similitud: {}", e.getMessage());
+        }
+    }
+
+    // Métodos privados de utilidad
+
+    /**
+     * Rasgos y firma de un producto; null si no tiene ningún rasgo
+     */
+    @SuppressWarnings("unchecked")
+    private Entrada crearEntrada(Object[] fila) {
+        UUID id = (UUID) fila[0];
+        Set<String> rasgos = new HashSet<>();
+
+        agregarTodos(rasgos, "tag:", (String[]) fila[1]);
+        agregarTodos(rasgos, "clave:", (String[]) fila[2]);
+        if (fila[3] != null) {
+            // Cada nivel de la ruta es un rasgo: comparten más cuanto más profunda la categoría común
+            NodoCategoria nodo = categoriaArbolService.obtenerNodo((UUID) fila[3]).orElse(null);
+            if (nodo != null) {
+                nodo.rutaIds().forEach(categoriaId -> rasgos.add("cat:" + categoriaId));
+            } else {
+                rasgos.add("cat:" + fila[3]);
+            }
+        }
+        agregar(rasgos, "marca:", (String) fila[4]);
+        Map<String, String> caracteristicas = (Map<String, String>) fila[5];
+        if (caracteristicas != null) {
+            caracteristicas.forEach((clave, valor) ->
+                agregar(rasgos, "car:" + normalizar(clave) + "=", valor));
+        }
+
+        if (rasgos.isEmpty()) {
+            return null;
+        }
+
+        long[] hashes = rasgos.stream().mapToLong(SimilitudProductosServiceImpl::hashTexto).sorted().distinct().toArray();
+        long[] firma = calcularFirma(hashes);
+
+        long[] claves = new long[BANDAS];
+        for (int banda = 0; banda < BANDAS; banda++) {
+            long clave = banda;
+            for (int fil = 0; fil < FILAS_POR_BANDA; fil++) {
+                clave = mezclar(clave * 31 + firma[banda * FILAS_POR_BANDA + fil]);
+            }
+            claves[banda] = clave;
+        }
+
+        int stockDisponible = fila[6] != null ? ((Number) fila[6]).intValue() : 0;
+        return new Entrada(id, hashes, claves, stockDisponible > 0);
+    }
+
+    private long[] calcularFirma(long[] hashes) {
+        long[] firma = new long[TAMANIO_FIRMA];
+        Arrays.fill(firma, Long.MAX_VALUE);
+        for (long hash : hashes) {
+            for (int i = 0; i < TAMANIO_FIRMA; i++) {
+                long valor = mezclar(hash ^ SEMILLAS[i]);
+                if (valor < firma[i]) {
+                    firma[i] = valor;
+                }
+            }
+        }
+        return firma;
+    }
+
+    /**
+     * Jaccard exacto entre dos conjuntos de hashes ordenados
+     */
+    private static double jaccard(long[] a, long[] b) {
+        int i = 0;
+        int j = 0;
+        int comunes = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                comunes++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) comunes / (a.length + b.length - comunes);
+    }
+
+    private void agregarTodos(Set<String> rasgos, String prefijo, String[] valores) {
+        if (valores == null) return;
+        for (String valor : valores) {
+            agregar(rasgos, prefijo, valor);
+        }
+    }
+
+    private void agregar(Set<String> rasgos, String prefijo, String valor) {
+        String normalizado = normalizar(valor);
+        if (!normalizado.isEmpty()) {
+            rasgos.add(prefijo + normalizado);
+        }
+    }
+
+    private String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return ESPACIOS.matcher(sinTildes.toLowerCase(Locale.ROOT).trim()).replaceAll(" ");
+    }
+
+    /**
+     * FNV-1a de 64 bits seguido de un mezclado final
+     */
+    private static long hashTexto(String texto) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < texto.length(); i++) {
+            hash ^= texto.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mezclar(hash);
+    }
+
+    /**
+     * Finalizador de SplitMix64: dispersa bien valores cercanos
+     */
+    private static long mezclar(long valor) {
+        long z = valor + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private record Entrada(UUID id, long[] rasgos, long[] claves, boolean conStock) {
+    }
+
+    private record Puntaje(UUID productoId, double similitud) {
+    }
+
+    private static class Indice {
+        private final Map<UUID, Entrada> entradas = new ConcurrentHashMap<>();
+        private final Map<Long, Set<UUID>> cubetas = new ConcurrentHashMap<>();
+
+        void agregar(Entrada entrada) {
+            entradas.put(entrada.id(), entrada);
+            for (long clave : entrada.claves()) {
+                cubetas.computeIfAbsent(clave, k -> ConcurrentHashMap.newKeySet()).add(entrada.id());
+            }
+        }
+
+        void quitar(UUID productoId) {
+            Entrada entrada = entradas.remove(productoId);
+            if (entrada == null) return;
+            for (long clave : entrada.claves()) {
+                Set<UUID> cubeta = cubetas.get(clave);
+                if (cubeta != null) {
+                    cubeta.remove(productoId);
+                    if (cubeta.isEmpty()) {
+                        cubetas.remove(clave, cubeta);
+                    }
+                }
+            }
+        }
+    }
+}
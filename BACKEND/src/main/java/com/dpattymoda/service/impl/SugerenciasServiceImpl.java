@@ -0,0 +1,280 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.dto.response.SugerenciaResponse;
+import com.dpattymoda.event.CatalogoModificadoEvent;
+import com.dpattymoda.repository.ProductoRepository;
+import com.dpattymoda.service.SugerenciasService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * Implementación del autocompletado con un índice de prefijos en memoria.
+ * Cada palabra (y el texto completo) de nombres, marcas y categorías es una clave
+ * de un mapa ordenado; un prefijo se resuelve con un recorrido de rango.
+ * Los prefijos de hasta tres caracteres, los más frecuentes al teclear, se guardan
+ * ya resueltos con su top-k
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SugerenciasServiceImpl implements SugerenciasService {
+
+    private static final int LIMITE_MAXIMO = 10;
+    private static final int LONGITUD_PRECALCULADA = 3;
+    private static final char SEPARADOR_CLAVE = '\u0001';
+
+    private static final String TIPO_PRODUCTO = "producto";
+    private static final String TIPO_MARCA = "marca";
+    private static final String TIPO_CATEGORIA = "categoria";
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern NO_ALFANUMERICO = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Comparator<Candidato> POR_RELEVANCIA = Comparator
+        .comparingLong(Candidato::ventas).reversed()
+        .thenComparing(Candidato::calificacion, Comparator.reverseOrder())
+        .thenComparing(Candidato::texto);
+
+    private final ProductoRepository productoRepository;
+
+    // Un refresco incremental no debe recalcular prefijos sobre un índice que la reconstrucción
+    // está por reemplazar; sugerir() lee la referencia vigente sin tomar el monitor
+    private final Object escritura = new Object();
+    private volatile Indice indice = new Indice();
+
+    @Override
+    public List<SugerenciaResponse> sugerir(String prefijo, int limite) {
+        String consulta = normalizar(prefijo);
+        if (consulta.isEmpty()) {
+            return List.of();
+        }
+
+        Indice actual = indice;
+        List<Candidato> mejores = consulta.length() <= LONGITUD_PRECALCULADA
+            ? actual.topPrefijosCortos.getOrDefault(consulta, List.of())
+            : calcularTop(actual, consulta);
+
+        return mejores.stream()
+            .limit(Math.max(1, Math.min(limite, LIMITE_MAXIMO)))
+            .map(candidato -> SugerenciaResponse.builder()
+                .texto(candidato.texto())
+                .tipo(candidato.tipo())
+                .id(candidato.id())
+                .build())
+            .toList();
+    }
+
+    @Override
+    public void actualizarProductos(Collection<UUID> productoIds) {
+        if (productoIds.isEmpty()) return;
+
+        List<Object[]> filas = productoRepository.obtenerDatosSugerenciasPorIds(productoIds);
+
+        synchronized (escritura) {
+            Indice actual = indice;
+            Set<String> prefijosAfectados = new HashSet<>();
+
+            for (UUID productoId : productoIds) {
+                List<String> claves = actual.clavesPorProducto.remove(productoId);
+                if (claves != null) {
+                    for (String clave : claves) {
+                        actual.terminos.remove(clave);
+                        agregarPrefijosCortos(clave.substring(0, clave.indexOf(SEPARADOR_CLAVE)), prefijosAfectados);
+                    }
+                }
+            }
+
+            for (Object[] fila : filas) {
+                Candidato producto = candidatoProducto(fila);
+                actual.clavesPorProducto.put(producto.id(), indexar(actual, producto, prefijosAfectados));
+
+                // Marcas y categorías nuevas entran ya; sus puntajes agregados se recalculan al reconstruir
+                for (Candidato agregado : candidatosAgregados(fila, producto)) {
+                    if (actual.agregados.putIfAbsent(agregado.clave(), agregado) == null) {
+                        indexar(actual, agregado, prefijosAfectados);
+                    }
+                }
+            }
+
+            for (String prefijo : prefijosAfectados) {
+                List<Candidato> top = calcularTop(actual, prefijo);
+                if (top.isEmpty()) {
+                    actual.topPrefijosCortos.remove(prefijo);
+                } else {
+                    actual.topPrefijosCortos.put(prefijo, top);
+                }
+            }
+        }
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.catalogo.sugerencias.intervalo-reconstruccion-ms:900000}",
+               initialDelayString = "${app.catalogo.sugerencias.intervalo-reconstruccion-ms:900000}")
+    public void reconstruir() {
+        long inicio = System.currentTimeMillis();
+
+        synchronized (escritura) {
+            Indice nuevo = new Indice();
+            Map<String, Candidato> agregados = new HashMap<>();
+
+            for (Object[] fila : productoRepository.obtenerDatosSugerencias()) {
+                Candidato producto = candidatoProducto(fila);
+                nuevo.clavesPorProducto.put(producto.id(), indexar(nuevo, producto, null));
+                for (Candidato agregado : candidatosAgregados(fila, producto)) {
+                    agregados.merge(agregado.clave(), agregado, Candidato::combinar);
+                }
+            }
+            for (Candidato agregado : agregados.values()) {
+                nuevo.agregados.put(agregado.clave(), agregado);
+                indexar(nuevo, agregado, null);
+            }
+
+            Set<String> prefijosCortos = new HashSet<>();
+            for (String clave : nuevo.terminos.keySet()) {
+                agregarPrefijosCortos(clave.substring(0, clave.indexOf(SEPARADOR_CLAVE)), prefijosCortos);
+            }
+            for (String prefijo : prefijosCortos) {
+                nuevo.topPrefijosCortos.put(prefijo, calcularTop(nuevo, prefijo));
+            }
+
+            indice = nuevo;
+        }
+
+        log.info("Índice de sugerencias reconstruido: {} términos en {} ms",
+            indice.terminos.size(), System.currentTimeMillis() - inicio);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        try {
+            reconstruir();
+        } catch (Exception e) {
+            log.error("No se pudo construir el índice de sugerencias: {}", e.getMessage(), e);
+        }
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent evento) {
+        // El stock no cambia nombres ni puntajes
+        if (evento.getTipoCambio() == CatalogoModificadoEvent.TipoCambio.STOCK) return;
+        try {
+            actualizarProductos(evento.getProductoIds());
+        } catch (Exception e) {
+            log.warn("No se pudo refrescar el índice de sugerencias para {}: {}",
+                evento.getProductoIds(), e.getMessage());
+        }
+    }
+
+    // Métodos privados de utilidad
+
+    /**
+     * Registrar las claves de un candidato: cada palabra y el texto completo normalizado
+     */
+    private List<String> indexar(Indice destino, Candidato candidato, Set<String> prefijosAfectados) {
+        String texto = normalizar(candidato.texto());
+        if (texto.isEmpty()) {
+            return List.of();
+        }
+
+        Set<String> terminos = new LinkedHashSet<>(Arrays.asList(texto.split(" ")));
+        terminos.add(texto);
+
+        List<String> claves = new ArrayList<>(terminos.size());
+        for (String termino : terminos) {
+            String clave = termino + SEPARADOR_CLAVE + candidato.clave();
+            destino.terminos.put(clave, candidato);
+            claves.add(clave);
+            if (prefijosAfectados != null) {
+                agregarPrefijosCortos(termino, prefijosAfectados);
+            }
+        }
+        return claves;
+    }
+
+    /**
+     * Mejores candidatos distintos cuyas claves empiezan con el prefijo
+     */
+    private List<Candidato> calcularTop(Indice actual, String prefijo) {
+        Map<String, Candidato> distintos = new HashMap<>();
+        for (Candidato candidato : actual.terminos
+                .subMap(prefijo, true, prefijo + Character.MAX_VALUE, false).values()) {
+            distintos.putIfAbsent(candidato.clave(), candidato);
+        }
+        return distintos.values().stream()
+            .sorted(POR_RELEVANCIA)
+            .limit(LIMITE_MAXIMO)
+            .toList();
+    }
+
+    private void agregarPrefijosCortos(String termino, Set<String> destino) {
+        for (int longitud = 1; longitud <= Math.min(LONGITUD_PRECALCULADA, termino.length()); longitud++) {
+            destino.add(termino.substring(0, longitud));
+        }
+    }
+
+    private Candidato candidatoProducto(Object[] fila) {
+        UUID id = (UUID) fila[0];
+        return new Candidato(TIPO_PRODUCTO + ":" + id, TIPO_PRODUCTO, id, (String) fila[1],
+            fila[5] != null ? ((Number) fila[5]).longValue() : 0L,
+            fila[6] != null ? (BigDecimal) fila[6] : BigDecimal.ZERO);
+    }
+
+    private List<Candidato> candidatosAgregados(Object[] fila, Candidato producto) {
+        List<Candidato> agregados = new ArrayList<>(2);
+        String marca = (String) fila[2];
+        if (marca != null && !normalizar(marca).isEmpty()) {
+            agregados.add(new Candidato(TIPO_MARCA + ":" + normalizar(marca), TIPO_MARCA, null,
+                marca.trim(), producto.ventas(), producto.calificacion()));
+        }
+        if (fila[3] != null) {
+            UUID categoriaId = (UUID) fila[3];
+            agregados.add(new Candidato(TIPO_CATEGORIA + ":" + categoriaId, TIPO_CATEGORIA, categoriaId,
+                (String) fila[4], producto.ventas(), producto.calificacion()));
+        }
+        return agregados;
+    }
+
+    private String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinTildes = DIACRITICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return NO_ALFANUMERICO.matcher(sinTildes.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Producto, marca o categoría sugerible con su puntaje de relevancia
+     */
+    private record Candidato(String clave, String tipo, UUID id, String texto,
+                             long ventas, BigDecimal calificacion) {
+
+        // Marcas y categorías suman las ventas de sus productos y conservan la mejor calificación
+        Candidato combinar(Candidato otro) {
+            return new Candidato(clave, tipo, id, texto, ventas + otro.ventas,
+                calificacion.max(otro.calificacion));
+        }
+    }
+
+    private static class Indice {
+        private final ConcurrentSkipListMap<String, Candidato> terminos = new ConcurrentSkipListMap<>();
+        private final Map<String, List<Candidato>> topPrefijosCortos = new ConcurrentHashMap<>();
+        private final Map<UUID, List<String>> clavesPorProducto = new HashMap<>();
+        private final Map<String, Candidato> agregados = new HashMap<>();
+    }
+}
@@ -0,0 +1,326 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.event.CatalogoModificadoEvent;
+import com.dpattymoda.event.CategoriasModificadasEvent;
+import com.dpattymoda.repository.ProductoRepository;
+import com.dpattymoda.service.VersionCatalogoService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de las versiones del catálogo con contadores en Redis.
+ * Cada cambio confirmado incrementa los contadores afectados y lo difunde por pub/sub; los
+ * demás nodos lo adoptan al recibirlo o en la sincronización periódica. El detalle de un
+ * producto combina su fecha_actualizacion con una versión por producto (las variantes no
+ * tocan esa fecha) y con la versión de categorías, que aparecen en el detalle; los cambios
+ * de stock sólo mueven la versión de los listados. Si Redis no responde se versiona por nodo
+ * con un prefijo de arranque, de modo que ninguna versión local coincide con la de otro nodo
+ * y no hay respuestas 304 falsas
+ */
+@Slf4j
+@Service
+public class VersionCatalogoServiceImpl implements VersionCatalogoService, MessageListener {
+
+    public static final String CLAVE_VERSION = "dpattymoda:catalogo:version";
+    public static final String CLAVE_VERSION_CATEGORIAS = "dpattymoda:catalogo:version:categorias";
+    public static final String CLAVE_VERSION_MARCAS = "dpattymoda:catalogo:version:marcas";
+    // Hash producto -> versión; el canal del mismo nombre difunde los ids separados por salto de línea
+    public static final String CLAVE_VERSION_PRODUCTOS = "dpattymoda:catalogo:version:productos";
+
+    private static final String SEPARADOR_IDS = "\n";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ProductoRepository productoRepository;
+    private final String arranque = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong versionLocal = new AtomicLong();
+
+    private final Contador listados = new Contador(CLAVE_VERSION);
+    private final Contador categorias = new Contador(CLAVE_VERSION_CATEGORIAS);
+    private final Contador marcas = new Contador(CLAVE_VERSION_MARCAS);
+    private final Map<String, Contador> contadoresPorCanal = Map.of(
+        CLAVE_VERSION, listados, CLAVE_VERSION_CATEGORIAS, categorias, CLAVE_VERSION_MARCAS, marcas);
+
+    // Vencen con la sincronización: red de seguridad por si se pierde algún mensaje de pub/sub
+    private final Cache<UUID, EstadoProducto> estadosProducto;
+    private final Cache<String, UUID> productoPorCodigo;
+    // Productos modificados sin poder incrementar Redis: se versionan por nodo hasta reintentar
+    private final Set<UUID> productosPendientes = ConcurrentHashMap.newKeySet();
+
+    public VersionCatalogoServiceImpl(StringRedisTemplate redisTemplate,
+                                      ProductoRepository productoRepository,
+                                      RedisMessageListenerContainer invalidacionCacheListenerContainer,
+                                      @Value("${app.catalogo.http.intervalo-sincronizacion-ms:30000}") long intervaloSincronizacionMs,
+                                      @Value("${app.catalogo.http.tamanio-validadores-producto:10000}") long tamanioValidadores) {
+        this.redisTemplate = redisTemplate;
+        this.productoRepository = productoRepository;
+        this.estadosProducto = Caffeine.newBuilder()
+            .maximumSize(tamanioValidadores)
+            .expireAfterWrite(Duration.ofMillis(intervaloSincronizacionMs))
+            .build();
+        this.productoPorCodigo = Caffeine.newBuilder()
+            .maximumSize(tamanioValidadores)
+            .expireAfterWrite(Duration.ofMillis(intervaloSincronizacionMs))
+            .build();
+        for (String canal : List.of(CLAVE_VERSION, CLAVE_VERSION_CATEGORIAS, CLAVE_VERSION_MARCAS,
+                CLAVE_VERSION_PRODUCTOS)) {
+            invalidacionCacheListenerContainer.addMessageListener(this, new ChannelTopic(canal));
+        }
+        sincronizar();
+    }
+
+    @Override
+    public Validador obtenerValidadorListados() {
+        return listados.obtener();
+    }
+
+    @Override
+    public Validador obtenerValidadorMarcas() {
+        return marcas.obtener();
+    }
+
+    @Override
+    public Optional<Validador> obtenerValidadorProducto(UUID productoId) {
+        EstadoProducto estado = estadosProducto.getIfPresent(productoId);
+        if (estado != null) {
+            return Optional.of(componer(estado));
+        }
+        return cargar(productoRepository.obtenerFechaActualizacion(productoId));
+    }
+
+    @Override
+    public Optional<Validador> obtenerValidadorProductoPorCodigo(String codigo) {
+        UUID productoId = productoPorCodigo.getIfPresent(codigo);
+        if (productoId != null) {
+            EstadoProducto estado = estadosProducto.getIfPresent(productoId);
+            if (estado != null) {
+                return Optional.of(componer(estado));
+            }
+        }
+
+        List<Object[]> filas = productoRepository.obtenerFechaActualizacionPorCodigo(codigo);
+        if (!filas.isEmpty()) {
+            productoPorCodigo.put(codigo, (UUID) filas.get(0)[0]);
+        }
+        return cargar(filas);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void alModificarCatalogo(CatalogoModificadoEvent evento) {
+        listados.incrementar();
+        // Ventas, reservas y reposiciones no invalidan el detalle ni las marcas
+        if (evento.getTipoCambio() == CatalogoModificadoEvent.TipoCambio.STOCK) {
+            return;
+        }
+        if (evento.getTipoCambio() == CatalogoModificadoEvent.TipoCambio.PRODUCTO) {
+            marcas.incrementar();
+        }
+        incrementarProductos(evento.getProductoIds());
+    }
+
+    @EventListener
+    public void alModificarCategorias(CategoriasModificadasEvent evento) {
+        listados.incrementar();
+        categorias.incrementar();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String canal = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String cuerpo = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            if (CLAVE_VERSION_PRODUCTOS.equals(canal)) {
+                invalidarProductos(cuerpo.lines().map(UUID::fromString).collect(Collectors.toSet()));
+                return;
+            }
+            Contador contador = contadoresPorCanal.get(canal);
+            if (contador != null) {
+                contador.adoptarGlobal(Long.parseLong(cuerpo));
+            }
+        } catch (IllegalArgumentException e) {
+            log.warn("Versión de catálogo inválida recibida en {}: {}", canal, e.getMessage());
+        }
+    }
+
+    /**
+     * Red de seguridad por si se pierde algún mensaje de pub/sub
+     */
+    @Scheduled(fixedDelayString = "${app.catalogo.http.intervalo-sincronizacion-ms:30000}")
+    public void sincronizar() {
+        if (!productosPendientes.isEmpty()) {
+            incrementarProductos(Set.copyOf(productosPendientes));
+        }
+        listados.sincronizar();
+        categorias.sincronizar();
+        marcas.sincronizar();
+    }
+
+    // Métodos privados de utilidad
+
+    private void incrementarProductos(Collection<UUID> productoIds) {
+        if (productoIds.isEmpty()) {
+            return;
+        }
+        try {
+            byte[] clave = CLAVE_VERSION_PRODUCTOS.getBytes(StandardCharsets.UTF_8);
+            redisTemplate.executePipelined((RedisCallback<Object>) conexion -> {
+                for (UUID productoId : productoIds) {
+                    conexion.hashCommands().hIncrBy(clave, productoId.toString().getBytes(StandardCharsets.UTF_8), 1);
+                }
+                return null;
+            });
+            productosPendientes.removeAll(productoIds);
+            redisTemplate.convertAndSend(CLAVE_VERSION_PRODUCTOS,
+                productoIds.stream().map(UUID::toString).collect(Collectors.joining(SEPARADOR_IDS)));
+        } catch (RuntimeException e) {
+            log.warn("No se pudo incrementar la versión de {} productos, se versionan por nodo: {}",
+                productoIds.size(), e.getMessage());
+            productosPendientes.addAll(productoIds);
+        }
+        invalidarProductos(productoIds);
+    }
+
+    private void invalidarProductos(Collection<UUID> productoIds) {
+        estadosProducto.invalidateAll(productoIds);
+        // Un cambio de código deja de resolver al mismo producto
+        productoPorCodigo.asMap().values().removeIf(productoIds::contains);
+    }
+
+    private Optional<Validador> cargar(List<Object[]> filas) {
+        if (filas.isEmpty()) {
+            return Optional.empty();
+        }
+        UUID productoId = (UUID) filas.get(0)[0];
+        LocalDateTime fechaActualizacion = (LocalDateTime) filas.get(0)[1];
+        EstadoProducto estado = estadosProducto.get(productoId, id -> leerEstado(id, fechaActualizacion));
+        return Optional.of(componer(estado));
+    }
+
+    private EstadoProducto leerEstado(UUID productoId, LocalDateTime fechaActualizacion) {
+        long fecha = fechaActualizacion != null
+            ? fechaActualizacion.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+            : 0L;
+        String version;
+        if (productosPendientes.contains(productoId)) {
+            version = versionLocal();
+        } else {
+            try {
+                Object valor = redisTemplate.opsForHash().get(CLAVE_VERSION_PRODUCTOS, productoId.toString());
+                version = valor != null ? valor.toString() : "0";
+            } catch (RuntimeException e) {
+                log.warn("No se pudo leer la versión del producto {}: {}", productoId, e.getMessage());
+                version = versionLocal();
+            }
+        }
+        // Sin versión propia basta la fecha; con ella no se sabe cuándo cambió, se toma el momento de la lectura
+        long modificadaEn = "0".equals(version) && fecha > 0 ? fecha : Math.max(fecha, System.currentTimeMillis());
+        return new EstadoProducto(fecha + "." + version, modificadaEn);
+    }
+
+    private Validador componer(EstadoProducto estado) {
+        Validador categoria = categorias.obtener();
+        return new Validador("p" + estado.valor() + "-" + categoria.valor(),
+            Math.max(estado.modificadaEn(), categoria.modificadaEn()));
+    }
+
+    private String versionLocal() {
+        return "n" + arranque + "." + versionLocal.incrementAndGet();
+    }
+
+    private record EstadoProducto(String valor, long modificadaEn) {
+    }
+
+    /**
+     * Contador global en Redis con su canal de difusión, del mismo nombre que la clave
+     */
+    private final class Contador {
+
+        private final String clave;
+        private volatile Validador validador;
+        private long versionGlobal = -1;
+        // Hubo cambios sin poder incrementar Redis: al volver hay que incrementar, no sólo leer
+        private boolean pendienteGlobal = false;
+
+        private Contador(String clave) {
+            this.clave = clave;
+            this.validador = new Validador(versionLocal(), System.currentTimeMillis());
+        }
+
+        private Validador obtener() {
+            return validador;
+        }
+
+        private void sincronizar() {
+            boolean pendiente;
+            synchronized (this) {
+                pendiente = pendienteGlobal;
+            }
+            if (pendiente) {
+                incrementar();
+                return;
+            }
+
+            try {
+                String valor = redisTemplate.opsForValue().get(clave);
+                adoptarGlobal(valor != null ? Long.parseLong(valor) : 0L);
+            } catch (RuntimeException e) {
+                log.warn("No se pudo sincronizar la versión {}: {}", clave, e.getMessage());
+            }
+        }
+
+        private void incrementar() {
+            try {
+                Long nueva = redisTemplate.opsForValue().increment(clave);
+                if (nueva == null) {
+                    throw new IllegalStateException("Redis no devolvió la versión");
+                }
+                synchronized (this) {
+                    pendienteGlobal = false;
+                }
+                adoptarGlobal(nueva);
+                redisTemplate.convertAndSend(clave, Long.toString(nueva));
+            } catch (RuntimeException e) {
+                log.warn("No se pudo incrementar la versión {}, se versiona por nodo: {}", clave, e.getMessage());
+                synchronized (this) {
+                    pendienteGlobal = true;
+                    versionGlobal = -1;
+                    validador = new Validador(versionLocal(), System.currentTimeMillis());
+                }
+            }
+        }
+
+        private synchronized void adoptarGlobal(long nueva) {
+            if (pendienteGlobal || nueva <= versionGlobal) {
+                return;
+            }
+            versionGlobal = nueva;
+            validador = new Validador("g" + nueva, System.currentTimeMillis());
+        }
+    }
+}
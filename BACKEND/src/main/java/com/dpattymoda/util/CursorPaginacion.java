@@ -0,0 +1,83 @@
+package com.dpattymoda.util;
+
+import com.dpattymoda.dto.response.CursorPageResponse;
+import com.dpattymoda.exception.BusinessException;
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Codificación de cursores opacos para paginación por clave (fecha de creación, ID)
+ */
+public final class CursorPaginacion {
+
+    public static final int TAMANIO_MAXIMO = 100;
+
+    private static final String SEPARADOR = "|";
+
+    private CursorPaginacion() {
+    }
+
+    /**
+     * Posición decodificada de un cursor: último elemento entregado en la página anterior
+     */
+    public record Posicion(LocalDateTime fechaCreacion, UUID id) {
+    }
+
+    public static String codificar(LocalDateTime fechaCreacion, UUID id) {
+        String valor = fechaCreacion + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodificar un cursor; null o vacío indica la primera página
+     */
+    public static Posicion decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.indexOf(SEPARADOR);
+            return new Posicion(
+                LocalDateTime.parse(valor.substring(0, separador)),
+                UUID.fromString(valor.substring(separador + 1)));
+        } catch (RuntimeException e) {
+            throw new BusinessException("Cursor de paginación inválido");
+        }
+    }
+
+    /**
+     * Acotar el tamaño de página solicitado por el cliente
+     */
+    public static int normalizarTamanio(int tamanio) {
+        return Math.max(1, Math.min(tamanio, TAMANIO_MAXIMO));
+    }
+
+    /**
+     * Construir la respuesta a partir del Slice, generando el cursor con el último elemento
+     */
+    public static <E, T> CursorPageResponse<T> construirRespuesta(Slice<E> slice,
+                                                                 Function<List<E>, List<T>> conversor,
+                                                                 Function<E, LocalDateTime> fechaCreacion,
+                                                                 Function<E, UUID> id) {
+        List<E> elementos = slice.getContent();
+        String siguienteCursor = null;
+        if (slice.hasNext() && !elementos.isEmpty()) {
+            E ultimo = elementos.get(elementos.size() - 1);
+            siguienteCursor = codificar(fechaCreacion.apply(ultimo), id.apply(ultimo));
+        }
+
+        return CursorPageResponse.<T>builder()
+            .contenido(conversor.apply(elementos))
+            .siguienteCursor(siguienteCursor)
+            .tieneMas(slice.hasNext())
+            .build();
+    }
+}
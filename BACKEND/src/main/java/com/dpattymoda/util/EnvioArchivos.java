@@ -0,0 +1,55 @@
+package com.dpattymoda.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Envío de archivos del disco sin copiarlos al heap.
+ * Con el conector NIO de Tomcat se delega en sendfile: el contenedor transfiere el archivo
+ * del page cache al socket cuando termina el servlet. Si no está disponible se usa
+ * FileChannel.transferTo sobre el flujo de salida
+ */
+public final class EnvioArchivos {
+
+    private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_ARCHIVO = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+    private EnvioArchivos() {
+    }
+
+    /**
+     * Escribir el archivo completo como cuerpo; las cabeceras ya deben estar puestas
+     */
+    public static void enviar(Path ruta, long tamanio, HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(tamanio);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+            request.setAttribute(SENDFILE_ARCHIVO, ruta.toString());
+            request.setAttribute(SENDFILE_INICIO, 0L);
+            request.setAttribute(SENDFILE_FIN, tamanio);
+            return;
+        }
+
+        try (FileChannel archivo = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+            long enviado = 0;
+            while (enviado < tamanio) {
+                long transferido = archivo.transferTo(enviado, tamanio - enviado, salida);
+                if (transferido <= 0) {
+                    break;
+                }
+                enviado += transferido;
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.dpattymoda.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lector CSV en streaming (RFC 4180): comillas dobles, comillas escapadas y saltos
+ * de línea dentro de campos. Detecta ',' o ';' como separador a partir de la cabecera
+ */
+public class LectorCsv implements Closeable {
+
+    private static final int LIMITE_DETECCION = 8192;
+
+    private final BufferedReader reader;
+    private final char separador;
+    private int lineaActual = 1;
+    private int lineaRegistro;
+
+    public LectorCsv(Reader origen) throws IOException {
+        this.reader = origen instanceof BufferedReader buffered ? buffered : new BufferedReader(origen);
+        this.separador = detectarSeparador();
+    }
+
+    /**
+     * Leer el siguiente registro; null al llegar al final
+     */
+    public List<String> leerRegistro() throws IOException {
+        int c = reader.read();
+        // Omitir líneas vacías entre registros
+        while (c == '\n' || c == '\r') {
+            if (c == '\n') lineaActual++;
+            c = reader.read();
+        }
+        if (c == -1) {
+            return null;
+        }
+
+        lineaRegistro = lineaActual;
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+
+        while (c != -1) {
+            if (entreComillas) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int siguiente = reader.read();
+                    if (siguiente == '"') {
+                        campo.append('"');
+                    } else {
+                        entreComillas = false;
+                        if (siguiente != -1) reader.reset();
+                    }
+                } else {
+                    if (c == '\n') lineaActual++;
+                    campo.append((char) c);
+                }
+            } else if (c == '"' && campo.isEmpty()) {
+                entreComillas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\r' || c == '\n') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') reader.reset();
+                }
+                lineaActual++;
+                break;
+            } else {
+                campo.append((char) c);
+            }
+            c = reader.read();
+        }
+
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    /**
+     * Número de línea en que comienza el último registro leído
+     */
+    public int getLineaRegistro() {
+        return lineaRegistro;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private char detectarSeparador() throws IOException {
+        reader.mark(LIMITE_DETECCION);
+        int comas = 0;
+        int puntosYComa = 0;
+        for (int i = 0, c = reader.read(); i < LIMITE_DETECCION && c != -1 && c != '\n'; i++, c = reader.read()) {
+            if (c == ',') comas++;
+            if (c == ';') puntosYComa++;
+        }
+        reader.reset();
+        return puntosYComa > comas ? ';' : ',';
+    }
+}
@@ -0,0 +1,89 @@
+package com.dpattymoda.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Rueda temporizadora con hash para miles de vencimientos sin un temporizador por elemento.
+ * Cada ranura cubre un tick; un vencimiento va a la ranura de su tick módulo el tamaño y
+ * guarda el tick absoluto, así que los que están a más de una vuelta se saltan hasta que
+ * les toca. Programar es O(1) desde cualquier hilo; avanzar lo hace un único hilo y recorre
+ * sólo las ranuras de los ticks transcurridos. Un valor puede entregarse más de una vez:
+ * quien lo consume debe ser idempotente
+ */
+public final class RuedaTemporizadora<T> {
+
+    private final long tickMs;
+    private final List<Queue<Entrada<T>>> ranuras;
+    // Programados para un tick que el cursor ya pasó mientras se agregaban
+    private final Queue<Entrada<T>> atrasados = new ConcurrentLinkedQueue<>();
+    private volatile long ultimoTick;
+
+    public RuedaTemporizadora(int cantidadRanuras, long tickMs, long ahoraMs) {
+        this.tickMs = tickMs;
+        this.ranuras = new ArrayList<>(cantidadRanuras);
+        for (int i = 0; i < cantidadRanuras; i++) {
+            ranuras.add(new ConcurrentLinkedQueue<>());
+        }
+        this.ultimoTick = ahoraMs / tickMs;
+    }
+
+    /**
+     * Programar un valor para entregarlo en cuanto pase el instante indicado (epoch en milisegundos)
+     */
+    public void programar(T valor, long vencimientoMs) {
+        long tick = Math.max((vencimientoMs + tickMs - 1) / tickMs, ultimoTick + 1);
+        Entrada<T> entrada = new Entrada<>(valor, tick);
+        ranura(tick).add(entrada);
+        if (tick <= ultimoTick) {
+            atrasados.add(entrada);
+        }
+    }
+
+    /**
+     * Avanzar el cursor hasta el instante indicado y devolver los valores vencidos
+     */
+    public synchronized List<T> avanzar(long ahoraMs) {
+        long objetivo = ahoraMs / tickMs;
+        long desde = ultimoTick + 1;
+        // Tras una pausa larga basta recorrer una vuelta completa
+        if (objetivo - desde >= ranuras.size()) {
+            desde = objetivo - ranuras.size() + 1;
+        }
+
+        List<T> vencidos = new ArrayList<>();
+        for (long tick = desde; tick <= objetivo; tick++) {
+            drenar(ranura(tick), tick, vencidos);
+            ultimoTick = tick;
+        }
+
+        Entrada<T> entrada;
+        while ((entrada = atrasados.poll()) != null) {
+            vencidos.add(entrada.valor());
+        }
+        return vencidos;
+    }
+
+    private void drenar(Queue<Entrada<T>> ranura, long tick, List<T> vencidos) {
+        List<Entrada<T>> pendientes = new ArrayList<>();
+        Entrada<T> entrada;
+        while ((entrada = ranura.poll()) != null) {
+            if (entrada.tick() <= tick) {
+                vencidos.add(entrada.valor());
+            } else {
+                // Vence en una vuelta posterior
+                pendientes.add(entrada);
+            }
+        }
+        ranura.addAll(pendientes);
+    }
+
+    private Queue<Entrada<T>> ranura(long tick) {
+        return ranuras.get((int) Math.floorMod(tick, (long) ranuras.size()));
+    }
+
+    private record Entrada<T>(T valor, long tick) {
+    }
+}
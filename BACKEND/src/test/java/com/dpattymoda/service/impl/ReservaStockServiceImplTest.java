@@ -0,0 +1,264 @@
+package com.dpattymoda.service.impl;
+
+import com.dpattymoda.exception.BusinessException;
+import com.dpattymoda.repository.VarianteProductoRepository;
+import com.dpattymoda.service.KardexService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Prueba de concurrencia del motor SQL de stock contra un Postgres real.
+ * Cada operación corre en su propia transacción, como en producción, y los hilos
+ * arrancan a la vez para competir por las mismas filas
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ReservaStockServiceImplTest {
+
+    private static final int HILOS = 32;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+
+    private final UUID sucursalId = UUID.randomUUID();
+    private ReservaStockServiceImpl reservaStockService;
+
+    @BeforeAll
+    static void crearEsquema() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        dataSource.setMaximumPoolSize(HILOS);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        // Columnas que usa el motor, con el trigger de resumen que marca productos como en producción
+        jdbcTemplate.execute("""
+            CREATE TABLE variantes_producto (
+              id uuid PRIMARY KEY,
+              producto_id uuid NOT NULL
+            );
+            CREATE TABLE inventario (
+              id uuid PRIMARY KEY DEFAULT gen_random_uuid(),
+              variante_id uuid REFERENCES variantes_producto(id),
+              sucursal_id uuid,
+              cantidad_disponible integer DEFAULT 0,
+              cantidad_reservada integer DEFAULT 0,
+              cantidad_minima integer DEFAULT 5,
+              ultimo_movimiento timestamptz DEFAULT now(),
+              fecha_ultimo_egreso timestamptz,
+              fecha_actualizacion timestamptz DEFAULT now(),
+              UNIQUE(variante_id, sucursal_id)
+            );
+            CREATE TABLE producto_resumen_pendientes (
+              id bigint GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+              producto_id uuid NOT NULL
+            );
+            CREATE FUNCTION resumen_desde_inventario_actualizado() RETURNS TRIGGER AS $$
+            BEGIN
+              INSERT INTO producto_resumen_pendientes (producto_id)
+              SELECT DISTINCT v.producto_id FROM nuevas n JOIN variantes_producto v ON v.id = n.variante_id;
+              RETURN NULL;
+            END;
+            $$ LANGUAGE plpgsql;
+            CREATE TRIGGER trigger_resumen_inventario_update
+              AFTER UPDATE ON inventario
+              REFERENCING NEW TABLE AS nuevas OLD TABLE AS antiguas
+              FOR EACH STATEMENT EXECUTE FUNCTION resumen_desde_inventario_actualizado();
+            """);
+    }
+
+    @AfterAll
+    static void cerrar() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        reservaStockService = new ReservaStockServiceImpl(jdbcTemplate, mock(VarianteProductoRepository.class),
+            mock(ApplicationEventPublisher.class), mock(KardexService.class));
+    }
+
+    @Test
+    void reservasConcurrentesDeLaMismaVarianteNoSobrevenden() throws Exception {
+        int stock = 10;
+        UUID varianteId = crearVariante(stock);
+        AtomicInteger rechazadas = new AtomicInteger();
+
+        List<Boolean> resultados = enParalelo(HILOS, hilo -> {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    reservaStockService.reservar(sucursalId, Map.of(varianteId, 1)));
+                return true;
+            } catch (BusinessException e) {
+                rechazadas.incrementAndGet();
+                return false;
+            }
+        });
+
+        assertThat(resultados.stream().filter(Boolean::booleanValue).count()).isEqualTo(stock);
+        assertThat(rechazadas.get()).isEqualTo(HILOS - stock);
+        assertThat(reservada(varianteId)).isEqualTo(stock);
+        assertThat(reservaStockService.obtenerDisponible(varianteId, sucursalId)).isZero();
+    }
+
+    @Test
+    void cestasConLineasEnOrdenCruzadoNoSeInterbloquean() throws Exception {
+        int rondas = 20;
+        UUID varianteA = crearVariante(HILOS * rondas);
+        UUID varianteB = crearVariante(HILOS * rondas);
+
+        List<Boolean> resultados = enParalelo(HILOS, hilo -> {
+            // La mitad de los hilos arma la cesta B→A y la otra A→B
+            Map<UUID, Integer> cesta = new LinkedHashMap<>();
+            if (hilo % 2 == 0) {
+                cesta.put(varianteB, 1);
+                cesta.put(varianteA, 1);
+            } else {
+                cesta.put(varianteA, 1);
+                cesta.put(varianteB, 1);
+            }
+            for (int ronda = 0; ronda < rondas; ronda++) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        reservaStockService.reservar(sucursalId, cesta);
+                        reservaStockService.confirmar(sucursalId, cesta);
+                    });
+                } catch (ConcurrencyFailureException e) {
+                    // Interbloqueo o fallo de serialización detectado por Postgres
+                    return false;
+                }
+            }
+            return true;
+        });
+
+        assertThat(resultados).containsOnly(true);
+        for (UUID varianteId : List.of(varianteA, varianteB)) {
+            assertThat(disponible(varianteId)).isZero();
+            assertThat(reservada(varianteId)).isZero();
+        }
+    }
+
+    @Test
+    void liberarOConfirmarMasDeLoReservadoFallaSinModificarStock() {
+        UUID varianteId = crearVariante(5);
+        transactionTemplate.executeWithoutResult(status -> reservaStockService.reservar(sucursalId, Map.of(varianteId, 2)));
+
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+            reservaStockService.liberar(sucursalId, Map.of(varianteId, 3))))
+            .isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+            reservaStockService.confirmar(sucursalId, Map.of(varianteId, 3))))
+            .isInstanceOf(BusinessException.class);
+
+        assertThat(disponible(varianteId)).isEqualTo(5);
+        assertThat(reservada(varianteId)).isEqualTo(2);
+    }
+
+    @Test
+    void liberacionesConcurrentesDeLaMismaReservaSoloAplicanUna() throws Exception {
+        UUID varianteId = crearVariante(5);
+        transactionTemplate.executeWithoutResult(status -> reservaStockService.reservar(sucursalId, Map.of(varianteId, 3)));
+
+        List<Boolean> resultados = enParalelo(HILOS, hilo -> {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                    reservaStockService.liberar(sucursalId, Map.of(varianteId, 3)));
+                return true;
+            } catch (BusinessException e) {
+                return false;
+            }
+        });
+
+        assertThat(resultados.stream().filter(Boolean::booleanValue).count()).isEqualTo(1);
+        assertThat(reservada(varianteId)).isZero();
+        assertThat(disponible(varianteId)).isEqualTo(5);
+    }
+
+    // Métodos privados de utilidad
+
+    private UUID crearVariante(int disponible) {
+        UUID varianteId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO variantes_producto (id, producto_id) VALUES (?, ?)", varianteId, UUID.randomUUID());
+        jdbcTemplate.update("INSERT INTO inventario (variante_id, sucursal_id, cantidad_disponible) VALUES (?, ?, ?)",
+            varianteId, sucursalId, disponible);
+        return varianteId;
+    }
+
+    private int disponible(UUID varianteId) {
+        return jdbcTemplate.queryForObject("SELECT cantidad_disponible FROM inventario WHERE variante_id = ? " +
+            "AND sucursal_id = ?", Integer.class, varianteId, sucursalId);
+    }
+
+    private int reservada(UUID varianteId) {
+        return jdbcTemplate.queryForObject("SELECT cantidad_reservada FROM inventario WHERE variante_id = ? " +
+            "AND sucursal_id = ?", Integer.class, varianteId, sucursalId);
+    }
+
+    /**
+     * Ejecutar la tarea en varios hilos que arrancan a la vez; falla si alguno no termina a tiempo
+     */
+    private <T> List<T> enParalelo(int hilos, Tarea<T> tarea) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(hilos);
+        CountDownLatch salida = new CountDownLatch(1);
+        try {
+            List<Future<T>> futuros = new ArrayList<>();
+            for (int i = 0; i < hilos; i++) {
+                int hilo = i;
+                Callable<T> llamada = () -> {
+                    salida.await();
+                    return tarea.ejecutar(hilo);
+                };
+                futuros.add(executor.submit(llamada));
+            }
+            salida.countDown();
+
+            List<T> resultados = new ArrayList<>();
+            for (Future<T> futuro : futuros) {
+                resultados.add(futuro.get(60, TimeUnit.SECONDS));
+            }
+            return resultados;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Tarea<T> {
+        T ejecutar(int hilo);
+    }
+}
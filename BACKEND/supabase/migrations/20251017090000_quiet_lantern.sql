@@ -0,0 +1,73 @@
+/*
+  # Búsqueda de Texto Completo del Catálogo
+
+  1. Extensiones
+    - `unaccent` - Búsquedas insensibles a tildes ("polo" = "pólo")
+    - `pg_trgm` - Tolerancia a errores de tipeo por similitud de trigramas
+
+  2. Cambios en Tablas
+    - `productos.vector_busqueda` - tsvector ponderado (nombre, marca, tags, SEO, descripción)
+
+  3. Índices y Optimizaciones
+    - Configuración `es_sin_tildes` (stemming español + unaccent)
+    - Índice GIN sobre `vector_busqueda`
+    - Índice GIN de trigramas sobre el nombre normalizado
+    - Trigger que mantiene el vector en cada INSERT/UPDATE, dentro de la misma transacción
+*/
+
+CREATE EXTENSION IF NOT EXISTS unaccent;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Configuración de búsqueda en español sin tildes
+DO $$
+BEGIN
+  IF NOT EXISTS (SELECT 1 FROM pg_ts_config WHERE cfgname = 'es_sin_tildes') THEN
+    CREATE TEXT SEARCH CONFIGURATION es_sin_tildes (COPY = spanish);
+    ALTER TEXT SEARCH CONFIGURATION es_sin_tildes
+      ALTER MAPPING FOR hword, hword_part, word WITH unaccent, spanish_stem;
+  END IF;
+END;
+$$;
+
+-- unaccent no es IMMUTABLE; esta envoltura permite usarla en índices de expresión
+CREATE OR REPLACE FUNCTION inmutable_unaccent(texto text) RETURNS text AS $$
+  SELECT public.unaccent('public.unaccent', texto);
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+ALTER TABLE productos ADD COLUMN IF NOT EXISTS vector_busqueda tsvector;
+
+-- Función para construir el vector de búsqueda de un producto
+CREATE OR REPLACE FUNCTION construir_vector_busqueda_producto(p productos) RETURNS tsvector AS $$
+BEGIN
+  RETURN
+    setweight(to_tsvector('es_sin_tildes', COALESCE(p.nombre_producto, '')), 'A') ||
+    setweight(to_tsvector('es_sin_tildes', COALESCE(p.marca, '')), 'B') ||
+    setweight(to_tsvector('es_sin_tildes', COALESCE(array_to_string(p.tags, ' '), '')), 'B') ||
+    setweight(to_tsvector('es_sin_tildes', COALESCE(array_to_string(p.seo_palabras_clave, ' '), '')), 'C') ||
+    setweight(to_tsvector('es_sin_tildes',
+      COALESCE(p.descripcion_corta, '') || ' ' || COALESCE(p.descripcion, '')), 'D');
+END;
+$$ LANGUAGE plpgsql STABLE;
+
+-- Trigger para mantener el vector de búsqueda actualizado
+CREATE OR REPLACE FUNCTION trigger_actualizar_vector_busqueda() RETURNS trigger AS $$
+BEGIN
+  NEW.vector_busqueda := construir_vector_busqueda_producto(NEW);
+  RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trigger_productos_vector_busqueda ON productos;
+CREATE TRIGGER trigger_productos_vector_busqueda
+  BEFORE INSERT OR UPDATE OF nombre_producto, marca, tags, seo_palabras_clave, descripcion, descripcion_corta
+  ON productos
+  FOR EACH ROW
+  EXECUTE FUNCTION trigger_actualizar_vector_busqueda();
+
+-- Poblar el vector de los productos existentes
+UPDATE productos p SET vector_busqueda = construir_vector_busqueda_producto(p);
+
+-- Índices para búsqueda
+CREATE INDEX IF NOT EXISTS idx_productos_vector_busqueda ON productos USING gin(vector_busqueda);
+CREATE INDEX IF NOT EXISTS idx_productos_nombre_trgm
+  ON productos USING gin(inmutable_unaccent(lower(nombre_producto)) gin_trgm_ops);
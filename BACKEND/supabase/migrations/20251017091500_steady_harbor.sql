@@ -0,0 +1,24 @@
+/*
+  # Índices para Paginación por Cursor
+
+  1. Índices y Optimizaciones
+    - Índices compuestos `(fecha_creacion DESC, id DESC)` que cubren el orden
+      estable usado por los listados con cursor
+    - Índices parciales sobre registros activos para catálogo y usuarios
+    - Cada página arranca directamente en la posición del cursor, sin OFFSET ni COUNT(*)
+*/
+
+CREATE INDEX IF NOT EXISTS idx_productos_activos_cursor
+  ON productos(fecha_creacion DESC, id DESC)
+  WHERE activo = true;
+
+CREATE INDEX IF NOT EXISTS idx_productos_categoria_cursor
+  ON productos(categoria_id, fecha_creacion DESC, id DESC)
+  WHERE activo = true;
+
+CREATE INDEX IF NOT EXISTS idx_pedidos_usuario_cursor
+  ON pedidos(usuario_id, fecha_creacion DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_usuarios_activos_cursor
+  ON usuarios(fecha_creacion DESC, id DESC)
+  WHERE activo = true;
@@ -0,0 +1,179 @@
+/*
+  # Resumen Denormalizado de Productos
+
+  1. Nuevas Tablas
+    - `producto_resumen` - Stock total, stock disponible, tallas y colores por producto
+
+  2. Mantenimiento
+    - Triggers por sentencia sobre `inventario` y `variantes_producto` que recalculan
+      sólo los productos afectados, dentro de la misma transacción
+    - La fila del resumen se bloquea antes de recalcular para que dos transacciones
+      concurrentes sobre el mismo producto no se pisen
+    - Carga inicial para los productos existentes
+
+  3. Lectura
+    - El catálogo obtiene stock, tallas y colores con una sola fila por producto
+*/
+
+CREATE TABLE IF NOT EXISTS producto_resumen (
+  producto_id uuid PRIMARY KEY REFERENCES productos(id) ON DELETE CASCADE,
+  stock_total integer NOT NULL DEFAULT 0,
+  stock_disponible integer NOT NULL DEFAULT 0,
+  tallas text[] NOT NULL DEFAULT '{}',
+  colores text[] NOT NULL DEFAULT '{}',
+  fecha_actualizacion timestamptz DEFAULT now()
+);
+
+-- Recalcular el resumen de un conjunto de productos
+CREATE OR REPLACE FUNCTION refrescar_producto_resumen(p_producto_ids uuid[])
+RETURNS void AS $$
+BEGIN
+  IF p_producto_ids IS NULL OR cardinality(p_producto_ids) = 0 THEN
+    RETURN;
+  END IF;
+
+  INSERT INTO producto_resumen (producto_id)
+  SELECT p.id FROM productos p WHERE p.id = ANY(p_producto_ids)
+  ON CONFLICT (producto_id) DO NOTHING;
+
+  -- Bloqueo en orden estable; el cálculo posterior ve lo confirmado por quien tenía el bloqueo
+  PERFORM 1 FROM producto_resumen
+  WHERE producto_id = ANY(p_producto_ids)
+  ORDER BY producto_id
+  FOR UPDATE;
+
+  UPDATE producto_resumen r SET
+    stock_total = COALESCE(s.stock_total, 0),
+    stock_disponible = COALESCE(s.stock_disponible, 0),
+    tallas = COALESCE(t.tallas, '{}'),
+    colores = COALESCE(c.colores, '{}'),
+    fecha_actualizacion = now()
+  FROM unnest(p_producto_ids) AS ids(producto_id)
+  LEFT JOIN (
+    SELECT v.producto_id,
+           SUM(i.cantidad_disponible)::integer AS stock_total,
+           SUM(i.cantidad_disponible - i.cantidad_reservada)::integer AS stock_disponible
+    FROM inventario i
+    JOIN variantes_producto v ON v.id = i.variante_id
+    WHERE v.producto_id = ANY(p_producto_ids) AND v.activo = true
+    GROUP BY v.producto_id
+  ) s ON s.producto_id = ids.producto_id
+  LEFT JOIN (
+    SELECT producto_id, array_agg(DISTINCT talla ORDER BY talla) AS tallas
+    FROM variantes_producto
+    WHERE producto_id = ANY(p_producto_ids) AND activo = true AND talla IS NOT NULL
+    GROUP BY producto_id
+  ) t ON t.producto_id = ids.producto_id
+  LEFT JOIN (
+    SELECT producto_id, array_agg(DISTINCT color ORDER BY color) AS colores
+    FROM variantes_producto
+    WHERE producto_id = ANY(p_producto_ids) AND activo = true AND color IS NOT NULL
+    GROUP BY producto_id
+  ) c ON c.producto_id = ids.producto_id
+  WHERE r.producto_id = ids.producto_id;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Inventario: productos afectados a partir de las filas de transición
+CREATE OR REPLACE FUNCTION resumen_desde_inventario_insertado()
+RETURNS TRIGGER AS $$
+BEGIN
+  PERFORM refrescar_producto_resumen(ARRAY(
+    SELECT DISTINCT v.producto_id FROM nuevas n JOIN variantes_producto v ON v.id = n.variante_id));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION resumen_desde_inventario_actualizado()
+RETURNS TRIGGER AS $$
+BEGIN
+  PERFORM refrescar_producto_resumen(ARRAY(
+    SELECT DISTINCT v.producto_id FROM (
+      SELECT variante_id FROM nuevas
+      UNION
+      SELECT variante_id FROM antiguas
+    ) x JOIN variantes_producto v ON v.id = x.variante_id));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION resumen_desde_inventario_eliminado()
+RETURNS TRIGGER AS $$
+BEGIN
+  PERFORM refrescar_producto_resumen(ARRAY(
+    SELECT DISTINCT v.producto_id FROM antiguas a JOIN variantes_producto v ON v.id = a.variante_id));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trigger_resumen_inventario_insert ON inventario;
+CREATE TRIGGER trigger_resumen_inventario_insert
+  AFTER INSERT ON inventario
+  REFERENCING NEW TABLE AS nuevas
+  FOR EACH STATEMENT EXECUTE FUNCTION resumen_desde_inventario_insertado();
+
+DROP TRIGGER IF EXISTS trigger_resumen_inventario_update ON inventario;
+CREATE TRIGGER trigger_resumen_inventario_update
+  AFTER UPDATE ON inventario
+  REFERENCING NEW TABLE AS nuevas OLD TABLE AS antiguas
+  FOR EACH STATEMENT EXECUTE FUNCTION resumen_desde_inventario_actualizado();
+
+DROP TRIGGER IF EXISTS trigger_resumen_inventario_delete ON inventario;
+CREATE TRIGGER trigger_resumen_inventario_delete
+  AFTER DELETE ON inventario
+  REFERENCING OLD TABLE AS antiguas
+  FOR EACH STATEMENT EXECUTE FUNCTION resumen_desde_inventario_eliminado();
+
+-- Variantes: cambios de talla, color, estado o producto
+CREATE OR REPLACE FUNCTION resumen_desde_variantes_insertadas()
+RETURNS TRIGGER AS $$
+BEGIN
+  PERFORM refrescar_producto_resumen(ARRAY(SELECT DISTINCT producto_id FROM nuevas));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION resumen_desde_variantes_actualizadas()
+RETURNS TRIGGER AS $$
+BEGIN
+  PERFORM refrescar_producto_resumen(ARRAY(
+    SELECT n.producto_id FROM nuevas n JOIN antiguas a ON a.id = n.id
+    WHERE n.talla IS DISTINCT FROM a.talla
+       OR n.color IS DISTINCT FROM a.color
+       OR n.activo IS DISTINCT FROM a.activo
+       OR n.producto_id IS DISTINCT FROM a.producto_id
+    UNION
+    SELECT a.producto_id FROM nuevas n JOIN antiguas a ON a.id = n.id
+    WHERE n.producto_id IS DISTINCT FROM a.producto_id));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION resumen_desde_variantes_eliminadas()
+RETURNS TRIGGER AS $$
+BEGIN
+  PERFORM refrescar_producto_resumen(ARRAY(SELECT DISTINCT producto_id FROM antiguas));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trigger_resumen_variantes_insert ON variantes_producto;
+CREATE TRIGGER trigger_resumen_variantes_insert
+  AFTER INSERT ON variantes_producto
+  REFERENCING NEW TABLE AS nuevas
+  FOR EACH STATEMENT EXECUTE FUNCTION resumen_desde_variantes_insertadas();
+
+DROP TRIGGER IF EXISTS trigger_resumen_variantes_update ON variantes_producto;
+CREATE TRIGGER trigger_resumen_variantes_update
+  AFTER UPDATE ON variantes_producto
+  REFERENCING NEW TABLE AS nuevas OLD TABLE AS antiguas
+  FOR EACH STATEMENT EXECUTE FUNCTION resumen_desde_variantes_actualizadas();
+
+DROP TRIGGER IF EXISTS trigger_resumen_variantes_delete ON variantes_producto;
+CREATE TRIGGER trigger_resumen_variantes_delete
+  AFTER DELETE ON variantes_producto
+  REFERENCING OLD TABLE AS antiguas
+  FOR EACH STATEMENT EXECUTE FUNCTION resumen_desde_variantes_eliminadas();
+
+-- Carga inicial
+SELECT refrescar_producto_resumen(ARRAY(SELECT id FROM productos));
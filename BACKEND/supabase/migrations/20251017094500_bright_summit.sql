@@ -0,0 +1,25 @@
+/*
+  # Índices para Rankings del Catálogo
+
+  1. Índices y Optimizaciones
+    - Índices parciales sobre productos activos en el orden de cada ranking
+      (más vendidos, mejor calificados, destacados y nuevos)
+    - Los rankings acotados leen sólo las primeras filas del índice en lugar de
+      ordenar la tabla completa
+*/
+
+CREATE INDEX IF NOT EXISTS idx_productos_mas_vendidos
+  ON productos(total_ventas DESC)
+  WHERE activo = true;
+
+CREATE INDEX IF NOT EXISTS idx_productos_mejor_calificados
+  ON productos(calificacion_promedio DESC, total_reseñas DESC)
+  WHERE activo = true;
+
+CREATE INDEX IF NOT EXISTS idx_productos_destacados
+  ON productos(total_ventas DESC)
+  WHERE activo = true AND destacado = true;
+
+CREATE INDEX IF NOT EXISTS idx_productos_nuevos
+  ON productos(fecha_creacion DESC)
+  WHERE activo = true AND nuevo = true;
@@ -0,0 +1,64 @@
+/*
+  # Programación de Precios Masivos
+
+  1. Nuevas Tablas
+    - `programacion_precios`: cambios de precio de oferta sobre un conjunto de
+      productos (subárbol de categoría, marca, tag o IDs), con inicio y fin opcionales
+    - `programacion_precios_detalle`: precio de oferta anterior y aplicado por
+      producto, para restaurarlo al finalizar la vigencia
+
+  2. Índices y Optimizaciones
+    - Índices parciales para que el planificador encuentre sólo las programaciones
+      pendientes de activar o de finalizar
+    - Índices sobre categoría padre, marca y tags para resolver los selectores
+*/
+
+CREATE TABLE IF NOT EXISTS programacion_precios (
+  id uuid PRIMARY KEY DEFAULT gen_random_uuid(),
+  operacion varchar(30) NOT NULL,
+  valor decimal(10,2),
+  categoria_id uuid REFERENCES categorias(id),
+  marca varchar(100),
+  tag varchar(100),
+  producto_ids uuid[],
+  fecha_inicio timestamptz NOT NULL DEFAULT now(),
+  fecha_fin timestamptz,
+  estado varchar(20) NOT NULL DEFAULT 'programada',
+  productos_afectados integer DEFAULT 0,
+  fecha_creacion timestamptz DEFAULT now(),
+  fecha_actualizacion timestamptz DEFAULT now(),
+  CONSTRAINT chk_programacion_precios_operacion
+    CHECK (operacion IN ('precio_fijo', 'descuento_porcentaje', 'descuento_monto', 'quitar_oferta')),
+  CONSTRAINT chk_programacion_precios_estado
+    CHECK (estado IN ('programada', 'activa', 'aplicada', 'finalizada', 'cancelada')),
+  CONSTRAINT chk_programacion_precios_fechas
+    CHECK (fecha_fin IS NULL OR fecha_fin > fecha_inicio)
+);
+
+CREATE TABLE IF NOT EXISTS programacion_precios_detalle (
+  programacion_id uuid NOT NULL REFERENCES programacion_precios(id) ON DELETE CASCADE,
+  producto_id uuid NOT NULL REFERENCES productos(id) ON DELETE CASCADE,
+  precio_oferta_anterior decimal(10,2),
+  precio_oferta_aplicado decimal(10,2),
+  PRIMARY KEY (programacion_id, producto_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_programacion_precios_pendientes
+  ON programacion_precios(fecha_inicio)
+  WHERE estado = 'programada';
+
+CREATE INDEX IF NOT EXISTS idx_programacion_precios_activas
+  ON programacion_precios(fecha_fin)
+  WHERE estado = 'activa';
+
+CREATE INDEX IF NOT EXISTS idx_categorias_padre
+  ON categorias(categoria_padre_id);
+
+CREATE INDEX IF NOT EXISTS idx_productos_marca_lower
+  ON productos(lower(marca));
+
+CREATE INDEX IF NOT EXISTS idx_productos_tags
+  ON productos USING gin(tags);
+
+ALTER TABLE programacion_precios ENABLE ROW LEVEL SECURITY;
+ALTER TABLE programacion_precios_detalle ENABLE ROW LEVEL SECURITY;
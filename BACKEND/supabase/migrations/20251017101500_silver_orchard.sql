@@ -0,0 +1,102 @@
+/*
+  # JSON Tipado de Productos
+
+  1. Normalización de Datos
+    - `imagenes`, `dimensiones` y `caracteristicas` guardados como texto JSON
+      (doble codificación) se convierten a su valor JSON real
+    - `imagenes` queda siempre como arreglo de textos
+    - `dimensiones` queda como objeto con `largo`, `ancho` y `alto` numéricos; lo que
+      no se puede interpretar se conserva como texto en `caracteristicas`
+    - `caracteristicas` queda como objeto de pares clave/texto
+
+  2. Restricciones
+    - Restricciones CHECK sobre el tipo JSON de cada columna para que la aplicación
+      pueda mapearlas a objetos tipados sin errores de lectura
+*/
+
+-- Desenvolver un valor JSON que contiene texto JSON; si el texto no es JSON se deja igual
+CREATE OR REPLACE FUNCTION desenvolver_jsonb_texto(p_valor jsonb) RETURNS jsonb AS $$
+BEGIN
+  IF p_valor IS NULL OR jsonb_typeof(p_valor) <> 'string' THEN
+    RETURN p_valor;
+  END IF;
+
+  BEGIN
+    RETURN (p_valor #>> '{}')::jsonb;
+  EXCEPTION WHEN invalid_text_representation THEN
+    RETURN p_valor;
+  END;
+END;
+$$ LANGUAGE plpgsql IMMUTABLE;
+
+UPDATE productos SET
+  imagenes = desenvolver_jsonb_texto(imagenes),
+  dimensiones = desenvolver_jsonb_texto(dimensiones),
+  caracteristicas = desenvolver_jsonb_texto(caracteristicas)
+WHERE jsonb_typeof(imagenes) = 'string'
+   OR jsonb_typeof(dimensiones) = 'string'
+   OR jsonb_typeof(caracteristicas) = 'string';
+
+UPDATE productos SET imagenes = NULL WHERE jsonb_typeof(imagenes) = 'null';
+UPDATE productos SET dimensiones = NULL WHERE jsonb_typeof(dimensiones) = 'null';
+UPDATE productos SET caracteristicas = NULL WHERE jsonb_typeof(caracteristicas) = 'null';
+
+-- Imágenes: siempre un arreglo de URLs
+UPDATE productos SET imagenes = CASE
+    WHEN jsonb_typeof(imagenes) = 'string' THEN jsonb_build_array(imagenes)
+    ELSE '[]'::jsonb
+  END
+WHERE jsonb_typeof(imagenes) <> 'array';
+
+UPDATE productos SET imagenes = (
+    SELECT COALESCE(jsonb_agg(to_jsonb(e #>> '{}')), '[]'::jsonb)
+    FROM jsonb_array_elements(imagenes) e
+    WHERE jsonb_typeof(e) <> 'null')
+WHERE jsonb_typeof(imagenes) = 'array'
+  AND EXISTS (SELECT 1 FROM jsonb_array_elements(imagenes) e WHERE jsonb_typeof(e) <> 'string');
+
+-- Dimensiones que no son un objeto con medidas numéricas pasan a características como texto
+UPDATE productos SET
+  caracteristicas = CASE
+      WHEN jsonb_typeof(caracteristicas) = 'object' THEN caracteristicas
+      WHEN caracteristicas IS NULL THEN '{}'::jsonb
+      ELSE jsonb_build_object('descripcion', caracteristicas #>> '{}')
+    END || jsonb_build_object('dimensiones', dimensiones #>> '{}'),
+  dimensiones = CASE
+      WHEN jsonb_typeof(dimensiones) = 'object' THEN (
+        SELECT COALESCE(jsonb_object_agg(d.key, d.value), '{}'::jsonb)
+        FROM jsonb_each(dimensiones) d
+        WHERE d.key NOT IN ('largo', 'ancho', 'alto')
+           OR jsonb_typeof(d.value) = 'number'
+           OR (d.value #>> '{}') ~ '^\s*-?[0-9]+(\.[0-9]+)?\s*$')
+      ELSE NULL
+    END
+WHERE dimensiones IS NOT NULL
+  AND (jsonb_typeof(dimensiones) <> 'object'
+       OR EXISTS (SELECT 1 FROM jsonb_each(dimensiones) d
+                  WHERE d.key IN ('largo', 'ancho', 'alto')
+                    AND jsonb_typeof(d.value) NOT IN ('number', 'null')
+                    AND (d.value #>> '{}') !~ '^\s*-?[0-9]+(\.[0-9]+)?\s*$'));
+
+-- Características: objeto de pares clave/texto
+UPDATE productos SET caracteristicas = jsonb_build_object('descripcion', caracteristicas #>> '{}')
+WHERE jsonb_typeof(caracteristicas) <> 'object';
+
+UPDATE productos SET caracteristicas = (
+    SELECT COALESCE(jsonb_object_agg(c.key, to_jsonb(c.value #>> '{}')), '{}'::jsonb)
+    FROM jsonb_each(caracteristicas) c)
+WHERE jsonb_typeof(caracteristicas) = 'object'
+  AND EXISTS (SELECT 1 FROM jsonb_each(caracteristicas) c
+              WHERE jsonb_typeof(c.value) NOT IN ('string', 'null'));
+
+ALTER TABLE productos DROP CONSTRAINT IF EXISTS chk_productos_imagenes_json;
+ALTER TABLE productos ADD CONSTRAINT chk_productos_imagenes_json
+  CHECK (imagenes IS NULL OR jsonb_typeof(imagenes) = 'array');
+
+ALTER TABLE productos DROP CONSTRAINT IF EXISTS chk_productos_dimensiones_json;
+ALTER TABLE productos ADD CONSTRAINT chk_productos_dimensiones_json
+  CHECK (dimensiones IS NULL OR jsonb_typeof(dimensiones) = 'object');
+
+ALTER TABLE productos DROP CONSTRAINT IF EXISTS chk_productos_caracteristicas_json;
+ALTER TABLE productos ADD CONSTRAINT chk_productos_caracteristicas_json
+  CHECK (caracteristicas IS NULL OR jsonb_typeof(caracteristicas) = 'object');
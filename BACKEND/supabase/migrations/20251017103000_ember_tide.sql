@@ -0,0 +1,36 @@
+/*
+  # Reservas de Stock con Vencimiento
+
+  1. Nuevas Tablas
+    - `reservas_stock`: cantidad reservada por variante y sucursal para un pedido, con
+      fecha de expiración y estado (activa, confirmada, liberada, expirada)
+
+  2. Índices y Optimizaciones
+    - Índice parcial por fecha de expiración sólo sobre las reservas activas: la carga
+      al arrancar no recorre el histórico
+    - Índice por pedido para confirmar, liberar o extender todas sus reservas
+*/
+
+CREATE TABLE IF NOT EXISTS reservas_stock (
+  id uuid PRIMARY KEY DEFAULT gen_random_uuid(),
+  pedido_id uuid NOT NULL REFERENCES pedidos(id) ON DELETE CASCADE,
+  variante_id uuid NOT NULL REFERENCES variantes_producto(id),
+  sucursal_id uuid NOT NULL REFERENCES sucursales(id),
+  cantidad integer NOT NULL,
+  estado varchar(20) NOT NULL DEFAULT 'activa',
+  fecha_expiracion timestamptz NOT NULL,
+  fecha_creacion timestamptz DEFAULT now(),
+  fecha_resolucion timestamptz,
+  CONSTRAINT chk_reservas_stock_cantidad CHECK (cantidad > 0),
+  CONSTRAINT chk_reservas_stock_estado
+    CHECK (estado IN ('activa', 'confirmada', 'liberada', 'expirada'))
+);
+
+CREATE INDEX IF NOT EXISTS idx_reservas_stock_activas
+  ON reservas_stock(fecha_expiracion)
+  WHERE estado = 'activa';
+
+CREATE INDEX IF NOT EXISTS idx_reservas_stock_pedido
+  ON reservas_stock(pedido_id);
+
+ALTER TABLE reservas_stock ENABLE ROW LEVEL SECURITY;
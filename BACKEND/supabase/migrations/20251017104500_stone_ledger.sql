@@ -0,0 +1,118 @@
+/*
+  # Kardex de Inventario con Snapshots
+
+  1. Nuevas Tablas
+    - `kardex_movimientos`: diario de sólo agregado con un movimiento tipado por fila
+      (ingreso, reserva, venta, liberacion, transferencia, ajuste) y sus deltas sobre
+      disponible y reservado; particionado por mes según la fecha del movimiento
+    - `kardex_snapshots`: saldo y costo promedio por variante y sucursal en cada corte;
+      sólo se escriben los pares que tuvieron movimientos desde el corte anterior
+    - `kardex_cortes`: cada corte con el id del último movimiento que incluye; el saldo
+      posterior se reproduce con los movimientos de id mayor, sin depender de relojes
+
+  2. Índices y Optimizaciones
+    - Sin claves foráneas en el diario: la aplicación escribe por lotes y el histórico
+      sobrevive a la eliminación de variantes
+    - Índice por (variante, sucursal, fecha) en cada partición para reproducir un saldo
+    - Índice por (variante, sucursal, corte descendente) para hallar el snapshot más cercano
+    - `crear_particion_kardex` crea la partición de un mes; la aplicación la invoca por
+      adelantado y la partición por defecto recibe lo que llegue sin partición propia
+
+  3. Carga Inicial
+    - Un movimiento de ajuste por inventario existente con su stock actual, de modo que
+      reproducir el diario desde el principio dé los saldos vigentes
+
+  4. Auditoría
+    - `trigger_auditoria_inventario` deja de dispararse por cambios de cantidades, que
+      copiaban la fila completa en `auditoria` en cada venta y reserva: el kardex registra
+      esos movimientos. Se siguen auditando altas, bajas y cambios de costo promedio,
+      mínimos, máximos, ubicación y asignación de variante o sucursal
+*/
+
+CREATE TABLE IF NOT EXISTS kardex_movimientos (
+  id bigint GENERATED ALWAYS AS IDENTITY,
+  variante_id uuid NOT NULL,
+  sucursal_id uuid NOT NULL,
+  tipo varchar(15) NOT NULL,
+  delta_disponible integer NOT NULL DEFAULT 0,
+  delta_reservada integer NOT NULL DEFAULT 0,
+  costo_unitario decimal(10,2),
+  referencia_id uuid,
+  fecha_movimiento timestamptz NOT NULL DEFAULT now(),
+  PRIMARY KEY (id, fecha_movimiento),
+  CONSTRAINT chk_kardex_movimientos_tipo
+    CHECK (tipo IN ('ingreso', 'reserva', 'venta', 'liberacion', 'transferencia', 'ajuste'))
+) PARTITION BY RANGE (fecha_movimiento);
+
+CREATE TABLE IF NOT EXISTS kardex_movimientos_default
+  PARTITION OF kardex_movimientos DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_kardex_movimientos_variante_sucursal
+  ON kardex_movimientos(variante_id, sucursal_id, fecha_movimiento);
+
+-- Crear la partición mensual que contiene la fecha indicada si aún no existe
+CREATE OR REPLACE FUNCTION crear_particion_kardex(p_fecha date)
+RETURNS void AS $$
+DECLARE
+  v_desde date := date_trunc('month', p_fecha)::date;
+  v_hasta date := (date_trunc('month', p_fecha) + interval '1 month')::date;
+  v_nombre text := 'kardex_movimientos_' || to_char(p_fecha, 'YYYYMM');
+BEGIN
+  IF to_regclass(v_nombre) IS NULL THEN
+    EXECUTE format('CREATE TABLE %I PARTITION OF kardex_movimientos FOR VALUES FROM (%L) TO (%L)',
+      v_nombre, v_desde, v_hasta);
+    EXECUTE format('ALTER TABLE %I ENABLE ROW LEVEL SECURITY', v_nombre);
+  END IF;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT crear_particion_kardex(current_date);
+SELECT crear_particion_kardex((current_date + interval '1 month')::date);
+
+CREATE TABLE IF NOT EXISTS kardex_snapshots (
+  variante_id uuid NOT NULL,
+  sucursal_id uuid NOT NULL,
+  fecha_corte timestamptz NOT NULL,
+  cantidad_disponible integer NOT NULL,
+  cantidad_reservada integer NOT NULL,
+  costo_promedio decimal(10,2),
+  PRIMARY KEY (variante_id, sucursal_id, fecha_corte)
+);
+
+CREATE INDEX IF NOT EXISTS idx_kardex_snapshots_corte
+  ON kardex_snapshots(fecha_corte);
+
+CREATE TABLE IF NOT EXISTS kardex_cortes (
+  fecha_corte timestamptz PRIMARY KEY,
+  ultimo_movimiento_id bigint NOT NULL
+);
+
+INSERT INTO kardex_movimientos (variante_id, sucursal_id, tipo, delta_disponible, delta_reservada,
+                                costo_unitario, fecha_movimiento)
+SELECT variante_id, sucursal_id, 'ajuste', cantidad_disponible, cantidad_reservada, costo_promedio, now()
+FROM inventario
+WHERE NOT EXISTS (SELECT 1 FROM kardex_movimientos);
+
+DROP TRIGGER IF EXISTS trigger_auditoria_inventario ON inventario;
+CREATE TRIGGER trigger_auditoria_inventario
+  AFTER UPDATE OF variante_id, sucursal_id, cantidad_minima, cantidad_maxima, ubicacion_fisica, costo_promedio
+  ON inventario
+  FOR EACH ROW
+  -- Hibernate escribe todas las columnas: sólo cuenta si alguna cambió de verdad
+  WHEN (OLD.variante_id IS DISTINCT FROM NEW.variante_id
+     OR OLD.sucursal_id IS DISTINCT FROM NEW.sucursal_id
+     OR OLD.cantidad_minima IS DISTINCT FROM NEW.cantidad_minima
+     OR OLD.cantidad_maxima IS DISTINCT FROM NEW.cantidad_maxima
+     OR OLD.ubicacion_fisica IS DISTINCT FROM NEW.ubicacion_fisica
+     OR OLD.costo_promedio IS DISTINCT FROM NEW.costo_promedio)
+  EXECUTE FUNCTION trigger_auditoria_generica();
+
+DROP TRIGGER IF EXISTS trigger_auditoria_inventario_alta_baja ON inventario;
+CREATE TRIGGER trigger_auditoria_inventario_alta_baja
+  AFTER INSERT OR DELETE ON inventario
+  FOR EACH ROW EXECUTE FUNCTION trigger_auditoria_generica();
+
+ALTER TABLE kardex_movimientos ENABLE ROW LEVEL SECURITY;
+ALTER TABLE kardex_movimientos_default ENABLE ROW LEVEL SECURITY;
+ALTER TABLE kardex_snapshots ENABLE ROW LEVEL SECURITY;
+ALTER TABLE kardex_cortes ENABLE ROW LEVEL SECURITY;
@@ -0,0 +1,126 @@
+/*
+  # Resumen de Productos Fuera de la Transacción de Venta
+
+  1. Nuevas Tablas
+    - `producto_resumen_pendientes`: productos cuyo resumen hay que recalcular; sólo se
+      insertan filas, sin clave única, así que marcar un producto no espera a nadie
+
+  2. Mantenimiento
+    - Los triggers de `inventario` y `variantes_producto` ya no recalculan ni bloquean la
+      fila de `producto_resumen`: antes cada reserva, venta o liberación retenía el bloqueo
+      del producto hasta el commit, serializando las ventas de un mismo producto y pudiendo
+      bloquearse en cruce entre cestas con varias variantes
+    - `procesar_producto_resumen_pendientes` toma un lote con SKIP LOCKED, lo borra y
+      recalcula esos productos; la aplicación la invoca periódicamente en su propia transacción
+
+  3. Índices y Optimizaciones
+    - El recálculo mantiene el bloqueo ordenado de `refrescar_producto_resumen`: ahora sólo
+      compiten entre sí los procesos de resumen
+*/
+
+CREATE TABLE IF NOT EXISTS producto_resumen_pendientes (
+  id bigint GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+  producto_id uuid NOT NULL,
+  fecha_creacion timestamptz DEFAULT now()
+);
+
+-- Marcar productos para recalcular; sin ON CONFLICT para no esperar inserciones concurrentes
+CREATE OR REPLACE FUNCTION marcar_producto_resumen(p_producto_ids uuid[])
+RETURNS void AS $$
+BEGIN
+  IF p_producto_ids IS NULL OR cardinality(p_producto_ids) = 0 THEN
+    RETURN;
+  END IF;
+
+  INSERT INTO producto_resumen_pendientes (producto_id)
+  SELECT DISTINCT unnest(p_producto_ids);
+END;
+$$ LANGUAGE plpgsql;
+
+-- Recalcular un lote de productos marcados; devuelve los productos recalculados
+CREATE OR REPLACE FUNCTION procesar_producto_resumen_pendientes(p_limite integer)
+RETURNS uuid[] AS $$
+DECLARE
+  v_producto_ids uuid[];
+BEGIN
+  WITH lote AS (
+    DELETE FROM producto_resumen_pendientes
+    WHERE id IN (
+      SELECT id FROM producto_resumen_pendientes
+      ORDER BY id
+      LIMIT p_limite
+      FOR UPDATE SKIP LOCKED
+    )
+    RETURNING producto_id
+  )
+  SELECT array_agg(DISTINCT producto_id) INTO v_producto_ids FROM lote;
+
+  PERFORM refrescar_producto_resumen(v_producto_ids);
+  RETURN COALESCE(v_producto_ids, '{}');
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION resumen_desde_inventario_insertado()
+RETURNS TRIGGER AS $$
+BEGIN
+  PERFORM marcar_producto_resumen(ARRAY(
+    SELECT DISTINCT v.producto_id FROM nuevas n JOIN variantes_producto v ON v.id = n.variante_id));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION resumen_desde_inventario_actualizado()
+RETURNS TRIGGER AS $$
+BEGIN
+  PERFORM marcar_producto_resumen(ARRAY(
+    SELECT DISTINCT v.producto_id FROM (
+      SELECT variante_id FROM nuevas
+      UNION
+      SELECT variante_id FROM antiguas
+    ) x JOIN variantes_producto v ON v.id = x.variante_id));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION resumen_desde_inventario_eliminado()
+RETURNS TRIGGER AS $$
+BEGIN
+  PERFORM marcar_producto_resumen(ARRAY(
+    SELECT DISTINCT v.producto_id FROM antiguas a JOIN variantes_producto v ON v.id = a.variante_id));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION resumen_desde_variantes_insertadas()
+RETURNS TRIGGER AS $$
+BEGIN
+  PERFORM marcar_producto_resumen(ARRAY(SELECT DISTINCT producto_id FROM nuevas));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION resumen_desde_variantes_actualizadas()
+RETURNS TRIGGER AS $$
+BEGIN
+  PERFORM marcar_producto_resumen(ARRAY(
+    SELECT n.producto_id FROM nuevas n JOIN antiguas a ON a.id = n.id
+    WHERE n.talla IS DISTINCT FROM a.talla
+       OR n.color IS DISTINCT FROM a.color
+       OR n.activo IS DISTINCT FROM a.activo
+       OR n.producto_id IS DISTINCT FROM a.producto_id
+    UNION
+    SELECT a.producto_id FROM nuevas n JOIN antiguas a ON a.id = n.id
+    WHERE n.producto_id IS DISTINCT FROM a.producto_id));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION resumen_desde_variantes_eliminadas()
+RETURNS TRIGGER AS $$
+BEGIN
+  PERFORM marcar_producto_resumen(ARRAY(SELECT DISTINCT producto_id FROM antiguas));
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE producto_resumen_pendientes ENABLE ROW LEVEL SECURITY;
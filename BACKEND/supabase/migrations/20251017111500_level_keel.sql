@@ -0,0 +1,66 @@
+/*
+  # Saldos Vigentes y Particiones del Kardex
+
+  1. Nuevas Tablas
+    - `kardex_saldos`: último saldo de cada par (variante, sucursal) con la fecha del corte
+      que lo produjo; se actualiza en la misma transacción que los snapshots, así que
+      reconstruir un saldo ya no recorre todo el histórico de `kardex_snapshots`
+
+  2. Particiones
+    - `crear_particion_kardex` ya no falla cuando la partición por defecto tiene filas del
+      mes: crea la tabla suelta, le mueve esas filas y la adjunta. Bloquea la partición por
+      defecto mientras tanto, así que dos instancias no la crean a la vez
+
+  3. Carga Inicial
+    - `kardex_saldos` parte del snapshot más reciente de cada par
+*/
+
+CREATE TABLE IF NOT EXISTS kardex_saldos (
+  variante_id uuid NOT NULL,
+  sucursal_id uuid NOT NULL,
+  fecha_corte timestamptz NOT NULL,
+  cantidad_disponible integer NOT NULL,
+  cantidad_reservada integer NOT NULL,
+  costo_promedio decimal(10,2),
+  PRIMARY KEY (variante_id, sucursal_id)
+);
+
+INSERT INTO kardex_saldos (variante_id, sucursal_id, fecha_corte, cantidad_disponible,
+                           cantidad_reservada, costo_promedio)
+SELECT DISTINCT ON (variante_id, sucursal_id) variante_id, sucursal_id, fecha_corte,
+       cantidad_disponible, cantidad_reservada, costo_promedio
+FROM kardex_snapshots
+ORDER BY variante_id, sucursal_id, fecha_corte DESC
+ON CONFLICT DO NOTHING;
+
+-- Crear la partición mensual que contiene la fecha indicada si aún no existe, llevándole
+-- las filas de ese mes que hayan caído en la partición por defecto
+CREATE OR REPLACE FUNCTION crear_particion_kardex(p_fecha date)
+RETURNS void AS $$
+DECLARE
+  v_desde date := date_trunc('month', p_fecha)::date;
+  v_hasta date := (date_trunc('month', p_fecha) + interval '1 month')::date;
+  v_nombre text := 'kardex_movimientos_' || to_char(p_fecha, 'YYYYMM');
+BEGIN
+  IF to_regclass(v_nombre) IS NOT NULL THEN
+    RETURN;
+  END IF;
+
+  -- Frena las inserciones en la partición por defecto y serializa a los creadores
+  LOCK TABLE kardex_movimientos_default IN ACCESS EXCLUSIVE MODE;
+  IF to_regclass(v_nombre) IS NOT NULL THEN
+    RETURN;
+  END IF;
+
+  EXECUTE format('CREATE TABLE %I (LIKE kardex_movimientos INCLUDING DEFAULTS INCLUDING CONSTRAINTS)',
+    v_nombre);
+  EXECUTE format('WITH movidas AS (DELETE FROM kardex_movimientos_default ' ||
+                 'WHERE fecha_movimiento >= %L AND fecha_movimiento < %L RETURNING *) ' ||
+                 'INSERT INTO %I SELECT * FROM movidas', v_desde, v_hasta, v_nombre);
+  EXECUTE format('ALTER TABLE kardex_movimientos ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)',
+    v_nombre, v_desde, v_hasta);
+  EXECUTE format('ALTER TABLE %I ENABLE ROW LEVEL SECURITY', v_nombre);
+END;
+$$ LANGUAGE plpgsql;
+
+ALTER TABLE kardex_saldos ENABLE ROW LEVEL SECURITY;
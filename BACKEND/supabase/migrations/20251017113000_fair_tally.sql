@@ -0,0 +1,29 @@
+/*
+  # Activación Reanudable de Programaciones de Precios
+
+  1. Cambios en Tablas
+    - `programacion_precios.fecha_aplicacion`: momento en que terminó la pasada que aplica
+      los precios; una programación `activa` sin esta fecha quedó a medias (caída del nodo)
+      y se retoma desde el último producto de su detalle
+
+  2. Índices y Optimizaciones
+    - Índice parcial para encontrar las activaciones interrumpidas
+    - Índice por producto en el detalle: una programación con fin no toca productos que ya
+      tiene otra programación con fin activa, así que ninguna restaura una oferta ajena
+
+  3. Carga Inicial
+    - Las programaciones ya activadas se dan por aplicadas
+*/
+
+ALTER TABLE programacion_precios ADD COLUMN IF NOT EXISTS fecha_aplicacion timestamptz;
+
+UPDATE programacion_precios
+SET fecha_aplicacion = fecha_actualizacion
+WHERE estado <> 'programada' AND fecha_aplicacion IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_programacion_precios_sin_aplicar
+  ON programacion_precios(fecha_actualizacion)
+  WHERE estado = 'activa' AND fecha_aplicacion IS NULL;
+
+CREATE INDEX IF NOT EXISTS idx_programacion_precios_detalle_producto
+  ON programacion_precios_detalle(producto_id);
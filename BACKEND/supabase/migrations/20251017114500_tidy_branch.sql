@@ -0,0 +1,41 @@
+/*
+  # Versión del Árbol de Categorías
+
+  1. Nuevas Tablas
+    - `categorias_version`: una sola fila con un contador que cambia con cada modificación
+      de `categorias`; el árbol en memoria se recarga cuando difiere del que cargó
+
+  2. Mantenimiento
+    - Trigger por sentencia sobre `categorias` (INSERT, UPDATE, DELETE y TRUNCATE): detecta
+      también renombres, cambios de padre u orden hechos por SQL, que no tocan
+      `fecha_actualizacion` ni el número de filas
+*/
+
+CREATE TABLE IF NOT EXISTS categorias_version (
+  id smallint PRIMARY KEY DEFAULT 1,
+  version bigint NOT NULL DEFAULT 0,
+  CONSTRAINT chk_categorias_version_unica CHECK (id = 1)
+);
+
+INSERT INTO categorias_version (id, version) VALUES (1, 0)
+ON CONFLICT (id) DO NOTHING;
+
+CREATE OR REPLACE FUNCTION incrementar_version_categorias()
+RETURNS TRIGGER AS $$
+BEGIN
+  UPDATE categorias_version SET version = version + 1 WHERE id = 1;
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trigger_version_categorias ON categorias;
+CREATE TRIGGER trigger_version_categorias
+  AFTER INSERT OR UPDATE OR DELETE ON categorias
+  FOR EACH STATEMENT EXECUTE FUNCTION incrementar_version_categorias();
+
+DROP TRIGGER IF EXISTS trigger_version_categorias_truncate ON categorias;
+CREATE TRIGGER trigger_version_categorias_truncate
+  AFTER TRUNCATE ON categorias
+  FOR EACH STATEMENT EXECUTE FUNCTION incrementar_version_categorias();
+
+ALTER TABLE categorias_version ENABLE ROW LEVEL SECURITY;
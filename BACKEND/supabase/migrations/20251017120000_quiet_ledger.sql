@@ -0,0 +1,10 @@
+/*
+  # Índices de Cursor sin Uso
+
+  1. Índices y Optimizaciones
+    - Sólo el catálogo de productos pagina por cursor: se eliminan los índices de pedidos
+      y usuarios, que ninguna consulta usa y encarecían cada inserción
+*/
+
+DROP INDEX IF EXISTS idx_pedidos_usuario_cursor;
+DROP INDEX IF EXISTS idx_usuarios_activos_cursor;